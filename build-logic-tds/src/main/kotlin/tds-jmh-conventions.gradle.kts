@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+plugins { id("tds-java-base-conventions") }
+
+val libCatalog = extensions.getByType(VersionCatalogsExtension::class.java).named("tdsLibs")
+
+// JMH microbenchmarks live in src/jmh/java. They are not part of the build or the published
+// artifacts, and only run on demand, e.g. ./gradlew :tdcommon:jmh -Pjmh.includes=DataRootPathMatcher
+val jmh by
+  sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+  }
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+
+configurations[jmh.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+dependencies {
+  add(jmh.implementationConfigurationName, libCatalog.findLibrary("jmh-core").get())
+  add(jmh.annotationProcessorConfigurationName, libCatalog.findLibrary("jmh-generatorAnnprocess").get())
+}
+
+tasks.register<JavaExec>("jmh") {
+  group = "verification"
+  description = "Runs the JMH microbenchmarks, optionally only those matching -Pjmh.includes=<regex>."
+  classpath = jmh.runtimeClasspath
+  mainClass = "org.openjdk.jmh.Main"
+  providers.gradleProperty("jmh.includes").orNull?.let { args(it) }
+}
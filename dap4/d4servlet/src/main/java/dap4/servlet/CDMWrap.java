@@ -128,6 +128,17 @@ public class CDMWrap {
     return vardata;
   }
 
+  /**
+   * Get the CDM Variable for a DAP variable, so that
+   * its data can be read a section at a time.
+   *
+   * @param var the DAP variable
+   * @return the CDM Variable, or null if unknown
+   */
+  public Variable getCDMVariable(DapVariable var) {
+    return this.varmap.get(var);
+  }
+
   public void addVariableData(DapVariable var, CDMData cursor) {
     this.variables.put(var, cursor);
   }
@@ -168,6 +179,41 @@ public class CDMWrap {
     return this;
   }
 
+  /**
+   * Use a DMR built by an earlier CDMWrap for the same dataset,
+   * rather than building it again from the NetcdfDataset.
+   * The DMR is shared, so it must not be modified.
+   *
+   * @param ncd netcdf dataset
+   * @param dmr the DMR built for the dataset
+   * @param varnames the escaped full names of the CDM Variables of the DMR variables
+   * @return the cdmwrap, or null if a variable is no longer in the dataset
+   * @throws DapException
+   */
+  public CDMWrap open(NetcdfDataset ncd, DapDataset dmr, Map<DapVariable, String> varnames) throws DapException {
+    this.ncdfile = ncd;
+    setLocation(this.ncdfile.getLocation());
+    for (Map.Entry<DapVariable, String> entry : varnames.entrySet()) {
+      Variable cdmvar = this.ncdfile.findVariable(entry.getValue());
+      if (cdmvar == null)
+        return null;
+      recordVar(cdmvar, entry.getKey());
+    }
+    this.dmr = dmr;
+    return this;
+  }
+
+  /**
+   * @return the escaped full names of the CDM Variables of the DMR variables,
+   *         for use by open(NetcdfDataset, DapDataset, Map)
+   */
+  public Map<DapVariable, String> getVariableNames() {
+    Map<DapVariable, String> varnames = new HashMap<>();
+    for (Map.Entry<DapVariable, Variable> entry : this.varmap.getCDMMap().entrySet())
+      varnames.put(entry.getKey(), entry.getValue().getFullNameEscaped());
+    return varnames;
+  }
+
   public void close() throws IOException {
     if (this.ncdfile != null)
       this.ncdfile.close();
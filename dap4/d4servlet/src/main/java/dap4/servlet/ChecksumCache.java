@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package dap4.servlet;
+
+import dap4.core.ce.CEConstraint;
+import dap4.core.dmr.DapStructure;
+import dap4.core.dmr.DapType;
+import dap4.core.dmr.DapVariable;
+import dap4.core.util.DapException;
+import dap4.core.util.Slice;
+import java.nio.ByteOrder;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the CRC32 checksums of serialized top-level variables across requests,
+ * so that the checksums to put into the DMR do not require serializing all the data
+ * once more before the real response is written.
+ * <p>
+ * A checksum is keyed by the dataset location and last modified time, the byte order,
+ * the variable and its constrained slices and fields. Checksums are added whenever a
+ * DAP response is serialized with checksums on.
+ * Datasets without a last modified time are never cached.
+ */
+
+public class ChecksumCache {
+  //////////////////////////////////////////////////
+  // Constants
+
+  public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  //////////////////////////////////////////////////
+  // Instance variables
+
+  protected final int maxEntries;
+
+  protected final Map<String, Long> checksums;
+
+  protected final AtomicLong hits = new AtomicLong();
+  protected final AtomicLong misses = new AtomicLong();
+
+  //////////////////////////////////////////////////
+  // Constructor(s)
+
+  /**
+   * @param maxEntries number of variable checksums to keep, 0 to turn off
+   */
+  public ChecksumCache(int maxEntries) {
+    this.maxEntries = Math.max(0, maxEntries);
+    this.checksums = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+        return size() > ChecksumCache.this.maxEntries;
+      }
+    };
+  }
+
+  //////////////////////////////////////////////////
+  // Accessors
+
+  /**
+   * Get the checksums of all the top-level variables referenced by a constraint.
+   *
+   * @param c4 the dataset
+   * @param ce the constraint
+   * @param order the byte order of the response
+   * @return the checksums, or null if any one of them is not known
+   */
+  public Map<DapVariable, Long> get(CDMWrap c4, CEConstraint ce, ByteOrder order) throws DapException {
+    String prefix = makePrefix(c4, order);
+    if (prefix == null || this.maxEntries == 0)
+      return null;
+    Map<DapVariable, Long> result = new HashMap<>();
+    synchronized (this.checksums) {
+      for (DapVariable var : ce.getDMR().getTopVariables()) {
+        if (!ce.references(var) || var.getCount() == 0)
+          continue;
+        Long checksum = this.checksums.get(makeKey(prefix, var, ce));
+        if (checksum == null) {
+          this.misses.incrementAndGet();
+          return null;
+        }
+        result.put(var, checksum);
+      }
+    }
+    this.hits.incrementAndGet();
+    return result;
+  }
+
+  /**
+   * Remember the checksums computed while serializing a dataset.
+   *
+   * @param c4 the dataset
+   * @param ce the constraint the data was serialized with
+   * @param order the byte order of the response
+   * @param computed checksums of the top-level variables, as returned by DapSerializer.getChecksums()
+   */
+  public void put(CDMWrap c4, CEConstraint ce, ByteOrder order, Map<DapVariable, Long> computed) throws DapException {
+    String prefix = makePrefix(c4, order);
+    if (prefix == null || computed == null || this.maxEntries == 0)
+      return;
+    synchronized (this.checksums) {
+      for (Map.Entry<DapVariable, Long> entry : computed.entrySet()) {
+        if (entry.getKey().isTopLevel())
+          this.checksums.put(makeKey(prefix, entry.getKey(), ce), entry.getValue());
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (this.checksums) {
+      this.checksums.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (this.checksums) {
+      return this.checksums.size();
+    }
+  }
+
+  public long getHits() {
+    return this.hits.get();
+  }
+
+  public long getMisses() {
+    return this.misses.get();
+  }
+
+  public void showCache(Formatter f) {
+    f.format("DAP4 ChecksumCache entries = %d, hits = %d, misses = %d%n", size(), getHits(), getMisses());
+  }
+
+  //////////////////////////////////////////////////
+  // Keys
+
+  protected static String makePrefix(CDMWrap c4, ByteOrder order) {
+    String location = c4.getLocation();
+    long lastModified = c4.getNetcdfDataset() == null ? 0 : c4.getNetcdfDataset().getLastModified();
+    if (location == null || lastModified <= 0)
+      return null;
+    return location + "#" + lastModified + "#" + order;
+  }
+
+  protected static String makeKey(String prefix, DapVariable var, CEConstraint ce) throws DapException {
+    StringBuilder key = new StringBuilder(prefix);
+    key.append('#');
+    appendProjection(key, var, ce);
+    return key.toString();
+  }
+
+  // The variable, its slices and, for compound variables, the projected fields
+  protected static void appendProjection(StringBuilder key, DapVariable var, CEConstraint ce) throws DapException {
+    key.append(var.getFQN());
+    List<Slice> slices = ce.getConstrainedSlices(var);
+    if (slices != null) {
+      for (Slice slice : slices)
+        key.append(slice.toString());
+    }
+    DapType basetype = var.getBaseType();
+    if (basetype instanceof DapStructure) {
+      key.append('{');
+      for (DapVariable field : ((DapStructure) basetype).getFields()) {
+        if (!ce.references(field))
+          continue;
+        appendProjection(key, field, ce);
+        key.append(';');
+      }
+      key.append('}');
+    }
+  }
+}
@@ -72,6 +72,16 @@ abstract public class DapController extends HttpServlet {
   // Cache the value of getTestDataRoot()
   protected String testDataRoot = null;
 
+  // Checksums of variables already serialized, used for the DMR instead of serializing the data twice
+  protected ChecksumCache checksumCache = new ChecksumCache(ChecksumCache.DEFAULT_MAX_ENTRIES);
+
+  // DMRs already built, attached to the dataset of each request instead of building them again
+  protected DmrCache dmrCache = new DmrCache(DmrCache.DEFAULT_MAX_VARIABLES);
+
+  // If true, a DMR for which the checksums are not cached is sent without them, rather than
+  // serializing the data just to compute them. The data response still contains the checksums.
+  protected boolean streamChecksums = false;
+
   //////////////////////////////////////////////////
   // Constructor(s)
 
@@ -159,6 +169,26 @@ abstract public class DapController extends HttpServlet {
   }
 
 
+  public ChecksumCache getChecksumCache() {
+    return this.checksumCache;
+  }
+
+  public void setChecksumCache(ChecksumCache checksumCache) {
+    this.checksumCache = checksumCache;
+  }
+
+  public DmrCache getDmrCache() {
+    return this.dmrCache;
+  }
+
+  public void setDmrCache(DmrCache dmrCache) {
+    this.dmrCache = dmrCache;
+  }
+
+  public void setStreamChecksums(boolean streamChecksums) {
+    this.streamChecksums = streamChecksums;
+  }
+
   //////////////////////////////////////////////////////////
   // Primary Controller Entry Point
 
@@ -268,9 +298,10 @@ abstract public class DapController extends HttpServlet {
 
     // If the user calls for checksums, then we need to compute them
     if (csummode == ChecksumMode.TRUE) {
-      Map<DapVariable, Long> checksummap = computeDMRChecksums(c4, cxt);
+      Map<DapVariable, Long> checksummap = getDMRChecksums(c4, cxt);
       // Add to context
-      cxt.put("checksummap", checksummap);
+      if (checksummap != null)
+        cxt.put("checksummap", checksummap);
     }
 
     // Provide a PrintWriter for capturing the DMR.
@@ -323,12 +354,13 @@ abstract public class DapController extends HttpServlet {
     PrintWriter pw = new PrintWriter(sw);
 
     // If the user calls for checksums, then we need to compute them
-    // This, unfortunately, will require computation twice: one to insert
-    // into the DMR and one to insert into the serialized DAP stream. Sigh!
+    // This requires computation twice: one to insert into the DMR and one
+    // to insert into the serialized DAP stream, unless they are cached.
     if (csummode == ChecksumMode.TRUE) {
-      Map<DapVariable, Long> checksummap = computeDMRChecksums(c4, cxt);
+      Map<DapVariable, Long> checksummap = getDMRChecksums(c4, cxt);
       // Add to context
-      cxt.put("checksummap", checksummap);
+      if (checksummap != null)
+        cxt.put("checksummap", checksummap);
     }
 
     // Get the DMR as a string
@@ -365,6 +397,8 @@ abstract public class DapController extends HttpServlet {
         writer.write(c4.getDMR());
         cw.flush();
         cw.close();
+        // Remember the checksums for the next request
+        this.checksumCache.put(c4, ce, order, writer.getChecksums());
         break;
     }
     c4.close();
@@ -493,6 +527,22 @@ abstract public class DapController extends HttpServlet {
     return ce;
   }
 
+  /**
+   * Get the checksums to put into the DMR, from the cache or else by serializing the data.
+   *
+   * @return the checksums, or null if not cached and streamChecksums is true
+   */
+  protected Map<DapVariable, Long> getDMRChecksums(CDMWrap c4, DapContext cxt) throws DapException {
+    ByteOrder order = (ByteOrder) cxt.get(DapConstants.DAP4ENDIANTAG);
+    CEConstraint ce = (CEConstraint) cxt.get(CEConstraint.class);
+    Map<DapVariable, Long> checksummap = this.checksumCache.get(c4, ce, order);
+    if (checksummap == null && !this.streamChecksums) {
+      checksummap = computeDMRChecksums(c4, cxt);
+      this.checksumCache.put(c4, ce, order, checksummap);
+    }
+    return checksummap;
+  }
+
   protected Map<DapVariable, Long> computeDMRChecksums(CDMWrap c4, DapContext cxt) throws DapException {
     ByteOrder order = (ByteOrder) cxt.get(DapConstants.DAP4ENDIANTAG);
     ChecksumMode csum = (ChecksumMode) cxt.get(DapConstants.CHECKSUMTAG);
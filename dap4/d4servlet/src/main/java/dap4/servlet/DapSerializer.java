@@ -9,11 +9,20 @@ import dap4.core.ce.CEConstraint;
 import dap4.core.dmr.*;
 import dap4.core.interfaces.ArrayScheme;
 import dap4.core.util.*;
+import dap4.dap4lib.cdm.CDMTypeFcns;
+import dap4.dap4lib.cdm.CDMUtil;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
 import ucar.ma2.Index;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Range;
+import ucar.ma2.Section;
+import ucar.nc2.Variable;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +33,12 @@ import java.util.Map;
  */
 
 public class DapSerializer {
+  //////////////////////////////////////////////////
+  // Constants
+
+  // Size in bytes of the slabs in which top-level atomic variables are read and written
+  public static final int DEFAULTSLABSIZE = 4 * 1024 * 1024;
+
   //////////////////////////////////////////////////
   // Instance variables
 
@@ -36,6 +51,8 @@ public class DapSerializer {
 
   protected Map<DapVariable, Long> checksums = null; // record variable checkums
 
+  protected int slabsize = DEFAULTSLABSIZE;
+
   //////////////////////////////////////////////////
   // Constructor(s)
 
@@ -65,6 +82,11 @@ public class DapSerializer {
     return this.checksums;
   }
 
+  public DapSerializer setSlabSize(int slabsize) {
+    this.slabsize = slabsize;
+    return this;
+  }
+
   //////////////////////////////////////////////////
   // Writers
 
@@ -75,6 +97,10 @@ public class DapSerializer {
     for (DapVariable var : dmr.getTopVariables()) {
       if (!this.ce.references(var) || var.getCount() == 0)
         continue;
+      if (isSlabbed(var)) {
+        writeSlabbedVariable(var, writer);
+        continue;
+      }
       CDMData vardata = this.cdmwrap.getVariableData(var);
       if (vardata == null)
         throw new dap4.core.util.DapException("DapSerializer: cannot find  Variable data " + var.getFQN());
@@ -109,6 +135,10 @@ public class DapSerializer {
         assert false : "Unexpected variable type: " + data.toString();
     }
     dst.endVariable();
+    recordChecksum(template, dst);
+  }
+
+  protected void recordChecksum(DapVariable template, SerialWriter dst) {
     if (this.checksummode == ChecksumMode.TRUE) {
       if (this.checksums == null)
         this.checksums = new HashMap<>();
@@ -117,6 +147,111 @@ public class DapSerializer {
     }
   }
 
+  //////////////////////////////////////////////////
+  // Slabbed writer for top-level atomic variables
+
+  /**
+   * Top-level atomic arrays of fixed size types are read from the
+   * CDM Variable and written a slab at a time, rather than reading
+   * the whole variable into memory, so memory use does not depend
+   * on the size of the variable.
+   *
+   * @param var top-level variable
+   * @return true if the variable is written by writeSlabbedVariable
+   */
+  protected boolean isSlabbed(DapVariable var) {
+    DapType basetype = var.getBaseType();
+    return var.getRank() > 0 && basetype.getTypeSort().isAtomic() && TypeSort.getSize(basetype.getAtomicType()) > 0
+        && this.cdmwrap.getCDMVariable(var) != null;
+  }
+
+  protected void writeSlabbedVariable(DapVariable template, SerialWriter dst) throws IOException {
+    dst.startVariable();
+    writeAtomicSlabs(template, dst);
+    dst.endVariable();
+    recordChecksum(template, dst);
+  }
+
+  /**
+   * Write out the constrained values of an atomic variable in slabs of about slabsize bytes.
+   * The trailing dimensions that fit are read whole, the next dimension is cut into
+   * pieces, and the leading dimensions are iterated one index at a time.
+   *
+   * @param template the variable
+   * @param dst - where to write
+   * @throws IOException
+   */
+  protected void writeAtomicSlabs(DapVariable template, SerialWriter dst) throws IOException {
+    assert (this.ce.references(template));
+    DapType basetype = template.getBaseType();
+    DataType datatype = CDMTypeFcns.daptype2cdmtype(basetype);
+    if (datatype == null)
+      throw new DapException("Unknown basetype: " + basetype);
+    List<Slice> slices = ce.getConstrainedSlices(template);
+    if (slices == null)
+      throw new DapException("Unknown variable: " + template.getFQN());
+    Variable cdmvar = this.cdmwrap.getCDMVariable(template);
+    List<Range> ranges = CDMUtil.createCDMRanges(slices);
+    int rank = ranges.size();
+    int[] counts = new int[rank];
+    for (int i = 0; i < rank; i++) {
+      counts[i] = ranges.get(i).length();
+      if (counts[i] == 0)
+        return;
+    }
+
+    long maxcount = Math.max(1, this.slabsize / TypeSort.getSize(basetype.getAtomicType()));
+    int split = rank - 1;
+    long inner = 1;
+    while (split > 0 && inner * counts[split] <= maxcount) {
+      inner *= counts[split];
+      split--;
+    }
+    int step = (int) Math.max(1, Math.min(counts[split], maxcount / inner));
+
+    int[] outer = new int[split]; // index into each leading dimension
+    List<Range> section = new ArrayList<>(ranges);
+    try {
+      for (;;) {
+        for (int i = 0; i < split; i++) {
+          int e = ranges.get(i).element(outer[i]);
+          section.set(i, new Range(e, e));
+        }
+        Range r = ranges.get(split);
+        for (int k = 0; k < counts[split]; k += step) {
+          int n = Math.min(step, counts[split] - k);
+          section.set(split, new Range(r.element(k), r.element(k + n - 1), r.stride()));
+          Array slab = cdmvar.read(new Section(section));
+          dst.writeAtomicArray(basetype, toVector(slab, basetype, datatype));
+        }
+        // Move to the next index of the leading dimensions
+        int i = split - 1;
+        while (i >= 0 && ++outer[i] == counts[i]) {
+          outer[i] = 0;
+          i--;
+        }
+        if (i < 0)
+          break;
+      }
+    } catch (InvalidRangeException e) {
+      throw new DapException("Illegal slice set", e);
+    }
+  }
+
+  /**
+   * Convert a slab to the java array expected by SerialWriter.writeAtomicArray,
+   * in the same way as CDMData.sliceAtomic.
+   */
+  protected static Object toVector(Array slab, DapType basetype, DataType datatype) throws DapException {
+    Object content = slab.get1DJavaArray(datatype);
+    if (content.getClass() == CDMTypeFcns.createVector(datatype, 0).getClass())
+      return content;
+    Object data = CDMTypeFcns.createVector(datatype, slab.getSize());
+    for (int i = 0; i < slab.getSize(); i++)
+      CDMTypeFcns.vectorcopy(basetype, content, data, i, i);
+    return data;
+  }
+
   /**
    * Write out an atomic variable.
    *
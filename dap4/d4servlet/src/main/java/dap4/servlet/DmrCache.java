@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package dap4.servlet;
+
+import dap4.core.dmr.DapDataset;
+import dap4.core.dmr.DapVariable;
+import dap4.core.util.DapException;
+import java.util.Formatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import ucar.nc2.dataset.NetcdfDataset;
+
+/**
+ * Keeps the DMR built for a dataset across requests, together with the
+ * names of the CDM Variables it maps to, so that a request only has to
+ * attach the DMR to the NetcdfDataset it acquired instead of building
+ * the DMR again.
+ * <p>
+ * Entries are keyed by dataset path and are only used while the last
+ * modified time of the dataset is the same. The cache is bounded by the
+ * total number of variables in the cached DMRs, least recently used
+ * first. Datasets without a last modified time are never cached.
+ */
+
+public class DmrCache {
+  //////////////////////////////////////////////////
+  // Constants
+
+  public static final int DEFAULT_MAX_VARIABLES = 100000;
+
+  //////////////////////////////////////////////////
+  // Instance variables
+
+  protected final long maxVariables;
+
+  protected final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  protected long nvariables = 0; // in all entries
+
+  protected final AtomicLong hits = new AtomicLong();
+  protected final AtomicLong misses = new AtomicLong();
+  protected final AtomicLong evictions = new AtomicLong();
+
+  //////////////////////////////////////////////////
+  // Constructor(s)
+
+  /**
+   * @param maxVariables total number of variables in the cached DMRs, 0 to turn off
+   */
+  public DmrCache(long maxVariables) {
+    this.maxVariables = Math.max(0, maxVariables);
+  }
+
+  //////////////////////////////////////////////////
+  // Accessors
+
+  /**
+   * Wrap a dataset, using the DMR cached for its path if there is one,
+   * or else building the DMR and caching it.
+   *
+   * @param datasetpath the dataset request path
+   * @param ncd the dataset acquired for this request
+   * @return the wrapped dataset
+   */
+  public CDMWrap open(String datasetpath, NetcdfDataset ncd) throws DapException {
+    long lastModified = ncd.getLastModified();
+    if (this.maxVariables == 0 || lastModified <= 0)
+      return new CDMWrap().open(ncd);
+
+    Entry entry;
+    synchronized (this.entries) {
+      entry = this.entries.get(datasetpath);
+    }
+    if (entry != null && entry.lastModified == lastModified) {
+      CDMWrap c4 = new CDMWrap().open(ncd, entry.dmr, entry.varnames);
+      if (c4 != null) {
+        this.hits.incrementAndGet();
+        return c4;
+      }
+    }
+
+    this.misses.incrementAndGet();
+    CDMWrap c4 = new CDMWrap().open(ncd);
+    put(datasetpath, new Entry(lastModified, c4.getDMR(), c4.getVariableNames()));
+    return c4;
+  }
+
+  protected void put(String datasetpath, Entry entry) {
+    if (entry.varnames.size() > this.maxVariables)
+      return;
+    synchronized (this.entries) {
+      Entry old = this.entries.put(datasetpath, entry);
+      if (old != null)
+        this.nvariables -= old.varnames.size();
+      this.nvariables += entry.varnames.size();
+      Iterator<Entry> iter = this.entries.values().iterator();
+      while (this.nvariables > this.maxVariables && iter.hasNext()) {
+        Entry eldest = iter.next();
+        iter.remove();
+        this.nvariables -= eldest.varnames.size();
+        this.evictions.incrementAndGet();
+      }
+    }
+  }
+
+  /** Remove the DMR of a dataset, eg when it has changed. */
+  public void invalidate(String datasetpath) {
+    synchronized (this.entries) {
+      Entry old = this.entries.remove(datasetpath);
+      if (old != null)
+        this.nvariables -= old.varnames.size();
+    }
+  }
+
+  public void clear() {
+    synchronized (this.entries) {
+      this.entries.clear();
+      this.nvariables = 0;
+    }
+  }
+
+  public int size() {
+    synchronized (this.entries) {
+      return this.entries.size();
+    }
+  }
+
+  public long getHits() {
+    return this.hits.get();
+  }
+
+  public long getMisses() {
+    return this.misses.get();
+  }
+
+  public long getEvictions() {
+    return this.evictions.get();
+  }
+
+  public void showCache(Formatter f) {
+    synchronized (this.entries) {
+      f.format("DAP4 DmrCache entries = %d, variables = %d (max %d), hits = %d, misses = %d, evictions = %d%n",
+          this.entries.size(), this.nvariables, this.maxVariables, getHits(), getMisses(), getEvictions());
+      for (Map.Entry<String, Entry> entry : this.entries.entrySet())
+        f.format("  %s (%d variables)%n", entry.getKey(), entry.getValue().varnames.size());
+    }
+  }
+
+  //////////////////////////////////////////////////
+
+  protected static class Entry {
+    final long lastModified;
+    final DapDataset dmr;
+    final Map<DapVariable, String> varnames;
+
+    Entry(long lastModified, DapDataset dmr, Map<DapVariable, String> varnames) {
+      this.lastModified = lastModified;
+      this.dmr = dmr;
+      this.varnames = varnames;
+    }
+  }
+}
@@ -49,6 +49,9 @@ public class SerialWriter {
 
   static final int COUNTSIZE = 8;
 
+  // Largest encoding buffer kept for reuse by the next write
+  static final int MAXENCODEBUFFER = 8 * 1024 * 1024;
+
   //////////////////////////////////////////////////
   // Instance variables
 
@@ -63,6 +66,7 @@ public class SerialWriter {
 
   protected ByteBuffer crcbuffer = null;
   protected ByteBuffer countbuffer = null;
+  protected ByteBuffer encodebuffer = null; // reused across writeAtomicArray calls
 
   //////////////////////////////////////////////////
   // Constructor(s)
@@ -107,11 +111,31 @@ public class SerialWriter {
    */
 
   public static ByteBuffer encodeArray(DapType vtype, Object values, ByteOrder order) throws IOException {
+    return encodeArray(vtype, values, order, null);
+  }
+
+  /**
+   * Encode an array of primitive values, reusing a buffer.
+   *
+   * @param vtype The type of the object
+   * @param values The value array
+   * @param reuse Encode into this buffer if it is large enough; may be null
+   * @return bytebuffer encoding of the array, which may be reuse
+   */
+
+  public static ByteBuffer encodeArray(DapType vtype, Object values, ByteOrder order, ByteBuffer reuse)
+      throws IOException {
     TypeSort atomtype = vtype.getAtomicType();
     assert values != null && values.getClass().isArray();
     int count = Array.getLength(values);
     int total = (int) TypeSort.getSize(atomtype) * count;
-    ByteBuffer buf = ByteBuffer.allocate(total).order(order);
+    ByteBuffer buf;
+    if (reuse != null && reuse.capacity() >= total) {
+      buf = reuse;
+      buf.clear();
+    } else
+      buf = ByteBuffer.allocate(total);
+    buf.order(order);
     switch (atomtype) {
       case Char:
         char[] datac = (char[]) values;
@@ -273,7 +297,9 @@ public class SerialWriter {
    */
   public void writeAtomicArray(DapType daptype, Object values) throws IOException {
     assert values != null && values.getClass().isArray();
-    ByteBuffer buf = SerialWriter.encodeArray(daptype, values, this.order);
+    ByteBuffer buf = SerialWriter.encodeArray(daptype, values, this.order, this.encodebuffer);
+    if (buf.capacity() <= MAXENCODEBUFFER)
+      this.encodebuffer = buf;
     byte[] bytes = buf.array();
     int len = buf.position();
     writeBytes(bytes, len);
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package dap4.servlet;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import dap4.core.ce.CEConstraint;
+import dap4.core.dmr.DapDataset;
+import dap4.core.dmr.DapVariable;
+import dap4.core.util.DapConstants;
+import dap4.mock.MockResponseOutputStream;
+import dap4.mock.TestDapControllerBase;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.nc2.Dimension;
+import ucar.nc2.dataset.NetcdfDataset;
+import ucar.nc2.dataset.NetcdfDatasets;
+import ucar.nc2.write.NetcdfFormatWriter;
+
+public class TestChecksumCache {
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private String location;
+
+  @Before
+  public void writeFile() throws IOException {
+    File file = tempFolder.newFile("checksums.nc");
+    location = file.getAbsolutePath();
+    NetcdfFormatWriter.Builder writerb = NetcdfFormatWriter.createNewNetcdf3(location);
+    Dimension x = writerb.addDimension("x", 4);
+    writerb.addVariable("v", DataType.INT, "x");
+    writerb.addVariable("w", DataType.DOUBLE, "x");
+    try (NetcdfFormatWriter writer = writerb.build()) {
+      writer.write("v", Array.factory(DataType.INT, new int[] {x.getLength()}, new int[] {1, 2, 3, 4}));
+      writer.write("w", Array.factory(DataType.DOUBLE, new int[] {x.getLength()}, new double[] {1, 2, 3, 4}));
+    }
+  }
+
+  @Test
+  public void shouldGetChecksumsOnlyWhenAllAreKnown() throws IOException {
+    try (NetcdfDataset ncd = NetcdfDatasets.openDataset(location)) {
+      CDMWrap c4 = new CDMWrap().open(ncd);
+      DapDataset dmr = c4.getDMR();
+      CEConstraint all = CEConstraint.compile(null, dmr);
+      ChecksumCache cache = new ChecksumCache(100);
+      assertThat(cache.get(c4, all, ByteOrder.BIG_ENDIAN)).isNull();
+
+      Map<DapVariable, Long> checksums = new HashMap<>();
+      checksums.put(dmr.findVariable("/v"), 1L);
+      cache.put(c4, all, ByteOrder.BIG_ENDIAN, checksums);
+      assertThat(cache.get(c4, all, ByteOrder.BIG_ENDIAN)).isNull();
+
+      checksums.put(dmr.findVariable("/w"), 2L);
+      cache.put(c4, all, ByteOrder.BIG_ENDIAN, checksums);
+      assertThat(cache.get(c4, all, ByteOrder.BIG_ENDIAN)).isEqualTo(checksums);
+      assertThat(cache.getHits()).isEqualTo(1);
+      assertThat(cache.getMisses()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void shouldKeyOnOrderAndSlices() throws IOException {
+    try (NetcdfDataset ncd = NetcdfDatasets.openDataset(location)) {
+      CDMWrap c4 = new CDMWrap().open(ncd);
+      DapDataset dmr = c4.getDMR();
+      CEConstraint sliced = CEConstraint.compile("/v[0:1]", dmr);
+      ChecksumCache cache = new ChecksumCache(100);
+
+      Map<DapVariable, Long> checksums = new HashMap<>();
+      checksums.put(dmr.findVariable("/v"), 1L);
+      cache.put(c4, sliced, ByteOrder.BIG_ENDIAN, checksums);
+
+      assertThat(cache.get(c4, sliced, ByteOrder.BIG_ENDIAN)).isEqualTo(checksums);
+      assertThat(cache.get(c4, sliced, ByteOrder.LITTLE_ENDIAN)).isNull();
+      assertThat(cache.get(c4, CEConstraint.compile("/v[1:2]", dmr), ByteOrder.BIG_ENDIAN)).isNull();
+    }
+  }
+
+  @Test
+  public void shouldReuseChecksumsOfEarlierResponse() throws IOException {
+    // each response closes its dataset, so open the file for each request
+    TestDapControllerBase controller = new TestDapControllerBase(null) {
+      @Override
+      protected CDMWrap getCDMWrap(DapRequest drq) throws IOException {
+        return new CDMWrap().open(NetcdfDatasets.openDataset(location));
+      }
+    };
+
+    byte[] first = requestData(controller);
+    assertThat(controller.getChecksumCache().getMisses()).isEqualTo(1);
+    assertThat(controller.getChecksumCache().size()).isEqualTo(2);
+
+    byte[] second = requestData(controller);
+    assertThat(controller.getChecksumCache().getHits()).isEqualTo(1);
+    assertThat(second).isEqualTo(first);
+  }
+
+  private static byte[] requestData(DapController controller) throws IOException {
+    String path = "/thredds/dap4/checksums.nc.dap";
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(request.getRequestURL()).thenReturn(new StringBuffer("https://tds.org" + path));
+    when(request.getServletPath()).thenReturn(path);
+    when(request.getQueryString()).thenReturn(DapConstants.CHECKSUMTAG + "=true");
+
+    try (MockResponseOutputStream out = new MockResponseOutputStream()) {
+      when(response.getOutputStream()).thenReturn(out);
+      controller.handleRequest(request, response);
+      return out.getOutput();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package dap4.servlet;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import dap4.core.ce.CEConstraint;
+import dap4.core.dmr.DapVariable;
+import dap4.core.util.ChecksumMode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.nc2.dataset.NetcdfDataset;
+import ucar.nc2.dataset.NetcdfDatasets;
+import ucar.nc2.write.NetcdfFormatWriter;
+
+@RunWith(Parameterized.class)
+public class TestDapSerializer {
+
+  @Parameterized.Parameters(name = "{0}")
+  public static List<Object[]> getTestParameters() {
+    return Arrays.asList(new Object[] {null}, new Object[] {"/v[1:2:7][0:2]"}, new Object[] {"/v[3][1:2];/w[2:5]"});
+  }
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final String constraint;
+  private String location;
+
+  public TestDapSerializer(String constraint) {
+    this.constraint = constraint;
+  }
+
+  @Before
+  public void writeFile() throws IOException {
+    location = tempFolder.newFile("slabs.nc").getAbsolutePath();
+    NetcdfFormatWriter.Builder writerb = NetcdfFormatWriter.createNewNetcdf3(location);
+    writerb.addDimension("x", 8);
+    writerb.addDimension("y", 3);
+    writerb.addVariable("v", DataType.INT, "x y");
+    writerb.addVariable("w", DataType.DOUBLE, "x");
+    int[] v = new int[24];
+    for (int i = 0; i < v.length; i++)
+      v[i] = i;
+    double[] w = new double[8];
+    for (int i = 0; i < w.length; i++)
+      w[i] = i / 2.0;
+    try (NetcdfFormatWriter writer = writerb.build()) {
+      writer.write("v", Array.factory(DataType.INT, new int[] {8, 3}, v));
+      writer.write("w", Array.factory(DataType.DOUBLE, new int[] {8}, w));
+    }
+  }
+
+  @Test
+  public void shouldWriteSameBytesWhateverTheSlabSize() throws IOException {
+    byte[] unslabbed = serialize(-1);
+    assertThat(serialize(DapSerializer.DEFAULTSLABSIZE)).isEqualTo(unslabbed);
+    assertThat(serialize(8)).isEqualTo(unslabbed);
+    assertThat(serialize(1)).isEqualTo(unslabbed);
+  }
+
+  // slabsize < 0 writes all variables without slabs
+  private byte[] serialize(int slabsize) throws IOException {
+    try (NetcdfDataset ncd = NetcdfDatasets.openDataset(location)) {
+      CDMWrap c4 = new CDMWrap().open(ncd);
+      CEConstraint ce = CEConstraint.compile(constraint, c4.getDMR());
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      DapSerializer serializer = new DapSerializer(c4, ce, out, ByteOrder.BIG_ENDIAN, ChecksumMode.TRUE) {
+        @Override
+        protected boolean isSlabbed(DapVariable var) {
+          return slabsize > 0 && super.isSlabbed(var);
+        }
+      };
+      if (slabsize > 0)
+        serializer.setSlabSize(slabsize);
+      serializer.write(c4.getDMR());
+      return out.toByteArray();
+    }
+  }
+}
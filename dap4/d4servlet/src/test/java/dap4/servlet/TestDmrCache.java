@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package dap4.servlet;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import dap4.core.dmr.DapVariable;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.nc2.dataset.NetcdfDataset;
+import ucar.nc2.dataset.NetcdfDatasets;
+import ucar.nc2.write.NetcdfFormatWriter;
+
+public class TestDmrCache {
+  private static final String PATH = "/dap4/dmr.nc";
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File file;
+
+  @Before
+  public void writeFile() throws IOException {
+    file = tempFolder.newFile("dmr.nc");
+    NetcdfFormatWriter.Builder writerb = NetcdfFormatWriter.createNewNetcdf3(file.getAbsolutePath());
+    writerb.addDimension("x", 4);
+    writerb.addVariable("v", DataType.INT, "x");
+    try (NetcdfFormatWriter writer = writerb.build()) {
+      writer.write("v", Array.factory(DataType.INT, new int[] {4}, new int[] {1, 2, 3, 4}));
+    }
+  }
+
+  @Test
+  public void shouldReuseDmrForSameDataset() throws IOException {
+    DmrCache cache = new DmrCache(100);
+    try (NetcdfDataset ncd1 = NetcdfDatasets.openDataset(file.getAbsolutePath());
+        NetcdfDataset ncd2 = NetcdfDatasets.openDataset(file.getAbsolutePath())) {
+      CDMWrap c1 = cache.open(PATH, ncd1);
+      CDMWrap c2 = cache.open(PATH, ncd2);
+
+      assertThat(c2.getDMR()).isSameInstanceAs(c1.getDMR());
+      assertThat(cache.getMisses()).isEqualTo(1);
+      assertThat(cache.getHits()).isEqualTo(1);
+
+      // the variables are read from the dataset of the request
+      DapVariable v = c2.getDMR().findVariable("/v");
+      assertThat(c2.getCDMVariable(v)).isNotSameInstanceAs(c1.getCDMVariable(v));
+      assertThat(c2.getVariableData(v).getArray().getInt(3)).isEqualTo(4);
+    }
+  }
+
+  @Test
+  public void shouldBuildDmrAgainWhenFileChanges() throws IOException {
+    DmrCache cache = new DmrCache(100);
+    try (NetcdfDataset ncd = NetcdfDatasets.openDataset(file.getAbsolutePath())) {
+      cache.open(PATH, ncd);
+    }
+    assertThat(file.setLastModified(file.lastModified() - 10000)).isTrue();
+    try (NetcdfDataset ncd = NetcdfDatasets.openDataset(file.getAbsolutePath())) {
+      cache.open(PATH, ncd);
+    }
+    assertThat(cache.getMisses()).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldEvictWhenTooManyVariables() throws IOException {
+    DmrCache cache = new DmrCache(1);
+    try (NetcdfDataset ncd = NetcdfDatasets.openDataset(file.getAbsolutePath())) {
+      cache.open(PATH, ncd);
+      cache.open("/dap4/other.nc", ncd);
+    }
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.getEvictions()).isEqualTo(1);
+  }
+}
@@ -6,6 +6,7 @@
 plugins {
   id("tds-java-library-conventions")
   id("tds-protobuf-conventions")
+  id("tds-jmh-conventions")
 }
 
 description = "A collection of utilities needed server-side, including THREDDS catalog handling."
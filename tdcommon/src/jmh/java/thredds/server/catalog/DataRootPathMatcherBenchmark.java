@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.catalog;
+
+import org.openjdk.jmh.annotations.*;
+import ucar.unidata.util.StringUtil2;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares longest dataRoot path matching with DataRootPathTrie against the reverse sorted TreeSet.tailSet scan
+ * that DataRootPathMatcher used before.
+ * Run with: ./gradlew :tdcommon:jmh -Pjmh.includes=DataRootPathMatcherBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataRootPathMatcherBenchmark {
+
+  @Param({"1000", "10000", "50000"})
+  public int nroots;
+
+  private TreeSet<String> treeSet;
+  private DataRootPathTrie trie;
+  private String[] requests;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(1234);
+    List<String> roots = new ArrayList<>(nroots);
+    for (int i = 0; i < nroots; i++) {
+      // a few organizations, many models, some nested roots
+      StringBuilder sb = new StringBuilder();
+      sb.append("org").append(i % 17).append("/model").append(i % 997).append("/run").append(i);
+      if (i % 5 == 0)
+        sb.append("/grib");
+      roots.add(sb.toString());
+    }
+
+    treeSet = new TreeSet<>((s1, s2) -> s2.compareTo(s1)); // reverse sort, as DataRootPathMatcher did
+    for (String root : roots)
+      treeSet.add(root + "/");
+    trie = DataRootPathTrie.build(roots);
+
+    requests = new String[1024];
+    for (int i = 0; i < requests.length; i++) {
+      String root = roots.get(random.nextInt(nroots));
+      switch (i % 4) {
+        case 0:
+          requests[i] = root + "/2026/10/18/file.grib2";
+          break;
+        case 1:
+          requests[i] = root + "/best";
+          break;
+        case 2:
+          requests[i] = root;
+          break;
+        default:
+          requests[i] = "nomatch/" + root; // misses
+          break;
+      }
+    }
+  }
+
+  private int next;
+
+  private String nextRequest() {
+    next = (next + 1) & (requests.length - 1);
+    return requests[next];
+  }
+
+  @Benchmark
+  public String treeSetTailScan() {
+    String reqPath = nextRequest();
+    if (!reqPath.endsWith("/")) {
+      reqPath += "/";
+    }
+    SortedSet<String> tail = treeSet.tailSet(reqPath);
+    for (String key : tail) {
+      if (reqPath.startsWith(key)) {
+        return key.substring(0, key.length() - 1);
+      }
+      if (StringUtil2.match(reqPath, key) == 0) {
+        break;
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  public String trieLookup() {
+    return trie.findLongestPathMatch(nextRequest());
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String treeSetTailScanSynchronized() {
+    synchronized (this) { // DataRootManager.findDataRoot was synchronized
+      return treeSetTailScan();
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String trieLookupConcurrent() {
+    return trieLookup();
+  }
+}
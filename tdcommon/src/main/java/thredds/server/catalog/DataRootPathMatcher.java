@@ -8,15 +8,16 @@ import thredds.client.catalog.Dataset;
 import thredds.server.catalog.tracker.DataRootExt;
 import thredds.server.catalog.tracker.DataRootTracker;
 import ucar.nc2.util.AliasTranslator;
-import ucar.unidata.util.StringUtil2;
 import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Find the dataRoot path from the request, by getting the longest match.
- * Use a TreeSet for minimum in-memory use.
+ * Lookups use an immutable DataRootPathTrie, rebuilt on the first lookup after a new path is added,
+ * so request threads never lock except while that rebuild happens.
  * Keep the objects in a separate map that could be off-heap and persistent.
  *
  * @author caron
@@ -29,23 +30,13 @@ public class DataRootPathMatcher {
   static private final String ERROR = "*** ERROR: ";
   static private boolean skipTestDataDir = true;
 
-  private static class PathComparator implements Comparator<String> {
-    public int compare(String s1, String s2) {
-      int compare = s2.compareTo(s1); // reverse sort
-      if (debug)
-        System.out.println(" compare " + s1 + " to " + s2 + " = " + compare);
-      return compare;
-    }
-  }
-
-  /////////////////////////////////////////////////////////////////////////////////////////
-
   private ConfigCatalogCache ccc;
   private DataRootTracker tracker;
 
-  private final TreeSet<String> treeSet = new TreeSet<>(new PathComparator()); // this should be in-memory for speed
-  private final Map<String, DataRootExt> map = new HashMap<>(); // this could be turned into an off-heap cache if
-                                                                // needed, with persistence.
+  private final Set<String> paths = ConcurrentHashMap.newKeySet(); // this should be in-memory for speed
+  private final Map<String, DataRootExt> map = new ConcurrentHashMap<>(); // this could be turned into an off-heap
+                                                                          // cache if needed, with persistence.
+  private volatile DataRootPathTrie trie; // null when paths has changed since it was built
 
   public DataRootPathMatcher(ConfigCatalogCache ccc, DataRootTracker tracker) {
     this.ccc = ccc;
@@ -67,7 +58,16 @@ public class DataRootPathMatcher {
     if (!path.endsWith("/")) {
       path += "/";
     }
-    return treeSet.add(path);
+    boolean added = paths.add(path);
+    if (added) {
+      invalidateTrie();
+    }
+    return added;
+  }
+
+  // synchronized so a rebuild in progress cant publish a trie without this path
+  private synchronized void invalidateTrie() {
+    trie = null;
   }
 
   /**
@@ -77,7 +77,7 @@ public class DataRootPathMatcher {
    * @return true if already contains the key
    */
   public boolean contains(String path) {
-    return treeSet.contains(path);
+    return paths.contains(path);
   }
 
   public DataRootExt get(String path) {
@@ -100,27 +100,22 @@ public class DataRootPathMatcher {
    * @return the value whose key is the longest that matches path, or null if none
    */
   public String findLongestPathMatch(String reqPath) {
-    if (!reqPath.endsWith("/")) {
-      reqPath += "/";
-    }
-    SortedSet<String> tail = treeSet.tailSet(reqPath);
-    if (tail.isEmpty()) {
-      return null;
+    DataRootPathTrie current = trie;
+    if (current == null) {
+      current = buildTrie();
     }
+    return current.findLongestPathMatch(reqPath);
+  }
 
-    // check for common starting chars
-    for (String key : tail) {
-      if (reqPath.startsWith(key)) {
-        return key.endsWith("/") ? key.substring(0, key.length() - 1) : key;
-      }
-
-      // terminate when there's no match at all.
-      if (StringUtil2.match(reqPath, key) == 0) {
-        break;
-      }
+  private synchronized DataRootPathTrie buildTrie() {
+    DataRootPathTrie current = trie;
+    if (current == null) {
+      current = DataRootPathTrie.build(new ArrayList<>(paths));
+      trie = current;
+      if (debug)
+        System.out.printf("DataRootPathMatcher rebuilt trie with %d paths%n", current.size());
     }
-
-    return null;
+    return current;
   }
 
   /**
@@ -148,9 +143,14 @@ public class DataRootPathMatcher {
     if (dataRoot != null)
       return dataRoot;
 
-    // otherwise must read the catalog that its in
-    dataRoot = readDataRootFromCatalog(dataRootExt);
-    dataRootExt.setDataRoot(dataRoot);
+    // otherwise must read the catalog that its in; only one thread at a time
+    synchronized (this) {
+      dataRoot = dataRootExt.getDataRoot();
+      if (dataRoot == null) {
+        dataRoot = readDataRootFromCatalog(dataRootExt);
+        dataRootExt.setDataRoot(dataRoot);
+      }
+    }
     return dataRoot;
   }
 
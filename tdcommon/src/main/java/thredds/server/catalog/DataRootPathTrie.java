@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.catalog;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable trie of dataRoot paths, one level per path segment, for longest prefix matching of request paths.
+ * A lookup walks at most one node per segment of the request path, independent of the number of data roots.
+ * <p>
+ * A path matches if it is equal to the request path, or is a prefix of it ending at a '/'.
+ * A trailing '/' on either path is ignored, so "ncmodels" and "ncmodels/" match "ncmodels/canonical"
+ * but not "ncmodelsX".
+ */
+@Immutable
+public final class DataRootPathTrie {
+
+  private static final class Node {
+    private final Map<String, Node> children = new HashMap<>(4);
+    private String path; // the dataRoot path ending at this node, or null
+
+    private Node child(String segment) {
+      return children.computeIfAbsent(segment, k -> new Node());
+    }
+  }
+
+  /**
+   * Build a trie from the given dataRoot paths.
+   *
+   * @param paths the dataRoot paths, with or without a trailing '/'
+   * @return the trie
+   */
+  public static DataRootPathTrie build(Collection<String> paths) {
+    return new DataRootPathTrie(paths);
+  }
+
+  private final Node root = new Node(); // never modified once the constructor returns
+  private final int size;
+
+  private DataRootPathTrie(Collection<String> paths) {
+    for (String path : paths) {
+      String key = stripTrailingSlash(path);
+      Node node = root;
+      int limit = key.length();
+      int start = 0;
+      while (true) {
+        int end = segmentEnd(key, start, limit);
+        node = node.child(key.substring(start, end));
+        if (end == limit)
+          break;
+        start = end + 1;
+      }
+      node.path = key;
+    }
+    this.size = paths.size();
+  }
+
+  /**
+   * Find the longest dataRoot path matching the request.
+   *
+   * @param reqPath the request path, without a leading '/'
+   * @return the matching dataRoot path without a trailing '/', or null if none
+   */
+  public String findLongestPathMatch(String reqPath) {
+    int limit = reqPath.endsWith("/") ? reqPath.length() - 1 : reqPath.length();
+    String match = null;
+    Node node = root;
+    int start = 0;
+    while (true) {
+      int end = segmentEnd(reqPath, start, limit);
+      node = node.children.get(reqPath.substring(start, end));
+      if (node == null)
+        break;
+      if (node.path != null)
+        match = node.path;
+      if (end == limit)
+        break;
+      start = end + 1;
+    }
+    return match;
+  }
+
+  /** The number of paths the trie was built from. */
+  public int size() {
+    return size;
+  }
+
+  private static int segmentEnd(String s, int start, int limit) {
+    int slash = s.indexOf('/', start);
+    return (slash < 0 || slash > limit) ? limit : slash;
+  }
+
+  private static String stripTrailingSlash(String path) {
+    return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+  }
+}
@@ -132,6 +132,21 @@ public class DatasetScan extends CatalogRef {
     return config;
   }
 
+  /**
+   * The directory that makeCatalogForDirectory scans for the given path.
+   *
+   * @param orgPath the part of the baseURI that is the path
+   * @return the directory, or null if the path does not start with the path of this DatasetScan
+   */
+  public MFile getDirectory(String orgPath) {
+    String dataDirRelative = translatePathToReletiveLocation(orgPath, config.path);
+    if (dataDirRelative == null)
+      return null;
+    if (!dataDirRelative.endsWith("/"))
+      dataDirRelative += "/";
+    return MFiles.create(getDataDir(config.scanDir, dataDirRelative));
+  }
+
   /////////////////////////////////////////////////////////
 
   /**
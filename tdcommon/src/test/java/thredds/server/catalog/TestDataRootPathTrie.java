@@ -0,0 +1,74 @@
+package thredds.server.catalog;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TestDataRootPathTrie {
+  private static final List<String> DATA_ROOTS = Arrays.asList("/thredds/dods/test/longer", "/thredds/dods/test",
+      "/thredds-test/dods/test", "/thredds/dods/tester", "/thredds/dods/short", "/actionable", "myworld", "mynot",
+      "ncmodels", "ncmodels/bzipped", "trailing/");
+
+  private final DataRootPathTrie trie = DataRootPathTrie.build(DATA_ROOTS);
+
+  @Test
+  public void shouldReturnLongestMatchingPath() {
+    assertThat(trie.findLongestPathMatch("/thredds/dods/test")).isEqualTo("/thredds/dods/test");
+    assertThat(trie.findLongestPathMatch("/thredds/dods/test/")).isEqualTo("/thredds/dods/test");
+    assertThat(trie.findLongestPathMatch("/thredds/dods/test/lo")).isEqualTo("/thredds/dods/test");
+    assertThat(trie.findLongestPathMatch("/thredds/dods/test/longer/donger")).isEqualTo("/thredds/dods/test/longer");
+    assertThat(trie.findLongestPathMatch("ncmodels/bzipped/file.nc")).isEqualTo("ncmodels/bzipped");
+    assertThat(trie.findLongestPathMatch("ncmodels/canonical")).isEqualTo("ncmodels");
+    assertThat(trie.findLongestPathMatch("trailing/file.nc")).isEqualTo("trailing");
+  }
+
+  @Test
+  public void shouldOnlyMatchWholeSegments() {
+    assertThat(trie.findLongestPathMatch("nope")).isNull();
+    assertThat(trie.findLongestPathMatch("myworldly")).isNull();
+    assertThat(trie.findLongestPathMatch("/my")).isNull();
+    assertThat(trie.findLongestPathMatch("/thredds/dods")).isNull();
+    assertThat(trie.findLongestPathMatch("")).isNull();
+  }
+
+  @Test
+  public void shouldAgreeWithPrefixScan() {
+    Random random = new Random(42);
+    String[] segments = {"a", "b", "ab", "ba", "", "model", "model2"};
+    List<String> roots = new ArrayList<>();
+    for (int i = 0; i < 200; i++)
+      roots.add(randomPath(random, segments, 1 + random.nextInt(4)));
+    DataRootPathTrie randomTrie = DataRootPathTrie.build(roots);
+
+    for (int i = 0; i < 2000; i++) {
+      String reqPath = randomPath(random, segments, 1 + random.nextInt(6));
+      assertThat(randomTrie.findLongestPathMatch(reqPath)).isEqualTo(prefixScan(roots, reqPath));
+    }
+  }
+
+  private static String randomPath(Random random, String[] segments, int depth) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      if (i > 0)
+        sb.append('/');
+      sb.append(segments[random.nextInt(segments.length)]);
+    }
+    return sb.toString();
+  }
+
+  // what the TreeSet based matcher computed: the longest key such that reqPath + "/" starts with key + "/"
+  private static String prefixScan(List<String> roots, String reqPath) {
+    String req = reqPath.endsWith("/") ? reqPath : reqPath + "/";
+    String best = null;
+    for (String root : roots) {
+      String key = root.endsWith("/") ? root : root + "/";
+      if (req.startsWith(key) && (best == null || key.length() > best.length() + 1))
+        best = key.substring(0, key.length() - 1);
+    }
+    return best;
+  }
+}
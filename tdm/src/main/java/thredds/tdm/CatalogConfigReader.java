@@ -34,11 +34,20 @@ public class CatalogConfigReader {
   static private final boolean debug = false;
 
   private final List<FeatureCollectionConfig> fcList = new ArrayList<>();
+  private final Map<String, Integer> priorities = new HashMap<>();
 
   public List<FeatureCollectionConfig> getFcList() {
     return fcList;
   }
 
+  /**
+   * The priority attribute of the tdm element of each collection that has one, by collection name.
+   * Higher priorities are indexed first, and negative priorities are low priority.
+   */
+  public Map<String, Integer> getPriorities() {
+    return priorities;
+  }
+
   Formatter errlog = new Formatter();
   // private AliasHandler aliasHandler;
   private File rootDir;
@@ -93,6 +102,9 @@ public class CatalogConfigReader {
             }
 
             fcList.add(config);
+            Integer priority = readPriority(fcElem, config.collectionName);
+            if (priority != null)
+              priorities.put(config.collectionName, priority);
             if (debug)
               System.out.printf("Added  fc='%s' from catalog=%s%n", config.collectionName, catFile.getPath());
           }
@@ -151,6 +163,20 @@ public class CatalogConfigReader {
     return true;
   }
 
+  // the priority is not part of FeatureCollectionConfig.UpdateConfig, so read it here
+  private Integer readPriority(Element fcElem, String name) {
+    Element tdmElem = fcElem.getChild("tdm", Catalog.defNS);
+    String priority = tdmElem == null ? null : tdmElem.getAttributeValue("priority");
+    if (priority == null)
+      return null;
+    try {
+      return Integer.parseInt(priority.trim());
+    } catch (NumberFormatException e) {
+      log.error("Illegal tdm priority '{}' for collection {}, using 0", priority, name);
+      return null;
+    }
+  }
+
   private void findNamedNestedElems(Element parent, String elementName, String attName, List<Element> result) {
     List<Element> elist = parent.getChildren(elementName, Catalog.defNS);
     for (Element elem : elist) {
@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.tdm;
+
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import thredds.featurecollection.FeatureCollectionConfig;
+import thredds.inventory.CollectionSpecParser;
+import ucar.nc2.units.TimeDuration;
+
+/**
+ * The files of a collection (path, size and last modified time) when it was last indexed, saved in the TDM
+ * content directory, so that a rescan can tell the collection has not changed without asking the
+ * GRIB collection machinery to scan it.
+ * <p>
+ * The first rescan after the TDM starts compares every file with the saved manifest. After that, if a
+ * {@link DirectoryWatcher} reports the directories that change, only those are listed again, otherwise
+ * every directory is.
+ */
+class CollectionManifest {
+  private static final org.slf4j.Logger tdmLogger = org.slf4j.LoggerFactory.getLogger(Tdm.class);
+
+  private static final int MAGIC = 0x54444d4d; // "TDMM"
+  private static final int VERSION = 1;
+
+  // written by the indexing, so never part of the collection
+  private static final String[] INDEX_SUFFIXES = {".gbx9", ".ncx", ".ncx2", ".ncx3", ".ncx4"};
+
+  record FileInfo(long size, long lastModified) {
+  }
+
+  private final Path root;
+  private final Pattern filter; // null for all files
+  private final boolean filterOnName;
+  private final boolean subdirs;
+  private final long olderThanMsecs;
+  private final Path manifestFile; // null to keep it only in memory
+  private final String signature; // a saved manifest for another collection spec is not used
+
+  // guarded by this
+  private Map<Path, Map<String, FileInfo>> dirs = new TreeMap<>(); // every directory scanned, including empty ones
+  private final Set<Path> dirty = new HashSet<>();
+  private boolean allDirty = true; // until compared once with the file system
+  private boolean watched;
+  private boolean pending; // changes found that have not been indexed
+  private long lastIndexed; // when the last successful indexing started, 0 if never
+  private long newestFile;
+  private int filesScanned;
+
+  /**
+   * @param root the collection root directory
+   * @param filter regular expression the files must match, or null
+   * @param filterOnName match the filter against the file name, else the whole path
+   * @param subdirs include the files in subdirectories
+   * @param olderThanMsecs files must be this old to be in the collection, 0 if any age
+   * @param manifestFile where the manifest is saved, or null
+   */
+  CollectionManifest(Path root, Pattern filter, boolean filterOnName, boolean subdirs, long olderThanMsecs,
+      Path manifestFile) {
+    this.root = root;
+    this.filter = filter;
+    this.filterOnName = filterOnName;
+    this.subdirs = subdirs;
+    this.olderThanMsecs = olderThanMsecs;
+    this.manifestFile = manifestFile;
+    this.signature = root + "\n" + (filter == null ? "" : filter.pattern()) + "\n" + filterOnName + "\n" + subdirs;
+  }
+
+  /** The manifest for a feature collection, saved in manifestDir. */
+  static CollectionManifest create(FeatureCollectionConfig config, Path manifestDir) {
+    Formatter errlog = new Formatter();
+    CollectionSpecParser specp = config.getCollectionSpecParser(errlog);
+    long olderThanMsecs = 0;
+    if (config.olderThan != null) {
+      try {
+        olderThanMsecs = (long) (1000 * new TimeDuration(config.olderThan).getValueInSeconds());
+      } catch (Exception e) {
+        tdmLogger.warn("CollectionManifest: {} olderThan '{}' not udunit time", config.collectionName,
+            config.olderThan);
+      }
+    }
+    String filename = config.collectionName.replaceAll("[^\\w.-]", "_") + ".manifest";
+    return new CollectionManifest(Paths.get(specp.getRootDir()), specp.getFilter(), specp.getFilterOnName(),
+        specp.wantSubdirs(), olderThanMsecs, manifestDir.resolve(filename));
+  }
+
+  Path getRoot() {
+    return root;
+  }
+
+  boolean wantSubdirs() {
+    return subdirs;
+  }
+
+  /** Whether a DirectoryWatcher reports the changes, so that only changed directories need to be listed. */
+  synchronized void setWatched(boolean watched) {
+    this.watched = watched;
+    if (!watched)
+      allDirty = true;
+  }
+
+  /** A directory has changed: files added, removed or modified. */
+  synchronized void markDirty(Path dir) {
+    dirty.add(dir);
+  }
+
+  /** Changes may have been missed, so compare every directory. */
+  synchronized void markAllDirty() {
+    allDirty = true;
+  }
+
+  /** The number of files looked at by the last call to needsUpdate. */
+  synchronized int getFilesScanned() {
+    return filesScanned;
+  }
+
+  /**
+   * Bring the manifest up to date with the changed directories, and tell whether the collection needs to be
+   * indexed: because files changed since the last successful indexing, or because files that were too new to be
+   * indexed then are now old enough.
+   */
+  synchronized boolean needsUpdate() throws IOException {
+    filesScanned = 0;
+    boolean changed;
+    if (allDirty || !watched) {
+      allDirty = false;
+      dirty.clear();
+      changed = scanAll();
+    } else {
+      List<Path> changedDirs = new ArrayList<>(dirty);
+      dirty.clear();
+      changed = false;
+      for (Path dir : changedDirs) {
+        if (rescanDir(dir))
+          changed = true;
+      }
+    }
+
+    if (changed || lastIndexed == 0)
+      pending = true;
+    boolean waitingForOlderThan = olderThanMsecs > 0 && lastIndexed < newestFile + olderThanMsecs;
+    return pending || waitingForOlderThan;
+  }
+
+  /**
+   * The collection was indexed successfully, as of the last call to needsUpdate.
+   *
+   * @param started when the indexing started
+   */
+  synchronized void indexed(long started) {
+    pending = false;
+    lastIndexed = started;
+    save();
+  }
+
+  synchronized Set<Path> getDirectories() {
+    return new TreeSet<>(dirs.keySet());
+  }
+
+  synchronized Map<String, FileInfo> getFiles(Path dir) {
+    Map<String, FileInfo> files = dirs.get(dir);
+    return files == null ? Collections.emptyMap() : Collections.unmodifiableMap(files);
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+  // scanning
+
+  private boolean scanAll() throws IOException {
+    Map<Path, Map<String, FileInfo>> scanned = new TreeMap<>();
+    if (Files.isDirectory(root))
+      scanTree(root, scanned);
+    boolean changed = !scanned.equals(dirs);
+    dirs = scanned;
+    newestFile = 0;
+    for (Map<String, FileInfo> files : dirs.values())
+      for (FileInfo info : files.values())
+        newestFile = Math.max(newestFile, info.lastModified());
+    return changed;
+  }
+
+  private void scanTree(Path start, Map<Path, Map<String, FileInfo>> result) throws IOException {
+    Files.walkFileTree(start, EnumSet.noneOf(java.nio.file.FileVisitOption.class), subdirs ? Integer.MAX_VALUE : 1,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            result.put(dir, new TreeMap<>());
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (attrs.isRegularFile() && accept(file)) {
+              result.get(file.getParent()).put(file.getFileName().toString(),
+                  new FileInfo(attrs.size(), attrs.lastModifiedTime().toMillis()));
+              filesScanned++;
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException e) {
+            tdmLogger.warn("CollectionManifest: cannot read {}: {}", file, e.getMessage());
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+
+  // list one directory again, and any subdirectories that were added or removed
+  private boolean rescanDir(Path dir) throws IOException {
+    if (!dir.startsWith(root) || (!subdirs && !dir.equals(root)))
+      return false;
+    if (!Files.isDirectory(dir))
+      return removeTree(dir);
+
+    Map<String, FileInfo> files = new TreeMap<>();
+    List<Path> subDirs = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      for (Path path : stream) {
+        BasicFileAttributes attrs;
+        try {
+          attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+          continue; // removed since it was listed
+        }
+        if (attrs.isDirectory()) {
+          subDirs.add(path);
+        } else if (attrs.isRegularFile() && accept(path)) {
+          FileInfo info = new FileInfo(attrs.size(), attrs.lastModifiedTime().toMillis());
+          files.put(path.getFileName().toString(), info);
+          newestFile = Math.max(newestFile, info.lastModified());
+          filesScanned++;
+        }
+      }
+    }
+
+    Map<String, FileInfo> old = dirs.put(dir, files);
+    boolean changed = old == null ? !files.isEmpty() : !files.equals(old);
+
+    if (subdirs) {
+      for (Path sub : subDirs) {
+        if (!dirs.containsKey(sub)) { // new directory, its files may have been written before it was watched
+          Map<Path, Map<String, FileInfo>> added = new TreeMap<>();
+          scanTree(sub, added);
+          dirs.putAll(added);
+          for (Map<String, FileInfo> addedFiles : added.values()) {
+            if (!addedFiles.isEmpty())
+              changed = true;
+            for (FileInfo info : addedFiles.values())
+              newestFile = Math.max(newestFile, info.lastModified());
+          }
+        }
+      }
+      for (Path known : new ArrayList<>(dirs.keySet())) {
+        if (dir.equals(known.getParent()) && !subDirs.contains(known) && removeTree(known))
+          changed = true;
+      }
+    }
+    return changed;
+  }
+
+  // remove a directory that no longer exists, and its subdirectories
+  private boolean removeTree(Path dir) {
+    boolean changed = false;
+    Iterator<Map.Entry<Path, Map<String, FileInfo>>> iter = dirs.entrySet().iterator();
+    while (iter.hasNext()) {
+      Map.Entry<Path, Map<String, FileInfo>> entry = iter.next();
+      if (entry.getKey().startsWith(dir)) {
+        if (!entry.getValue().isEmpty())
+          changed = true;
+        iter.remove();
+      }
+    }
+    return changed;
+  }
+
+  private boolean accept(Path file) {
+    String name = file.getFileName().toString();
+    for (String suffix : INDEX_SUFFIXES) {
+      if (name.endsWith(suffix))
+        return false;
+    }
+    if (filter == null)
+      return true;
+    String match = filterOnName ? name : file.toString().replace('\\', '/');
+    return filter.matcher(match).matches();
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+  // persistence
+
+  /**
+   * Load the manifest saved when the collection was last indexed. Until the first call to needsUpdate compares
+   * it with the files, the collection is not known to be unchanged.
+   */
+  synchronized void load() {
+    if (manifestFile == null || !Files.exists(manifestFile))
+      return;
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new GZIPInputStream(Files.newInputStream(manifestFile))))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(signature)) {
+        tdmLogger.info("CollectionManifest: ignoring {} made for another collection spec", manifestFile);
+        return;
+      }
+      long indexed = in.readLong();
+      Map<Path, Map<String, FileInfo>> loaded = new TreeMap<>();
+      int ndirs = in.readInt();
+      for (int d = 0; d < ndirs; d++) {
+        Path dir = root.resolve(in.readUTF());
+        Map<String, FileInfo> files = new TreeMap<>();
+        int nfiles = in.readInt();
+        for (int i = 0; i < nfiles; i++)
+          files.put(in.readUTF(), new FileInfo(in.readLong(), in.readLong()));
+        loaded.put(dir, files);
+      }
+      dirs = loaded;
+      lastIndexed = indexed;
+      allDirty = true;
+    } catch (IOException e) {
+      tdmLogger.warn("CollectionManifest: failed to read {}", manifestFile, e);
+    }
+  }
+
+  // guarded by this
+  private void save() {
+    if (manifestFile == null)
+      return;
+    Path tmpFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(manifestFile.toAbsolutePath().getParent());
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmpFile))))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(signature);
+        out.writeLong(lastIndexed);
+        out.writeInt(dirs.size());
+        for (Map.Entry<Path, Map<String, FileInfo>> entry : dirs.entrySet()) {
+          out.writeUTF(root.relativize(entry.getKey()).toString());
+          out.writeInt(entry.getValue().size());
+          for (Map.Entry<String, FileInfo> file : entry.getValue().entrySet()) {
+            out.writeUTF(file.getKey());
+            out.writeLong(file.getValue().size());
+            out.writeLong(file.getValue().lastModified());
+          }
+        }
+      }
+      Files.move(tmpFile, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      tdmLogger.warn("CollectionManifest: failed to write {}", manifestFile, e);
+    }
+  }
+}
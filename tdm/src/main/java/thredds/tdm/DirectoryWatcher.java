@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.tdm;
+
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches the collection directories, and marks the ones that change dirty in their CollectionManifest, so a
+ * rescan only lists those. Uses the platform WatchService (inotify on Linux), which does not see changes made
+ * by other hosts on a network file system.
+ * If changes may have been missed (too many events, or a directory could not be watched), the manifest
+ * compares every directory again.
+ */
+class DirectoryWatcher implements Closeable {
+  private static final org.slf4j.Logger tdmLogger = org.slf4j.LoggerFactory.getLogger(Tdm.class);
+
+  private record Registration(Path dir, CollectionManifest manifest) {
+  }
+
+  private final WatchService watcher;
+  private final Map<WatchKey, Registration> keys = new ConcurrentHashMap<>();
+  private final Thread thread;
+
+  DirectoryWatcher() throws IOException {
+    this.watcher = FileSystems.getDefault().newWatchService();
+    this.thread = new Thread(this::processEvents, "TdmDirectoryWatcher");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Watch the collection root directory, and all its subdirectories if the collection includes them.
+   * If any cannot be watched, the manifest is left unwatched, so every rescan lists all directories.
+   */
+  void watch(CollectionManifest manifest) {
+    try {
+      registerAll(manifest.getRoot(), manifest);
+      manifest.setWatched(true);
+    } catch (IOException e) {
+      tdmLogger.warn("DirectoryWatcher: cannot watch {}, changes are found by listing all directories: {}",
+          manifest.getRoot(), e.getMessage());
+      manifest.setWatched(false);
+    }
+  }
+
+  private void registerAll(Path start, CollectionManifest manifest) throws IOException {
+    int maxDepth = manifest.wantSubdirs() ? Integer.MAX_VALUE : 0;
+    Files.walkFileTree(start, java.util.EnumSet.noneOf(java.nio.file.FileVisitOption.class), maxDepth,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            WatchKey key = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            keys.put(key, new Registration(dir, manifest));
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            if (attrs.isDirectory()) // the root, when maxDepth is 0
+              preVisitDirectory(file, attrs);
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+
+  private void processEvents() {
+    for (;;) {
+      WatchKey key;
+      try {
+        key = watcher.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+
+      Registration reg = keys.get(key);
+      if (reg == null) {
+        key.cancel();
+        continue;
+      }
+
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == OVERFLOW) {
+          reg.manifest.markAllDirty();
+          continue;
+        }
+        reg.manifest.markDirty(reg.dir);
+
+        // a new subdirectory: watch it too; the manifest lists it when the parent is rescanned
+        Path child = reg.dir.resolve((Path) event.context());
+        if (event.kind() == ENTRY_CREATE && reg.manifest.wantSubdirs() && Files.isDirectory(child, NOFOLLOW_LINKS)) {
+          try {
+            registerAll(child, reg.manifest);
+          } catch (IOException e) {
+            tdmLogger.warn("DirectoryWatcher: cannot watch {}: {}", child, e.getMessage());
+            reg.manifest.setWatched(false);
+          }
+        }
+      }
+
+      // the directory was removed: the parent event has marked it dirty
+      if (!key.reset()) {
+        keys.remove(key);
+        reg.manifest.markDirty(reg.dir);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    watcher.close();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.tdm;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs collection index updates on a fixed number of threads, highest priority first, and in the order
+ * they were submitted for the same priority.
+ * Updates with a negative priority are low priority, and may only use some of the threads, so that a long
+ * update of a large archive cannot keep a time critical collection waiting.
+ */
+class IndexScheduler {
+  private static final org.slf4j.Logger tdmLogger = org.slf4j.LoggerFactory.getLogger(Tdm.class);
+
+  private final Executor executor;
+  private final int maxThreads;
+  private final int maxLowPriorityThreads;
+
+  // guarded by this
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+  private long submitted;
+  private int running;
+  private int runningLowPriority;
+
+  /**
+   * @param executor runs the updates, must have at least maxThreads threads
+   * @param maxThreads number of updates run at the same time
+   * @param maxLowPriorityThreads number of low priority updates run at the same time
+   */
+  IndexScheduler(Executor executor, int maxThreads, int maxLowPriorityThreads) {
+    this.executor = executor;
+    this.maxThreads = Math.max(1, maxThreads);
+    this.maxLowPriorityThreads = Math.max(1, Math.min(this.maxThreads, maxLowPriorityThreads));
+  }
+
+  /** The default number of threads for low priority updates: all but one, so one is left for the others. */
+  static int defaultLowPriorityThreads(int maxThreads) {
+    return Math.max(1, maxThreads - 1);
+  }
+
+  synchronized void submit(int priority, Runnable task) {
+    queue.add(new Entry(priority, submitted++, task));
+    dispatch();
+  }
+
+  synchronized int getQueued() {
+    return queue.size();
+  }
+
+  synchronized int getRunning() {
+    return running;
+  }
+
+  // guarded by this
+  private void dispatch() {
+    while (running < maxThreads && !queue.isEmpty()) {
+      Entry next = queue.peek();
+      boolean lowPriority = next.priority < 0;
+      if (lowPriority && runningLowPriority >= maxLowPriorityThreads)
+        return; // the rest of the queue is low priority too
+      queue.poll();
+      running++;
+      if (lowPriority)
+        runningLowPriority++;
+
+      try {
+        executor.execute(() -> {
+          try {
+            next.task.run();
+          } finally {
+            finished(lowPriority);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        running--;
+        if (lowPriority)
+          runningLowPriority--;
+        tdmLogger.warn("IndexScheduler: executor rejected task, {} tasks not run", queue.size() + 1);
+        queue.clear();
+        return;
+      }
+    }
+  }
+
+  private synchronized void finished(boolean lowPriority) {
+    running--;
+    if (lowPriority)
+      runningLowPriority--;
+    dispatch();
+  }
+
+  private static class Entry implements Comparable<Entry> {
+    final int priority;
+    final long order;
+    final Runnable task;
+
+    Entry(int priority, long order, Runnable task) {
+      this.priority = priority;
+      this.order = order;
+      this.task = task;
+    }
+
+    @Override
+    public int compareTo(Entry o) {
+      if (priority != o.priority)
+        return Integer.compare(o.priority, priority); // highest first
+      return Long.compare(order, o.order);
+    }
+  }
+}
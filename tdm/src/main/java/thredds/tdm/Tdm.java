@@ -40,7 +40,6 @@ import ucar.httpservices.HTTPSession;
 import ucar.nc2.constants.CDM;
 import ucar.nc2.grib.GribIndexCache;
 import ucar.nc2.grib.collection.GribCdmIndex;
-import ucar.nc2.time.CalendarDate;
 import ucar.nc2.util.AliasTranslator;
 import ucar.nc2.util.DiskCache2;
 import ucar.unidata.io.RandomAccessFile;
@@ -65,6 +64,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class Tdm {
   private static final org.slf4j.Logger tdmLogger = org.slf4j.LoggerFactory.getLogger(Tdm.class);
   private static final org.slf4j.Logger detailLogger = org.slf4j.LoggerFactory.getLogger("tdmDetail");
+  private static final org.slf4j.Logger statsLogger = org.slf4j.LoggerFactory.getLogger("tdmStats");
   private static final boolean debug = false;
   private static final boolean debugOpenFiles = false;
   private static final boolean debugTasks = false;
@@ -86,6 +86,12 @@ public class Tdm {
   private List<TriggerableServer> servers;
 
   private java.util.concurrent.ExecutorService executor;
+  private int nthreads = 1; // size of executor
+  private int lowPriorityThreads; // 0 = default
+  private IndexScheduler scheduler;
+  private boolean useManifest; // skip rescans of collections whose files have not changed
+  private boolean watch; // use a WatchService to find the changed directories
+  private DirectoryWatcher watcher;
   private Resource catalog;
   private boolean showOnly = false; // if true, just show dirs and exit
   private boolean forceOnStartup = false; // if true, just show dirs and exit
@@ -119,9 +125,24 @@ public class Tdm {
 
   public void setNThreads(int n) {
     executor = Executors.newFixedThreadPool(n);
+    nthreads = n;
     tdmLogger.info(" TDM nthreads= {}", n);
   }
 
+  public void setLowPriorityThreads(int n) {
+    this.lowPriorityThreads = n;
+  }
+
+  public void setUseManifest(boolean useManifest) {
+    this.useManifest = useManifest;
+  }
+
+  public void setWatch(boolean watch) {
+    this.watch = watch;
+    if (watch)
+      this.useManifest = true;
+  }
+
   public void setForceOnStartup(boolean forceOnStartup) {
     this.forceOnStartup = forceOnStartup;
   }
@@ -205,13 +226,16 @@ public class Tdm {
     eventBus.register(this);
 
     List<FeatureCollectionConfig> fcList = new ArrayList<>();
+    Map<String, Integer> priorities = new HashMap<>();
     CatalogConfigReader reader = new CatalogConfigReader(contentThreddsDir, catalog);
     fcList.addAll(reader.getFcList());
+    priorities.putAll(reader.getPriorities());
 
     // do the catalogRoots
     for (Resource catr : catalogRoots) {
       CatalogConfigReader r = new CatalogConfigReader(contentThreddsDir, catr);
       fcList.addAll(r.getFcList());
+      priorities.putAll(r.getPriorities());
     }
 
     if (showOnly) {
@@ -234,18 +258,40 @@ public class Tdm {
       return;
     }
 
+    int maxLowPriority =
+        lowPriorityThreads > 0 ? lowPriorityThreads : IndexScheduler.defaultLowPriorityThreads(nthreads);
+    scheduler = new IndexScheduler(executor, nthreads, maxLowPriority);
+    tdmLogger.info(" TDM lowPriorityThreads= {}", maxLowPriority);
+
+    if (watch) {
+      try {
+        watcher = new DirectoryWatcher();
+      } catch (IOException | UnsupportedOperationException e) {
+        tdmLogger.warn("TDM cannot watch directories, changes are found by listing them: {}", e.getMessage());
+      }
+    }
+
     for (FeatureCollectionConfig config : fcList) {
       if (config.type != FeatureCollectionType.GRIB1 && config.type != FeatureCollectionType.GRIB2)
         continue;
-      System.out.printf("FeatureCollection %s scheduled %n", config.collectionName);
+      int priority = priorities.getOrDefault(config.collectionName, 0);
+      tdmLogger.info("FeatureCollection {} scheduled priority {}", config.collectionName, priority);
 
       if (forceOnStartup) // on startup, force rewrite of indexes
         config.tdmConfig.startupType = CollectionUpdateType.always;
 
       detailLogger.info("FeatureCollection config={}", config);
 
+      CollectionManifest manifest = null;
+      if (useManifest) {
+        manifest = CollectionManifest.create(config, contentTdmDir.resolve("manifest"));
+        manifest.load();
+        if (watcher != null)
+          watcher.watch(manifest);
+      }
+
       // now wire for events
-      fcMap.put(config.getCollectionName(), new Listener(config));
+      fcMap.put(config.getCollectionName(), new Listener(config, priority, manifest));
       collectionUpdater.scheduleTasks(config, null);
     }
   }
@@ -267,11 +313,15 @@ public class Tdm {
   // one listener for each fc.
   private class Listener {
     FeatureCollectionConfig config;
+    int priority;
+    CollectionManifest manifest; // null if not used
     AtomicBoolean inUse = new AtomicBoolean(false);
     // org.slf4j.Logger logger;
 
-    private Listener(FeatureCollectionConfig config) {
+    private Listener(FeatureCollectionConfig config, int priority, CollectionManifest manifest) {
       this.config = config;
+      this.priority = priority;
+      this.manifest = manifest;
     }
 
     public void processEvent(CollectionUpdateType event) {
@@ -280,7 +330,7 @@ public class Tdm {
         return; // if already working, skip another execution
       }
       detailLogger.debug("Tdm event type '{}' scheduled for {}", event, config.getCollectionName());
-      executor.execute(new IndexTask(config, this, event));
+      scheduler.submit(priority, new IndexTask(config, this, event));
     }
   }
 
@@ -291,6 +341,7 @@ public class Tdm {
     FeatureCollectionConfig config;
     CollectionUpdateType updateType;
     Listener liz;
+    long queued = System.currentTimeMillis();
 
     private IndexTask(FeatureCollectionConfig config, Listener liz, CollectionUpdateType updateType) {
       this.name = config.collectionName;
@@ -308,15 +359,34 @@ public class Tdm {
         long start = System.currentTimeMillis();
         int taskNo = indexTaskCount.getAndIncrement();
         tdmLogger.debug("{} start {}", taskNo, config.collectionName);
+
+        // a rescan of a collection whose files have not changed since it was last indexed has nothing to do
+        if (liz.manifest != null && updateType == CollectionUpdateType.test && !liz.manifest.needsUpdate()) {
+          long took = System.currentTimeMillis() - start;
+          tdmLogger.debug("{} {} unchanged, checked {} files in {} ms", taskNo, config.collectionName,
+              liz.manifest.getFilesScanned(), took);
+          statsLogger.info(
+              "collection={} priority={} updateType={} queueWaitMsecs={} indexMsecs={} changed=false filesChecked={}",
+              name, liz.priority, updateType, start - queued, took, liz.manifest.getFilesScanned());
+          return;
+        }
+        // only test and always compare the index with all the files, so the manifest then matches what was indexed
+        boolean checksFiles = updateType == CollectionUpdateType.test || updateType == CollectionUpdateType.always;
+        if (liz.manifest != null && updateType == CollectionUpdateType.always)
+          liz.manifest.needsUpdate(); // bring it up to date with the files being indexed
+
         boolean changed = GribCdmIndex.updateGribCollection(config, updateType, null);
+        if (liz.manifest != null && checksFiles)
+          liz.manifest.indexed(start);
 
         long took = System.currentTimeMillis() - start;
         tdmLogger.debug("{} done {}: changed {} took {} ms", taskNo, config.collectionName, changed, took);
-        System.out.printf("%s: %s changed %s took %d msecs%n", CalendarDate.present(), config.collectionName, changed,
-            took);
+        tdmLogger.info("{} changed {} took {} msecs", config.collectionName, changed, took);
+        statsLogger.info("collection={} priority={} updateType={} queueWaitMsecs={} indexMsecs={} changed={}", name,
+            liz.priority, updateType, start - queued, took, changed);
 
         if (debugTasks) {
-          System.out.printf("executor=%s%n", executor);
+          System.out.printf("scheduler running=%d queued=%d%n", scheduler.getRunning(), scheduler.getQueued());
         }
 
         if (changed && config.tdmConfig.triggerOk && sendTriggers) { // send a trigger if enabled
@@ -406,6 +476,21 @@ public class Tdm {
     @Parameter(names = {"-nthreads"}, description = "number of threads", required = false)
     public int nthreads = 1;
 
+    @Parameter(names = {"-lowPriorityThreads"},
+        description = "number of threads for collections with a negative tdm priority (default nthreads - 1)",
+        required = false)
+    public int lowPriorityThreads;
+
+    @Parameter(names = {"-manifest"},
+        description = "keep a manifest of each collection's files, and only rescan collections that have changed",
+        required = false)
+    public boolean manifest;
+
+    @Parameter(names = {"-watch"},
+        description = "watch the collection directories for changes (implies -manifest; not for network file systems)",
+        required = false)
+    public boolean watch;
+
     @Parameter(names = {"-showOnly"}, description = "show collections and exit", required = false)
     public boolean showOnly;
 
@@ -511,6 +596,15 @@ public class Tdm {
       if (cmdLine.nthreads != 0)
         app.setNThreads(cmdLine.nthreads);
 
+      if (cmdLine.lowPriorityThreads != 0)
+        app.setLowPriorityThreads(cmdLine.lowPriorityThreads);
+
+      if (cmdLine.manifest)
+        app.setUseManifest(true);
+
+      if (cmdLine.watch)
+        app.setWatch(true);
+
       if (cmdLine.showOnly)
         app.setShowOnly(true);
 
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.tdm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.regex.Pattern;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestCollectionManifest {
+  private static final Pattern FILTER = Pattern.compile(".*grib2$");
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path root;
+  private Path manifestFile;
+
+  @Before
+  public void makeCollection() throws IOException {
+    root = tempFolder.newFolder("gfs").toPath();
+    manifestFile = tempFolder.getRoot().toPath().resolve("manifest/gfs.manifest");
+    addFile("20240101/gfs_0000.grib2", 100);
+    addFile("20240101/gfs_0600.grib2", 100);
+    addFile("20240101/gfs_0000.grib2.gbx9", 10);
+    addFile("20240102/gfs_0000.grib2", 100);
+    addFile("20240102/README.txt", 10);
+  }
+
+  private Path addFile(String path, int size) throws IOException {
+    Path file = root.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, new byte[size]);
+    Files.setLastModifiedTime(file, FileTime.fromMillis(1_700_000_000_000L));
+    return file;
+  }
+
+  private CollectionManifest makeManifest() {
+    return new CollectionManifest(root, FILTER, true, true, 0, manifestFile);
+  }
+
+  @Test
+  public void shouldOnlyNeedUpdateWhenFilesChange() throws IOException {
+    CollectionManifest manifest = makeManifest();
+    assertThat(manifest.needsUpdate()).isTrue(); // never indexed
+    assertThat(manifest.getFilesScanned()).isEqualTo(3);
+    assertThat(manifest.getFiles(root.resolve("20240101")).keySet()).containsExactly("gfs_0000.grib2",
+        "gfs_0600.grib2");
+    manifest.indexed(System.currentTimeMillis());
+    assertThat(manifest.needsUpdate()).isFalse();
+
+    // a modified file
+    Files.write(root.resolve("20240101/gfs_0600.grib2"), new byte[200]);
+    assertThat(manifest.needsUpdate()).isTrue();
+    // still needed until it has been indexed
+    assertThat(manifest.needsUpdate()).isTrue();
+    manifest.indexed(System.currentTimeMillis());
+    assertThat(manifest.needsUpdate()).isFalse();
+
+    // files that are not part of the collection
+    addFile("20240102/gfs_0000.grib2.ncx4", 10);
+    addFile("20240102/notes.txt", 10);
+    assertThat(manifest.needsUpdate()).isFalse();
+  }
+
+  @Test
+  public void shouldOnlyListDirtyDirectoriesWhenWatched() throws IOException {
+    CollectionManifest manifest = makeManifest();
+    manifest.needsUpdate();
+    manifest.indexed(System.currentTimeMillis());
+    manifest.setWatched(true);
+    assertThat(manifest.needsUpdate()).isFalse();
+    assertThat(manifest.getFilesScanned()).isEqualTo(0);
+
+    addFile("20240102/gfs_0600.grib2", 100);
+    manifest.markDirty(root.resolve("20240102"));
+    assertThat(manifest.needsUpdate()).isTrue();
+    assertThat(manifest.getFilesScanned()).isEqualTo(2);
+    manifest.indexed(System.currentTimeMillis());
+
+    // a new directory is scanned when its parent changes
+    addFile("20240103/gfs_0000.grib2", 100);
+    manifest.markDirty(root);
+    assertThat(manifest.needsUpdate()).isTrue();
+    assertThat(manifest.getDirectories()).contains(root.resolve("20240103"));
+    manifest.indexed(System.currentTimeMillis());
+
+    // and a removed one is forgotten
+    for (File file : root.resolve("20240103").toFile().listFiles())
+      assertThat(file.delete()).isTrue();
+    Files.delete(root.resolve("20240103"));
+    manifest.markDirty(root);
+    assertThat(manifest.needsUpdate()).isTrue();
+    assertThat(manifest.getDirectories()).doesNotContain(root.resolve("20240103"));
+  }
+
+  @Test
+  public void shouldWaitForFilesOlderThan() throws IOException {
+    CollectionManifest manifest = new CollectionManifest(root, FILTER, true, true, 60_000, null);
+    long now = System.currentTimeMillis();
+    Files.setLastModifiedTime(addFile("20240102/gfs_0600.grib2", 100), FileTime.fromMillis(now));
+    assertThat(manifest.needsUpdate()).isTrue();
+    manifest.indexed(now);
+    // the new file was too new to be indexed, so the collection is indexed again once it is old enough
+    assertThat(manifest.needsUpdate()).isTrue();
+    manifest.indexed(now + 60_000);
+    assertThat(manifest.needsUpdate()).isFalse();
+  }
+
+  @Test
+  public void shouldCompareWithSavedManifest() throws IOException {
+    CollectionManifest manifest = makeManifest();
+    manifest.needsUpdate();
+    manifest.indexed(System.currentTimeMillis());
+    assertThat(Files.exists(manifestFile)).isTrue();
+
+    CollectionManifest loaded = makeManifest();
+    loaded.load();
+    assertThat(loaded.getFiles(root.resolve("20240102")).keySet()).containsExactly("gfs_0000.grib2");
+    assertThat(loaded.needsUpdate()).isFalse();
+
+    // changed while the TDM was not running
+    Files.delete(root.resolve("20240102/gfs_0000.grib2"));
+    loaded = makeManifest();
+    loaded.load();
+    assertThat(loaded.needsUpdate()).isTrue();
+
+    // a manifest made for another collection spec is not used
+    CollectionManifest other = new CollectionManifest(root, Pattern.compile(".*grib1$"), true, true, 0, manifestFile);
+    other.load();
+    assertThat(other.getDirectories()).isEmpty();
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.tdm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestIndexScheduler {
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldRunHighestPriorityFirst() throws InterruptedException {
+    IndexScheduler scheduler = new IndexScheduler(executor, 1, 1);
+    List<String> order = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(5);
+
+    // keep the only thread busy while the others are queued
+    scheduler.submit(0, () -> {
+      await(release);
+      order.add("first");
+      done.countDown();
+    });
+    scheduler.submit(-1, record(order, done, "low"));
+    scheduler.submit(0, record(order, done, "normal1"));
+    scheduler.submit(5, record(order, done, "high"));
+    scheduler.submit(0, record(order, done, "normal2"));
+    assertThat(scheduler.getQueued()).isEqualTo(4);
+
+    release.countDown();
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(order).containsExactly("first", "high", "normal1", "normal2", "low").inOrder();
+  }
+
+  @Test
+  public void shouldLeaveThreadForHigherPriority() throws InterruptedException {
+    IndexScheduler scheduler = new IndexScheduler(executor, 2, IndexScheduler.defaultLowPriorityThreads(2));
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch normalRan = new CountDownLatch(1);
+
+    scheduler.submit(-1, () -> await(release));
+    scheduler.submit(-1, () -> await(release));
+    // the second low priority update waits, though a thread is free
+    assertThat(scheduler.getRunning()).isEqualTo(1);
+    assertThat(scheduler.getQueued()).isEqualTo(1);
+
+    scheduler.submit(0, normalRan::countDown);
+    assertThat(normalRan.await(10, TimeUnit.SECONDS)).isTrue();
+    release.countDown();
+  }
+
+  private static Runnable record(List<String> order, CountDownLatch done, String name) {
+    return () -> {
+      order.add(name);
+      done.countDown();
+    };
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -3,7 +3,10 @@
  * See LICENSE for license information.
  */
 
-plugins { id("tds-java-library-conventions") }
+plugins {
+  id("tds-java-library-conventions")
+  id("tds-jmh-conventions")
+}
 
 description = "Experimental UGRID support for netCDF-java."
 
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package ucar.nc2.dt.ugrid.rtree;
+
+import org.openjdk.jmh.annotations.*;
+import ucar.nc2.dt.ugrid.geom.LatLonPoint2D;
+import ucar.nc2.dt.ugrid.geom.LatLonPolygon2D;
+import ucar.nc2.dt.ugrid.geom.LatLonRectangle2D;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the STR bulk loaded PackedRTree with the RTree that Mesh used before (one insert per cell, quadratic
+ * split), on a triangular mesh: build time, nearest cell and cells in a box.
+ * Run with: ./gradlew :tds-ugrid:jmh -Pjmh.includes=PackedRTreeBenchmark
+ * Add "-prof gc" to the JMH arguments to compare the memory allocated by the builds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PackedRTreeBenchmark {
+
+  @Param({"20000", "200000"})
+  public int ncells;
+
+  private LatLonPolygon2D[] polygons;
+  private double[] bounds;
+  private RTree rtree;
+  private PackedRTree packed;
+  private LatLonPoint2D[] points;
+  private LatLonPolygon2D[] boxes;
+
+  @Setup
+  public void setup() {
+    // two triangles per grid square of 0.01 degrees
+    int ncols = (int) Math.sqrt(ncells / 2.0);
+    int nrows = ncells / 2 / ncols;
+    double step = 0.01;
+    polygons = new LatLonPolygon2D[2 * ncols * nrows];
+    bounds = new double[4 * polygons.length];
+    int n = 0;
+    for (int row = 0; row < nrows; row++) {
+      for (int col = 0; col < ncols; col++) {
+        double lat = 30 + row * step;
+        double lon = -80 + col * step;
+        polygons[n++] = triangle(lat, lon, lat, lon + step, lat + step, lon);
+        polygons[n++] = triangle(lat, lon + step, lat + step, lon + step, lat + step, lon);
+      }
+    }
+    for (int i = 0; i < polygons.length; i++) {
+      double[] b = polygons[i].getBoundingLatLonValues();
+      System.arraycopy(b, 0, bounds, 4 * i, 4);
+    }
+
+    rtree = buildRTree();
+    packed = buildPacked();
+
+    Random random = new Random(1234);
+    points = new LatLonPoint2D[1024];
+    boxes = new LatLonPolygon2D[1024];
+    for (int i = 0; i < points.length; i++) {
+      double lat = 30 + random.nextDouble() * nrows * step;
+      double lon = -80 + random.nextDouble() * ncols * step;
+      points[i] = new LatLonPoint2D.Double(lat, lon);
+      boxes[i] = new LatLonPolygon2D.Double(new LatLonRectangle2D(lat, lon, lat + 20 * step, lon + 20 * step));
+    }
+  }
+
+  private static LatLonPolygon2D triangle(double lat0, double lon0, double lat1, double lon1, double lat2,
+      double lon2) {
+    LatLonPolygon2D p = new LatLonPolygon2D.Double();
+    p.lineTo(lat0, lon0);
+    p.lineTo(lat1, lon1);
+    p.lineTo(lat2, lon2);
+    return p;
+  }
+
+  private int next;
+
+  private int nextQuery() {
+    next = (next + 1) & (points.length - 1);
+    return next;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 1)
+  @Measurement(iterations = 5)
+  public RTree buildRTree() {
+    Properties props = new Properties();
+    props.setProperty("MaxNodeEntries", "30");
+    props.setProperty("MinNodeEntries", "15");
+    RTree tree = new RTree(props);
+    for (int i = 0; i < polygons.length; i++)
+      tree.add(polygons[i], i);
+    return tree;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 1)
+  @Measurement(iterations = 5)
+  public PackedRTree buildPacked() {
+    return PackedRTree.build(bounds, PackedRTree.DEFAULT_NODE_SIZE);
+  }
+
+  @Benchmark
+  public int nearestRTree() {
+    return rtree.nearest(points[nextQuery()]);
+  }
+
+  @Benchmark
+  public int nearestPacked() {
+    LatLonPoint2D p = points[nextQuery()];
+    int[] result = {-1};
+    packed.nearest(p.getLatitude(), p.getLongitude(), 0.5, id -> polygons[id].distanceSq(p), id -> {
+      result[0] = id;
+      return false;
+    });
+    return result[0];
+  }
+
+  @Benchmark
+  public int intersectsRTree() {
+    return rtree.intersects(boxes[nextQuery()]).size();
+  }
+
+  @Benchmark
+  public int intersectsPacked() {
+    LatLonPolygon2D box = boxes[nextQuery()];
+    double[] b = box.getBoundingLatLonValues();
+    int[] count = {0};
+    packed.intersects(b[0], b[1], b[2], b[3], id -> {
+      if (box.intersects(polygons[id]))
+        count[0]++;
+      return true;
+    });
+    return count[0];
+  }
+}
@@ -9,11 +9,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ucar.nc2.dataset.VariableDS;
 import ucar.nc2.dt.ugrid.topology.Topology;
-import cern.colt.list.IntArrayList;
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Properties;
 import java.util.Set;
 import java.util.Arrays;
 import ucar.nc2.Attribute;
@@ -24,7 +24,7 @@ import ucar.nc2.dataset.VariableEnhanced;
 import ucar.nc2.dt.ugrid.geom.LatLonPoint2D;
 import ucar.nc2.dt.ugrid.geom.LatLonPolygon2D;
 import ucar.nc2.dt.ugrid.geom.LatLonRectangle2D;
-import ucar.nc2.dt.ugrid.rtree.RTree;
+import ucar.nc2.dt.ugrid.rtree.PackedRTree;
 import ucar.unidata.geoloc.LatLonPoint;
 import ucar.unidata.geoloc.LatLonPointImpl;
 import ucar.unidata.geoloc.LatLonRect;
@@ -42,9 +42,14 @@ public class Mesh {
   private static final String FACE_COORDINATES = "face_coordinates";
   private static final String FACE_NODE_CONNECTIVITY = "face_node_connectivity";
 
+  // nearest cells further than this (in degrees) are not found, as with RTree.nearest
+  private static final double SEARCH_RADIUS = 0.5;
+
   private String name;
-  private RTree rtree;
-  private List<Cell> cells = new ArrayList<Cell>();
+  private PackedRTree rtree;
+  // Cells are created from the Topology columns when first used
+  private Cell[] cellCache = new Cell[0];
+  private final List<Cell> cells = new CellList();
   // A Mesh should only have one connectivity array!
   private Topology topology = new Topology();
   private List<CoordinateSystem> coordinate_systems = new ArrayList<CoordinateSystem>();
@@ -53,12 +58,6 @@ public class Mesh {
 
   public Mesh(NetcdfDataset ds, VariableEnhanced v) {
     name = v.getFullName();
-
-    Properties props = new Properties();
-    props.setProperty("MaxNodeEntries", "30");
-    props.setProperty("MinNodeEntries", "15");
-    rtree = new RTree(props);
-
     processTopologyVariable(ds, v);
   }
 
@@ -118,12 +117,52 @@ public class Mesh {
         }
       }
     }
-    cells = topology.createCells(locations, coordinate_systems);
+    try {
+      topology.readColumns(locations, coordinate_systems);
+      cellCache = new Cell[topology.getFaceCount()];
+    } catch (IOException e) {
+      logger.error("Unable to read the Mesh topology of " + name, e);
+    }
+  }
+
+  /**
+   * Bulk load the spatial index of the cells, from the face bounds in the Topology. Only done once.
+   */
+  public synchronized void buildRTree() {
+    if (rtree != null) {
+      return;
+    }
+    int nfaces = cellCache.length;
+    double[] bounds = new double[4 * nfaces];
+    for (int i = 0; i < nfaces; i++) {
+      topology.getFaceBounds(i, bounds);
+    }
+    rtree = PackedRTree.build(bounds, PackedRTree.DEFAULT_NODE_SIZE);
+  }
+
+  private PackedRTree getRTree() {
+    buildRTree();
+    return rtree;
+  }
+
+  private synchronized Cell getCell(int i) {
+    Cell cell = cellCache[i];
+    if (cell == null) {
+      cell = topology.createCell(i);
+      cellCache[i] = cell;
+    }
+    return cell;
   }
 
-  public void buildRTree() {
-    for (int i = 0; i < cells.size(); i++) {
-      rtree.add(cells.get(i).getPolygon(), i);
+  private class CellList extends AbstractList<Cell> {
+    @Override
+    public Cell get(int index) {
+      return getCell(index);
+    }
+
+    @Override
+    public int size() {
+      return cellCache.length;
     }
   }
 
@@ -135,18 +174,12 @@ public class Mesh {
     return cells.size();
   }
 
-  public int getTreeSize() {
-    return rtree.size();
+  public synchronized int getTreeSize() {
+    return rtree == null ? 0 : rtree.size();
   }
 
   public int getNodeSize() {
-    int i = 0;
-    for (Cell c : cells) {
-      if (c.hasNodes()) {
-        i += c.getNodes().size();
-      }
-    }
-    return i;
+    return cellCache.length * topology.getNodesPerFace();
   }
 
   public double[][] getNodeLatLons() {
@@ -229,26 +262,49 @@ public class Mesh {
   }
 
   public LatLonRect getLatLonBoundingBox() {
-    LatLonRectangle2D bounds = rtree.getBounds();
-    return new LatLonRect((LatLonPoint) new LatLonPointImpl(bounds.getLatMin(), bounds.getLonMin()),
-        (LatLonPoint) new LatLonPointImpl(bounds.getLatMax(), bounds.getLonMax()));
+    double[] bounds = getRTree().getBounds();
+    if (bounds == null) {
+      return null;
+    }
+    return new LatLonRect((LatLonPoint) new LatLonPointImpl(bounds[0], bounds[1]),
+        (LatLonPoint) new LatLonPointImpl(bounds[2], bounds[3]));
   }
 
   public Cell getCellFromLatLon(double lat, double lon) {
     LatLonPoint2D p = new LatLonPoint2D.Double(lat, lon);
-    return cells.get(rtree.nearest(p));
+    return getCellFromLatLon(p);
   }
 
-  public Cell getCellFromLatLon(LatLonPoint2D p) {
-    return cells.get(rtree.nearest(p));
+  /**
+   * The cell nearest to the point, within half a degree, or null if there is none. If several are equally near
+   * (the point is on a shared edge), the one with the nearest centroid.
+   */
+  public Cell getCellFromLatLon(final LatLonPoint2D p) {
+    final int[] nearest = {-1};
+    final double[] nearestCentroidSq = {Double.POSITIVE_INFINITY};
+    getRTree().nearest(p.getLatitude(), p.getLongitude(), SEARCH_RADIUS,
+        face -> topology.createFacePolygon(face).distanceSq(p), face -> {
+          double d = topology.createFacePolygon(face).getCentroid().distanceSq(p);
+          if (d < nearestCentroidSq[0]) {
+            nearestCentroidSq[0] = d;
+            nearest[0] = face;
+          }
+          return true;
+        });
+    return nearest[0] < 0 ? null : getCell(nearest[0]);
   }
 
-  public ArrayList<Cell> getCellsInPolygon(LatLonPolygon2D p) {
-    IntArrayList polys = rtree.intersects(p);
-    ArrayList<Cell> containedCells = new ArrayList<Cell>(polys.size());
-    for (int i : polys.elements()) {
-      containedCells.add(this.cells.get(i));
-    }
+  public ArrayList<Cell> getCellsInPolygon(final LatLonPolygon2D p) {
+    final ArrayList<Cell> containedCells = new ArrayList<Cell>();
+    double[] b = p.getBoundingLatLonValues();
+    double west = p.crossesDateline() ? -180 : b[1];
+    double east = p.crossesDateline() ? 180 : b[3];
+    getRTree().intersects(b[0], west, b[2], east, face -> {
+      if (p.intersects(topology.createFacePolygon(face))) {
+        containedCells.add(getCell(face));
+      }
+      return true;
+    });
     return containedCells;
   }
 
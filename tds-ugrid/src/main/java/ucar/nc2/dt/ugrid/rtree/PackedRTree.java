@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package ucar.nc2.dt.ugrid.rtree;
+
+import java.util.Arrays;
+
+/**
+ * A static R-tree bulk loaded with Sort-Tile-Recursive packing, stored in flat primitive arrays: the bounds of every
+ * entry as floats, and for each entry the item id (leaf level) or the position of its first child (upper levels).
+ * Compared with {@link RTree} it is built in O(n log n) without node splits, and needs about 20 bytes per item
+ * instead of a polygon copy per entry.
+ * <p>
+ * Bounds are planar lat/lon boxes. An item that crosses the dateline should be given the full longitude range.
+ * The tree only finds candidates by their boxes; the exact geometry tests are done by the caller.
+ */
+public class PackedRTree {
+  public static final int DEFAULT_NODE_SIZE = 16;
+
+  /** The exact squared distance from the query point to an item. */
+  public interface DistanceFunction {
+    double distanceSq(int id);
+  }
+
+  private final int nodeSize;
+  private final int size;
+  private final int[] levelStart; // position of the first entry of each level, leaves first; last is the total
+  private final float[] bounds; // minLat, minLon, maxLat, maxLon of each entry
+  private final int[] index; // leaf level: item id; upper levels: position of first child entry
+
+  /**
+   * Build the tree.
+   *
+   * @param itemBounds minLat, minLon, maxLat, maxLon of each item; the item id is its position
+   * @param nodeSize maximum number of entries in a node
+   */
+  public static PackedRTree build(double[] itemBounds, int nodeSize) {
+    return new PackedRTree(itemBounds, Math.max(2, nodeSize));
+  }
+
+  private PackedRTree(double[] itemBounds, int nodeSize) {
+    this.nodeSize = nodeSize;
+    this.size = itemBounds.length / 4;
+
+    // number of entries in each level, up to a single root entry
+    int total = size;
+    int nlevels = 1;
+    for (int count = size; count > 1; count = (count + nodeSize - 1) / nodeSize) {
+      total += (count + nodeSize - 1) / nodeSize;
+      nlevels++;
+    }
+    levelStart = new int[nlevels + 1];
+    bounds = new float[4 * total];
+    index = new int[total];
+
+    for (int i = 0; i < size; i++) {
+      bounds[4 * i] = floatDown(itemBounds[4 * i]);
+      bounds[4 * i + 1] = floatDown(itemBounds[4 * i + 1]);
+      bounds[4 * i + 2] = floatUp(itemBounds[4 * i + 2]);
+      bounds[4 * i + 3] = floatUp(itemBounds[4 * i + 3]);
+      index[i] = i;
+    }
+    if (size == 0)
+      return;
+
+    int start = 0;
+    int count = size;
+    for (int level = 0; count > 1; level++) {
+      levelStart[level] = start;
+      sortTiles(start, count);
+
+      // each run of nodeSize entries becomes one entry of the next level
+      int parent = start + count;
+      for (int child = start; child < start + count; child += nodeSize, parent++) {
+        int end = Math.min(child + nodeSize, start + count);
+        float minLat = Float.POSITIVE_INFINITY, minLon = Float.POSITIVE_INFINITY;
+        float maxLat = Float.NEGATIVE_INFINITY, maxLon = Float.NEGATIVE_INFINITY;
+        for (int e = child; e < end; e++) {
+          minLat = Math.min(minLat, bounds[4 * e]);
+          minLon = Math.min(minLon, bounds[4 * e + 1]);
+          maxLat = Math.max(maxLat, bounds[4 * e + 2]);
+          maxLon = Math.max(maxLon, bounds[4 * e + 3]);
+        }
+        bounds[4 * parent] = minLat;
+        bounds[4 * parent + 1] = minLon;
+        bounds[4 * parent + 2] = maxLat;
+        bounds[4 * parent + 3] = maxLon;
+        index[parent] = child;
+      }
+      start += count;
+      count = (count + nodeSize - 1) / nodeSize;
+    }
+    levelStart[nlevels - 1] = start; // the root
+    levelStart[nlevels] = start + 1;
+  }
+
+  /**
+   * Sort-Tile-Recursive: order the entries of a level into vertical slices by longitude, each sorted by latitude,
+   * so that consecutive runs of nodeSize entries are compact tiles. Each slice holds a whole number of nodes.
+   */
+  private void sortTiles(int start, int count) {
+    int nodes = (count + nodeSize - 1) / nodeSize;
+    int sliceSize = nodeSize * (int) Math.ceil(Math.sqrt(nodes));
+
+    long[] keys = new long[count];
+    for (int i = 0; i < count; i++)
+      keys[i] = sortKey(centerLon(start + i), i);
+    Arrays.sort(keys);
+    int[] order = new int[count];
+    for (int i = 0; i < count; i++)
+      order[i] = (int) keys[i];
+
+    for (int slice = 0; slice < count; slice += sliceSize) {
+      int end = Math.min(slice + sliceSize, count);
+      for (int i = slice; i < end; i++)
+        keys[i] = sortKey(centerLat(start + order[i]), order[i]);
+      Arrays.sort(keys, slice, end);
+    }
+
+    float[] sortedBounds = new float[4 * count];
+    int[] sortedIndex = new int[count];
+    for (int i = 0; i < count; i++) {
+      int from = start + (int) keys[i];
+      System.arraycopy(bounds, 4 * from, sortedBounds, 4 * i, 4);
+      sortedIndex[i] = index[from];
+    }
+    System.arraycopy(sortedBounds, 0, bounds, 4 * start, 4 * count);
+    System.arraycopy(sortedIndex, 0, index, start, count);
+  }
+
+  private float centerLat(int e) {
+    return (bounds[4 * e] + bounds[4 * e + 2]) / 2;
+  }
+
+  private float centerLon(int e) {
+    return (bounds[4 * e + 1] + bounds[4 * e + 3]) / 2;
+  }
+
+  // a long that sorts as the float value, with the position in the low bits
+  private static long sortKey(float value, int pos) {
+    int bits = Float.floatToIntBits(value);
+    bits ^= (bits >> 31) & 0x7fffffff;
+    return ((long) bits << 32) | (pos & 0xffffffffL);
+  }
+
+  // floats that do not shrink the box, so that box distances are never more than the true distance
+  private static float floatDown(double v) {
+    float f = (float) v;
+    return f > v ? Math.nextDown(f) : f;
+  }
+
+  private static float floatUp(double v) {
+    float f = (float) v;
+    return f < v ? Math.nextUp(f) : f;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getNodeSize() {
+    return nodeSize;
+  }
+
+  /** The number of levels, including the leaves and the root. */
+  public int getTreeHeight() {
+    return levelStart.length - 1;
+  }
+
+  /** The bounds of all items as minLat, minLon, maxLat, maxLon, or null if the tree is empty. */
+  public double[] getBounds() {
+    if (size == 0)
+      return null;
+    int root = levelStart[levelStart.length - 2];
+    return new double[] {bounds[4 * root], bounds[4 * root + 1], bounds[4 * root + 2], bounds[4 * root + 3]};
+  }
+
+  private int root() {
+    return levelStart[levelStart.length - 2];
+  }
+
+  // the end of the children of an upper level entry, which start at index[e]
+  private int childEnd(int e) {
+    int child = index[e];
+    int level = 0;
+    while (levelStart[level + 1] <= child)
+      level++;
+    return Math.min(child + nodeSize, levelStart[level + 1]);
+  }
+
+  private boolean intersects(int e, double minLat, double minLon, double maxLat, double maxLon) {
+    return bounds[4 * e] <= maxLat && bounds[4 * e + 2] >= minLat && bounds[4 * e + 1] <= maxLon
+        && bounds[4 * e + 3] >= minLon;
+  }
+
+  private double boxDistanceSq(int e, double lat, double lon) {
+    double dLat = Math.max(Math.max(bounds[4 * e] - lat, lat - bounds[4 * e + 2]), 0);
+    double dLon = Math.max(Math.max(bounds[4 * e + 1] - lon, lon - bounds[4 * e + 3]), 0);
+    return dLat * dLat + dLon * dLon;
+  }
+
+  /**
+   * Calls v for every item whose box intersects the given box, until v returns false.
+   */
+  public void intersects(double minLat, double minLon, double maxLat, double maxLon, IntProcedure v) {
+    if (size == 0)
+      return;
+    int[] stack = new int[nodeSize * getTreeHeight() + 1];
+    int top = 0;
+    stack[top++] = root();
+    while (top > 0) {
+      int e = stack[--top];
+      if (!intersects(e, minLat, minLon, maxLat, maxLon))
+        continue;
+      if (e < size) {
+        if (!v.execute(index[e]))
+          return;
+      } else {
+        for (int child = childEnd(e) - 1; child >= index[e]; child--)
+          stack[top++] = child;
+      }
+    }
+  }
+
+  /**
+   * Finds the items nearest to a point, visiting entries in order of their box distance.
+   * Calls v for the nearest item, or for each of the items at the same nearest distance.
+   *
+   * @param lat the query point latitude
+   * @param lon the query point longitude
+   * @param searchRadius items further than this are not found
+   * @param distance the exact squared distance to an item
+   * @param v called with the nearest items
+   */
+  public void nearest(double lat, double lon, double searchRadius, DistanceFunction distance, IntProcedure v) {
+    if (size == 0)
+      return;
+    double best = searchRadius * searchRadius;
+    int[] nearest = new int[4];
+    int nnearest = 0;
+
+    // binary min heap of entries by box distance
+    double[] heapDist = new double[64];
+    int[] heapEntry = new int[64];
+    int heapSize = 0;
+    heapDist[0] = boxDistanceSq(root(), lat, lon);
+    heapEntry[0] = root();
+    heapSize++;
+
+    while (heapSize > 0) {
+      double d = heapDist[0];
+      int e = heapEntry[0];
+      heapSize--;
+      if (heapSize > 0) { // sift the last one down from the top
+        double lastDist = heapDist[heapSize];
+        int lastEntry = heapEntry[heapSize];
+        int pos = 0;
+        while (true) {
+          int child = 2 * pos + 1;
+          if (child >= heapSize)
+            break;
+          if (child + 1 < heapSize && heapDist[child + 1] < heapDist[child])
+            child++;
+          if (heapDist[child] >= lastDist)
+            break;
+          heapDist[pos] = heapDist[child];
+          heapEntry[pos] = heapEntry[child];
+          pos = child;
+        }
+        heapDist[pos] = lastDist;
+        heapEntry[pos] = lastEntry;
+      }
+      if (d > best)
+        break; // everything left is further away
+
+      if (e < size) {
+        double exact = distance.distanceSq(index[e]);
+        if (exact < best) {
+          best = exact;
+          nnearest = 0;
+        }
+        if (exact <= best) {
+          if (nnearest == nearest.length)
+            nearest = Arrays.copyOf(nearest, 2 * nnearest);
+          nearest[nnearest++] = index[e];
+        }
+        continue;
+      }
+
+      for (int child = index[e], end = childEnd(e); child < end; child++) {
+        double childDist = boxDistanceSq(child, lat, lon);
+        if (childDist > best)
+          continue;
+        if (heapSize == heapDist.length) {
+          heapDist = Arrays.copyOf(heapDist, 2 * heapSize);
+          heapEntry = Arrays.copyOf(heapEntry, 2 * heapSize);
+        }
+        int pos = heapSize++;
+        while (pos > 0) { // sift up
+          int parent = (pos - 1) / 2;
+          if (heapDist[parent] <= childDist)
+            break;
+          heapDist[pos] = heapDist[parent];
+          heapEntry[pos] = heapEntry[parent];
+          pos = parent;
+        }
+        heapDist[pos] = childDist;
+        heapEntry[pos] = child;
+      }
+    }
+
+    for (int i = 0; i < nnearest; i++) {
+      if (!v.execute(nearest[i]))
+        return;
+    }
+  }
+}
@@ -25,6 +25,7 @@ import ucar.nc2.dt.ugrid.Face;
 import ucar.nc2.dt.ugrid.Node;
 import ucar.nc2.dt.ugrid.UGridDataset;
 import ucar.nc2.dt.ugrid.geom.LatLonPoint2D;
+import ucar.nc2.dt.ugrid.geom.LatLonPolygon2D;
 
 /**
  *
@@ -44,6 +45,15 @@ public class Topology {
   private int startIndex = 0;
   private Variable face_node_connectivity_variable;
 
+  // columnar storage, read by readColumns()
+  private int face_count;
+  private int nodes_per_face;
+  private int[] face_nodes; // node indexes (from 0) of each face, nodes_per_face per face
+  private double[] node_lats;
+  private double[] node_lons;
+  private double[] face_lats; // null if there are no face coordinates
+  private double[] face_lons;
+
   public Topology() {
 
   }
@@ -104,99 +114,157 @@ public class Topology {
     }
   }
 
-  public List<Cell> createCells(List<String> locations, List<CoordinateSystem> coords) {
-    try {
-      CoordinateSystem node_cs = null;
-      CoordinateSystem face_cs = null;
-
-      for (int i = 0; i < locations.size(); i++) {
-        if (locations.get(i).equalsIgnoreCase("node")) {
-          node_cs = coords.get(i);
-        } else if (locations.get(i).equalsIgnoreCase("face")) {
-          face_cs = coords.get(i);
-        }
-        // else if (locations.get(i).equalsIgnoreCase("edge")) {
-        // edge_cs = coords.get(i);
-        // }
+  /**
+   * Read the node and face coordinates and the face-node connectivity into primitive arrays, one entry per node
+   * or face. Cells are then created from them on demand with {@link #createCell(int)}.
+   */
+  public void readColumns(List<String> locations, List<CoordinateSystem> coords) throws IOException {
+    CoordinateSystem node_cs = null;
+    CoordinateSystem face_cs = null;
+
+    for (int i = 0; i < locations.size(); i++) {
+      if (locations.get(i).equalsIgnoreCase("node")) {
+        node_cs = coords.get(i);
+      } else if (locations.get(i).equalsIgnoreCase("face")) {
+        face_cs = coords.get(i);
       }
+    }
 
-      List<Cell> cells = new ArrayList<Cell>();
-      Node node;
-      Face face;
-      Edge edge;
-      Cell cell;
-      int index;
-
-      Array arr = face_node_connectivity_variable.read();
-      Array arri = MAMath.convert(arr, DataType.INT);
-      int[][] conn_data = (int[][]) arri.copyToNDJavaArray();
-
-      double[] face_lats = null;
-      double[] face_lons = null;
-      ArrayList<Face> unique_faces = null;
-      if (face_cs != null) {
-        face_lats = (double[]) face_cs.getLatAxis().read().get1DJavaArray(double.class);
-        face_lons = (double[]) face_cs.getLonAxis().read().get1DJavaArray(double.class);
-        unique_faces = new ArrayList<Face>(face_lats.length);
-        for (int g = 0; g < face_lats.length; g++) {
-          face = new Face();
-          face.setDataIndex(g);
-          face.setGeoPoint(new LatLonPoint2D.Double(face_lats[g], face_lons[g]));
-          unique_faces.add(face);
-        }
+    Array arri = MAMath.convert(face_node_connectivity_variable.read(), DataType.INT);
+    int[] shape = arri.getShape();
+    int[] conn_data = (int[]) arri.get1DJavaArray(int.class);
+    int nfaces = this.isTall() ? shape[0] : shape[1];
+    int npf = this.isTall() ? shape[1] : shape[0];
+    int[] nodes = new int[nfaces * npf];
+    for (int i = 0; i < nfaces; i++) {
+      for (int k = 0; k < npf; k++) {
+        int value = this.isTall() ? conn_data[i * npf + k] : conn_data[k * nfaces + i];
+        nodes[i * npf + k] = value - startIndex;
       }
+    }
 
-      double[] node_lats = (double[]) node_cs.getLatAxis().read().get1DJavaArray(double.class);
-      double[] node_lons = (double[]) node_cs.getLonAxis().read().get1DJavaArray(double.class);
-      ArrayList<Node> unique_nodes = new ArrayList<Node>(node_lats.length);
-      for (int j = 0; j < node_lats.length; j++) {
-        node = new Node();
-        node.setDataIndex(j);
-        node.setGeoPoint(new LatLonPoint2D.Double(node_lats[j], node_lons[j]));
-        unique_nodes.add(node);
-      }
+    if (face_cs != null) {
+      face_lats = (double[]) face_cs.getLatAxis().read().get1DJavaArray(double.class);
+      face_lons = (double[]) face_cs.getLonAxis().read().get1DJavaArray(double.class);
+    }
+    node_lats = (double[]) node_cs.getLatAxis().read().get1DJavaArray(double.class);
+    node_lons = (double[]) node_cs.getLonAxis().read().get1DJavaArray(double.class);
+    face_nodes = nodes;
+    nodes_per_face = npf;
+    face_count = nfaces;
+  }
 
-      ArrayList<Node> nodes = new ArrayList<Node>();
-      ArrayList<Face> faces = new ArrayList<Face>();
-      if (this.isTall()) {
-        for (int i = 0; i < conn_data.length; i++) {
-          cell = new Cell();
-          nodes.clear();
-          faces.clear();
-          for (int k = 0; k < conn_data[i].length; k++) {
-            index = conn_data[i][k] - startIndex;
-            nodes.add(unique_nodes.get(index));
-          }
-          if (!cell.hasFaces() && unique_faces != null) {
-            faces.add(unique_faces.get(i));
-            cell.setFaces(faces);
-          }
-          cell.setNodes((ArrayList<Node>) nodes.clone());
-          cell.setConnectivityIndex(i);
-          cells.add(cell);
-        }
-      } else {
-        for (int i = 0; i < conn_data[0].length; i++) {
-          cell = new Cell();
-          nodes.clear();
-          faces.clear();
-          for (int k = 0; k < conn_data.length; k++) {
-            index = conn_data[k][i] - startIndex;
-            nodes.add(unique_nodes.get(index));
-          }
-          if (!cell.hasFaces() && unique_faces != null) {
-            faces.add(unique_faces.get(i));
-            cell.setFaces(faces);
-          }
-          cell.setNodes((ArrayList<Node>) nodes.clone());
-          cell.setConnectivityIndex(i);
-          cells.add(cell);
-        }
-      }
-      return cells;
+  public List<Cell> createCells(List<String> locations, List<CoordinateSystem> coords) {
+    try {
+      readColumns(locations, coords);
     } catch (IOException e) {
       return null;
     }
+    List<Cell> cells = new ArrayList<Cell>(face_count);
+    for (int i = 0; i < face_count; i++) {
+      cells.add(createCell(i));
+    }
+    return cells;
+  }
+
+  /**
+   * Create the Cell for a face, with its Nodes, and its Face if the face coordinates are known.
+   */
+  public Cell createCell(int face) {
+    Cell cell = new Cell();
+    if (face_lats != null) {
+      Face f = new Face();
+      f.setDataIndex(face);
+      f.setGeoPoint(new LatLonPoint2D.Double(face_lats[face], face_lons[face]));
+      ArrayList<Face> faces = new ArrayList<Face>(1);
+      faces.add(f);
+      cell.setFaces(faces);
+    }
+    ArrayList<Node> nodes = new ArrayList<Node>(nodes_per_face);
+    for (int k = 0; k < nodes_per_face; k++) {
+      int index = face_nodes[face * nodes_per_face + k];
+      Node node = new Node();
+      node.setDataIndex(index);
+      node.setGeoPoint(new LatLonPoint2D.Double(node_lats[index], node_lons[index]));
+      nodes.add(node);
+    }
+    cell.setNodes(nodes);
+    cell.setConnectivityIndex(face);
+    return cell;
+  }
+
+  /**
+   * The polygon of a face, the same as the polygon of its Cell.
+   */
+  public LatLonPolygon2D createFacePolygon(int face) {
+    LatLonPolygon2D polygon = new LatLonPolygon2D.Double();
+    for (int k = 0; k < nodes_per_face; k++) {
+      int index = face_nodes[face * nodes_per_face + k];
+      polygon.lineTo(node_lats[index], node_lons[index]);
+    }
+    return polygon;
+  }
+
+  /**
+   * The bounding box of a face, without creating its polygon, stored as south lat, west lon, north lat, east lon
+   * at bounds[4 * face]. A face that crosses the dateline gets the full longitude range.
+   */
+  public void getFaceBounds(int face, double[] bounds) {
+    double south = Double.POSITIVE_INFINITY, west = Double.POSITIVE_INFINITY;
+    double north = Double.NEGATIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+    double lastLon = Double.NaN;
+    boolean crossesDateline = false;
+    for (int k = 0; k < nodes_per_face; k++) {
+      int index = face_nodes[face * nodes_per_face + k];
+      double lat = node_lats[index];
+      double lon = node_lons[index];
+      if (Double.isNaN(lat) || Double.isNaN(lon)) {
+        continue;
+      }
+      // the same test as LatLonPolygon2D
+      if ((lastLon > 90 & lon < 0) || (lastLon < -90 & lon > 0) || (lon > 90 & lastLon < 0)
+          || (lon < -90 & lastLon > 0)) {
+        crossesDateline = true;
+      }
+      south = Math.min(south, lat);
+      north = Math.max(north, lat);
+      west = Math.min(west, lon);
+      east = Math.max(east, lon);
+      lastLon = lon;
+    }
+    if (crossesDateline) {
+      west = -180;
+      east = 180;
+    }
+    bounds[4 * face] = south;
+    bounds[4 * face + 1] = west;
+    bounds[4 * face + 2] = north;
+    bounds[4 * face + 3] = east;
+  }
+
+  public int getFaceCount() {
+    return face_count;
+  }
+
+  public int getNodesPerFace() {
+    return nodes_per_face;
+  }
+
+  /** The index of the k-th node of a face, from zero. */
+  public int getFaceNode(int face, int k) {
+    return face_nodes[face * nodes_per_face + k];
+  }
+
+  public int getNodeCount() {
+    return node_lats == null ? 0 : node_lats.length;
+  }
+
+  public double getNodeLatitude(int node) {
+    return node_lats[node];
+  }
+
+  public double getNodeLongitude(int node) {
+    return node_lons[node];
   }
 
   public void subsetToDataset(UGridDataset ugd, NetcdfDataset ncd, List<Cell> containedCells) {
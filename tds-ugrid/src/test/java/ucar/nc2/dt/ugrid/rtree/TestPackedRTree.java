@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package ucar.nc2.dt.ugrid.rtree;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TestPackedRTree {
+
+  // small boxes scattered over a region, like the faces of a mesh
+  private static double[] makeBoxes(Random random, int n) {
+    double[] bounds = new double[4 * n];
+    for (int i = 0; i < n; i++) {
+      double lat = random.nextDouble() * 20 + 30;
+      double lon = random.nextDouble() * 30 - 80;
+      bounds[4 * i] = lat;
+      bounds[4 * i + 1] = lon;
+      bounds[4 * i + 2] = lat + random.nextDouble() * 0.2;
+      bounds[4 * i + 3] = lon + random.nextDouble() * 0.2;
+    }
+    return bounds;
+  }
+
+  @Test
+  public void shouldFindSameBoxesAsLinearScan() {
+    Random random = new Random(7);
+    double[] bounds = makeBoxes(random, 5000);
+    PackedRTree tree = PackedRTree.build(bounds, 8);
+    assertThat(tree.size()).isEqualTo(5000);
+    assertThat(tree.getTreeHeight()).isEqualTo(6);
+
+    for (int q = 0; q < 200; q++) {
+      double minLat = random.nextDouble() * 20 + 30;
+      double minLon = random.nextDouble() * 30 - 80;
+      double maxLat = minLat + random.nextDouble() * 2;
+      double maxLon = minLon + random.nextDouble() * 2;
+
+      List<Integer> found = new ArrayList<>();
+      tree.intersects(minLat, minLon, maxLat, maxLon, found::add);
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < 5000; i++) {
+        if (bounds[4 * i] <= maxLat && bounds[4 * i + 2] >= minLat && bounds[4 * i + 1] <= maxLon
+            && bounds[4 * i + 3] >= minLon)
+          expected.add(i);
+      }
+      assertThat(found).containsExactlyElementsIn(expected);
+    }
+  }
+
+  @Test
+  public void shouldFindSameNearestAsLinearScan() {
+    Random random = new Random(11);
+    double[] bounds = makeBoxes(random, 5000);
+    PackedRTree tree = PackedRTree.build(bounds, PackedRTree.DEFAULT_NODE_SIZE);
+
+    for (int q = 0; q < 500; q++) {
+      double lat = random.nextDouble() * 20 + 30;
+      double lon = random.nextDouble() * 30 - 80;
+      // the distance to the box center, which is at least the distance to the box
+      PackedRTree.DistanceFunction distance = id -> {
+        double dLat = (bounds[4 * id] + bounds[4 * id + 2]) / 2 - lat;
+        double dLon = (bounds[4 * id + 1] + bounds[4 * id + 3]) / 2 - lon;
+        return dLat * dLat + dLon * dLon;
+      };
+
+      List<Integer> found = new ArrayList<>();
+      tree.nearest(lat, lon, 0.5, distance, found::add);
+
+      int expected = -1;
+      double min = 0.25;
+      for (int i = 0; i < 5000; i++) {
+        if (distance.distanceSq(i) <= min) {
+          min = distance.distanceSq(i);
+          expected = i;
+        }
+      }
+      if (expected < 0)
+        assertThat(found).isEmpty();
+      else
+        assertThat(found).containsExactly(expected);
+    }
+  }
+
+  @Test
+  public void shouldReturnAllEquallyNear() {
+    // two boxes sharing an edge, and a point on it
+    double[] bounds = {0, 0, 1, 1, 0, 1, 1, 2, 5, 5, 6, 6};
+    PackedRTree tree = PackedRTree.build(bounds, 2);
+    List<Integer> found = new ArrayList<>();
+    tree.nearest(0.5, 1, 0.5, id -> 0, found::add);
+    assertThat(found).containsExactly(0, 1);
+    assertThat(tree.getBounds()).usingTolerance(1e-6).containsExactly(0, 0, 6, 6).inOrder();
+  }
+
+  @Test
+  public void shouldHandleEmptyAndSingleItem() {
+    PackedRTree empty = PackedRTree.build(new double[0], 16);
+    assertThat(empty.getBounds()).isNull();
+    List<Integer> found = new ArrayList<>();
+    empty.intersects(-90, -180, 90, 180, found::add);
+    empty.nearest(0, 0, 0.5, id -> 0, found::add);
+    assertThat(found).isEmpty();
+
+    PackedRTree one = PackedRTree.build(new double[] {10, 20, 11, 21}, 16);
+    one.intersects(10.5, 20.5, 10.6, 20.6, found::add);
+    one.nearest(10.5, 21.2, 0.5, id -> 0.04, found::add);
+    assertThat(found).containsExactly(0, 0);
+  }
+}
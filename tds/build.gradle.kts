@@ -11,6 +11,7 @@ import org.cyclonedx.gradle.CyclonedxDirectTask
 
 plugins {
   id("tds-java-library-conventions")
+  id("tds-jmh-conventions")
   alias(tdsLibs.plugins.cyclonedx.bom)
   war
   alias(tdsLibs.plugins.gretty)
@@ -189,6 +190,7 @@ dependencies {
   testImplementation(tdsLibs.hamcrest.core)
   testImplementation(tdsLibs.jaxen) // Needed for XPath operations in mock tests
   testImplementation(tdsLibs.logback.classic)
+  testImplementation(tdsLibs.mockito.core)
   testImplementation(tdsLibs.pragmatists.junitparams)
   testImplementation(tdsLibs.springframework.springTest)
   testImplementation(tdsLibs.ucar.cdmTestUtils)
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.featurecollection.cache;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import thredds.filesystem.MFileOS;
+import thredds.inventory.MFile;
+import ucar.nc2.dt.grid.GridDataset;
+import ucar.nc2.ft.fmrc.GridDatasetInv;
+import ucar.nc2.time.CalendarDate;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * FMRC collection startup over 10k files: every file of the collection asks the GridInventoryDiskPersistedCache for
+ * its inventory, with the cache just opened from disk, as after a restart.
+ * The "xml" format starts from entries written before GridInventoryEntry, so it includes their migration, the
+ * "entry" format from GridInventoryEntry entries. "touched" makes every file newer than its entry, as after the files
+ * of a collection are rewritten. "rescan" asks for every inventory once before the measurement, so the measured scan
+ * is a later one, as when a collection is updated, and can use the parsed inventories held in memory.
+ * Run with: ./gradlew :tds:jmh -Pjmh.includes=GridInventoryCacheBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class GridInventoryCacheBenchmark {
+  private static final String GRID_FILE = "src/test/content/thredds/public/testdata/testData.nc";
+
+  @Param({"10000"})
+  public int nfiles;
+
+  @Param({"xml", "entry"})
+  public String format;
+
+  @Param({"false", "true"})
+  public boolean touched;
+
+  @Param({"false", "true"})
+  public boolean rescan;
+
+  private Path tempDir;
+  private Path cacheDir;
+  private MFile[] mfiles;
+  private byte[] xml;
+  private GridInventoryDiskPersistedCache cache;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    tempDir = Files.createTempDirectory("GridInventoryCacheBenchmark");
+    cacheDir = tempDir.resolve("cache");
+    Path dataDir = Files.createDirectories(tempDir.resolve("data"));
+
+    long lastModified = new File(GRID_FILE).lastModified();
+    mfiles = new MFile[nfiles];
+    for (int i = 0; i < nfiles; i++) {
+      File file = dataDir.resolve("grid" + i + ".nc").toFile();
+      file.createNewFile();
+      file.setLastModified(lastModified);
+      mfiles[i] = new MFileOS(file.getPath());
+    }
+
+    try (GridDataset gds = GridDataset.open(GRID_FILE)) {
+      GridDatasetInv inv = new GridDatasetInv(gds, CalendarDate.of(0));
+      xml = inv.writeCompactXML(new Date(lastModified)).getBytes(StandardCharsets.UTF_8);
+    }
+    cache = new GridInventoryDiskPersistedCache();
+  }
+
+  @Setup(Level.Iteration)
+  public void fillCache() throws IOException {
+    GridInventoryDiskPersistedCache.resetCache();
+    GridInventoryDiskPersistedCache.init(cacheDir, nfiles);
+    for (MFile mfile : mfiles) {
+      byte[] bytes = format.equals("xml") ? xml : GridInventoryEntry.encode(mfile.getLastModified(), xml);
+      GridInventoryDiskPersistedCache.putEntry(mfile.getPath(), bytes);
+    }
+
+    // reopen, so that the entries are read from disk
+    GridInventoryDiskPersistedCache.resetCache();
+    GridInventoryDiskPersistedCache.init(cacheDir, nfiles);
+    if (rescan) {
+      for (MFile mfile : mfiles)
+        cache.get(mfile);
+    }
+
+    if (touched) {
+      for (int i = 0; i < nfiles; i++) {
+        File file = new File(mfiles[i].getPath());
+        file.setLastModified(file.lastModified() + 10 * 1000);
+        mfiles[i] = new MFileOS(file.getPath());
+      }
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void untouch() {
+    if (touched) {
+      for (int i = 0; i < nfiles; i++) {
+        File file = new File(mfiles[i].getPath());
+        file.setLastModified(file.lastModified() - 10 * 1000);
+        mfiles[i] = new MFileOS(file.getPath());
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    GridInventoryDiskPersistedCache.resetCache();
+    try (Stream<Path> paths = Files.walk(tempDir)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  @Benchmark
+  public void startup(Blackhole bh) throws IOException {
+    for (MFile mfile : mfiles) {
+      bh.consume(cache.get(mfile));
+    }
+  }
+}
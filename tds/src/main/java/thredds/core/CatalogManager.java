@@ -50,6 +50,9 @@ public class CatalogManager {
   @Autowired
   private AllowedServices globalServices;
 
+  @Autowired
+  private DatasetScanCatalogCache datasetScanCache;
+
   ///////////////////////////////////////////////////////////
 
   /**
@@ -74,6 +77,9 @@ public class CatalogManager {
     // Check if it's a CatalogBuilder or ConfigCatalog
     Object dyno = makeDynamicCatalog(workPath, baseURI);
     if (dyno != null) {
+      if (dyno instanceof Catalog && !(dyno instanceof ConfigCatalog))
+        return (Catalog) dyno; // already finished, from the DatasetScan cache
+
       CatalogBuilder catBuilder;
       if (dyno instanceof CatalogBuilder) {
         catBuilder = (CatalogBuilder) dyno;
@@ -123,17 +129,23 @@ public class CatalogManager {
     if (dscan != null) {
       if (log.isDebugEnabled())
         log.debug("makeDynamicCatalog(): Calling DatasetScan.makeCatalogForDirectory( " + baseURI + ", " + path + ").");
-      CatalogBuilder cat;
-
-      if (isLatest)
-        cat = dscan.makeCatalogForLatest(workPath, baseURI);
-      else
-        cat = dscan.makeCatalogForDirectory(workPath, baseURI);
-
-      if (null == cat)
-        log.error("makeDynamicCatalog(): DatasetScan.makeCatalogForDirectory failed = " + workPath);
+      if (isLatest) {
+        CatalogBuilder cat = dscan.makeCatalogForLatest(workPath, baseURI);
+        if (null == cat)
+          log.error("makeDynamicCatalog(): DatasetScan.makeCatalogForLatest failed = " + workPath);
+        return cat;
+      }
 
-      return cat;
+      // the finished catalog is cached, until the directory changes
+      return datasetScanCache.get(dscan, workPath, baseURI, () -> {
+        CatalogBuilder cat = dscan.makeCatalogForDirectory(workPath, baseURI);
+        if (null == cat) {
+          log.error("makeDynamicCatalog(): DatasetScan.makeCatalogForDirectory failed = " + workPath);
+          return null;
+        }
+        addGlobalServices(cat);
+        return cat.makeCatalog();
+      });
     }
 
     // CatalogScan
@@ -28,10 +28,29 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Reads in the Config catalogs on startup, and if triggered.
  * Spring managed auto-wired.
+ * <p>
+ * The catalog files are checked and parsed, and catalogScan directories listed, by a pool of readThreads, which
+ * follows catalogRefs and catalogScans ahead of the walk that adds the catalogs, data roots and datasets to the
+ * trackers. That walk stays in the order of a sequential read, so catalog ids and the checks for duplicates are
+ * the same from one startup to the next. At most readAheadPerThread * readThreads catalogs are read ahead of the
+ * walk, so that the parsed catalogs waiting for it do not fill the heap.
  *
  * @author caron
  * @since 3/21/2015
@@ -43,6 +62,8 @@ public class ConfigCatalogInitialization {
   static private final String ERROR = "*** ERROR: ";
   static private final boolean show = true;
   static private final ReadMode defaultReadMode = ReadMode.check;
+  static private final int defaultReadThreads = Math.min(8, Runtime.getRuntime().availableProcessors());
+  static private final int readAheadPerThread = 8; // catalogs read but not yet walked, per read thread
 
   @Autowired
   private TdsContext tdsContext; // used for getContentDirectory, contextPath
@@ -87,6 +108,7 @@ public class ConfigCatalogInitialization {
   private String contextPath; // thredds
   private String trackerDir; // the tracker "databases" are kept in this directory
   private long maxDatasets; // in-memory cache limit
+  private int readThreads = defaultReadThreads; // catalogs read in parallel
 
   // on reread, construct new objects, so cant be spring beans
   private DataRootPathMatcher dataRootPathMatcher;
@@ -97,6 +119,13 @@ public class ConfigCatalogInitialization {
   private CatalogTracker catalogTracker;
   private Set<String> catPathMap; // Hash of paths, to look for duplicate catalogs
   private Map<String, String> fcNameMap; // Hash of featureCollection ids, to look for duplicates
+  private ExecutorService readPool;
+  private Map<String, CatalogRead> catalogReads; // catalogs read or being read, by path
+  private Deque<CatalogRead> pendingReads; // not started yet, in the order the walk will want them
+  private Semaphore readAhead; // a permit for each catalog read in the readPool and not yet walked
+  private Map<String, Long> lastReadMap; // when catalogs were last read, from the catalogTracker before this reread
+  private final AtomicLong readNanos = new AtomicLong(); // time spent by the readPool
+  private long waitNanos; // time the walk spent waiting for the readPool
 
   // track stats
   private DatasetTracker.Callback callback;
@@ -111,6 +140,10 @@ public class ConfigCatalogInitialization {
     this.maxDatasets = maxDatasets;
   }
 
+  public synchronized void setReadThreads(int readThreads) {
+    this.readThreads = readThreads > 0 ? readThreads : defaultReadThreads;
+  }
+
 
   // called from TdsInit on spring-managed auto-wired bean
   public synchronized void init(ReadMode readMode, PreferencesExt prefs) {
@@ -159,45 +192,13 @@ public class ConfigCatalogInitialization {
     // going to reread global services
     allowedServices.clearGlobalServices();
 
-    switch (readMode) {
-      case always:
-        // if the database already exists, we need to close it
-        // before we reinit
-        if (databaseAlreadyExists) {
-          logCatalogInit.info(
-              "ConfigCatalogInitializion datasetTracker database already exists - closing it before reinitialization.");
-          try {
-            this.datasetTracker.close();
-            this.datasetTracker =
-                new DatasetTrackerDiskPersistedCache(Paths.get(trackerDir).toString(), trackerNumber, maxDatasets);
-          } catch (IOException e) {
-            logCatalogInit.error("There was an error closing the datasetTracker database.", e);
-          }
-          this.datasetTracker.reinit();
-        }
-        this.catalogTracker = new CatalogTracker(trackerDir, true, numberCatalogs, nextCatId);
-        this.dataRootTracker = new DataRootTracker(trackerDir, true, callback);
-        this.dataRootPathMatcher = new DataRootPathMatcher(ccc, dataRootTracker); // starting over
-        ccc.setRootCatalogKeys(readRootCatalogs(readMode));
-        break;
-
-      case check:
-        this.catalogTracker = new CatalogTracker(trackerDir, false, numberCatalogs, nextCatId); // use existing catalog
-                                                                                                // list
-        this.dataRootTracker = new DataRootTracker(trackerDir, false, callback); // use existing data roots
-        this.dataRootPathMatcher = new DataRootPathMatcher(ccc, dataRootTracker);
-        ccc.setRootCatalogKeys(readRootCatalogs(readMode)); // read just roots to get global services
-        checkExistingCatalogs(readMode);
-        break;
-
-      case triggerOnly:
-        this.catalogTracker = new CatalogTracker(trackerDir, false, numberCatalogs, nextCatId); // use existing catalog
-                                                                                                // list
-        this.dataRootTracker = new DataRootTracker(trackerDir, false, callback); // use existing data roots
-        this.dataRootPathMatcher = new DataRootPathMatcher(ccc, dataRootTracker);
-        ccc.setRootCatalogKeys(readRootCatalogs(readMode)); // read just roots to get global services
-        break;
+    long walkStart = System.nanoTime();
+    try {
+      walkCatalogs(readMode, databaseAlreadyExists);
+    } finally {
+      finishReads();
     }
+    long walkTook = System.nanoTime() - walkStart;
 
     numberCatalogs = catalogTracker.size();
     nextCatId = catalogTracker.getNextCatId();
@@ -209,6 +210,7 @@ public class ConfigCatalogInitialization {
     callback.finish();
     logCatalogInit.info("\nConfigCatalogInitializion stats\n" + callback);
 
+    long saveStart = System.nanoTime();
     try {
       datasetTracker.save();
       catalogTracker.save();
@@ -217,6 +219,7 @@ public class ConfigCatalogInitialization {
       // e.printStackTrace();
       logCatalogInit.error("datasetTracker.save() failed", e);
     }
+    long saveTook = System.nanoTime() - saveStart;
 
     // heres where we may be doing a switcheroo in a running TDS
     if (dataRootManager != null)
@@ -230,7 +233,10 @@ public class ConfigCatalogInitialization {
     }
 
     long took = System.currentTimeMillis() - readNow;
-    logCatalogInit.info("ConfigCatalogInitializion finished took={} msecs", took);
+    logCatalogInit.info(
+        "ConfigCatalogInitializion finished took={} msecs: walk={} msecs (waiting for reads={} msecs),"
+            + " reads={} msecs on {} threads, save={} msecs",
+        took, walkTook / 1000000, waitNanos / 1000000, readNanos.get() / 1000000, readThreads, saveTook / 1000000);
 
     // cleanup
     catPathMap = null;
@@ -240,6 +246,54 @@ public class ConfigCatalogInitialization {
     return true; // ok
   }
 
+  // read the catalogs of readMode, and track their data roots and datasets
+  private void walkCatalogs(ReadMode readMode, boolean databaseAlreadyExists) {
+    switch (readMode) {
+      case always:
+        // if the database already exists, we need to close it
+        // before we reinit
+        if (databaseAlreadyExists) {
+          logCatalogInit.info(
+              "ConfigCatalogInitializion datasetTracker database already exists - closing it before reinitialization.");
+          try {
+            this.datasetTracker.close();
+            this.datasetTracker =
+                new DatasetTrackerDiskPersistedCache(Paths.get(trackerDir).toString(), trackerNumber, maxDatasets);
+          } catch (IOException e) {
+            logCatalogInit.error("There was an error closing the datasetTracker database.", e);
+          }
+          this.datasetTracker.reinit();
+        }
+        this.catalogTracker = new CatalogTracker(trackerDir, true, numberCatalogs, nextCatId);
+        this.dataRootTracker = new DataRootTracker(trackerDir, true, callback);
+        this.dataRootPathMatcher = new DataRootPathMatcher(ccc, dataRootTracker); // starting over
+        setRootCatalogKeys(readRootCatalogs(readMode));
+        break;
+
+      case check:
+        this.catalogTracker = new CatalogTracker(trackerDir, false, numberCatalogs, nextCatId); // use existing catalog
+                                                                                                // list
+        this.dataRootTracker = new DataRootTracker(trackerDir, false, callback); // use existing data roots
+        this.dataRootPathMatcher = new DataRootPathMatcher(ccc, dataRootTracker);
+        setRootCatalogKeys(readRootCatalogs(readMode)); // read just roots to get global services
+        checkExistingCatalogs(readMode);
+        break;
+
+      case triggerOnly:
+        this.catalogTracker = new CatalogTracker(trackerDir, false, numberCatalogs, nextCatId); // use existing catalog
+                                                                                                // list
+        this.dataRootTracker = new DataRootTracker(trackerDir, false, callback); // use existing data roots
+        this.dataRootPathMatcher = new DataRootPathMatcher(ccc, dataRootTracker);
+        setRootCatalogKeys(readRootCatalogs(readMode)); // read just roots to get global services
+        break;
+    }
+  }
+
+  private void setRootCatalogKeys(List<String> rootCatalogKeys) {
+    if (ccc != null) // null when used outside of tomcat/spring
+      ccc.setRootCatalogKeys(rootCatalogKeys);
+  }
+
   private List<String> readRootCatalogs(ReadMode readMode) {
     ArrayList<String> rootCatalogKeys = new ArrayList<>();
     rootCatalogKeys.add("catalog.xml"); // always first
@@ -248,12 +302,14 @@ public class ConfigCatalogInitialization {
       rootCatalogKeys.add(location);
     logCatalogInit.info("ConfigCatalogInit: initializing " + rootCatalogKeys.size() + " root catalogs.");
 
+    startWalk();
+    startReads(readMode, rootCatalogKeys, true);
     // all root catalogs are checked
     for (String pathname : rootCatalogKeys) {
       try {
         pathname = StringUtils.cleanPath(pathname);
         logCatalogInit.info("Checking catalogRoot = " + pathname);
-        checkCatalogToRead(readMode, pathname, true, 0);
+        checkCatalogToRead(readMode, pathname, true);
       } catch (Throwable e) {
         logCatalogInit.error(ERROR + "initializing catalog " + pathname + "; " + e.getMessage(), e);
       }
@@ -262,16 +318,19 @@ public class ConfigCatalogInitialization {
   }
 
   private void checkExistingCatalogs(ReadMode readMode) {
+    List<String> existing = new ArrayList<>();
     for (CatalogExt catalogExt : catalogTracker.getCatalogs()) {
-      if (catalogExt.isRoot())
-        continue; // already read in
+      if (!catalogExt.isRoot()) // already read in
+        existing.add(catalogExt.getCatRelLocation());
+    }
+    startReads(readMode, existing, false);
 
-      String pathname = catalogExt.getCatRelLocation();
+    for (String pathname : existing) {
       try {
         logCatalogInit.info(
             "\n**************************************\nCatalog init " + pathname + "[" + CalendarDate.present() + "]");
         pathname = StringUtils.cleanPath(pathname);
-        checkCatalogToRead(readMode, pathname, catalogExt.isRoot(), catalogExt.getLastRead());
+        checkCatalogToRead(readMode, pathname, false);
       } catch (Throwable e) {
         logCatalogInit.error(ERROR + "initializing catalog " + pathname + "; " + e.getMessage(), e);
       }
@@ -280,23 +339,20 @@ public class ConfigCatalogInitialization {
 
   // decide if we need to read this catalog or not. if yes, follow any catrefs
   // catalogRelpath must be relative to rootDir
-  private void checkCatalogToRead(ReadMode readMode, String catalogRelPath, boolean isRoot, long lastRead)
-      throws IOException {
+  private void checkCatalogToRead(ReadMode readMode, String catalogRelPath, boolean isRoot) throws IOException {
     if (exceedLimit)
       return;
 
     catalogRelPath = StringUtils.cleanPath(catalogRelPath);
-    File catalogFile = new File(this.contentRootPath, catalogRelPath);
-    if (!catalogFile.exists()) {
+    CatalogRead read = awaitRead(readMode, catalogRelPath, isRoot);
+    File catalogFile = read.catalogFile;
+    if (!read.exists) {
       catalogTracker.removeCatalog(catalogRelPath);
       logCatalogInit.error(ERROR + "initCatalog(): Catalog [" + catalogRelPath + "] does not exist.");
       return;
     }
-    long lastModified = catalogFile.lastModified();
-    if (!isRoot && readMode != ReadMode.always && lastModified < lastRead)
-      return; // skip catalogs that havent changed
-    if (!isRoot && readMode == ReadMode.triggerOnly)
-      return; // skip non-root catalogs for trigger only
+    if (!isRoot && read.skip)
+      return; // skip catalogs that havent changed, and non-root catalogs for trigger only
     if (show)
       System.out.printf("initCatalog %s%n", catalogRelPath);
 
@@ -311,8 +367,8 @@ public class ConfigCatalogInitialization {
 
     // if (logCatalogInit.isDebugEnabled()) logCatalogInit.debug("initCatalog {} -> {}", path, f.getAbsolutePath());
 
-    // read it
-    ConfigCatalog cat = readCatalog(catalogRelPath, catalogFile.getPath());
+    ConfigCatalog cat = read.cat;
+    read.cat = null; // only needed once, dont hold on to all of the catalogs until the walk is done
     if (cat == null) {
       logCatalogInit.error(ERROR + "initCatalog(): failed to read catalog <" + catalogFile.getPath() + ">.");
       return;
@@ -354,14 +410,13 @@ public class ConfigCatalogInitialization {
     String dirPath = (pos > 0) ? catalogRelPath.substring(0, pos + 1) : "";
     processDatasets(catId, readMode, dirPath, cat.getDatasetsLocal(), idSet); // recurse
 
-    // look for catalogScans
-    for (CatalogScan catScan : cat.getCatalogScans()) {
+    // look for catalogScans, whose directories were listed by the read
+    List<CatalogScan> catScans = cat.getCatalogScans();
+    for (int i = 0; i < catScans.size(); i++) {
       if (exceedLimit)
         return;
-      Path relLocation = Paths.get(dirPath, catScan.getLocation());
-      Path absLocation = Paths.get(catalogFile.getParent(), catScan.getLocation());
-      // if (catalogWatcher != null) catalogWatcher.registerAll(absLocation);
-      readCatsInDirectory(readMode, relLocation.toString(), absLocation);
+      for (String path : read.getScanPaths(i))
+        checkCatalogToRead(readMode, path, false);
     }
   }
 
@@ -432,36 +487,9 @@ public class ConfigCatalogInitialization {
         continue;
 
       if (ds instanceof CatalogRef) { // follow catalog refs
-        CatalogRef catref = (CatalogRef) ds;
-        String href = catref.getXlinkHref();
-        // if (logCatalogInit.isDebugEnabled()) logCatalogInit.debug(" catref.getXlinkHref=" + href);
-
-        // Check that catRef is relative
-        if (!href.startsWith("http:")) {
-          // Clean up relative URLs that start with "./"
-          if (href.startsWith("./")) {
-            href = href.substring(2);
-          }
-
-          String path;
-          String contextPathPlus = this.contextPath + "/";
-          if (href.startsWith(contextPathPlus)) {
-            path = href.substring(contextPathPlus.length()); // absolute starting from content root
-          } else if (href.startsWith("/")) {
-            // Drop the catRef because it points to a non-TDS served catalog.
-            logCatalogInit.error(ERROR + "Skipping catalogRef <xlink:href=" + href
-                + ">. Reference is relative to the server outside the context path [" + contextPathPlus + "]. "
-                + "Parent catalog info: Name=\"" + catref.getParentCatalog().getName() + "\"; Base URI=\""
-                + catref.getParentCatalog().getUriString() + "\"; dirPath=\"" + dirPath + "\".");
-            continue;
-          } else {
-            path = dirPath + href; // relative starting from current directory
-          }
-
-          CatalogExt ext = catalogTracker.get(path);
-          long lastRead = (ext == null) ? 0 : ext.getLastRead();
-          checkCatalogToRead(readMode, path, false, lastRead);
-        }
+        String path = getCatalogRefPath((CatalogRef) ds, dirPath, true);
+        if (path != null)
+          checkCatalogToRead(readMode, path, false);
 
       } else {
         // recurse through nested datasets
@@ -470,11 +498,45 @@ public class ConfigCatalogInitialization {
     }
   }
 
-  // dirPath is the directory relative to rootDir, directory is absolute
-  private void readCatsInDirectory(ReadMode readMode, String dirPath, Path directory) throws IOException {
-    if (exceedLimit)
-      return;
+  /**
+   * The path of the catalog referenced by a catalogRef.
+   *
+   * @param catref the catalogRef
+   * @param dirPath the directory of the catalog containing the catalogRef, relative to the rootDir
+   * @param logErrors log references that cannot be followed
+   * @return the path relative to the rootDir, or null if the catalog is not served from the rootDir
+   */
+  private String getCatalogRefPath(CatalogRef catref, String dirPath, boolean logErrors) {
+    String href = catref.getXlinkHref();
+    // if (logCatalogInit.isDebugEnabled()) logCatalogInit.debug(" catref.getXlinkHref=" + href);
+
+    // Check that catRef is relative
+    if (href.startsWith("http:"))
+      return null;
 
+    // Clean up relative URLs that start with "./"
+    if (href.startsWith("./")) {
+      href = href.substring(2);
+    }
+
+    String contextPathPlus = this.contextPath + "/";
+    if (href.startsWith(contextPathPlus)) {
+      return href.substring(contextPathPlus.length()); // absolute starting from content root
+    } else if (href.startsWith("/")) {
+      // Drop the catRef because it points to a non-TDS served catalog.
+      if (logErrors)
+        logCatalogInit.error(ERROR + "Skipping catalogRef <xlink:href=" + href
+            + ">. Reference is relative to the server outside the context path [" + contextPathPlus + "]. "
+            + "Parent catalog info: Name=\"" + catref.getParentCatalog().getName() + "\"; Base URI=\""
+            + catref.getParentCatalog().getUriString() + "\"; dirPath=\"" + dirPath + "\".");
+      return null;
+    } else {
+      return dirPath + href; // relative starting from current directory
+    }
+  }
+
+  // dirPath is the directory relative to rootDir, directory is absolute
+  private void listCatsInDirectory(String dirPath, Path directory, List<String> result) throws IOException {
     // do any catalogs first
     try (DirectoryStream<Path> ds = Files.newDirectoryStream(directory, "*.xml")) {
       for (Path p : ds) {
@@ -483,10 +545,7 @@ public class ConfigCatalogInitialization {
           String filename = p.getFileName().toString();
           String path = dirPath.length() == 0 ? filename : dirPath + "/" + filename; // relative starting from current
                                                                                      // directory
-
-          CatalogExt ext = catalogTracker.get(path);
-          long lastRead = (ext == null) ? 0 : ext.getLastRead();
-          checkCatalogToRead(readMode, path, false, lastRead);
+          result.add(path);
         }
       }
     }
@@ -497,12 +556,227 @@ public class ConfigCatalogInitialization {
         if (Files.isDirectory(dir)) {
           String dirPathChild = dirPath + "/" + dir.getFileName().toString(); // relative starting from current
                                                                               // directory
-          readCatsInDirectory(readMode, dirPathChild, dir);
+          listCatsInDirectory(dirPathChild, dir, result);
         }
       }
     }
   }
 
+  ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  // reading catalogs in the readPool
+
+  // called before the walk, once the catalogTracker of this reread is made
+  private void startWalk() {
+    lastReadMap = new HashMap<>();
+    for (CatalogExt catalogExt : catalogTracker.getCatalogs())
+      lastReadMap.put(catalogExt.getCatRelLocation(), catalogExt.getLastRead());
+    catalogReads = new ConcurrentHashMap<>();
+    pendingReads = new ConcurrentLinkedDeque<>();
+    readAhead = new Semaphore(readAheadPerThread * readThreads);
+    readNanos.set(0);
+    waitNanos = 0;
+
+    AtomicInteger count = new AtomicInteger();
+    ThreadFactory threadFactory = r -> {
+      Thread t = new Thread(r, "CatalogRead-" + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+    readPool = Executors.newFixedThreadPool(readThreads, threadFactory);
+  }
+
+  private void finishReads() {
+    if (readPool != null) {
+      readPool.shutdownNow(); // reads that the walk did not need, eg if exceedLimit
+      try {
+        readPool.awaitTermination(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    readPool = null;
+    catalogReads = null;
+    pendingReads = null;
+    readAhead = null;
+    lastReadMap = null;
+  }
+
+  // queue reading these catalogs, if not already queued. all are added before any is read, so that a catalog
+  // referenced by an earlier one is still read as a root if it is one
+  private void startReads(ReadMode readMode, List<String> catalogRelPaths, boolean isRoot) {
+    List<CatalogRead> added = new ArrayList<>();
+    for (String catalogRelPath : catalogRelPaths) {
+      String path = StringUtils.cleanPath(catalogRelPath);
+      CatalogRead read = new CatalogRead(readMode, path, isRoot);
+      if (catalogReads.putIfAbsent(path, read) == null)
+        added.add(read);
+    }
+    // the walk wants the catalogs referenced by the one it last reached before those of the catalogs before that,
+    // as a depth first read would
+    for (int i = added.size() - 1; i >= 0; i--)
+      pendingReads.addFirst(added.get(i));
+    dispatchReads();
+  }
+
+  // start pending reads in the readPool, as far as the read-ahead allows. the pool threads never wait for a permit,
+  // reads that do not get one stay pending until the walk releases one, or needs the read itself
+  private void dispatchReads() {
+    while (!pendingReads.isEmpty() && readAhead.tryAcquire()) {
+      CatalogRead read = pendingReads.pollFirst();
+      if (read == null || !read.claim(true)) {
+        readAhead.release(); // none left, or already run by the walk
+        continue;
+      }
+      try {
+        readPool.execute(read);
+      } catch (RejectedExecutionException e) {
+        read.done.completeExceptionally(e); // the readPool is shut down
+      }
+    }
+  }
+
+  // wait for the read of this catalog, running it in the walk thread if it has not started
+  private CatalogRead awaitRead(ReadMode readMode, String catalogRelPath, boolean isRoot) throws IOException {
+    CatalogRead read = catalogReads.get(catalogRelPath);
+    if (read == null) {
+      startReads(readMode, Collections.singletonList(catalogRelPath), isRoot);
+      read = catalogReads.get(catalogRelPath);
+    }
+
+    long start = System.nanoTime();
+    try {
+      if (read.claim(false))
+        read.run(); // left in pendingReads, where dispatchReads skips it
+      read.done.join();
+      return read;
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException)
+        throw (IOException) cause;
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw new IOException(cause);
+    } finally {
+      waitNanos += System.nanoTime() - start;
+      read.walked();
+    }
+  }
+
+  /**
+   * Checks and parses one catalog in the readPool, then starts reading the catalogs it references.
+   * The results are only looked at by the walk after done is complete.
+   */
+  private class CatalogRead implements Runnable {
+    final ReadMode readMode;
+    final String catalogRelPath;
+    final boolean isRoot;
+    final CompletableFuture<CatalogRead> done = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean hasPermit; // holds a readAhead permit until the walk gets to it
+
+    File catalogFile;
+    boolean exists;
+    boolean skip; // unchanged, or a non-root catalog for trigger only
+    ConfigCatalog cat;
+    List<List<String>> scanPaths = new ArrayList<>(); // catalogs in the directories of each catalogScan
+    List<IOException> scanErrors = new ArrayList<>();
+
+    CatalogRead(ReadMode readMode, String catalogRelPath, boolean isRoot) {
+      this.readMode = readMode;
+      this.catalogRelPath = catalogRelPath;
+      this.isRoot = isRoot;
+    }
+
+    // claim running this read, in the readPool with a readAhead permit, or in the walk thread
+    boolean claim(boolean withPermit) {
+      if (!started.compareAndSet(false, true))
+        return false;
+      hasPermit = withPermit;
+      return true;
+    }
+
+    // the walk got to this read; its permit lets another one start
+    void walked() {
+      if (hasPermit) {
+        hasPermit = false;
+        readAhead.release();
+        dispatchReads();
+      }
+    }
+
+    @Override
+    public void run() {
+      long start = System.nanoTime();
+      try {
+        catalogFile = new File(contentRootPath, catalogRelPath);
+        exists = catalogFile.exists();
+        if (exists) {
+          long lastModified = catalogFile.lastModified();
+          long lastRead = lastReadMap.getOrDefault(catalogRelPath, 0L);
+          skip = !isRoot
+              && (readMode == ReadMode.triggerOnly || (readMode != ReadMode.always && lastModified < lastRead));
+          if (!skip) {
+            cat = readCatalog(catalogRelPath, catalogFile.getPath());
+            if (cat != null && !(isRoot && readMode == ReadMode.triggerOnly))
+              readReferences();
+          }
+        }
+        done.complete(this);
+      } catch (Throwable t) {
+        done.completeExceptionally(t);
+      } finally {
+        readNanos.addAndGet(System.nanoTime() - start);
+      }
+    }
+
+    private void readReferences() {
+      int pos = catalogRelPath.lastIndexOf("/");
+      String dirPath = (pos > 0) ? catalogRelPath.substring(0, pos + 1) : "";
+      List<String> refs = new ArrayList<>();
+      addCatalogRefs(dirPath, cat.getDatasetsLocal(), refs);
+
+      for (CatalogScan catScan : cat.getCatalogScans()) {
+        Path relLocation = Paths.get(dirPath, catScan.getLocation());
+        Path absLocation = Paths.get(catalogFile.getParent(), catScan.getLocation());
+        List<String> paths = new ArrayList<>();
+        IOException error = null;
+        try {
+          listCatsInDirectory(relLocation.toString(), absLocation, paths);
+        } catch (IOException e) {
+          error = e;
+        }
+        scanPaths.add(paths);
+        scanErrors.add(error);
+        refs.addAll(paths);
+      }
+      startReads(readMode, refs, false);
+    }
+
+    // the same datasets that processDatasets() follows
+    private void addCatalogRefs(String dirPath, List<Dataset> datasets, List<String> refs) {
+      for (Dataset ds : datasets) {
+        if ((ds instanceof DatasetScan) || (ds instanceof FeatureCollectionRef) || (ds instanceof CatalogScan))
+          continue;
+        if (ds instanceof CatalogRef) {
+          String path = getCatalogRefPath((CatalogRef) ds, dirPath, false);
+          if (path != null)
+            refs.add(path);
+        } else {
+          addCatalogRefs(dirPath, ds.getDatasetsLocal(), refs);
+        }
+      }
+    }
+
+    // the catalogs in the directories of the i-th catalogScan, throwing the error from listing them, if any
+    List<String> getScanPaths(int i) throws IOException {
+      if (scanErrors.get(i) != null)
+        throw scanErrors.get(i);
+      return scanPaths.get(i);
+    }
+  }
+
   ///////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
   public void makeDebugActions() {
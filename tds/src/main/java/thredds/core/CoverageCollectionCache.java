@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import thredds.server.admin.DebugCommands;
+import ucar.nc2.ft2.coverage.CoverageCollection;
+import javax.annotation.concurrent.GuardedBy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps opened CoverageCollections for plain files and for files wrapped in NcML, so that coordinate systems and axes
+ * are not rebuilt on every request. Feature collections have their own caching and do not use this.
+ * <p>
+ * A collection is lent to one request at a time, since the underlying NetcdfFile is not thread safe, and is given
+ * back when the request closes its CoverageCollectionHandle. Concurrent requests for the same file each get their own
+ * collection. A collection is discarded if the file's last modified time has changed, and the least recently used
+ * idle collections are closed when there are more than maxFiles of them.
+ */
+@Component
+public class CoverageCollectionCache {
+  static private final Logger logger = LoggerFactory.getLogger(CoverageCollectionCache.class);
+
+  /** Opens the collection on a cache miss. */
+  public interface Opener {
+    CoverageCollection open(String location) throws IOException;
+  }
+
+  @Autowired
+  private DebugCommands debugCommands;
+
+  private volatile int maxFiles; // 0 means turned off, which is also the case until init() is called
+
+  @GuardedBy("this")
+  private final LinkedList<Entry> idle = new LinkedList<>(); // least recently released first
+
+  private final AtomicInteger inUse = new AtomicInteger();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public void init(int maxFiles) {
+    this.maxFiles = maxFiles;
+    if (debugCommands != null)
+      makeDebugActions();
+  }
+
+  /**
+   * Get a collection for the file at location, opening it with the opener if none is idle.
+   * Locations that are not local files are not cached, and closing their handle closes the collection.
+   *
+   * @return a handle that must be closed when the request is done with the collection
+   */
+  public CoverageCollectionHandle acquire(String location, Opener opener) throws IOException {
+    return acquire(location, location, opener);
+  }
+
+  /**
+   * Get a collection cached under key, for a dataset made from the file at location, eg by wrapping it in NcML.
+   * The key must change whenever the collection would be different for the same file.
+   *
+   * @return a handle that must be closed when the request is done with the collection
+   */
+  public CoverageCollectionHandle acquire(String key, String location, Opener opener) throws IOException {
+    File file = new File(location);
+    if (maxFiles <= 0 || !file.isFile())
+      return CoverageCollectionHandle.owned(opener.open(location));
+
+    long lastModified = file.lastModified();
+    Entry found = null;
+    List<Entry> stale = new ArrayList<>();
+    synchronized (this) {
+      Iterator<Entry> iter = idle.descendingIterator(); // most recently released first
+      while (iter.hasNext()) {
+        Entry entry = iter.next();
+        if (!entry.key.equals(key))
+          continue;
+        iter.remove();
+        if (entry.lastModified == lastModified) {
+          found = entry;
+          break;
+        }
+        stale.add(entry);
+      }
+    }
+    invalidations.addAndGet(stale.size());
+    closeAll(stale);
+
+    if (found != null) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+      found = new Entry(key, location, lastModified, opener.open(location));
+    }
+
+    inUse.incrementAndGet();
+    Entry entry = found;
+    return new CoverageCollectionHandle(entry.cc, cc -> release(entry));
+  }
+
+  private void release(Entry entry) throws IOException {
+    inUse.decrementAndGet();
+    if (maxFiles <= 0 || new File(entry.location).lastModified() != entry.lastModified) {
+      invalidations.incrementAndGet();
+      entry.cc.close();
+      return;
+    }
+
+    List<Entry> evicted = new ArrayList<>();
+    synchronized (this) {
+      idle.addLast(entry);
+      while (idle.size() > maxFiles)
+        evicted.add(idle.removeFirst());
+    }
+    evictions.addAndGet(evicted.size());
+    closeAll(evicted);
+  }
+
+  /** Close all idle collections. Collections in use are closed or kept as usual when they are given back. */
+  public void clear() {
+    List<Entry> all;
+    synchronized (this) {
+      all = new ArrayList<>(idle);
+      idle.clear();
+    }
+    closeAll(all);
+  }
+
+  public void shutdown() {
+    maxFiles = 0;
+    clear();
+  }
+
+  private static void closeAll(List<Entry> entries) {
+    for (Entry entry : entries) {
+      try {
+        entry.cc.close();
+      } catch (IOException e) {
+        logger.warn("Cant close CoverageCollection {}", entry.location, e);
+      }
+    }
+  }
+
+  public synchronized void showCache(Formatter f) {
+    f.format("CoverageCollectionCache maxFiles = %d%n", maxFiles);
+    f.format("  idle = %d, inUse = %d%n", idle.size(), inUse.get());
+    f.format("  hits = %d, misses = %d, evictions = %d, invalidations = %d%n", hits.get(), misses.get(),
+        evictions.get(), invalidations.get());
+    for (Entry entry : idle)
+      f.format("   %s%n", entry.key);
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public long getInvalidations() {
+    return invalidations.get();
+  }
+
+  public synchronized int getIdleCount() {
+    return idle.size();
+  }
+
+  void makeDebugActions() {
+    DebugCommands.Category debugHandler = debugCommands.findCategory("Caches");
+    DebugCommands.Action act;
+
+    act = new DebugCommands.Action("showCoverageCollectionCache", "Show CoverageCollection Cache") {
+      public void doAction(DebugCommands.Event e) {
+        Formatter f = new Formatter(e.pw);
+        showCache(f);
+        e.pw.flush();
+      }
+    };
+    debugHandler.addAction(act);
+
+    act = new DebugCommands.Action("clearCoverageCollectionCache", "Clear CoverageCollection Cache") {
+      public void doAction(DebugCommands.Event e) {
+        clear();
+        e.pw.println("  CoverageCollectionCache clear ok");
+      }
+    };
+    debugHandler.addAction(act);
+  }
+
+  private static class Entry {
+    final String key;
+    final String location;
+    final long lastModified;
+    final CoverageCollection cc;
+
+    Entry(String key, String location, long lastModified, CoverageCollection cc) {
+      this.key = key;
+      this.location = location;
+      this.lastModified = lastModified;
+      this.cc = cc;
+    }
+  }
+}
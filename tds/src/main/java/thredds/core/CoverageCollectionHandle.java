@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.core;
+
+import ucar.nc2.ft2.coverage.CoverageCollection;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A CoverageCollection lent to a single request. Closing the handle gives a cached collection back to the
+ * CoverageCollectionCache, or closes the collection if it was not cached. Do not close the collection itself.
+ */
+public class CoverageCollectionHandle implements Closeable {
+
+  /** What to do with the collection when the handle is closed. */
+  interface Releaser {
+    void release(CoverageCollection cc) throws IOException;
+  }
+
+  /** A handle that owns its collection, and closes it. */
+  public static CoverageCollectionHandle owned(CoverageCollection cc) {
+    return new CoverageCollectionHandle(cc, CoverageCollection::close);
+  }
+
+  private final CoverageCollection cc;
+  private final Releaser releaser;
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  CoverageCollectionHandle(CoverageCollection cc, Releaser releaser) {
+    this.cc = cc;
+    this.releaser = releaser;
+  }
+
+  public CoverageCollection getCoverageCollection() {
+    return cc;
+  }
+
+  /** Only the first call has any effect. */
+  @Override
+  public void close() throws IOException {
+    if (closed.compareAndSet(false, true))
+      releaser.release(cc);
+  }
+}
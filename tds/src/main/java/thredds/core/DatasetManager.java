@@ -14,6 +14,8 @@ import org.springframework.stereotype.Component;
 import thredds.core.DataRootManager.DataRootMatch;
 import thredds.featurecollection.FeatureCollectionCache;
 import thredds.featurecollection.InvDatasetFeatureCollection;
+import thredds.inventory.MFile;
+import thredds.inventory.MFiles;
 import thredds.server.admin.DebugCommands;
 import thredds.server.catalog.FeatureCollectionRef;
 import thredds.server.catalog.tracker.DatasetTracker;
@@ -68,6 +70,9 @@ public class DatasetManager implements InitializingBean {
   @Autowired
   private FeatureCollectionCache featureCollectionCache;
 
+  @Autowired
+  private CoverageCollectionCache coverageCollectionCache;
+
   @Autowired
   @Qualifier("restrictedDatasetAuthorizer")
   private Authorizer restrictedDatasetAuthorizer;
@@ -118,6 +123,38 @@ public class DatasetManager implements InitializingBean {
     return ncml != null ? NcmlReader.getLocationFromNcml(ncml) : null;
   }
 
+  /**
+   * A version stamp for the dataset at reqPath that changes whenever its contents may have changed:
+   * the last modified time of a file, or the time a feature collection's state was last updated.
+   *
+   * @return the version, or -1 if not known (eg NcML datasets, or a feature collection not yet initialized)
+   */
+  public long getDatasetVersion(String reqPath) throws IOException {
+    if (reqPath == null)
+      return -1;
+
+    if (reqPath.startsWith("/"))
+      reqPath = reqPath.substring(1);
+
+    if (datasetTracker.findNcml(reqPath) != null)
+      return -1;
+
+    DataRootMatch match = dataRootManager.findDataRootMatch(reqPath);
+    if (match == null)
+      return -1;
+
+    if (match.dataRoot.getFeatureCollection() != null) {
+      InvDatasetFeatureCollection fc = featureCollectionCache.get(match.dataRoot.getFeatureCollection());
+      return fc.getLastStateChange();
+    }
+
+    String location = dataRootManager.getLocationFromRequestPath(reqPath);
+    if (location == null)
+      return -1;
+    MFile mfile = MFiles.create(location);
+    return (mfile == null || mfile.isDirectory()) ? -1 : mfile.getLastModified();
+  }
+
   public static boolean isLocationObjectStore(String location) {
     return location != null ? (location.startsWith("cdms3:") || location.startsWith("s3:")) : false;
   }
@@ -140,6 +177,20 @@ public class DatasetManager implements InitializingBean {
     }
   }
 
+  // used for a file in a DatasetScan that has an NcML element, which is merged into the file.
+  private class DatasetScanNcmlFactory implements FileFactory {
+    private final DataRootMatch match;
+
+    DatasetScanNcmlFactory(DataRootMatch match) {
+      this.match = match;
+    }
+
+    public NetcdfFile open(DatasetUrl durl, int buffer_size, ucar.nc2.util.CancelTask cancelTask, Object spiObject)
+        throws IOException {
+      return readNcmlDatasetScan(durl.getTrueurl(), match);
+    }
+  }
+
   // return null means request has been handled, and calling routine should exit without further processing
   public NetcdfFile openNetcdfFile(HttpServletRequest req, HttpServletResponse res, String reqPath) throws IOException {
     if (log.isDebugEnabled())
@@ -159,12 +210,15 @@ public class DatasetManager implements InitializingBean {
     // look for a dataset (non scan, non fmrc) that has an ncml element
     String ncml = datasetTracker.findNcml(reqPath);
     if (ncml != null) {
+      // key on the ncml and the underlying file too, so a changed catalog or file is not served from the cache
+      String hashKey =
+          NcmlCacheKeys.makeKey(reqPath, NcmlCacheKeys.hash(ncml), NcmlReader.getLocationFromNcml(ncml));
       NetcdfFile ncfile;
       if (useNetcdfJavaBuilders) {
-        ncfile = NetcdfDatasets.acquireFile(new NcmlFileFactory(ncml), null, DatasetUrl.findDatasetUrl(reqPath), -1,
+        ncfile = NetcdfDatasets.acquireFile(new NcmlFileFactory(ncml), hashKey, DatasetUrl.findDatasetUrl(reqPath), -1,
             null, null);
       } else {
-        ncfile = NetcdfDataset.acquireFile(new NcmlFileFactory(ncml), null, DatasetUrl.findDatasetUrl(reqPath), -1,
+        ncfile = NetcdfDataset.acquireFile(new NcmlFileFactory(ncml), hashKey, DatasetUrl.findDatasetUrl(reqPath), -1,
             null, null);
       }
       if (ncfile == null)
@@ -226,10 +280,26 @@ public class DatasetManager implements InitializingBean {
   }
 
   private NetcdfFile openNcmlDatasetScan(String location, DataRootMatch match) throws IOException {
+    // local files are acquired through the NetcdfFileCache like plain files, keyed on the ncml element and the
+    // file's last modified time, so that a changed file or catalog gets a new dataset.
+    if (NcmlCacheKeys.lastModified(location) < 0)
+      return readNcmlDatasetScan(location, match);
+
+    String hashKey = datasetScanNcmlKey(location, match);
+    return NetcdfDatasets.acquireFile(new DatasetScanNcmlFactory(match), hashKey, DatasetUrl.findDatasetUrl(location),
+        -1, null, null);
+  }
+
+  private String datasetScanNcmlKey(String location, DataRootMatch match) {
+    org.jdom2.Element netcdfElem = match.dataRoot.getDatasetScan().getNcmlElement();
+    return NcmlCacheKeys.makeKey("DatasetScan#" + location, NcmlCacheKeys.hashElement(netcdfElem), location);
+  }
+
+  // open the file and merge the datasetScan NcML into it, without using any cache
+  private NetcdfFile readNcmlDatasetScan(String location, DataRootMatch match) throws IOException {
     org.jdom2.Element netcdfElem = match.dataRoot.getDatasetScan().getNcmlElement();
     // if there's an ncml element, open it through NcMLReader, supplying the underlying file
-    // from NetcdfFiles.open(), therefore not being cached.
-    // This is safer given all the trouble we have with ncml and caching.
+    // from NetcdfFiles.open(), therefore not being cached separately from the merged dataset.
 
     String ncmlLocation = "DatasetScan#" + location; // LOOK some descriptive name
     // open with openFile(), not acquireFile, so we skip the caches
@@ -380,9 +450,15 @@ public class DatasetManager implements InitializingBean {
     }
   }
 
-  // return null means request has been handled, and calling routine should exit without further processing
-  public CoverageCollection openCoverageDataset(HttpServletRequest req, HttpServletResponse res, String reqPath)
-      throws IOException {
+  /**
+   * Open the CoverageCollection for the request. Collections for plain files come from the CoverageCollectionCache.
+   * Close the returned handle, not the collection, when done.
+   *
+   * @return the handle, or null, meaning the request has been handled, and calling routine should exit without
+   *         further processing
+   */
+  public CoverageCollectionHandle acquireCoverageDataset(HttpServletRequest req, HttpServletResponse res,
+      String reqPath) throws IOException {
     if (reqPath == null)
       return null;
 
@@ -398,14 +474,12 @@ public class DatasetManager implements InitializingBean {
     // since the urlPath doesn't need to point to a file if there is ncml
     String ncml = datasetTracker.findNcml(reqPath);
     if (ncml != null) {
-      Optional<FeatureDatasetCoverage> opt =
-          CoverageDatasetFactory.openNcmlString(ncml, DatasetUrl.findDatasetUrl(reqPath).getTrueurl());
-      if (!opt.isPresent())
-        throw new FileNotFoundException("NcML is not a Grid Dataset " + reqPath + " err=" + opt.getErrorMessage());
-
-      if (log.isDebugEnabled())
-        log.debug("  -- DatasetHandler found FeatureCollection from NcML");
-      return opt.get().getSingleCoverageCollection();
+      // cached only if the ncml wraps a single local file, since that is what the cache can check for changes
+      String ncmlLocation = NcmlReader.getLocationFromNcml(ncml);
+      String key = NcmlCacheKeys.makeKey(reqPath, NcmlCacheKeys.hash(ncml), ncmlLocation);
+      String location = NcmlCacheKeys.lastModified(ncmlLocation) < 0 ? reqPath : ncmlLocation;
+      final String path = reqPath;
+      return coverageCollectionCache.acquire(key, location, loc -> openCoverageFromNcml(ncml, path));
     }
 
     // then look for a feature collection
@@ -419,7 +493,7 @@ public class DatasetManager implements InitializingBean {
       CoverageCollection gds = fc.getGridCoverage(match.remaining);
       if (gds == null)
         throw new FileNotFoundException(reqPath);
-      return gds;
+      return CoverageCollectionHandle.owned(gds);
     }
 
     // otherwise, assume it's a local file with a datasetRoot in the urlPath.
@@ -427,38 +501,56 @@ public class DatasetManager implements InitializingBean {
 
     // Ncml in datasetScan
     if (location != null && hasDatasetScanNcml(match)) {
-      return openCoverageFromDatasetScanNcml(location, match, reqPath);
+      final String path = reqPath;
+      return coverageCollectionCache.acquire(datasetScanNcmlKey(location, match), location,
+          loc -> openCoverageFromDatasetScanNcml(loc, match, path));
     }
 
-    // try to open as a FeatureDatasetCoverage. This allows GRIB to be handled specially
     if (location != null) {
-      Optional<FeatureDatasetCoverage> opt = CoverageDatasetFactory.openCoverageDataset(location);
-      // hack - CoverageDatasetFactory bombs out on an object store location string during the grib check,
-      // this is the code from CoverageDatasetFactory.openCoverageDataset that comes after the grib check.
-      if (!opt.isPresent() && isLocationObjectStore(location) || location.contains("gcdm:")) {
-        // hack 2 - DtCoverageDataset not ported, so need to open the NetcdfDataset object through NetcdfDatasets
-        // and pass that to CoverageDataset
-        DtCoverageDataset gds = new DtCoverageDataset(NetcdfDatasets.openDataset(location));
-        if (!gds.getGrids().isEmpty()) {
-          FeatureDatasetCoverage result = DtCoverageAdapter.factory(gds, new Formatter());
-          opt = Optional.of(result);
-        }
-      }
+      final String path = reqPath;
+      return coverageCollectionCache.acquire(location, loc -> openCoverageFromLocation(loc, path));
+    }
 
-      if (!opt.isPresent())
-        throw new FileNotFoundException("Error opening grid dataset " + reqPath + ". err=" + opt.getErrorMessage());
+    return null;
+  }
 
-      if (log.isDebugEnabled())
-        log.debug("  -- DatasetHandler found FeatureCollection from file= " + location);
-      return opt.get().getSingleCoverageCollection(); // LOOK doesnt have to be single, then what is the URL?
+  private CoverageCollection openCoverageFromNcml(String ncml, String reqPath) throws IOException {
+    Optional<FeatureDatasetCoverage> opt =
+        CoverageDatasetFactory.openNcmlString(ncml, DatasetUrl.findDatasetUrl(reqPath).getTrueurl());
+    if (!opt.isPresent())
+      throw new FileNotFoundException("NcML is not a Grid Dataset " + reqPath + " err=" + opt.getErrorMessage());
+
+    if (log.isDebugEnabled())
+      log.debug("  -- DatasetHandler found FeatureCollection from NcML");
+    return opt.get().getSingleCoverageCollection();
+  }
+
+  // try to open as a FeatureDatasetCoverage. This allows GRIB to be handled specially
+  private CoverageCollection openCoverageFromLocation(String location, String reqPath) throws IOException {
+    Optional<FeatureDatasetCoverage> opt = CoverageDatasetFactory.openCoverageDataset(location);
+    // hack - CoverageDatasetFactory bombs out on an object store location string during the grib check,
+    // this is the code from CoverageDatasetFactory.openCoverageDataset that comes after the grib check.
+    if (!opt.isPresent() && isLocationObjectStore(location) || location.contains("gcdm:")) {
+      // hack 2 - DtCoverageDataset not ported, so need to open the NetcdfDataset object through NetcdfDatasets
+      // and pass that to CoverageDataset
+      DtCoverageDataset gds = new DtCoverageDataset(NetcdfDatasets.openDataset(location));
+      if (!gds.getGrids().isEmpty()) {
+        FeatureDatasetCoverage result = DtCoverageAdapter.factory(gds, new Formatter());
+        opt = Optional.of(result);
+      }
     }
 
-    return null;
+    if (!opt.isPresent())
+      throw new FileNotFoundException("Error opening grid dataset " + reqPath + ". err=" + opt.getErrorMessage());
+
+    if (log.isDebugEnabled())
+      log.debug("  -- DatasetHandler found FeatureCollection from file= " + location);
+    return opt.get().getSingleCoverageCollection(); // LOOK doesnt have to be single, then what is the URL?
   }
 
   private CoverageCollection openCoverageFromDatasetScanNcml(String location, DataRootMatch match, String reqPath)
       throws IOException {
-    final NetcdfFile ncf = openNcmlDatasetScan(location, match);
+    final NetcdfFile ncf = readNcmlDatasetScan(location, match);
     final NetcdfDataset ncd = NetcdfDatasets.enhance(ncf, NetcdfDataset.getDefaultEnhanceMode(), null);
     final DtCoverageDataset gds = new DtCoverageDataset(ncd);
 
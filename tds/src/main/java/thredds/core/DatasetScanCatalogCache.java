@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.core;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import thredds.client.catalog.Catalog;
+import thredds.client.catalog.Dataset;
+import thredds.inventory.MFile;
+import thredds.server.admin.DebugCommands;
+import thredds.server.catalog.DatasetScan;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application wide cache of the catalogs generated by a DatasetScan for a directory, so that crawlers asking for the
+ * same directories over and over do not list, sort, filter and name every file on each request.
+ * <p>
+ * A catalog is built again when the last modified time of its directory changes, which is when files are added,
+ * removed or renamed, and in any case once it is older than maxAge, so that changes that do not touch the directory
+ * (a file growing, a lastModifiedLimit filter, an object store prefix without a modification time) show up after at
+ * most that long. Concurrent requests for a directory that is not cached wait for a single build.
+ * The size is bounded by the total number of datasets in the cached catalogs.
+ */
+@Component
+@ThreadSafe
+public class DatasetScanCatalogCache {
+
+  /** Builds the catalog for a directory. */
+  interface CatalogMaker {
+    /** @return the catalog, or null if it cannot be made */
+    Catalog make() throws IOException;
+  }
+
+  @Autowired
+  private DebugCommands debugCommands;
+
+  private volatile Cache<String, Entry> cache; // null if turned off, which is also the case until init() is called
+  private volatile long maxAgeMillis;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * @param maxDatasets total number of datasets in the cached catalogs, 0 to turn off
+   * @param maxAgeSecs catalogs older than this are built again, even if their directory has not changed
+   */
+  public void init(long maxDatasets, long maxAgeSecs) {
+    this.maxAgeMillis = 1000 * maxAgeSecs;
+    this.cache = (maxDatasets <= 0 || maxAgeSecs <= 0) ? null
+        : CacheBuilder.newBuilder().maximumWeight(maxDatasets).weigher((String key, Entry entry) -> entry.weight)
+            .build();
+    if (debugCommands != null)
+      makeDebugActions();
+  }
+
+  /**
+   * Get the catalog of a DatasetScan directory, making it if it is not cached or no longer valid.
+   *
+   * @param dscan the DatasetScan
+   * @param workPath the catalog path, without the catalog file name
+   * @param baseURI the base URI of the catalog
+   * @param maker makes the catalog
+   * @return the catalog, or null if it cannot be made
+   */
+  Catalog get(DatasetScan dscan, String workPath, URI baseURI, CatalogMaker maker) throws IOException {
+    Cache<String, Entry> c = cache;
+    MFile directory = (c == null) ? null : dscan.getDirectory(workPath);
+    if (directory == null || !directory.exists()) { // let the maker report it
+      misses.incrementAndGet();
+      return maker.make();
+    }
+
+    // taken before the build, so that changes made during it are seen by the next request
+    long lastModified = directory.getLastModified();
+    long now = System.currentTimeMillis();
+    String key = workPath + " " + baseURI;
+
+    Entry entry = c.getIfPresent(key);
+    if (entry != null && !entry.isValid(dscan, lastModified, now - maxAgeMillis))
+      c.asMap().remove(key, entry);
+
+    boolean[] built = new boolean[1];
+    try {
+      entry = c.get(key, () -> {
+        built[0] = true;
+        Catalog catalog = maker.make();
+        return (catalog == null) ? null : new Entry(dscan, lastModified, now, catalog);
+      });
+    } catch (CacheLoader.InvalidCacheLoadException e) {
+      return null; // the maker returned null
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException)
+        throw (IOException) cause;
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      throw new IOException(cause);
+    }
+
+    if (built[0])
+      misses.incrementAndGet();
+    else
+      hits.incrementAndGet();
+    return entry.catalog;
+  }
+
+  public void clear() {
+    Cache<String, Entry> c = cache;
+    if (c != null)
+      c.invalidateAll();
+  }
+
+  public void showCache(Formatter f) {
+    Cache<String, Entry> c = cache;
+    if (c == null) {
+      f.format("DatasetScanCatalogCache : turned off%n");
+      return;
+    }
+    f.format("DatasetScanCatalogCache entries = %d, hits = %d, misses = %d%n", c.size(), hits.get(), misses.get());
+    for (Entry entry : c.asMap().values())
+      f.format("  %s datasets = %d%n", entry.catalog.getBaseURI(), entry.weight);
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  void makeDebugActions() {
+    DebugCommands.Category debugHandler = debugCommands.findCategory("Caches");
+    DebugCommands.Action act;
+
+    act = new DebugCommands.Action("showDatasetScanCache", "Show DatasetScan Catalog Cache") {
+      public void doAction(DebugCommands.Event e) {
+        Formatter f = new Formatter(e.pw);
+        showCache(f);
+        e.pw.flush();
+      }
+    };
+    debugHandler.addAction(act);
+
+    act = new DebugCommands.Action("clearDatasetScanCache", "Clear DatasetScan Catalog Cache") {
+      public void doAction(DebugCommands.Event e) {
+        clear();
+        e.pw.println("  DatasetScanCatalogCache clear ok");
+      }
+    };
+    debugHandler.addAction(act);
+  }
+
+  private static int countDatasets(List<Dataset> datasets) {
+    int count = datasets.size();
+    for (Dataset ds : datasets)
+      count += countDatasets(ds.getDatasetsLocal());
+    return count;
+  }
+
+  @Immutable
+  static class Entry {
+    final DatasetScan dscan; // reading the config catalogs again makes new ones
+    final long lastModified;
+    final long created;
+    final Catalog catalog;
+    final int weight;
+
+    Entry(DatasetScan dscan, long lastModified, long created, Catalog catalog) {
+      this.dscan = dscan;
+      this.lastModified = lastModified;
+      this.created = created;
+      this.catalog = catalog;
+      this.weight = 1 + countDatasets(catalog.getDatasetsLocal());
+    }
+
+    boolean isValid(DatasetScan dscan, long lastModified, long createdAfter) {
+      return this.dscan == dscan && this.lastModified == lastModified && this.created > createdAfter;
+    }
+  }
+}
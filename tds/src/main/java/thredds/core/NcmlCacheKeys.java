@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.core;
+
+import org.jdom2.Element;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Cache keys for datasets wrapped in NcML, so that a cached dataset is only reused while both the NcML and the
+ * underlying file are unchanged.
+ */
+class NcmlCacheKeys {
+
+  // datasetScan ncml elements live as long as the catalogs that hold them; jdom Elements use identity hashCode
+  private static final Map<Element, String> elementHashes = Collections.synchronizedMap(new WeakHashMap<>());
+
+  private NcmlCacheKeys() {}
+
+  /** The SHA-256 of the ncml, in hex. */
+  static String hash(String ncml) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      byte[] digest = md.digest(ncml.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder(2 * digest.length);
+      for (byte b : digest)
+        sb.append(String.format("%02x", b));
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // every JVM has SHA-256
+    }
+  }
+
+  /** The hash of the serialized netcdf element, computed once per element. */
+  static String hashElement(Element netcdfElem) {
+    return elementHashes.computeIfAbsent(netcdfElem,
+        elem -> hash(new XMLOutputter(Format.getRawFormat()).outputString(elem)));
+  }
+
+  /**
+   * The last modified time of a local file, or -1 if location is not a local file.
+   * A "file:" prefix is allowed.
+   */
+  static long lastModified(String location) {
+    if (location == null)
+      return -1;
+    if (location.startsWith("file:"))
+      location = location.substring(5);
+    File file = new File(location);
+    return file.isFile() ? file.lastModified() : -1;
+  }
+
+  /**
+   * Key for a dataset made by wrapping location in ncml.
+   *
+   * @param name the name of the dataset, eg the request path or the datasetScan location
+   * @param ncmlHash from hash()
+   * @param location the underlying file, may be null
+   */
+  static String makeKey(String name, String ncmlHash, String location) {
+    return name + "#" + ncmlHash + "#" + lastModified(location);
+  }
+}
@@ -14,7 +14,6 @@ import ucar.nc2.dataset.NetcdfDataset;
 import ucar.nc2.dataset.NetcdfDatasets;
 import ucar.nc2.dt.GridDataset;
 import ucar.nc2.ft.FeatureDatasetPoint;
-import ucar.nc2.ft2.coverage.CoverageCollection;
 import ucar.nc2.ft2.simpgeometry.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -65,9 +64,10 @@ public class TdsRequestedDataset {
     return trd.openAsGridDataset(request, response);
   }
 
-  // return null means request has been handled, and calling routine should exit without further processing
-  public static CoverageCollection getCoverageCollection(HttpServletRequest request, HttpServletResponse response,
-      String path) throws IOException {
+  // return null means request has been handled, and calling routine should exit without further processing.
+  // close the handle, not the CoverageCollection, when done
+  public static CoverageCollectionHandle getCoverageCollection(HttpServletRequest request,
+      HttpServletResponse response, String path) throws IOException {
     TdsRequestedDataset trd = new TdsRequestedDataset(request, null);
     if (path != null)
       trd.path = path;
@@ -96,6 +96,10 @@ public class TdsRequestedDataset {
     return (file == null || file.isDirectory()) ? -1 : file.getLastModified();
   }
 
+  public static long getDatasetVersion(String reqPath) throws IOException {
+    return datasetManager.getDatasetVersion(reqPath);
+  }
+
   public static File getFile(String reqPath) {
     String location = getLocationFromRequestPath(reqPath);
     return (location == null) ? null : new File(location);
@@ -144,9 +148,9 @@ public class TdsRequestedDataset {
   }
 
   // return null means request has been handled, and calling routine should exit without further processing
-  public CoverageCollection openAsCoverageDataset(HttpServletRequest request, HttpServletResponse response)
+  public CoverageCollectionHandle openAsCoverageDataset(HttpServletRequest request, HttpServletResponse response)
       throws IOException {
-    return datasetManager.openCoverageDataset(request, response, path);
+    return datasetManager.acquireCoverageDataset(request, response, path);
   }
 
   public SimpleGeometryFeatureDataset openAsSimpleGeometryDataset(HttpServletRequest request,
@@ -5,13 +5,70 @@
 
 package thredds.exp.enhancement.vectorize;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
 import ucar.nc2.Attribute;
 import ucar.nc2.Variable;
 import ucar.nc2.filter.Enhancement;
 
+/**
+ * Computes a variable from the u and v components named in its attribute. The values of the variable are the
+ * linear indices of its elements, which convert() maps to the value computed from u and v at that index.
+ * <p>
+ * Rather than reading u and v one element at a time, convert() reads and computes a whole chunk of rows on the first
+ * request for an index in it, so that enhancing a whole variable reads each of u and v about once. The computed chunks
+ * of all variables share one cache, bounded by its size in bytes.
+ */
 public abstract class Vectorize implements Enhancement {
   private static org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(Vectorize.class);
 
+  // largest number of elements computed at once by convert()
+  static final int MAX_CHUNK_SIZE = 1 << 20;
+  // bytes of computed chunks kept, over all variables
+  private static final int MAX_CACHE_BYTES = 64 * 1024 * 1024;
+  // compute rows in parallel for sections with at least this many elements
+  private static final int PARALLEL_SIZE = 1 << 16;
+
+  // keyed by the id of the Vectorize rather than the object, so that the cache does not keep its Variables reachable
+  private static final Cache<ChunkKey, double[]> chunks = CacheBuilder.newBuilder().maximumWeight(MAX_CACHE_BYTES)
+      .weigher((ChunkKey key, double[] values) -> 8 * values.length).build();
+  private static final AtomicLong ids = new AtomicLong();
+
+  private static class ChunkKey {
+    final long id;
+    final int chunk;
+
+    ChunkKey(long id, int chunk) {
+      this.id = id;
+      this.chunk = chunk;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o)
+        return true;
+      if (!(o instanceof ChunkKey))
+        return false;
+      ChunkKey other = (ChunkKey) o;
+      return id == other.id && chunk == other.chunk;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, chunk);
+    }
+  }
+
   protected Variable uVar;
   protected Variable vVar;
   private String convention;
@@ -20,6 +77,11 @@ public abstract class Vectorize implements Enhancement {
   protected int[] shape;
   protected int[] n_dimensional_array;
 
+  private int chunkDim; // chunks span dimensions chunkDim and higher, in full
+  private int chunkSize; // number of elements in a chunk
+  private final long id = ids.incrementAndGet();
+  private final ReentrantLock lock = new ReentrantLock(); // reading u and v from the same file is not thread safe
+
   public Vectorize(Variable var) {
     try {
       Attribute att = var.findAttribute(getAttributeName());
@@ -46,11 +108,83 @@ public abstract class Vectorize implements Enhancement {
       for (int d = 0; d < this.nDims; d++) {
         this.n_dimensional_array[d] = 1;
       }
+
+      // use the fewest dimensions that give a chunk no bigger than MAX_CHUNK_SIZE, but always at least one row
+      this.chunkDim = this.nDims;
+      this.chunkSize = 1;
+      while (this.chunkDim > 0 && (this.chunkDim == this.nDims
+          || (long) this.chunkSize * this.shape[this.chunkDim - 1] <= MAX_CHUNK_SIZE)) {
+        this.chunkDim--;
+        this.chunkSize *= this.shape[this.chunkDim];
+      }
     } catch (NullPointerException ex) {
       logger.error("Could not parse attribute {}", getAttributeName());
     }
   }
 
+  /** Compute the value from the u and v components at one point. */
+  abstract protected double compute(double u, double v);
+
+  @Override
+  public double convert(double num) {
+    try {
+      int index = (int) num;
+      int chunk = index / this.chunkSize;
+      double[] values = chunks.get(new ChunkKey(this.id, chunk), () -> computeChunk(chunk));
+      return values[index % this.chunkSize];
+    } catch (ExecutionException ex) {
+      logger.error("error converting u and v for {}", getAttributeName(), ex.getCause());
+      return Double.NaN;
+    } catch (Exception ex) {
+      logger.error("error converting u and v for {}", getAttributeName(), ex);
+      return Double.NaN;
+    }
+  }
+
+  private double[] computeChunk(int chunk) throws IOException, InvalidRangeException {
+    int[] origin = indexToCoords(chunk * this.chunkSize);
+    int[] chunkShape = this.n_dimensional_array.clone();
+    for (int d = this.chunkDim; d < this.nDims; d++) {
+      chunkShape[d] = this.shape[d];
+    }
+    return computeValues(new Section(origin, chunkShape));
+  }
+
+  /**
+   * Compute the values over a section of the variable, reading the section of u and v once.
+   *
+   * @return array of doubles with the shape of the section
+   */
+  public Array convertSection(Section section) throws IOException, InvalidRangeException {
+    return Array.factory(DataType.DOUBLE, section.getShape(), computeValues(section));
+  }
+
+  private double[] computeValues(Section section) throws IOException, InvalidRangeException {
+    double[] u;
+    double[] v;
+    lock.lock();
+    try {
+      u = (double[]) uVar.read(section).get1DJavaArray(DataType.DOUBLE);
+      v = (double[]) vVar.read(section).get1DJavaArray(DataType.DOUBLE);
+    } finally {
+      lock.unlock();
+    }
+
+    double[] result = new double[u.length];
+    int rowLength = section.getRank() == 0 ? 1 : section.getShape(section.getRank() - 1);
+    int nrows = rowLength == 0 ? 0 : u.length / rowLength;
+    IntStream rows = IntStream.range(0, nrows);
+    if (u.length >= PARALLEL_SIZE) {
+      rows = rows.parallel();
+    }
+    rows.forEach(row -> {
+      for (int i = row * rowLength; i < (row + 1) * rowLength; i++) {
+        result[i] = compute(u[i], v[i]);
+      }
+    });
+    return result;
+  }
+
   protected int[] indexToCoords(int index) {
     int[] coords = new int[this.nDims];
     int innerDims = 1;
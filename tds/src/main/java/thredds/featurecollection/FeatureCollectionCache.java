@@ -14,15 +14,23 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import thredds.server.catalog.FeatureCollectionRef;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Keep cache of InvDatasetFeatureCollection
  * Using guava cache.
  * On cache miss, call InvDatasetFeatureCollection.factory().
  * On cache remove, call InvDatasetFeatureCollection.close().
- * The cache is filled lazily, when that fc is requested.
+ * The cache is filled lazily, when that fc is requested, or at startup by warmUp().
+ * With a warm-up pool, each fc put in the cache starts its first initialization (reading the GRIB indexes or scanning
+ * the files) in the pool, rather than in the thread of the first request, see initWarmUp().
  *
  * @author caron
  * @since 4/2/2015
@@ -38,7 +46,10 @@ public class FeatureCollectionCache implements InitializingBean {
   @Autowired
   CollectionUpdater collectionUpdater;
 
+  private static final int MAX_SIZE = 1000;
+
   private Cache<String, InvDatasetFeatureCollection> cache; // key is the collectionName
+  private volatile ThreadPoolExecutor warmUpPool; // null if first initialization is done in the request thread
 
   public FeatureCollectionCache() {}
 
@@ -58,7 +69,63 @@ public class FeatureCollectionCache implements InitializingBean {
 
   @Override
   public void afterPropertiesSet() {
-    this.cache = CacheBuilder.newBuilder().maximumSize(1000).recordStats().build();
+    this.cache = CacheBuilder.newBuilder().maximumSize(MAX_SIZE).recordStats().build();
+  }
+
+  /**
+   * Run the first initialization of feature collections in a pool of background threads.
+   *
+   * @param nthreads number of threads; 0 to initialize in the first request thread, which blocks all requests to the
+   *        collection until it is done
+   * @param maxWaitSecs how long a request waits for the first initialization before getting a 503
+   * @param retryAfterSecs the Retry-After sent with the 503
+   */
+  public synchronized void initWarmUp(int nthreads, int maxWaitSecs, int retryAfterSecs) {
+    shutdown();
+    if (nthreads <= 0)
+      return;
+
+    AtomicInteger count = new AtomicInteger();
+    ThreadFactory threadFactory = r -> {
+      Thread t = new Thread(r, "FcWarmUp-" + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+    // a full queue rejects the task, and the request gets a 503; the next request tries again
+    warmUpPool = new ThreadPoolExecutor(nthreads, nthreads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(MAX_SIZE), threadFactory);
+    InvDatasetFeatureCollection.setFirstInitExecutor(warmUpPool, 1000L * maxWaitSecs, retryAfterSecs);
+  }
+
+  /**
+   * Put feature collections in the cache, which starts their first initialization in the warm-up pool.
+   * Does nothing without a warm-up pool. Only as many as the cache holds are started.
+   *
+   * @param fcrs the feature collections, the first ones are started first
+   */
+  public void warmUp(List<FeatureCollectionRef> fcrs) {
+    if (warmUpPool == null)
+      return;
+    int count = 0;
+    for (FeatureCollectionRef fcr : fcrs) {
+      if (count >= MAX_SIZE)
+        break;
+      count++;
+      try {
+        get(fcr);
+      } catch (Throwable t) {
+        logger.error("FeatureCollection " + fcr.getCollectionName() + " warm up failed", t);
+      }
+    }
+    logger.info("FeatureCollectionCache warm up started for {} collections", count);
+  }
+
+  public synchronized void shutdown() {
+    if (warmUpPool != null) {
+      InvDatasetFeatureCollection.setFirstInitExecutor(null, 0, 0);
+      warmUpPool.shutdownNow();
+      warmUpPool = null;
+    }
   }
 
   /*
@@ -100,6 +167,7 @@ public class FeatureCollectionCache implements InitializingBean {
     try {
       InvDatasetFeatureCollection result = InvDatasetFeatureCollection.factory(fcr, fcr.getConfig());
       eventBus.register(result); // LOOK on reread, do we want updating?
+      result.startFirstInit(); // in the warm-up pool, if there is one
       collectionUpdater.scheduleTasks(fcr.getConfig(), null); // schedule any updating specified in the <update> element
                                                               // null means use default logger
       return result;
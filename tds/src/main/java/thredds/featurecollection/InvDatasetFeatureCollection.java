@@ -15,6 +15,7 @@ import thredds.core.DatasetManager;
 import thredds.core.StandardService;
 import thredds.inventory.*;
 import thredds.server.catalog.FeatureCollectionRef;
+import thredds.server.exception.ServiceUnavailableException;
 import ucar.nc2.dataset.DatasetUrl;
 import ucar.nc2.dataset.NetcdfDataset;
 import ucar.nc2.dataset.NetcdfDatasets;
@@ -25,6 +26,7 @@ import ucar.nc2.ft2.simpgeometry.SimpleGeometryFeatureDataset;
 import ucar.nc2.time.CalendarDateRange;
 import ucar.nc2.util.URLnaming;
 import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.*;
 import java.net.URI;
@@ -33,6 +35,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Formatter;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Abstract superclass for Feature Collection Datasets.
@@ -68,6 +77,33 @@ public abstract class InvDatasetFeatureCollection implements Closeable {
     allowedServices = _allowedServices;
   }
 
+  // how the first initialization is run, set by FeatureCollectionCache and read by request threads
+  private static volatile FirstInitConfig firstInitConfig = new FirstInitConfig(null, 0, 0);
+
+  @Immutable
+  private static class FirstInitConfig {
+    final Executor executor; // the first initialization runs in this pool; if null, it runs in the request thread
+    final long maxWait; // msecs that a request waits for the first initialization
+    final int retryAfter; // secs, sent to requests that stop waiting
+
+    FirstInitConfig(Executor executor, long maxWait, int retryAfter) {
+      this.executor = executor;
+      this.maxWait = maxWait;
+      this.retryAfter = retryAfter;
+    }
+  }
+
+  /**
+   * Run the first initialization of feature collections in a background pool, set by FeatureCollectionCache.
+   *
+   * @param executor the pool, or null to initialize in the first request thread
+   * @param maxWaitMsecs how long a request waits for it, before getting a 503 (Service Unavailable)
+   * @param retryAfterSecs the Retry-After sent with the 503
+   */
+  public static void setFirstInitExecutor(Executor executor, long maxWaitMsecs, int retryAfterSecs) {
+    firstInitConfig = new FirstInitConfig(executor, maxWaitMsecs, retryAfterSecs);
+  }
+
   protected static String buildCatalogServiceHref(String path) {
     return contextName + "/catalog/" + path + "/catalog.xml";
   }
@@ -137,6 +173,14 @@ public abstract class InvDatasetFeatureCollection implements Closeable {
   protected boolean first = true;
   protected final Object lock = new Object();
 
+  // set once the first initialization is done, so requests can check without the lock
+  private volatile boolean initialized;
+  // the first initialization running in the background, null if not started
+  private final AtomicReference<CompletableFuture<Void>> firstInitFuture = new AtomicReference<>();
+
+  // when the live state was last replaced; used to validate anything cached from this collection
+  private volatile long lastStateChange = -1;
+
   protected InvDatasetFeatureCollection(FeatureCollectionRef parent, FeatureCollectionConfig config) {
     this.parent = parent;
     this.name = config.name;
@@ -268,23 +312,97 @@ public abstract class InvDatasetFeatureCollection implements Closeable {
   /**
    * A request has come in, check that the state has been initialized.
    * this is called from the request thread.
+   * <p>
+   * With a first initialization pool, the request waits a bounded time for it, rather than for as long as it takes
+   * to read the collection, and concurrent requests do not queue up on the lock.
    *
    * @return a copy of the State
+   * @throws ServiceUnavailableException if the first initialization is not done in time
    */
   protected State checkState() throws IOException {
-    State localState;
+    if (!initialized)
+      awaitFirstInit();
+
+    synchronized (lock) {
+      return state.copy();
+    }
+  }
 
+  // the first initialization, in whatever thread calls it
+  private void initState() {
     synchronized (lock) {
       if (first) {
         firstInit();
         updateCollection(state, config.updateConfig.updateType);
         // makeDatasetTop(state);
         first = false;
+        lastStateChange = System.currentTimeMillis();
+        initialized = true;
       }
-      localState = state.copy();
     }
+  }
 
-    return localState;
+  /**
+   * Start the first initialization in the background pool, unless it is done or already started.
+   *
+   * @return completes when the first initialization is done, or null if there is no pool or it does not take the task
+   */
+  public CompletableFuture<Void> startFirstInit() {
+    Executor executor = firstInitConfig.executor;
+    if (initialized)
+      return CompletableFuture.completedFuture(null);
+    if (executor == null)
+      return null;
+
+    CompletableFuture<Void> future = firstInitFuture.get();
+    if (future != null)
+      return future;
+    CompletableFuture<Void> started = new CompletableFuture<>();
+    if (!firstInitFuture.compareAndSet(null, started))
+      return firstInitFuture.get();
+
+    try {
+      executor.execute(() -> {
+        long start = System.currentTimeMillis();
+        try {
+          initState();
+          logger.info("FeatureCollection {} first initialization took {} msecs", name,
+              System.currentTimeMillis() - start);
+          started.complete(null);
+        } catch (Throwable t) {
+          logger.error("FeatureCollection " + name + " first initialization failed", t);
+          firstInitFuture.compareAndSet(started, null); // a later request tries again
+          started.completeExceptionally(t);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      firstInitFuture.compareAndSet(started, null);
+      return null;
+    }
+    return started;
+  }
+
+  private void awaitFirstInit() throws IOException {
+    FirstInitConfig firstInit = firstInitConfig;
+    if (firstInit.executor == null) {
+      initState();
+      return;
+    }
+
+    CompletableFuture<Void> future = startFirstInit();
+    if (future == null)
+      throw new ServiceUnavailableException("FeatureCollection " + name + " is not ready", firstInit.retryAfter);
+    try {
+      future.get(firstInit.maxWait, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new ServiceUnavailableException("FeatureCollection " + name + " is being initialized",
+          firstInit.retryAfter);
+    } catch (ExecutionException e) {
+      throw new IOException("FeatureCollection " + name + " first initialization failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for FeatureCollection " + name);
+    }
   }
 
   /**
@@ -299,7 +417,7 @@ public abstract class InvDatasetFeatureCollection implements Closeable {
 
     synchronized (lock) {
       if (first) {
-        state = checkState();
+        initState();
         state.lastInvChange = System.currentTimeMillis();
         return;
       }
@@ -314,6 +432,7 @@ public abstract class InvDatasetFeatureCollection implements Closeable {
     // switch to live
     synchronized (lock) {
       state = localState;
+      lastStateChange = System.currentTimeMillis();
     }
 
   }
@@ -341,6 +460,14 @@ public abstract class InvDatasetFeatureCollection implements Closeable {
     return topDirectory;
   }
 
+  /**
+   * The time the collection state was last initialized or updated, or -1 if no request has initialized it yet.
+   * Responses made from the collection are only valid while this is unchanged.
+   */
+  public long getLastStateChange() {
+    return lastStateChange;
+  }
+
   public FeatureCollectionConfig getConfig() {
     return config;
   }
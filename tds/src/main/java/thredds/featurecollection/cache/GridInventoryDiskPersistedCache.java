@@ -6,6 +6,8 @@
 package thredds.featurecollection.cache;
 
 import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Date;
@@ -19,12 +21,18 @@ import thredds.inventory.MFile;
 import ucar.nc2.ft.fmrc.GridDatasetInv;
 import ucar.nc2.internal.dataset.ft.fmrc.InventoryCacheProvider;
 
+/**
+ * Keeps the GridDatasetInv of each file of an FMRC collection in a DiskPersistedCache, as a GridInventoryEntry.
+ * The inventories parsed from the entries are also held in memory, up to the same number of entries as the memory
+ * level of the DiskPersistedCache, so that asking again for an unchanged file does not parse its xml again.
+ */
 public class GridInventoryDiskPersistedCache implements InventoryCacheProvider {
 
   private static final Logger logger = LoggerFactory.getLogger(GridInventoryDiskPersistedCache.class);
   private static final int DEFAULT_ENTRIES = 1000;
 
   private static DiskPersistedCache<String, byte[]> cache;
+  private static Cache<String, Parsed> parsed;
 
   /**
    * Initialize the inventory cache
@@ -48,6 +56,7 @@ public class GridInventoryDiskPersistedCache implements InventoryCacheProvider {
       Builder<String, byte[]> builder = DiskPersistedCache.at(cacheDir);
       builder.named("GridInventoryCache").maxInMemoryEntities(maxEntries);
       cache = builder.build();
+      parsed = CacheBuilder.newBuilder().maximumSize(maxEntries).recordStats().build();
     }
   }
 
@@ -69,38 +78,83 @@ public class GridInventoryDiskPersistedCache implements InventoryCacheProvider {
   @Nullable
   @Override
   public GridDatasetInv get(MFile mfile) throws IOException {
-    GridDatasetInv inv = null;
-    if (cache != null) {
-      String mfileLoc = mfile.getPath();
-      byte[] xmlBytes = cache.getOrDefault(mfileLoc, null);
-      if (xmlBytes != null) {
-        inv = GridDatasetInv.readXML(xmlBytes);
-        // check if version requires regenerating the inventory
-        if (inv.isXmlVersionCompatible()) {
-          // check if file has changed
-          long fileModifiedSecs = mfile.getLastModified() / 1000; // ignore msecs
-          long xmlModifiedSecs = inv.getLastModified() / 1000; // ignore msecs
-          if (xmlModifiedSecs >= fileModifiedSecs) { // LOOK if fileDate is -1, will always succeed
-            logger.debug("cache ok {} >= {} for {}", xmlModifiedSecs, fileModifiedSecs, mfileLoc);
-          } else {
-            logger.info(" cache out of date {} < {} for {}. Removing cache entry.", xmlModifiedSecs, fileModifiedSecs,
-                mfileLoc);
-            cache.remove(mfileLoc);
-          }
-        } else {
-          logger.error("GridDatasetInv xml version needs upgrade for {}. Removing cache entry.", mfileLoc);
-          cache.remove(mfileLoc);
-        }
+    if (cache == null) {
+      return null;
+    }
+    String mfileLoc = mfile.getPath();
+    long fileModifiedSecs = mfile.getLastModified() / 1000; // ignore msecs
+
+    Parsed hit = parsed.getIfPresent(mfileLoc);
+    if (hit != null) {
+      if (hit.lastModified / 1000 >= fileModifiedSecs)
+        return hit.inv;
+      parsed.invalidate(mfileLoc); // the entry is checked and removed below
+    }
+
+    byte[] bytes = cache.getOrDefault(mfileLoc, null);
+    if (bytes == null) {
+      return null;
+    }
+
+    GridInventoryEntry entry;
+    try {
+      entry = GridInventoryEntry.decode(bytes);
+    } catch (IOException e) {
+      logger.warn("Bad GridInventoryCache entry for {}: {}. Removing cache entry.", mfileLoc, e.getMessage());
+      cache.remove(mfileLoc);
+      return null;
+    }
+    if (entry == null) {
+      logger.info("GridInventoryCache entry has unknown format version for {}. Removing cache entry.", mfileLoc);
+      cache.remove(mfileLoc);
+      return null;
+    }
+
+    // check if file has changed before paying for the xml parse, except for legacy entries that only have it there
+    if (!entry.isLegacy() && isOutOfDate(entry.getLastModified() / 1000, fileModifiedSecs, mfileLoc)) {
+      return null;
+    }
+
+    byte[] xml = entry.getXml();
+    GridDatasetInv inv = GridDatasetInv.readXML(xml);
+    // check if version requires regenerating the inventory
+    if (!inv.isXmlVersionCompatible()) {
+      logger.error("GridDatasetInv xml version needs upgrade for {}. Removing cache entry.", mfileLoc);
+      cache.remove(mfileLoc);
+      return null;
+    }
+
+    if (entry.isLegacy()) {
+      if (isOutOfDate(inv.getLastModified() / 1000, fileModifiedSecs, mfileLoc)) {
+        return null;
       }
+      // migrate, the xml written by writeCompactXML() is the same in both formats
+      cache.put(mfileLoc, GridInventoryEntry.encode(inv.getLastModified(), xml));
+      parsed.put(mfileLoc, new Parsed(inv.getLastModified(), inv));
+    } else {
+      parsed.put(mfileLoc, new Parsed(entry.getLastModified(), inv));
     }
     return inv;
   }
 
+  private boolean isOutOfDate(long invModifiedSecs, long fileModifiedSecs, String mfileLoc) {
+    if (invModifiedSecs >= fileModifiedSecs) { // LOOK if fileDate is -1, will always succeed
+      logger.debug("cache ok {} >= {} for {}", invModifiedSecs, fileModifiedSecs, mfileLoc);
+      return false;
+    }
+    logger.info(" cache out of date {} < {} for {}. Removing cache entry.", invModifiedSecs, fileModifiedSecs,
+        mfileLoc);
+    cache.remove(mfileLoc);
+    return true;
+  }
+
   @Override
   public void put(MFile mfile, GridDatasetInv inventory) throws IOException {
     if (cache != null) {
-      String xml = inventory.writeCompactXML(new Date(mfile.getLastModified()));
-      cache.put(mfile.getPath(), xml.getBytes(Charsets.UTF_8));
+      long lastModified = mfile.getLastModified();
+      String xml = inventory.writeCompactXML(new Date(lastModified));
+      cache.put(mfile.getPath(), GridInventoryEntry.encode(lastModified, xml.getBytes(Charsets.UTF_8)));
+      parsed.invalidate(mfile.getPath()); // the next get() parses what was written, as it always has
     }
   }
 
@@ -117,13 +171,36 @@ public class GridInventoryDiskPersistedCache implements InventoryCacheProvider {
       cache.showL1Db(formatter);
       formatter.format("Level 2:%n");
       cache.showL2Db(formatter, 10);
+      formatter.format("Parsed inventories: entries = %d, hits = %d, misses = %d%n", parsed.size(),
+          parsed.stats().hitCount(), parsed.stats().missCount());
       formatter.format("%n");
     }
   }
 
+  // For testing
+  static byte[] getEntry(String key) {
+    return cache.getOrDefault(key, null);
+  }
+
+  // For testing
+  static void putEntry(String key, byte[] bytes) {
+    cache.put(key, bytes);
+  }
+
   // For testing
   static void resetCache() {
     shutdown();
     cache = null;
+    parsed = null;
+  }
+
+  private static class Parsed {
+    final long lastModified;
+    final GridDatasetInv inv;
+
+    Parsed(long lastModified, GridDatasetInv inv) {
+      this.lastModified = lastModified;
+      this.inv = inv;
+    }
   }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.featurecollection.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * The bytes stored for a GridDatasetInv in the GridInventoryDiskPersistedCache:
+ *
+ * <pre>
+ *   int   MAGIC
+ *   byte  FORMAT_VERSION
+ *   long  last modified time of the file when the inventory was made, msecs
+ *   byte[] the compact xml of the inventory
+ * </pre>
+ *
+ * The header lets an out of date entry be dropped without parsing the inventory. The inventory itself is still the
+ * compact xml, since that is the only form netcdf-java can make a GridDatasetInv from.
+ * Entries written before this format are the plain xml, and are recognized as legacy entries.
+ */
+@Immutable
+class GridInventoryEntry {
+  static final int MAGIC = 0x47494e56; // "GINV"
+  static final byte FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 1 + 8;
+
+  private final long lastModified;
+  private final boolean legacy;
+  private final byte[] bytes;
+
+  private GridInventoryEntry(long lastModified, boolean legacy, byte[] bytes) {
+    this.lastModified = lastModified;
+    this.legacy = legacy;
+    this.bytes = bytes;
+  }
+
+  /**
+   * Encode an inventory.
+   *
+   * @param lastModified last modified time of the file, msecs
+   * @param xml the compact xml of the inventory
+   */
+  static byte[] encode(long lastModified, byte[] xml) {
+    ByteBuffer bb = ByteBuffer.allocate(HEADER_SIZE + xml.length);
+    bb.putInt(MAGIC).put(FORMAT_VERSION).putLong(lastModified).put(xml);
+    return bb.array();
+  }
+
+  /**
+   * Decode the header of a cache entry. The inventory is not decoded until getXml() is called.
+   *
+   * @return the entry, or null if it was written with an unknown format version
+   */
+  @Nullable
+  static GridInventoryEntry decode(byte[] bytes) throws IOException {
+    if (bytes.length > 0 && bytes[0] == '<')
+      return new GridInventoryEntry(-1, true, bytes);
+    if (bytes.length < HEADER_SIZE)
+      throw new IOException("GridInventoryEntry too short: " + bytes.length + " bytes");
+    ByteBuffer bb = ByteBuffer.wrap(bytes);
+    if (bb.getInt() != MAGIC)
+      throw new IOException("GridInventoryEntry has bad magic number");
+    if (bb.get() != FORMAT_VERSION)
+      return null;
+    return new GridInventoryEntry(bb.getLong(), false, bytes);
+  }
+
+  /** Last modified time of the file when the inventory was made, msecs, or -1 for a legacy entry. */
+  long getLastModified() {
+    return lastModified;
+  }
+
+  /** True if the entry is the plain xml written before this format, which does not have a header. */
+  boolean isLegacy() {
+    return legacy;
+  }
+
+  /** The compact xml of the inventory. */
+  byte[] getXml() {
+    if (legacy)
+      return bytes;
+    byte[] xml = new byte[bytes.length - HEADER_SIZE];
+    System.arraycopy(bytes, HEADER_SIZE, xml, 0, xml.length);
+    return xml;
+  }
+}
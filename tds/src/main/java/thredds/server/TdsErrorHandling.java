@@ -20,6 +20,7 @@ import org.springframework.web.servlet.ModelAndView;
 import thredds.server.exception.MethodNotImplementedException;
 import thredds.server.exception.RequestTooLargeException;
 import thredds.server.exception.ServiceNotAllowed;
+import thredds.server.exception.ServiceUnavailableException;
 import thredds.server.ncss.exception.NcssException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -34,6 +35,7 @@ import static org.springframework.web.util.HtmlUtils.htmlEscape;
 /**
  * Global Exception handling
  * ServiceNotAllowed FORBIDDEN
+ * ServiceUnavailableException SERVICE_UNAVAILABLE
  * FileNotFoundException NOT_FOUND
  * IOException INTERNAL_SERVER_ERROR
  * UnsupportedOperationException UNPROCESSABLE_ENTITY
@@ -80,6 +82,17 @@ public class TdsErrorHandling implements HandlerExceptionResolver {
         HttpStatus.NOT_IMPLEMENTED);
   }
 
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<String> handle(ServiceUnavailableException ex) {
+    logger.debug("TDS Error", ex); // expected while collections are initialized, not worth a stack trace
+
+    HttpHeaders responseHeaders = new HttpHeaders();
+    responseHeaders.setContentType(MediaType.TEXT_PLAIN);
+    responseHeaders.set(HttpHeaders.RETRY_AFTER, Integer.toString(ex.getRetryAfterSecs()));
+    return new ResponseEntity<>("Service Unavailable: " + htmlEscape(ex.getMessage()), responseHeaders,
+        HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
   @ExceptionHandler(FileNotFoundException.class)
   public ResponseEntity<String> handle(FileNotFoundException ex) {
     logger.warn("TDS Error", ex);
@@ -17,9 +17,13 @@ import thredds.client.catalog.tools.CatalogXmlWriter;
 import thredds.client.catalog.tools.DataFactory;
 import thredds.core.AllowedServices;
 import thredds.core.ConfigCatalogInitialization;
+import thredds.core.DataRootManager;
+import thredds.core.CoverageCollectionCache;
 import thredds.core.DatasetManager;
+import thredds.core.DatasetScanCatalogCache;
 import thredds.core.StandardService;
 import thredds.featurecollection.CollectionUpdater;
+import thredds.featurecollection.FeatureCollectionCache;
 import thredds.featurecollection.InvDatasetFeatureCollection;
 import thredds.featurecollection.cache.GridInventoryDiskPersistedCache;
 import thredds.server.catalog.ConfigCatalogCache;
@@ -106,6 +110,18 @@ public class TdsInit implements ApplicationListener<ContextRefreshedEvent>, Disp
   @Autowired
   private NcssDiskCache ncssDiskCache;
 
+  @Autowired
+  private CoverageCollectionCache coverageCollectionCache;
+
+  @Autowired
+  private DatasetScanCatalogCache datasetScanCatalogCache;
+
+  @Autowired
+  private FeatureCollectionCache featureCollectionCache;
+
+  @Autowired
+  private DataRootManager dataRootManager;
+
   private Timer cdmDiskCacheTimer;
   private boolean wasInitialized;
 
@@ -148,6 +164,10 @@ public class TdsInit implements ApplicationListener<ContextRefreshedEvent>, Disp
             readMode = ConfigCatalogInitialization.ReadMode.always;
           configCatalogInitializer.init(readMode, (PreferencesExt) mainPrefs.node("configCatalog"));
 
+          // start the first initialization of the feature collections in the background
+          if (ThreddsConfig.getBoolean("FeatureCollectionWarmUp.atStartup", true))
+            featureCollectionCache.warmUp(dataRootManager.getFeatureCollections());
+
           // set epsg database location for edal-java (comes from apache-sis)
           EpsgDatabasePath.DB_PATH =
               (new File(tdsContext.getThreddsDirectory(), "/cache/edal-java/epsg/").toURI().toString());
@@ -403,6 +423,14 @@ public class TdsInit implements ApplicationListener<ContextRefreshedEvent>, Disp
       startupLog.error("TdsInit: Failed initialize GridDatasetInv cache= {}", fcCache, e);
     }
 
+    // first initialization of feature collections: default is 2 threads, requests wait up to 10 secs
+    int warmUpThreads = ThreddsConfig.getInt("FeatureCollectionWarmUp.threads", 2);
+    int warmUpMaxWait = ThreddsConfig.getSeconds("FeatureCollectionWarmUp.maxWait", 10);
+    int warmUpRetryAfter = ThreddsConfig.getSeconds("FeatureCollectionWarmUp.retryAfter", 30);
+    featureCollectionCache.initWarmUp(warmUpThreads, warmUpMaxWait, warmUpRetryAfter);
+    startupLog.info("TdsInit: FeatureCollectionWarmUp threads = {} maxWait = {} retryAfter = {}", warmUpThreads,
+        warmUpMaxWait, warmUpRetryAfter);
+
     ///////////////////////////////////////////////
     // Object caching
     int min, max, secs;
@@ -436,6 +464,11 @@ public class TdsInit implements ApplicationListener<ContextRefreshedEvent>, Disp
       startupLog.info("TdsInit: GribCdmIndex.initDefaultCollectionCache= [" + min + "," + max + "] scour = " + secs);
     }
 
+    // CoverageCollections of plain files: default is keep up to 100 idle collections
+    max = ThreddsConfig.getInt("CoverageCollectionCache.maxFiles", 100);
+    coverageCollectionCache.init(max);
+    startupLog.info("TdsInit: CoverageCollectionCache maxFiles = " + max);
+
     // RandomAccessFile.enableDefaultGlobalFileCache();
     // RandomAccessFile.setDebugLeaks(true);
 
@@ -456,6 +489,14 @@ public class TdsInit implements ApplicationListener<ContextRefreshedEvent>, Disp
     }
     configCatalogInitializer.setTrackerDir(trackerDir);
     configCatalogInitializer.setMaxDatasetToTrack(trackerMax);
+    int readThreads = ThreddsConfig.getInt("ConfigCatalog.readThreads", 0); // 0 = number of processors, at most 8
+    configCatalogInitializer.setReadThreads(readThreads);
+
+    // Catalogs generated by datasetScan: default is keep up to 100000 datasets, at most 1 minute
+    long scanMax = ThreddsConfig.getLong("DatasetScanCache.maxDatasets", 100 * 1000);
+    secs = ThreddsConfig.getSeconds("DatasetScanCache.maxAge", 60);
+    datasetScanCatalogCache.init(scanMax, secs);
+    startupLog.info("TdsInit: DatasetScanCache maxDatasets = " + scanMax + " maxAge = " + secs);
 
     // Jupyter notebook service cache
     if (allowedServices.isAllowed(StandardService.jupyterNotebook)) {
@@ -504,6 +545,7 @@ public class TdsInit implements ApplicationListener<ContextRefreshedEvent>, Disp
     DiskCache2.exit(); // this handles background threads for all instances of DiskCache2
     GridInventoryDiskPersistedCache.shutdown();
     executor.shutdownNow();
+    featureCollectionCache.shutdown();
     /*
      * try {
      * catalogWatcher.close();
@@ -514,6 +556,7 @@ public class TdsInit implements ApplicationListener<ContextRefreshedEvent>, Disp
      */
 
     // open file caches
+    coverageCollectionCache.shutdown(); // before the files it holds open
     RandomAccessFile.shutdown();
     NetcdfDataset.shutdown();
     NetcdfDatasets.shutdown();
@@ -10,15 +10,20 @@ import dap4.core.util.DapException;
 import dap4.core.util.DapUtil;
 import dap4.dap4lib.DapCodes;
 import dap4.servlet.CDMWrap;
+import dap4.servlet.ChecksumCache;
 import dap4.servlet.DapController;
 import dap4.servlet.DapRequest;
+import dap4.servlet.DmrCache;
 import java.util.EnumSet;
+import java.util.Formatter;
 import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import thredds.core.TdsRequestedDataset;
+import thredds.server.admin.DebugCommands;
 import thredds.server.config.TdsContext;
+import thredds.server.config.ThreddsConfig;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -50,6 +55,9 @@ public class Dap4Controller extends DapController {
   @Autowired
   private TdsContext tdscontext;
 
+  @Autowired
+  private DebugCommands debugCommands;
+
   //////////////////////////////////////////////////
   // Spring Elements
 
@@ -68,6 +76,58 @@ public class Dap4Controller extends DapController {
 
   //////////////////////////////////////////////////////////
 
+  @Override
+  public void initialize() {
+    if (this.initialized)
+      return;
+    int maxEntries = ThreddsConfig.getInt("DAP4.checksumCache.maxEntries", ChecksumCache.DEFAULT_MAX_ENTRIES);
+    setChecksumCache(new ChecksumCache(maxEntries));
+    setStreamChecksums(ThreddsConfig.getBoolean("DAP4.streamChecksums", false));
+    setDmrCache(new DmrCache(ThreddsConfig.getInt("DAP4.dmrCache.maxVariables", DmrCache.DEFAULT_MAX_VARIABLES)));
+    if (debugCommands != null)
+      makeDebugActions();
+    super.initialize();
+  }
+
+  void makeDebugActions() {
+    DebugCommands.Category debugHandler = debugCommands.findCategory("Caches");
+    DebugCommands.Action act;
+
+    act = new DebugCommands.Action("showDap4ChecksumCache", "Show DAP4 Checksum Cache") {
+      public void doAction(DebugCommands.Event e) {
+        Formatter f = new Formatter(e.pw);
+        getChecksumCache().showCache(f);
+        e.pw.flush();
+      }
+    };
+    debugHandler.addAction(act);
+
+    act = new DebugCommands.Action("clearDap4ChecksumCache", "Clear DAP4 Checksum Cache") {
+      public void doAction(DebugCommands.Event e) {
+        getChecksumCache().clear();
+        e.pw.println("  DAP4 ChecksumCache clear ok");
+      }
+    };
+    debugHandler.addAction(act);
+
+    act = new DebugCommands.Action("showDap4DmrCache", "Show DAP4 DMR Cache") {
+      public void doAction(DebugCommands.Event e) {
+        Formatter f = new Formatter(e.pw);
+        getDmrCache().showCache(f);
+        e.pw.flush();
+      }
+    };
+    debugHandler.addAction(act);
+
+    act = new DebugCommands.Action("clearDap4DmrCache", "Clear DAP4 DMR Cache") {
+      public void doAction(DebugCommands.Event e) {
+        getDmrCache().clear();
+        e.pw.println("  DAP4 DmrCache clear ok");
+      }
+    };
+    debugHandler.addAction(act);
+  }
+
   @Override
   protected void doFavicon(String icopath, DapContext cxt) throws IOException {
     throw new UnsupportedOperationException("Favicon");
@@ -120,7 +180,7 @@ public class Dap4Controller extends DapController {
     NetcdfFile ncf = TdsRequestedDataset.getNetcdfFile(drq.getRequest(), drq.getResponse(), datasetPath);
     NetcdfDataset ncd;
     ncd = NetcdfDataset.wrap(ncf, ENHANCEMENT);
-    return new CDMWrap().open(ncd);
+    return getDmrCache().open(datasetPath, ncd);
   }
 
 }
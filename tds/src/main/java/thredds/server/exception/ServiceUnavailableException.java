@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.exception;
+
+/**
+ * The request cannot be answered yet, for example while a feature collection is being initialized.
+ * Returned as a 503 (Service Unavailable) with a Retry-After header.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+  private final int retryAfterSecs;
+
+  public ServiceUnavailableException(String message, int retryAfterSecs) {
+    super(message);
+    this.retryAfterSecs = retryAfterSecs;
+  }
+
+  /** @return seconds after which the client may try again */
+  public int getRetryAfterSecs() {
+    return retryAfterSecs;
+  }
+}
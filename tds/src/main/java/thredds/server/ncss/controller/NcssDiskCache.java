@@ -8,11 +8,13 @@ package thredds.server.ncss.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
+import thredds.server.admin.DebugCommands;
 import thredds.server.config.TdsContext;
 import thredds.server.config.ThreddsConfig;
 import thredds.servlet.ServletUtil;
 import ucar.nc2.util.DiskCache2;
 import java.io.File;
+import java.util.Formatter;
 
 @Component
 @DependsOn("TdsContext")
@@ -21,8 +23,12 @@ public final class NcssDiskCache {
   @Autowired
   private TdsContext tdsContext;
 
+  @Autowired
+  private DebugCommands debugCommands;
+
   private DiskCache2 diskCache;
   private String cachePath;
+  private NcssResponseCache responseCache;
 
   public NcssDiskCache() {}
 
@@ -49,12 +55,56 @@ public final class NcssDiskCache {
     diskCache = new DiskCache2(cachePath, false, maxAgeSecs / 60, scourSecs / 60);
     ServletUtil.logServerStartup.info(
         getClass().getName() + "Ncss.Cache= " + cachePath + " scour = " + scourSecs + " maxAgeSecs = " + maxAgeSecs);
+
+    // finished grid responses; kept outside the scoured directory, they are removed by LRU eviction instead
+    long responseCacheSize = ThreddsConfig.getBytes("NetcdfSubsetService.responseCache.maxSize", 1000L * 1000 * 1000);
+    if (responseCacheSize > 0) {
+      String defaultResponsePath = new File(tdsContext.getThreddsDirectory(), "/cache/ncssResponse/").getPath();
+      String responsePath = ThreddsConfig.get("NetcdfSubsetService.responseCache.dir", defaultResponsePath);
+      responseCache = new NcssResponseCache(new File(responsePath), responseCacheSize);
+      ServletUtil.logServerStartup.info(getClass().getName() + "Ncss.ResponseCache= " + responsePath + " maxSize = "
+          + responseCacheSize);
+    }
+    makeDebugActions();
   }
 
   public DiskCache2 getDiskCache() {
     return this.diskCache;
   }
 
+  /** Cache of finished grid responses, or null if turned off. */
+  public NcssResponseCache getResponseCache() {
+    return this.responseCache;
+  }
+
+  private void makeDebugActions() {
+    if (debugCommands == null)
+      return;
+    DebugCommands.Category debugHandler = debugCommands.findCategory("Caches");
+    DebugCommands.Action act;
+
+    act = new DebugCommands.Action("showNcssResponseCache", "Show NCSS grid response cache") {
+      public void doAction(DebugCommands.Event e) {
+        Formatter f = new Formatter();
+        if (responseCache == null)
+          f.format("NcssResponseCache : turned off%n");
+        else
+          responseCache.showCache(f);
+        e.pw.println(f);
+      }
+    };
+    debugHandler.addAction(act);
+
+    act = new DebugCommands.Action("clearNcssResponseCache", "Clear NCSS grid response cache") {
+      public void doAction(DebugCommands.Event e) {
+        if (responseCache != null)
+          responseCache.clear();
+        e.pw.println("  NcssResponseCache clear ok");
+      }
+    };
+    debugHandler.addAction(act);
+  }
+
   public String getServletCachePath() {
     String contextPath = (tdsContext == null) ? "" : tdsContext.getContextPath(); // for unit tests until i can figure
                                                                                   // out how to get a mock TdsContext
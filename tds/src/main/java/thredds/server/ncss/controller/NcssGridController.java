@@ -20,6 +20,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.ModelAndView;
 import thredds.core.AllowedServices;
 import thredds.core.StandardService;
+import thredds.core.CoverageCollectionHandle;
 import thredds.core.TdsRequestedDataset;
 import thredds.server.config.ThreddsConfig;
 import thredds.server.exception.RequestTooLargeException;
@@ -31,6 +32,8 @@ import thredds.server.ncss.params.NcssGridParamsBean;
 import thredds.server.ncss.params.NcssParamsBean;
 import thredds.server.ncss.view.dsg.DsgSubsetWriter;
 import thredds.server.ncss.view.dsg.DsgSubsetWriterFactory;
+import thredds.server.ncss.view.grid.CFGridStreamWriter;
+import thredds.server.ncss.view.grid.Netcdf3StreamWriter;
 import thredds.util.Constants;
 import thredds.util.ContentType;
 import ucar.ma2.InvalidRangeException;
@@ -45,6 +48,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import ucar.nc2.write.NetcdfFileFormat;
 import ucar.nc2.write.NetcdfFormatWriter;
@@ -72,6 +76,8 @@ public class NcssGridController extends AbstractNcssController {
 
   private SupportedOperation SUPPORTED_GRID_REQUEST;
 
+  private boolean streamNetcdf3 = true;
+
   protected String getBase() {
     return StandardService.netcdfSubsetGrid.getBase();
   }
@@ -86,6 +92,7 @@ public class NcssGridController extends AbstractNcssController {
         case "NETCDF4EXT" -> SupportedOperation.GRID_REQUEST_NC4EXT;
         default -> SupportedOperation.GRID_REQUEST_NC3;
       };
+      streamNetcdf3 = ThreddsConfig.getBoolean("NetcdfSubsetService.streamNetcdf3", true);
     }
   }
 
@@ -99,9 +106,10 @@ public class NcssGridController extends AbstractNcssController {
       throw new BindException(validationResult);
 
     String datasetPath = getDatasetPath(req);
-    try (CoverageCollection gcd = TdsRequestedDataset.getCoverageCollection(req, res, datasetPath)) {
-      if (gcd == null)
+    try (CoverageCollectionHandle handle = TdsRequestedDataset.getCoverageCollection(req, res, datasetPath)) {
+      if (handle == null)
         return;
+      CoverageCollection gcd = handle.getCoverageCollection();
 
       Formatter errs = new Formatter();
       if (!params.intersectsTime(gcd.getCalendarDateRange(), errs)) {
@@ -115,13 +123,13 @@ public class NcssGridController extends AbstractNcssController {
       if (params.hasLatLonPoint()) {
         handleRequestGridAsPoint(res, params, datasetPath, gcd);
       } else {
-        handleRequestGrid(res, params, datasetPath, gcd);
+        handleRequestGrid(req, res, params, datasetPath, gcd);
       }
     }
   }
 
-  private void handleRequestGrid(HttpServletResponse res, NcssGridParamsBean params, String datasetPath,
-      CoverageCollection gcd) throws IOException, NcssException, InvalidRangeException {
+  private void handleRequestGrid(HttpServletRequest req, HttpServletResponse res, NcssGridParamsBean params,
+      String datasetPath, CoverageCollection gcd) throws Exception {
     // Supported formats are netcdf3 (default) and netcdf4ext/ netcdf4 (turned on in TdsInit if C library is present)
     SupportedFormat sf = SUPPORTED_GRID_REQUEST.getSupportedFormat(params.getAccept());
     NetcdfFileFormat version = getNetcdfFileFormat(sf);
@@ -132,21 +140,57 @@ public class NcssGridController extends AbstractNcssController {
           + "Grid requests with vertCoord must have variables with same vertical levels.");
     }
 
-    String responseFile = getResponseFileName();
-    File netcdfResult = makeCFNetcdfFile(gcd, responseFile, params, version);
+    // identical requests on an unchanged dataset are served from the response cache
+    NcssResponseCache responseCache = ncssDiskCache.getResponseCache();
+    String cacheKey = (responseCache == null) ? null : makeResponseCacheKey(datasetPath, params, sf);
+    if (cacheKey != null) {
+      try (NcssResponseCache.Response cached = responseCache.getIfPresent(cacheKey)) {
+        if (cached != null) {
+          sendCachedResponse(req, res, datasetPath, sf, cached);
+          return;
+        }
+      }
+    }
 
-    // filename download attachment
-    String suffix = sf.getFileSuffix();
-    int pos = datasetPath.lastIndexOf("/");
-    String filename = (pos >= 0) ? datasetPath.substring(pos + 1) : datasetPath;
-    if (!filename.endsWith(suffix)) {
-      filename += suffix;
+    // netcdf3 can be computed header first and streamed straight to the client, and into the response cache as it
+    // goes if it is small enough
+    if (!version.isNetcdf4Format() && streamNetcdf3) {
+      Optional<Netcdf3StreamWriter> streamer = makeCFNetcdf3Stream(gcd, params, version);
+      if (streamer.isPresent()) {
+        long size = streamer.get().getSize();
+        HttpHeaders httpHeaders = makeGridResponseHeaders(datasetPath, sf);
+        httpHeaders.set(Constants.Content_Length, Long.toString(size));
+
+        try (NcssResponseCache.Pending pending = (cacheKey == null) ? null : responseCache.startPut(cacheKey, size)) {
+          if (pending != null)
+            httpHeaders.set(HttpHeaders.ETAG, "\"" + cacheKey + "\"");
+          setResponseHeaders(res, httpHeaders);
+
+          OutputStream out = (pending == null) ? res.getOutputStream() : pending.tee(res.getOutputStream());
+          streamer.get().write(out);
+          res.flushBuffer();
+          if (pending != null)
+            pending.commit();
+        }
+        res.getOutputStream().close();
+        res.setStatus(HttpServletResponse.SC_OK);
+        return;
+      }
     }
 
-    // Headers...
-    HttpHeaders httpHeaders = new HttpHeaders();
-    httpHeaders.set(ContentType.HEADER, sf.getMimeType());
-    httpHeaders.set(Constants.Content_Disposition, Constants.setContentDispositionValue(filename));
+    // otherwise the response has to be written to a file first, which the cache can then keep
+    if (cacheKey != null) {
+      try (NcssResponseCache.Response cached = responseCache.get(cacheKey,
+          target -> makeCFNetcdfFile(gcd, target.getPath(), params, version))) {
+        sendCachedResponse(req, res, datasetPath, sf, cached);
+      }
+      return;
+    }
+
+    String responseFile = getResponseFileName();
+    File netcdfResult = makeCFNetcdfFile(gcd, responseFile, params, version);
+
+    HttpHeaders httpHeaders = makeGridResponseHeaders(datasetPath, sf);
 
     // set content length
     httpHeaders.set(Constants.Content_Length, Constants.getContentLengthValue(netcdfResult));
@@ -161,6 +205,56 @@ public class NcssGridController extends AbstractNcssController {
     netcdfResult.delete();
   }
 
+  /**
+   * Make the response cache key, or return null if this response should not be cached.
+   */
+  private String makeResponseCacheKey(String datasetPath, NcssGridParamsBean params, SupportedFormat sf)
+      throws IOException {
+    String canonical = params.getCanonicalForm();
+    if (canonical == null)
+      return null;
+    long datasetVersion = TdsRequestedDataset.getDatasetVersion(datasetPath);
+    if (datasetVersion <= 0)
+      return null;
+    return NcssResponseCache.makeKey(datasetPath, datasetVersion, "accept=" + sf.getFormatName() + ";" + canonical);
+  }
+
+  private void sendCachedResponse(HttpServletRequest req, HttpServletResponse res, String datasetPath,
+      SupportedFormat sf, NcssResponseCache.Response cached) throws IOException {
+    HttpHeaders httpHeaders = makeGridResponseHeaders(datasetPath, sf);
+    httpHeaders.set(HttpHeaders.ETAG, cached.getETag());
+
+    String ifNoneMatch = req.getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch != null && (ifNoneMatch.contains(cached.getETag()) || ifNoneMatch.trim().equals("*"))) {
+      setResponseHeaders(res, httpHeaders);
+      res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    httpHeaders.set(Constants.Content_Length, Long.toString(cached.getSize()));
+    setResponseHeaders(res, httpHeaders);
+
+    IO.copyB(cached.getInputStream(), res.getOutputStream(), 60000);
+    res.flushBuffer();
+    res.getOutputStream().close();
+    res.setStatus(HttpServletResponse.SC_OK);
+  }
+
+  private static HttpHeaders makeGridResponseHeaders(String datasetPath, SupportedFormat sf) {
+    // filename download attachment
+    String suffix = sf.getFileSuffix();
+    int pos = datasetPath.lastIndexOf("/");
+    String filename = (pos >= 0) ? datasetPath.substring(pos + 1) : datasetPath;
+    if (!filename.endsWith(suffix)) {
+      filename += suffix;
+    }
+
+    HttpHeaders httpHeaders = new HttpHeaders();
+    httpHeaders.set(ContentType.HEADER, sf.getMimeType());
+    httpHeaders.set(Constants.Content_Disposition, Constants.setContentDispositionValue(filename));
+    return httpHeaders;
+  }
+
   private static NetcdfFileFormat getNetcdfFileFormat(SupportedFormat supportedFormat) {
     switch (supportedFormat) {
       case NETCDF3:
@@ -202,6 +296,29 @@ public class NcssGridController extends AbstractNcssController {
     return new File(responseFilename);
   }
 
+  /**
+   * Lay out the netcdf3 response so it can be written directly to the client.
+   * Returns empty if this subset needs the staging file path (see CFGridStreamWriter).
+   */
+  private Optional<Netcdf3StreamWriter> makeCFNetcdf3Stream(CoverageCollection gcd, NcssGridParamsBean params,
+      NetcdfFileFormat version) throws IOException, NcssException {
+    if (params.isAddLatLon()) // 2D lat/lon are computed by CFGridCoverageWriter
+      return Optional.empty();
+
+    SubsetParams subset = params.makeSubset(gcd);
+    Optional<Netcdf3StreamWriter> streamer = CFGridStreamWriter.create(gcd, params.getVar(), subset,
+        version == NetcdfFileFormat.NETCDF3_64BIT_OFFSET);
+    if (streamer.isEmpty())
+      return streamer;
+
+    long maxFileDownloadSize = ThreddsConfig.getBytes("NetcdfSubsetService.maxFileDownloadSize", -1L);
+    long size = streamer.get().getSize();
+    if (maxFileDownloadSize > 0 && size > maxFileDownloadSize) {
+      throw new RequestTooLargeException(size, maxFileDownloadSize);
+    }
+    return streamer;
+  }
+
   private String getResponseFileName() {
     File ncFile = ncssDiskCache.getDiskCache().createUniqueFile("ncss-grid", ".nc");
 
@@ -236,9 +353,10 @@ public class NcssGridController extends AbstractNcssController {
   public ModelAndView getDatasetDescriptionXml(HttpServletRequest req, HttpServletResponse res) throws IOException {
     String datasetPath = getDatasetPath(req);
 
-    try (CoverageCollection gcd = TdsRequestedDataset.getCoverageCollection(req, res, datasetPath)) {
-      if (gcd == null)
+    try (CoverageCollectionHandle handle = TdsRequestedDataset.getCoverageCollection(req, res, datasetPath)) {
+      if (handle == null)
         return null; // restricted dataset
+      CoverageCollection gcd = handle.getCoverageCollection();
       String datasetUrlPath = buildDatasetUrl(datasetPath);
 
       CoverageDatasetCapabilities writer = new CoverageDatasetCapabilities(gcd, "path");
@@ -267,9 +385,10 @@ public class NcssGridController extends AbstractNcssController {
       throws IOException {
     String datasetPath = getDatasetPath(req);
 
-    try (CoverageCollection gcd = TdsRequestedDataset.getCoverageCollection(req, res, datasetPath)) {
-      if (gcd == null)
+    try (CoverageCollectionHandle handle = TdsRequestedDataset.getCoverageCollection(req, res, datasetPath)) {
+      if (handle == null)
         return null; // restricted dataset
+      CoverageCollection gcd = handle.getCoverageCollection();
       String datasetUrlPath = buildDatasetUrl(datasetPath);
 
       Map<String, Object> model = new HashMap<>();
@@ -320,9 +439,10 @@ public class NcssGridController extends AbstractNcssController {
 
   @RequestMapping("**/datasetBoundaries.wkt")
   public void getDatasetBoundariesWKT(HttpServletRequest req, HttpServletResponse res) throws IOException {
-    try (CoverageCollection gcd = TdsRequestedDataset.getCoverageCollection(req, res, getDatasetPath(req))) {
-      if (gcd == null)
+    try (CoverageCollectionHandle handle = TdsRequestedDataset.getCoverageCollection(req, res, getDatasetPath(req))) {
+      if (handle == null)
         return;
+      CoverageCollection gcd = handle.getCoverageCollection();
 
       res.setContentType(SupportedFormat.WKT.getMimeType());
       res.getWriter().write(gcd.getHorizCoordSys().getLatLonBoundaryAsWKT());
@@ -332,9 +452,10 @@ public class NcssGridController extends AbstractNcssController {
 
   @RequestMapping("**/datasetBoundaries.json")
   public void getDatasetBoundariesGeoJSON(HttpServletRequest req, HttpServletResponse res) throws IOException {
-    try (CoverageCollection gcd = TdsRequestedDataset.getCoverageCollection(req, res, getDatasetPath(req))) {
-      if (gcd == null)
+    try (CoverageCollectionHandle handle = TdsRequestedDataset.getCoverageCollection(req, res, getDatasetPath(req))) {
+      if (handle == null)
         return;
+      CoverageCollection gcd = handle.getCoverageCollection();
 
       res.setContentType(SupportedFormat.JSON.getMimeType());
       res.getWriter().write(gcd.getHorizCoordSys().getLatLonBoundaryAsGeoJSON());
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.ncss.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Formatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A disk cache of finished NCSS responses, keyed by a hash of the dataset path, the dataset version and the
+ * canonical form of the request. The total size of the cached files is bounded, the least recently used are deleted
+ * first. Concurrent requests for the same key wait for a single writer rather than each making the file.
+ * A response that is streamed to the client can instead be copied into the cache as it is sent, see startPut().
+ * <p>
+ * The index is only held in memory, so the files this cache made are deleted when the cache is created. Only files
+ * named with its FILE_PREFIX are touched, the directory may hold others.
+ */
+@ThreadSafe
+public class NcssResponseCache {
+  private static final Logger logger = LoggerFactory.getLogger(NcssResponseCache.class);
+  static final String FILE_PREFIX = "ncss-";
+
+  /** Writes a response into the given file. */
+  public interface ResponseWriter {
+    void write(File target) throws Exception;
+  }
+
+  private final File dir;
+  private final long maxBytes;
+
+  @GuardedBy("this")
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(100, 0.75f, true);
+  @GuardedBy("this")
+  private long totalBytes;
+
+  // value is true when the finished response was added to the cache
+  private final ConcurrentHashMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public NcssResponseCache(File dir, long maxBytes) {
+    this.dir = dir;
+    this.maxBytes = maxBytes;
+
+    if (!dir.exists() && !dir.mkdirs())
+      throw new IllegalArgumentException("Cant make cache directory " + dir);
+    File[] leftovers = dir.listFiles(
+        (d, name) -> name.startsWith(FILE_PREFIX) && (name.endsWith(".nc") || name.endsWith(".tmp")));
+    if (leftovers != null) {
+      for (File f : leftovers) {
+        if (f.isFile() && !f.delete())
+          logger.warn("Cant delete old response cache file {}", f);
+      }
+    }
+  }
+
+  /**
+   * Make the cache key for a request.
+   *
+   * @param datasetPath the dataset request path
+   * @param datasetVersion the dataset version, see DatasetManager.getDatasetVersion()
+   * @param canonicalRequest the canonical form of the request parameters, including the response format
+   * @return the key, which is also used as the ETag of the response
+   */
+  public static String makeKey(String datasetPath, long datasetVersion, String canonicalRequest) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      String s = datasetPath + "\n" + datasetVersion + "\n" + canonicalRequest;
+      byte[] digest = md.digest(s.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder(2 * digest.length);
+      for (byte b : digest)
+        sb.append(String.format("%02x", b));
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // every JVM has SHA-256
+    }
+  }
+
+  /**
+   * Get the response for this key if it is in the cache. The caller must close the returned Response.
+   *
+   * @return the response, or null if it is not in the cache
+   */
+  public Response getIfPresent(String key) throws IOException {
+    Response cached = open(key);
+    if (cached != null)
+      hits.incrementAndGet();
+    return cached;
+  }
+
+  /**
+   * Start adding a response while it is sent to the client, rather than writing it to a file first.
+   * Write the response through Pending.tee(), then commit() it once it is complete; the caller must close it.
+   *
+   * @param key the cache key
+   * @param size the exact size of the response, known before it is written
+   * @return null if a response of this size is not cached
+   */
+  public Pending startPut(String key, long size) throws IOException {
+    if (size > maxBytes)
+      return null;
+    misses.incrementAndGet();
+    return new Pending(key, File.createTempFile(FILE_PREFIX, ".tmp", dir));
+  }
+
+  /**
+   * Get the response for this key, writing it with the writer if it is not already in the cache.
+   * If another request is already writing it, wait for that one to finish.
+   * The caller must close the returned Response.
+   */
+  public Response get(String key, ResponseWriter writer) throws Exception {
+    Response cached = open(key);
+    if (cached != null) {
+      hits.incrementAndGet();
+      return cached;
+    }
+
+    CompletableFuture<Boolean> mine = new CompletableFuture<>();
+    CompletableFuture<Boolean> leader = inFlight.putIfAbsent(key, mine);
+    if (leader != null) {
+      coalesced.incrementAndGet();
+      boolean wasAdded;
+      try {
+        wasAdded = leader.get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception)
+          throw (Exception) cause;
+        throw (Error) cause;
+      }
+      if (wasAdded) {
+        cached = open(key);
+        if (cached != null)
+          return cached;
+      }
+      // too big to cache, or already evicted
+      return writeUncached(key, writer);
+    }
+
+    misses.incrementAndGet();
+    try {
+      File tmp = writeTemp(writer);
+      Response result = add(key, tmp);
+      mine.complete(result != null);
+      return (result != null) ? result : new Response(tmp, key, true);
+
+    } catch (Exception | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  private Response writeUncached(String key, ResponseWriter writer) throws Exception {
+    return new Response(writeTemp(writer), key, true);
+  }
+
+  private File writeTemp(ResponseWriter writer) throws Exception {
+    File tmp = File.createTempFile(FILE_PREFIX, ".tmp", dir);
+    try {
+      writer.write(tmp);
+    } catch (Exception | Error e) {
+      if (!tmp.delete())
+        logger.warn("Cant delete {}", tmp);
+      throw e;
+    }
+    return tmp;
+  }
+
+  // open under the lock, so an eviction cant delete the file first
+  private synchronized Response open(String key) throws IOException {
+    Entry entry = entries.get(key);
+    if (entry == null)
+      return null;
+    if (!entry.file.exists()) { // deleted behind our back
+      remove(key);
+      return null;
+    }
+    return new Response(entry.file, key, false);
+  }
+
+  // returns null if the file is too big to cache
+  private synchronized Response add(String key, File tmp) throws IOException {
+    File file = addFile(key, tmp);
+    return (file == null) ? null : new Response(file, key, false);
+  }
+
+  // returns the file in the cache, or null if it is too big to cache
+  private synchronized File addFile(String key, File tmp) throws IOException {
+    long size = tmp.length();
+    if (size > maxBytes)
+      return null;
+
+    remove(key);
+    File file = new File(dir, FILE_PREFIX + key + ".nc");
+    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    entries.put(key, new Entry(file, size));
+    totalBytes += size;
+
+    Iterator<Map.Entry<String, Entry>> iter = entries.entrySet().iterator();
+    while (totalBytes > maxBytes && iter.hasNext()) {
+      Map.Entry<String, Entry> eldest = iter.next();
+      if (eldest.getKey().equals(key))
+        continue;
+      iter.remove();
+      totalBytes -= eldest.getValue().size;
+      deleteFile(eldest.getValue().file);
+      evictions.incrementAndGet();
+    }
+
+    return file;
+  }
+
+  @GuardedBy("this")
+  private void remove(String key) {
+    Entry old = entries.remove(key);
+    if (old != null) {
+      totalBytes -= old.size;
+      deleteFile(old.file);
+    }
+  }
+
+  private static void deleteFile(File file) {
+    // an open Response can still read a deleted file
+    if (file.exists() && !file.delete())
+      logger.warn("Cant delete response cache file {}", file);
+  }
+
+  public synchronized void clear() {
+    for (Entry entry : entries.values())
+      deleteFile(entry.file);
+    entries.clear();
+    totalBytes = 0;
+  }
+
+  public synchronized void showCache(Formatter f) {
+    f.format("NcssResponseCache %s%n", dir);
+    f.format("  entries = %d, size = %d bytes, maxSize = %d bytes%n", entries.size(), totalBytes, maxBytes);
+    f.format("  hits = %d, misses = %d, coalesced = %d, evictions = %d%n", hits.get(), misses.get(), coalesced.get(),
+        evictions.get());
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  private static class Entry {
+    final File file;
+    final long size;
+
+    Entry(File file, long size) {
+      this.file = file;
+      this.size = size;
+    }
+  }
+
+  /**
+   * A response being added to the cache while it is sent. Closing it deletes the file if it was not committed.
+   */
+  public class Pending implements Closeable {
+    private final String key;
+    private final File tmp;
+    private final OutputStream file;
+    private boolean failed; // writing the file failed, the response is still sent
+    private boolean committed;
+
+    private Pending(String key, File tmp) throws IOException {
+      this.key = key;
+      this.tmp = tmp;
+      this.file = new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1000);
+    }
+
+    /**
+     * Wrap the response stream so that what is written to it is also written to the cache file.
+     * Errors writing the file stop the copy, but are not passed on to the response.
+     */
+    public OutputStream tee(OutputStream response) {
+      return new FilterOutputStream(response) {
+        @Override
+        public void write(int b) throws IOException {
+          out.write(b);
+          copy(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+          out.write(b, off, len);
+          copy(b, off, len);
+        }
+      };
+    }
+
+    private void copy(byte[] b, int off, int len) {
+      if (failed)
+        return;
+      try {
+        file.write(b, off, len);
+      } catch (IOException e) {
+        failed = true;
+        logger.warn("Cant write response cache file {}: {}", tmp, e.getMessage());
+      }
+    }
+
+    /** The whole response has been written, add it to the cache. */
+    public void commit() throws IOException {
+      file.close();
+      if (!failed)
+        committed = addFile(key, tmp) != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (committed)
+        return;
+      try {
+        file.close();
+      } catch (IOException e) {
+        // the file is deleted anyway
+      }
+      if (tmp.exists() && !tmp.delete())
+        logger.warn("Cant delete {}", tmp);
+    }
+  }
+
+  /**
+   * An open response. Closing it deletes the file if it was not added to the cache.
+   */
+  public static class Response implements Closeable {
+    private final File file;
+    private final String key;
+    private final boolean temporary;
+    private final long size;
+    private final InputStream in;
+
+    private Response(File file, String key, boolean temporary) throws IOException {
+      this.file = file;
+      this.key = key;
+      this.temporary = temporary;
+      this.size = file.length();
+      this.in = new FileInputStream(file);
+    }
+
+    public InputStream getInputStream() {
+      return in;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    /** A strong ETag: the key is a hash of everything that determines the response. */
+    public String getETag() {
+      return "\"" + key + "\"";
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+      if (temporary && !file.delete())
+        logger.warn("Cant delete {}", file);
+    }
+  }
+}
@@ -182,6 +182,68 @@ public class NcssGridParamsBean extends NcssParamsBean {
 
   ///////////////////////////////
 
+  /**
+   * A canonical form of this request: two requests with equal canonical forms get the same response from the
+   * same version of a dataset. Call after validation, so that dates have been parsed.
+   *
+   * @return the canonical form, or null if the response depends on when the request is made (eg time=present,
+   *         or no time given, which defaults to present)
+   */
+  public String getCanonicalForm() {
+    if (dependsOnRequestTime())
+      return null;
+
+    StringBuilder sb = new StringBuilder();
+    appendParam(sb, "var", var);
+    appendParam(sb, "north", north);
+    appendParam(sb, "south", south);
+    appendParam(sb, "east", east);
+    appendParam(sb, "west", west);
+    appendParam(sb, "latitude", latitude);
+    appendParam(sb, "longitude", longitude);
+    appendParam(sb, "minx", minx);
+    appendParam(sb, "maxx", maxx);
+    appendParam(sb, "miny", miny);
+    appendParam(sb, "maxy", maxy);
+    appendParam(sb, "addLatLon", addLatLon);
+    appendParam(sb, "horizStride", horizStride);
+    appendParam(sb, "timeStride", timeStride);
+    appendParam(sb, "vertCoord", vertCoord);
+    appendParam(sb, "ensCoord", ensCoord);
+    appendParam(sb, "allTimes", isAllTimes());
+    appendParam(sb, "date", date);
+    appendParam(sb, "dateRange", dateRange);
+    appendParam(sb, "time", time);
+    appendParam(sb, "time_start", time_start);
+    appendParam(sb, "time_end", time_end);
+    appendParam(sb, "time_duration", time_duration);
+    appendParam(sb, "runtime", runtime);
+    appendParam(sb, "runtimeDate", runtimeDate);
+    appendParam(sb, "latestRuntime", latestRuntime);
+    appendParam(sb, "allRuntime", allRuntime);
+    appendParam(sb, "timeOffset", timeOffset);
+    appendParam(sb, "timeOffsetVal", timeOffsetVal);
+    appendParam(sb, "firstTimeOffset", firstTimeOffset);
+    return sb.toString();
+  }
+
+  private boolean dependsOnRequestTime() {
+    if (isPresentTime() || isPresent(time_start) || isPresent(time_end) || isPresent(runtime))
+      return true;
+    boolean hasTime = time != null || temporal != null || time_start != null || time_end != null
+        || time_duration != null || timeOffset != null || timeOffsetVal != null || firstTimeOffset;
+    return !hasTime;
+  }
+
+  private static boolean isPresent(String s) {
+    return s != null && s.trim().equalsIgnoreCase("present");
+  }
+
+  private static void appendParam(StringBuilder sb, String name, Object value) {
+    if (value != null)
+      sb.append(name).append('=').append(value).append(';');
+  }
+
   public SubsetParams makeSubset(CoverageCollection gcd) {
     Calendar cal = gcd.getCalendar();
     boolean isFmrc = gcd.getCoverageType() == FeatureType.FMRC;
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.ncss.view.grid;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.constants.ACDD;
+import ucar.nc2.constants.AxisType;
+import ucar.nc2.constants.CDM;
+import ucar.nc2.constants.CF;
+import ucar.nc2.constants._Coordinate;
+import ucar.nc2.ft2.coverage.*;
+import ucar.unidata.geoloc.LatLonRect;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lays out a CF grid subset of a CoverageCollection as a {@link Netcdf3StreamWriter}, so that an NCSS grid request
+ * can be written straight to the response instead of being staged in a temporary file.
+ * <p>
+ * Follows the same structure as CFGridCoverageWriter: one dimension per independent axis, axis coordinate
+ * variables with bounds for interval axes, a variable per coordinate transform, and the coverages themselves, with
+ * the same global and variable attributes. Only the simple cases are handled here; if the subset has 2D or
+ * FMRC-style axes, or types that netCDF-3 cannot hold, {@link #create} returns empty and the caller should fall
+ * back to CFGridCoverageWriter.
+ */
+public class CFGridStreamWriter {
+  private static final Logger logger = LoggerFactory.getLogger(CFGridStreamWriter.class);
+
+  private static final String CONVENTIONS = "CF-1.0";
+  private static final String BOUNDS = "_bounds";
+  private static final String BOUNDS_DIM = "bounds_dim";
+
+  private CFGridStreamWriter() {}
+
+  /**
+   * Plan a streamed netCDF-3 response for the given grids.
+   *
+   * @param gcd the dataset
+   * @param gridNames names of the coverages to write, must exist in gcd
+   * @param subset subset parameters, as given to CFGridCoverageWriter
+   * @param force64bitOffset always use the 64-bit offset format
+   * @return the writer, or empty if this subset cannot be streamed
+   */
+  public static Optional<Netcdf3StreamWriter> create(CoverageCollection gcd, List<String> gridNames,
+      SubsetParams subset, boolean force64bitOffset) {
+    List<Coverage> coverages = new ArrayList<>();
+    for (String gridName : gridNames) {
+      Coverage grid = gcd.findCoverage(gridName);
+      if (grid == null)
+        return Optional.empty();
+      coverages.add(grid);
+    }
+
+    ucar.nc2.util.Optional<CoverageCollection> opt =
+        CoverageSubsetter2.makeCoverageDatasetSubset(gcd, coverages, subset);
+    if (!opt.isPresent()) // let CFGridCoverageWriter report the problem
+      return Optional.empty();
+    CoverageCollection subsetDataset = opt.get();
+
+    Netcdf3StreamWriter writer = new Netcdf3StreamWriter(force64bitOffset);
+    try {
+      addGlobalAttributes(gcd, subsetDataset, writer);
+
+      // dimensions
+      for (CoverageCoordAxis axis : subsetDataset.getCoordAxes()) {
+        if (axis.isInterval() && !writer.hasDimension(BOUNDS_DIM))
+          writer.addDimension(BOUNDS_DIM, 2);
+        switch (axis.getDependenceType()) {
+          case independent:
+            writer.addDimension(axis.getName(), axis.getNcoords());
+            break;
+          case dependent:
+          case scalar:
+            break;
+          default:
+            logger.debug("Cant stream axis {} with dependence {}", axis.getName(), axis.getDependenceType());
+            return Optional.empty();
+        }
+      }
+
+      // coordinate variables
+      for (CoverageCoordAxis axis : subsetDataset.getCoordAxes()) {
+        List<String> dims;
+        switch (axis.getDependenceType()) {
+          case independent:
+            dims = Collections.singletonList(axis.getName());
+            break;
+          case dependent:
+            dims = splitNames(axis.getDependsOn());
+            break;
+          default:
+            dims = Collections.emptyList();
+            break;
+        }
+        List<Attribute> atts = new ArrayList<>(axis.getAttributes());
+        setAttribute(atts, new Attribute(CDM.UNITS, axis.getUnits()));
+        if (axis.getAxisType() == AxisType.TimeOffset)
+          setAttribute(atts, new Attribute(CF.STANDARD_NAME, CF.TIME_OFFSET));
+
+        if (axis.isInterval()) {
+          String boundsName = axis.getName() + BOUNDS;
+          List<String> boundsDims = new ArrayList<>(dims);
+          boundsDims.add(BOUNDS_DIM);
+          writer.addVariable(boundsName, axis.getDataType(), boundsDims,
+              Collections.singletonList(new Attribute(CDM.UNITS, axis.getUnits())), axis::getCoordBoundsAsArray);
+          setAttribute(atts, new Attribute(CF.BOUNDS, boundsName));
+        }
+        writer.addVariable(axis.getName(), axis.getDataType(), dims, atts, axis::getCoordsAsArray);
+      }
+
+      // coordinate transforms are written as scalar placeholder variables carrying the projection attributes
+      for (CoverageTransform ct : subsetDataset.getCoordTransforms()) {
+        writer.addVariable(ct.getName(), DataType.INT, Collections.emptyList(), ct.getAttributes(),
+            () -> Array.factory(DataType.INT, new int[0]));
+      }
+
+      // coverages, read from the original dataset with the same subset parameters as CFGridCoverageWriter
+      for (Coverage grid : subsetDataset.getCoverages()) {
+        Coverage orgGrid = gcd.findCoverage(grid.getName());
+        List<Attribute> atts = new ArrayList<>(grid.getAttributes());
+        String coordinates = makeCoordinatesAttribute(grid);
+        if (!coordinates.isEmpty())
+          setAttribute(atts, new Attribute(CF.COORDINATES, coordinates));
+        CoverageTransform hct = grid.getCoordSys().getHorizTransform();
+        if (hct != null)
+          setAttribute(atts, new Attribute(CF.GRID_MAPPING, hct.getName()));
+
+        writer.addVariable(grid.getName(), grid.getDataType(), splitNames(grid.getIndependentAxisNamesOrdered()),
+            atts, () -> orgGrid.readData(subset).getData());
+      }
+
+      writer.getSize(); // fail now rather than after the response has started
+
+    } catch (IllegalArgumentException | IOException e) {
+      logger.debug("Cant stream grid subset of {}: {}", gcd.getName(), e.getMessage());
+      return Optional.empty();
+    }
+
+    return Optional.of(writer);
+  }
+
+  // the same global attributes as CFGridCoverageWriter
+  private static void addGlobalAttributes(CoverageCollection gcd, CoverageCollection subsetDataset,
+      Netcdf3StreamWriter writer) {
+    for (Attribute att : gcd.getGlobalAttributes()) {
+      if (att.getShortName().equals(CDM.FILE_FORMAT) || att.getShortName().equals(_Coordinate._CoordSysBuilder))
+        continue;
+      writer.addGlobalAttribute(att);
+    }
+
+    // keep the CF version the dataset already declares
+    Attribute conventions = gcd.findAttributeIgnoreCase(CDM.CONVENTIONS);
+    if (conventions == null || conventions.getStringValue() == null
+        || !conventions.getStringValue().startsWith("CF-"))
+      writer.addGlobalAttribute(new Attribute(CDM.CONVENTIONS, CONVENTIONS));
+    writer.addGlobalAttribute(new Attribute(CDM.HISTORY, "Translated to " + CONVENTIONS
+        + " Conventions by the THREDDS NetCDF Subset Service\nOriginal Dataset = " + gcd.getName()));
+
+    LatLonRect llbb = subsetDataset.getLatlonBoundingBox();
+    if (llbb != null) {
+      writer.addGlobalAttribute(new Attribute(ACDD.LAT_MIN, llbb.getLatMin()));
+      writer.addGlobalAttribute(new Attribute(ACDD.LAT_MAX, llbb.getLatMax()));
+      writer.addGlobalAttribute(new Attribute(ACDD.LON_MIN, llbb.getLonMin()));
+      writer.addGlobalAttribute(new Attribute(ACDD.LON_MAX, llbb.getLonMax()));
+    }
+  }
+
+  // the non-independent axes, as CFGridCoverageWriter lists them
+  private static String makeCoordinatesAttribute(Coverage grid) {
+    StringBuilder sb = new StringBuilder();
+    for (CoverageCoordAxis axis : grid.getCoordSys().getAxes()) {
+      if (axis.getDependenceType() != CoverageCoordAxis.DependenceType.independent)
+        sb.append(axis.getName()).append(" ");
+    }
+    return sb.toString().trim();
+  }
+
+  private static void setAttribute(List<Attribute> atts, Attribute att) {
+    atts.removeIf(a -> a.getShortName().equals(att.getShortName()));
+    atts.add(att);
+  }
+
+  private static List<String> splitNames(String names) {
+    if (names == null || names.trim().isEmpty())
+      return Collections.emptyList();
+    return Arrays.asList(names.trim().split("\\s+"));
+  }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.ncss.view.grid;
+
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.IndexIterator;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.constants.CDM;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a netCDF-3 file (classic or 64-bit offset format) directly to an OutputStream.
+ * <p>
+ * All dimensions and variables are declared up front, so the complete header (including every variable's begin
+ * offset) is known before any data is read. Data sections are then read one variable at a time and written in
+ * file order, which means no seekable staging file is needed. Record (unlimited) dimensions are not supported.
+ */
+public class Netcdf3StreamWriter {
+  private static final int NC_DIMENSION = 10;
+  private static final int NC_VARIABLE = 11;
+  private static final int NC_ATTRIBUTE = 12;
+
+  private static final long MAX_CLASSIC_OFFSET = Integer.MAX_VALUE;
+  private static final long MAX_VAR_SIZE = 4294967292L; // 2^32 - 4
+  private static final int BUFFER_SIZE = 64 * 1000;
+
+  /** Supplies the data for one variable, called only when the variable's data section is written. */
+  public interface DataSource {
+    Array read() throws IOException, InvalidRangeException;
+  }
+
+  private final Map<String, Integer> dimensions = new LinkedHashMap<>();
+  private final List<Attribute> globalAttributes = new ArrayList<>();
+  private final List<Var> variables = new ArrayList<>();
+  private final boolean force64bitOffset;
+
+  // computed by layout()
+  private int version;
+  private byte[] header;
+  private long totalSize = -1;
+
+  /**
+   * @param force64bitOffset always write the 64-bit offset format; otherwise it is used only when the classic
+   *        format's 2 GB offset limit would be exceeded.
+   */
+  public Netcdf3StreamWriter(boolean force64bitOffset) {
+    this.force64bitOffset = force64bitOffset;
+  }
+
+  public Netcdf3StreamWriter addDimension(String name, int length) {
+    if (length < 1)
+      throw new IllegalArgumentException("Dimension " + name + " must have positive length");
+    dimensions.put(name, length);
+    totalSize = -1;
+    return this;
+  }
+
+  public boolean hasDimension(String name) {
+    return dimensions.containsKey(name);
+  }
+
+  public Netcdf3StreamWriter addGlobalAttribute(Attribute att) {
+    globalAttributes.removeIf(a -> a.getShortName().equals(att.getShortName()));
+    globalAttributes.add(att);
+    totalSize = -1;
+    return this;
+  }
+
+  /**
+   * Declare a variable.
+   *
+   * @param dims names of previously added dimensions, outermost first. Empty for a scalar.
+   * @throws IllegalArgumentException if the data type cannot be stored in a netCDF-3 file, or a dimension is unknown.
+   */
+  public Netcdf3StreamWriter addVariable(String name, DataType dataType, List<String> dims,
+      Iterable<Attribute> atts, DataSource source) {
+    if (ncType(dataType) < 0)
+      throw new IllegalArgumentException("Variable " + name + " has type " + dataType + " not allowed in netCDF-3");
+    long nelems = 1;
+    for (String dim : dims) {
+      Integer len = dimensions.get(dim);
+      if (len == null)
+        throw new IllegalArgumentException("Variable " + name + " uses unknown dimension " + dim);
+      nelems *= len;
+    }
+    List<Attribute> attList = new ArrayList<>();
+    if (atts != null) {
+      for (Attribute att : atts)
+        attList.add(att);
+    }
+    // netCDF-3 has no unsigned types, the values keep their bits and readers find they are unsigned from this
+    if (dataType.isUnsigned() && attList.stream().noneMatch(att -> att.getShortName().equals(CDM.UNSIGNED)))
+      attList.add(new Attribute(CDM.UNSIGNED, "true"));
+    variables.add(new Var(name, dataType, new ArrayList<>(dims), attList, nelems, source));
+    totalSize = -1;
+    return this;
+  }
+
+  /** The exact number of bytes that {@link #write} will produce. */
+  public long getSize() throws IOException {
+    layout();
+    return totalSize;
+  }
+
+  /** 1 for the classic format, 2 for the 64-bit offset format. */
+  public int getVersion() throws IOException {
+    layout();
+    return version;
+  }
+
+  /**
+   * Write the header and then each variable's data to the stream. The stream is flushed but not closed.
+   */
+  public void write(OutputStream out) throws IOException, InvalidRangeException {
+    layout();
+    DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+    dout.write(header);
+    for (Var v : variables) {
+      Array data = v.source.read();
+      if (data.getSize() != v.nelems)
+        throw new IOException(
+            "Variable " + v.name + " returned " + data.getSize() + " values, header declared " + v.nelems);
+      writeData(dout, v.dataType, data);
+      pad(dout, v.nelems * v.elemSize);
+    }
+    dout.flush();
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  // layout
+
+  private void layout() throws IOException {
+    if (totalSize >= 0)
+      return;
+
+    for (Var v : variables) {
+      if (padded(v.nelems * v.elemSize) > MAX_VAR_SIZE)
+        throw new IOException("Variable " + v.name + " is too large for a netCDF-3 file");
+    }
+
+    version = force64bitOffset ? 2 : 1;
+    long end = assignOffsets(version);
+    if (version == 1 && lastBegin() > MAX_CLASSIC_OFFSET) {
+      version = 2;
+      end = assignOffsets(version);
+    }
+    header = encodeHeader(version);
+    totalSize = end;
+  }
+
+  // header length does not depend on the offset values, only on the width of the begin field
+  private long assignOffsets(int version) throws IOException {
+    long pos = encodeHeader(version).length;
+    for (Var v : variables) {
+      v.begin = pos;
+      pos += padded(v.nelems * v.elemSize);
+    }
+    return pos;
+  }
+
+  private long lastBegin() {
+    return variables.isEmpty() ? 0 : variables.get(variables.size() - 1).begin;
+  }
+
+  private byte[] encodeHeader(int version) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bos);
+
+    out.write(new byte[] {'C', 'D', 'F', (byte) version});
+    out.writeInt(0); // numrecs
+
+    List<String> dimNames = new ArrayList<>(dimensions.keySet());
+    if (dimNames.isEmpty()) {
+      writeAbsent(out);
+    } else {
+      out.writeInt(NC_DIMENSION);
+      out.writeInt(dimNames.size());
+      for (String dimName : dimNames) {
+        writeName(out, dimName);
+        out.writeInt(dimensions.get(dimName));
+      }
+    }
+
+    writeAttributes(out, globalAttributes);
+
+    if (variables.isEmpty()) {
+      writeAbsent(out);
+    } else {
+      out.writeInt(NC_VARIABLE);
+      out.writeInt(variables.size());
+      for (Var v : variables) {
+        writeName(out, v.name);
+        out.writeInt(v.dims.size());
+        for (String dim : v.dims)
+          out.writeInt(dimNames.indexOf(dim));
+        writeAttributes(out, v.atts);
+        out.writeInt(ncType(v.dataType));
+        out.writeInt((int) padded(v.nelems * v.elemSize));
+        if (version == 1)
+          out.writeInt((int) v.begin);
+        else
+          out.writeLong(v.begin);
+      }
+    }
+
+    out.flush();
+    return bos.toByteArray();
+  }
+
+  private static void writeAbsent(DataOutputStream out) throws IOException {
+    out.writeInt(0);
+    out.writeInt(0);
+  }
+
+  private static void writeName(DataOutputStream out, String name) throws IOException {
+    byte[] b = name.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(b.length);
+    out.write(b);
+    pad(out, b.length);
+  }
+
+  private static void writeAttributes(DataOutputStream out, List<Attribute> atts) throws IOException {
+    List<Attribute> valid = new ArrayList<>();
+    for (Attribute att : atts) {
+      if (att.isString() ? att.getStringValue() != null : att.getLength() > 0 && ncType(attType(att)) > 0)
+        valid.add(att);
+    }
+    if (valid.isEmpty()) {
+      writeAbsent(out);
+      return;
+    }
+
+    out.writeInt(NC_ATTRIBUTE);
+    out.writeInt(valid.size());
+    for (Attribute att : valid) {
+      writeName(out, att.getShortName());
+      if (att.isString()) {
+        // netCDF-3 only allows a single string per attribute
+        byte[] b = att.getStringValue().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(ncType(DataType.CHAR));
+        out.writeInt(b.length);
+        out.write(b);
+        pad(out, b.length);
+      } else {
+        DataType dt = attType(att);
+        int n = att.getLength();
+        out.writeInt(ncType(dt));
+        out.writeInt(n);
+        for (int i = 0; i < n; i++) {
+          Number val = att.getNumericValue(i);
+          switch (dt) {
+            case BYTE:
+              out.writeByte(val.byteValue());
+              break;
+            case SHORT:
+              out.writeShort(val.shortValue());
+              break;
+            case INT:
+              out.writeInt(val.intValue());
+              break;
+            case FLOAT:
+              out.writeFloat(val.floatValue());
+              break;
+            default:
+              out.writeDouble(val.doubleValue());
+              break;
+          }
+        }
+        pad(out, (long) n * elemSize(dt));
+      }
+    }
+  }
+
+  // netCDF-3 has no unsigned or 64-bit integer types: unsigned values keep their bits (as for variables, which
+  // addVariable gives _Unsigned = "true"), and longs are widened to double.
+  private static DataType attType(Attribute att) {
+    DataType dt = att.getDataType();
+    switch (dt) {
+      case UBYTE:
+        return DataType.BYTE;
+      case USHORT:
+        return DataType.SHORT;
+      case UINT:
+        return DataType.INT;
+      case LONG:
+      case ULONG:
+        return DataType.DOUBLE;
+      default:
+        return dt;
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////
+  // data
+
+  private static void writeData(DataOutputStream out, DataType dt, Array data) throws IOException {
+    IndexIterator ii = data.getIndexIterator();
+    switch (dt) {
+      case BYTE:
+      case UBYTE:
+        while (ii.hasNext())
+          out.writeByte(ii.getByteNext());
+        break;
+      case CHAR:
+        while (ii.hasNext())
+          out.writeByte((byte) ii.getCharNext());
+        break;
+      case SHORT:
+      case USHORT:
+        while (ii.hasNext())
+          out.writeShort(ii.getShortNext());
+        break;
+      case INT:
+      case UINT:
+        while (ii.hasNext())
+          out.writeInt(ii.getIntNext());
+        break;
+      case FLOAT:
+        while (ii.hasNext())
+          out.writeFloat(ii.getFloatNext());
+        break;
+      case DOUBLE:
+        while (ii.hasNext())
+          out.writeDouble(ii.getDoubleNext());
+        break;
+      default:
+        throw new IllegalStateException("Unsupported netCDF-3 type " + dt);
+    }
+  }
+
+  private static void pad(DataOutputStream out, long nbytes) throws IOException {
+    int npad = (int) (padded(nbytes) - nbytes);
+    for (int i = 0; i < npad; i++)
+      out.writeByte(0);
+  }
+
+  private static long padded(long nbytes) {
+    return (nbytes + 3) & ~3L;
+  }
+
+  /** The netCDF-3 nc_type code, or -1 if the type cannot be stored in a netCDF-3 file. */
+  static int ncType(DataType dt) {
+    switch (dt) {
+      case BYTE:
+      case UBYTE:
+        return 1;
+      case CHAR:
+        return 2;
+      case SHORT:
+      case USHORT:
+        return 3;
+      case INT:
+      case UINT:
+        return 4;
+      case FLOAT:
+        return 5;
+      case DOUBLE:
+        return 6;
+      default:
+        return -1;
+    }
+  }
+
+  private static int elemSize(DataType dt) {
+    return (dt == DataType.CHAR) ? 1 : dt.getSize();
+  }
+
+  private static class Var {
+    final String name;
+    final DataType dataType;
+    final List<String> dims;
+    final List<Attribute> atts;
+    final long nelems;
+    final int elemSize;
+    final DataSource source;
+    long begin;
+
+    Var(String name, DataType dataType, List<String> dims, List<Attribute> atts, long nelems, DataSource source) {
+      this.name = name;
+      this.dataType = dataType;
+      this.dims = dims;
+      this.atts = atts;
+      this.nelems = nelems;
+      this.elemSize = elemSize(dataType);
+      this.source = source;
+    }
+  }
+}
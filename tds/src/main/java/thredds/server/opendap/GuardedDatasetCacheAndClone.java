@@ -41,6 +41,15 @@ public class GuardedDatasetCacheAndClone implements GuardedDataset {
     this.hasSession = hasSession;
   }
 
+  /** Use the DDS and DAS from the cache, bound to the Variables of this ncfile. */
+  public GuardedDatasetCacheAndClone(String reqPath, NetcdfFile ncfile, boolean hasSession, NcDDSCache ddsCache) {
+    NcDDSCache.Templates templates = ddsCache.get(reqPath, ncfile);
+    this.org_file = ncfile;
+    this.dds = templates.dds;
+    this.das = templates.das;
+    this.hasSession = hasSession;
+  }
+
   public opendap.servers.ServerDDS getDDS() {
     return (opendap.servers.ServerDDS) dds.clone();
   }
@@ -29,6 +29,9 @@ public interface HasNetcdfVariable {
   /** get the underlying proxy */
   public Variable getVariable();
 
+  /** set the underlying proxy, to use a copy of this with the same Variable of another NetcdfFile */
+  public void setVariable(Variable v);
+
   // for structure members
   public void serialize(DataOutputStream sink, StructureData sdata, StructureMembers.Member m) throws IOException;
 }
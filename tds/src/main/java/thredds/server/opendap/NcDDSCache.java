@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.opendap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import opendap.dap.BaseType;
+import opendap.dap.DConstructor;
+import opendap.dap.DVector;
+import opendap.dap.PrimitiveVector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import thredds.server.admin.DebugCommands;
+import ucar.ma2.DataType;
+import ucar.nc2.Attribute;
+import ucar.nc2.Group;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Structure;
+import ucar.nc2.Variable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application wide cache of the DDS and DAS built for a dataset, which are cloned for each request rather than built
+ * again from the NetcdfFile. For datasets with thousands of variables, building them dominates small requests.
+ * <p>
+ * The DDS reads its data through the Variables of a NetcdfFile, so the cached DDS has none: each request gets a clone
+ * whose variables are bound to the Variables of its own NetcdfFile, found by name. This way a cached DDS is used for
+ * any NetcdfFile opened for the path, such as the new NetcdfDataset made for each request to a feature collection,
+ * and the cache keeps no NetcdfFile open or reachable.
+ * Entries are keyed by request path, and built again when the last modified time of the dataset changes, when its
+ * attributes change, or when its variables no longer have the same names, data types and shapes. The attributes are
+ * checked because an NcML wrapper can change them while the file it wraps, and so the last modified time, does not.
+ */
+@Component
+@ThreadSafe
+public class NcDDSCache {
+  static private org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(NcDDSCache.class);
+
+  @Autowired
+  private DebugCommands debugCommands;
+
+  private volatile Cache<String, Entry> cache; // null if turned off, which is also the case until init() is called
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /** @param maxDatasets number of datasets to keep the DDS and DAS of, 0 to turn off */
+  public void init(int maxDatasets) {
+    this.cache = maxDatasets <= 0 ? null : CacheBuilder.newBuilder().maximumSize(maxDatasets).build();
+    if (debugCommands != null)
+      makeDebugActions();
+  }
+
+  /** Get the DDS and DAS for a request on ncfile, building them if not cached. Clone them before use. */
+  Templates get(String reqPath, NetcdfFile ncfile) {
+    Cache<String, Entry> c = cache;
+    long lastModified = ncfile.getLastModified();
+    long attributesHash = (c == null) ? 0 : attributesHash(ncfile);
+    if (c != null) {
+      Entry entry = c.getIfPresent(reqPath);
+      if (entry != null && entry.lastModified == lastModified && entry.attributesHash == attributesHash) {
+        NcDDS dds = entry.bind(ncfile);
+        if (dds != null) {
+          hits.incrementAndGet();
+          return new Templates(dds, entry.das);
+        }
+      }
+    }
+
+    misses.incrementAndGet();
+    NcDDS dds = new NcDDS(reqPath, ncfile);
+    NcDAS das = new NcDAS(ncfile);
+    if (c != null) {
+      Entry entry = Entry.make(lastModified, attributesHash, ncfile, dds, das);
+      if (entry != null)
+        c.put(reqPath, entry);
+    }
+    return new Templates(dds, das);
+  }
+
+  // For testing
+  Entry getEntry(String reqPath) {
+    Cache<String, Entry> c = cache;
+    return c == null ? null : c.getIfPresent(reqPath);
+  }
+
+  public void clear() {
+    Cache<String, Entry> c = cache;
+    if (c != null)
+      c.invalidateAll();
+  }
+
+  public void showCache(Formatter f) {
+    Cache<String, Entry> c = cache;
+    if (c == null) {
+      f.format("NcDDSCache : turned off%n");
+      return;
+    }
+    f.format("NcDDSCache entries = %d, hits = %d, misses = %d%n", c.size(), hits.get(), misses.get());
+    for (java.util.Map.Entry<String, Entry> e : c.asMap().entrySet())
+      f.format("  %s variables = %d%n", e.getKey(), e.getValue().nvars);
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  void makeDebugActions() {
+    DebugCommands.Category debugHandler = debugCommands.findCategory("Caches");
+    DebugCommands.Action act;
+
+    act = new DebugCommands.Action("showNcDDSCache", "Show OPeNDAP DDS/DAS Cache") {
+      public void doAction(DebugCommands.Event e) {
+        Formatter f = new Formatter(e.pw);
+        showCache(f);
+        e.pw.flush();
+      }
+    };
+    debugHandler.addAction(act);
+
+    act = new DebugCommands.Action("clearNcDDSCache", "Clear OPeNDAP DDS/DAS Cache") {
+      public void doAction(DebugCommands.Event e) {
+        clear();
+        e.pw.println("  NcDDSCache clear ok");
+      }
+    };
+    debugHandler.addAction(act);
+  }
+
+  /** The DDS and DAS for one request. */
+  @Immutable
+  static class Templates {
+    final NcDDS dds;
+    final NcDAS das;
+
+    Templates(NcDDS dds, NcDAS das) {
+      this.dds = dds;
+      this.das = das;
+    }
+  }
+
+  /**
+   * A DDS with no Variables, and for each of its nodes that has one, the name, data type and shape of the Variable,
+   * in the order of nodes().
+   */
+  @Immutable
+  static class Entry {
+    final long lastModified;
+    final long attributesHash;
+    final int nvars; // number of variables in the NetcdfFile
+    final NcDDS dds;
+    final NcDAS das;
+    private final BaseType[] nodes;
+    private final String[] names;
+    private final DataType[] dataTypes;
+    private final int[][] shapes;
+
+    private Entry(long lastModified, long attributesHash, int nvars, NcDDS dds, NcDAS das, List<BaseType> nodes) {
+      this.lastModified = lastModified;
+      this.attributesHash = attributesHash;
+      this.nvars = nvars;
+      this.dds = dds;
+      this.das = das;
+      this.nodes = nodes.toArray(new BaseType[0]);
+      this.names = new String[this.nodes.length];
+      this.dataTypes = new DataType[this.nodes.length];
+      this.shapes = new int[this.nodes.length][];
+      for (int i = 0; i < this.nodes.length; i++) {
+        Variable v = getVariable(this.nodes[i]);
+        if (v != null) {
+          names[i] = v.getFullNameEscaped();
+          dataTypes[i] = v.getDataType();
+          shapes[i] = v.getShape();
+        }
+        setVariable(this.nodes[i], null);
+      }
+    }
+
+    /** @return the entry for a DDS just built from ncfile, which is not modified, or null if it cannot be cloned */
+    static Entry make(long lastModified, long attributesHash, NetcdfFile ncfile, NcDDS built, NcDAS das) {
+      NcDDS dds = (NcDDS) built.clone();
+      if (dds == null) {
+        return null;
+      }
+      List<BaseType> builtNodes = nodes(built);
+      List<BaseType> nodes = nodes(dds);
+      if (builtNodes.size() != nodes.size()) {
+        return null;
+      }
+      for (int i = 0; i < nodes.size(); i++) {
+        if (nodes.get(i) == builtNodes.get(i)) { // shared, removing its Variable would break this request
+          return null;
+        }
+      }
+      return new Entry(lastModified, attributesHash, ncfile.getVariables().size(), dds, das, nodes);
+    }
+
+    /** @return a clone of the DDS with the Variables of ncfile, or null if they no longer match */
+    NcDDS bind(NetcdfFile ncfile) {
+      if (ncfile.getVariables().size() != nvars) {
+        return null;
+      }
+      NcDDS result = (NcDDS) dds.clone();
+      if (result == null) {
+        return null;
+      }
+      List<BaseType> cloned = nodes(result);
+      if (cloned.size() != nodes.length) {
+        return null;
+      }
+      for (int i = 0; i < nodes.length; i++) {
+        BaseType node = cloned.get(i);
+        if (node == nodes[i]) { // shared with the entry, binding it would change other requests
+          log.warn("NcDDSCache: cloned DDS shares node {}", node.getEncodedName());
+          return null;
+        }
+        if (names[i] == null) {
+          continue;
+        }
+        Variable v = ncfile.findVariable(names[i]);
+        if (v == null || v.getDataType() != dataTypes[i] || !Arrays.equals(v.getShape(), shapes[i])) {
+          return null;
+        }
+        if (!setVariable(node, v)) {
+          return null;
+        }
+      }
+      return result;
+    }
+  }
+
+  // a hash of the names and values of all the attributes that go into the DAS
+  static long attributesHash(NetcdfFile ncfile) {
+    return hashGroup(ncfile.getRootGroup(), 17);
+  }
+
+  private static long hashGroup(Group group, long hash) {
+    hash = hashAttributes(group.attributes(), hash);
+    for (Variable v : group.getVariables())
+      hash = hashVariable(v, hash);
+    for (Group nested : group.getGroups())
+      hash = hashGroup(nested, hash);
+    return hash;
+  }
+
+  private static long hashVariable(Variable v, long hash) {
+    hash = 31 * hash + v.getShortName().hashCode();
+    hash = hashAttributes(v.attributes(), hash);
+    if (v instanceof Structure) {
+      for (Variable member : ((Structure) v).getVariables())
+        hash = hashVariable(member, hash);
+    }
+    return hash;
+  }
+
+  private static long hashAttributes(Iterable<Attribute> atts, long hash) {
+    for (Attribute att : atts) {
+      hash = 31 * hash + att.getShortName().hashCode();
+      hash = 31 * hash + att.getDataType().hashCode();
+      for (int i = 0; i < att.getLength(); i++) {
+        Object value = att.isString() ? att.getStringValue(i) : att.getNumericValue(i);
+        hash = 31 * hash + (value == null ? 0 : value.hashCode());
+      }
+    }
+    return hash;
+  }
+
+  // the nodes of a DDS in a fixed order: each variable, then its members, its array template or its grid parts
+  static List<BaseType> nodes(NcDDS dds) {
+    List<BaseType> result = new ArrayList<>();
+    addNodes(dds.getVariables(), result);
+    return result;
+  }
+
+  private static void addNodes(Enumeration<?> vars, List<BaseType> result) {
+    while (vars.hasMoreElements()) {
+      addNode((BaseType) vars.nextElement(), result);
+    }
+  }
+
+  private static void addNode(BaseType bt, List<BaseType> result) {
+    if (bt == null) {
+      return;
+    }
+    result.add(bt);
+    if (bt instanceof DConstructor) {
+      addNodes(((DConstructor) bt).getVariables(), result);
+    } else if (bt instanceof DVector) {
+      PrimitiveVector pv = ((DVector) bt).getPrimitiveVector();
+      if (pv != null) {
+        addNode(pv.getTemplate(), result);
+      }
+    }
+  }
+
+  private static Variable getVariable(BaseType bt) {
+    if (bt instanceof HasNetcdfVariable) {
+      return ((HasNetcdfVariable) bt).getVariable();
+    }
+    if (bt instanceof NcSDStructure) {
+      return ((NcSDStructure) bt).getVariable();
+    }
+    return null;
+  }
+
+  private static boolean setVariable(BaseType bt, Variable v) {
+    if (bt instanceof HasNetcdfVariable) {
+      ((HasNetcdfVariable) bt).setVariable(v);
+    } else if (bt instanceof NcSDStructure) {
+      if (v != null && !(v instanceof Structure)) {
+        return false;
+      }
+      ((NcSDStructure) bt).setVariable((Structure) v);
+    }
+    return true;
+  }
+}
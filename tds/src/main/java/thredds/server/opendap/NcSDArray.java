@@ -57,6 +57,10 @@ public class NcSDArray extends SDArray implements HasNetcdfVariable {
     return ncVar;
   }
 
+  public void setVariable(Variable v) {
+    this.ncVar = v;
+  }
+
   /**
    * Read the data values (parameters are ignored).
    * Use the start, stop and stride values, typically set by the constraint evaluator.
@@ -174,6 +178,29 @@ public class NcSDArray extends SDArray implements HasNetcdfVariable {
     setRead(true);
   }
 
+  /**
+   * Write the data as in DVector.externalize, but write arrays of primitives in bulk rather than value by value.
+   */
+  @Override
+  public void externalize(DataOutputStream sink) throws IOException {
+    Object storage = getPrimitiveVector().getInternalStorage();
+    if (storage == null || !XdrArrayWriter.canWrite(storage)) {
+      super.externalize(sink);
+      return;
+    }
+
+    // arrays of primitives have their length written twice, once by XDR and once by DAP
+    int length = XdrArrayWriter.getLength(storage);
+    sink.writeInt(length);
+    sink.writeInt(length);
+    XdrArrayWriter.write(storage, ncVar.getDataType().isUnsigned(), sink);
+  }
+
+  // For testing: the value by value DVector.externalize that externalize() replaces
+  void externalizeByValue(DataOutputStream sink) throws IOException {
+    super.externalize(sink);
+  }
+
   public void serialize(DataOutputStream sink, StructureData sdata, StructureMembers.Member m) throws IOException {
     long tstart = System.currentTimeMillis();
 
@@ -36,6 +36,10 @@ public class NcSDFloat64 extends SDFloat64 implements HasNetcdfVariable {
     return ncVar;
   }
 
+  public void setVariable(Variable v) {
+    this.ncVar = v;
+  }
+
   /**
    * Read the value (parameters are ignored).
    */
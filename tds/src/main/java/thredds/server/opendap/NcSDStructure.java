@@ -59,6 +59,11 @@ public class NcSDStructure extends SDStructure {
     return ncVar;
   }
 
+  /** set the underlying Structure, to use a copy of this with the same Structure of another NetcdfFile */
+  public void setVariable(Structure s) {
+    this.ncVar = s;
+  }
+
   // called if its scalar
   public boolean read(String datasetName, Object specialO) throws NoSuchVariableException, IOException {
 
@@ -56,6 +56,9 @@ public class OpendapServlet extends AbstractServlet implements InitializingBean
   @Autowired
   TdsContext tdsContext;
 
+  @Autowired
+  NcDDSCache ddsCache;
+
   private boolean allowSessions = false;
   private boolean allowDeflate = false; // handled by Tomcat
 
@@ -96,6 +99,9 @@ public class OpendapServlet extends AbstractServlet implements InitializingBean
       this.binLimit = ThreddsConfig.getInt("Opendap.binLimit", binLimit);
 
       this.odapVersionString = ThreddsConfig.get("Opendap.serverVersion", odapVersionString);
+      if (ddsCache != null) {
+        ddsCache.init(ThreddsConfig.getInt("Opendap.ddsCache.maxDatasets", 100));
+      }
       logServerStartup.info(getClass().getName() + " version= " + odapVersionString + " ascLimit = " + ascLimit
           + " binLimit = " + binLimit);
 
@@ -953,7 +959,8 @@ public class OpendapServlet extends AbstractServlet implements InitializingBean
     }
     // throw new FileNotFoundException("Cant find "+ reqPath);
 
-    GuardedDataset gdataset = new GuardedDatasetCacheAndClone(reqPath, ncd, acceptSession);
+    GuardedDataset gdataset = (ddsCache == null) ? new GuardedDatasetCacheAndClone(reqPath, ncd, acceptSession)
+        : new GuardedDatasetCacheAndClone(reqPath, ncd, acceptSession, ddsCache);
 
     if (acceptSession) {
       String cookiePath = req.getRequestURI();
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.opendap;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the values of a DAP2 array of primitives in XDR (big-endian) encoding, a buffer at a time, rather than value
+ * by value through the DataOutputStream as the PrimitiveVectors do. The output is the same: 32 bit values for all
+ * integer types wider than a byte, and bytes padded to a multiple of 4.
+ */
+class XdrArrayWriter {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final ThreadLocal<ByteBuffer> buffers =
+      ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
+  private XdrArrayWriter() {}
+
+  /** Can write values stored in this kind of java array. */
+  static boolean canWrite(Object storage) {
+    return storage instanceof float[] || storage instanceof double[] || storage instanceof int[]
+        || storage instanceof short[] || storage instanceof byte[];
+  }
+
+  /** Number of values in the java array. */
+  static int getLength(Object storage) {
+    return java.lang.reflect.Array.getLength(storage);
+  }
+
+  /**
+   * Write the values, not including the array length.
+   *
+   * @param storage a java array for which canWrite() is true
+   * @param unsigned if shorts are unsigned
+   */
+  static void write(Object storage, boolean unsigned, DataOutputStream sink) throws IOException {
+    ByteBuffer bb = buffers.get();
+    if (storage instanceof float[])
+      writeFloats((float[]) storage, bb, sink);
+    else if (storage instanceof double[])
+      writeDoubles((double[]) storage, bb, sink);
+    else if (storage instanceof int[])
+      writeInts((int[]) storage, bb, sink);
+    else if (storage instanceof short[])
+      writeShorts((short[]) storage, unsigned, bb, sink);
+    else if (storage instanceof byte[])
+      writeBytes((byte[]) storage, sink);
+    else
+      throw new IllegalArgumentException("Cant write " + storage.getClass().getName());
+  }
+
+  private static void writeFloats(float[] vals, ByteBuffer bb, DataOutputStream sink) throws IOException {
+    int perBuffer = bb.capacity() / 4;
+    for (int start = 0; start < vals.length; start += perBuffer) {
+      int n = Math.min(perBuffer, vals.length - start);
+      bb.clear();
+      bb.asFloatBuffer().put(vals, start, n);
+      sink.write(bb.array(), 0, n * 4);
+    }
+  }
+
+  private static void writeDoubles(double[] vals, ByteBuffer bb, DataOutputStream sink) throws IOException {
+    int perBuffer = bb.capacity() / 8;
+    for (int start = 0; start < vals.length; start += perBuffer) {
+      int n = Math.min(perBuffer, vals.length - start);
+      bb.clear();
+      bb.asDoubleBuffer().put(vals, start, n);
+      sink.write(bb.array(), 0, n * 8);
+    }
+  }
+
+  private static void writeInts(int[] vals, ByteBuffer bb, DataOutputStream sink) throws IOException {
+    int perBuffer = bb.capacity() / 4;
+    for (int start = 0; start < vals.length; start += perBuffer) {
+      int n = Math.min(perBuffer, vals.length - start);
+      bb.clear();
+      bb.asIntBuffer().put(vals, start, n);
+      sink.write(bb.array(), 0, n * 4);
+    }
+  }
+
+  // shorts go out as 32 bit ints
+  private static void writeShorts(short[] vals, boolean unsigned, ByteBuffer bb, DataOutputStream sink)
+      throws IOException {
+    int perBuffer = bb.capacity() / 4;
+    for (int start = 0; start < vals.length; start += perBuffer) {
+      int n = Math.min(perBuffer, vals.length - start);
+      bb.clear();
+      for (int i = start; i < start + n; i++)
+        bb.putInt(unsigned ? vals[i] & 0xffff : vals[i]);
+      sink.write(bb.array(), 0, n * 4);
+    }
+  }
+
+  // bytes are written as is, padded to a multiple of 4
+  private static void writeBytes(byte[] vals, DataOutputStream sink) throws IOException {
+    sink.write(vals, 0, vals.length);
+    int modFour = vals.length % 4;
+    int pad = (modFour != 0) ? (4 - modFour) : 0;
+    for (int i = 0; i < pad; i++)
+      sink.writeByte(0);
+  }
+}
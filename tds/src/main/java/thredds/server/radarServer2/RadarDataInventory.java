@@ -5,9 +5,6 @@
 
 package thredds.server.radarServer2;
 
-import thredds.inventory.CollectionConfig;
-import thredds.inventory.MController;
-import thredds.inventory.MControllers;
 import thredds.inventory.MFile;
 import ucar.nc2.constants.FeatureType;
 import ucar.nc2.dt.RadialDatasetSweep;
@@ -15,6 +12,7 @@ import ucar.nc2.ft.FeatureDatasetFactoryManager;
 import ucar.nc2.time.*;
 import ucar.nc2.units.DateRange;
 import ucar.unidata.geoloc.EarthLocation;
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
@@ -31,6 +29,8 @@ import java.util.*;
  */
 
 public class RadarDataInventory {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RadarDataInventory.class);
+
   public enum DirType {
     Station, Variable, Date
   }
@@ -43,6 +43,8 @@ public class RadarDataInventory {
   private java.util.regex.Pattern fileTimeRegex;
   private boolean dirty;
   private CalendarDate lastUpdate;
+  private File indexFile;
+  private RadarTimeIndex index;
   private int maxCrawlItems;
   private StationList stations;
   private CalendarPeriod nearestWindow, rangeAdjustment;
@@ -129,6 +131,14 @@ public class RadarDataInventory {
     nearestWindow = pd;
   }
 
+  /**
+   * Save the index of the files in the collection to this file, so it does not have to be
+   * made again from the directory listings when the server restarts.
+   */
+  public void setIndexFile(File indexFile) {
+    this.indexFile = indexFile;
+  }
+
   public static class DirectoryStructure {
     int maxCrawlDepth = 1;
 
@@ -254,9 +264,11 @@ public class RadarDataInventory {
   public void addFileTime(String regex, String fmt) {
     fileTimeRegex = java.util.regex.Pattern.compile(regex);
     fileTimeFmt = fmt;
+    index = null;
+    dirty = true;
   }
 
-  private void findItems(MFile start, int level) {
+  private void findItems(MFile start, int level) throws IOException {
     // Add each entry from this level to the appropriate item box
     // and recurse
     if (level >= structure.order.size() || level >= structure.maxCrawlDepth)
@@ -273,8 +285,8 @@ public class RadarDataInventory {
     }
 
     int crawled = 0;
-    for (MFile subDir : getSubDirs(start)) {
-      String item = subDir.getName();
+    for (String item : index.getSubDirs(start)) {
+      MFile subDir = start.getChild(item + "/");
       values.add(item);
       // Try to grab station info from some file
       // TODO: Fix or remove
@@ -322,9 +334,18 @@ public class RadarDataInventory {
     }
   }
 
-  private void update() {
+  private synchronized void update() {
+    if (index == null) {
+      index = new RadarTimeIndex(fileTimeRegex, fileTimeFmt, updateIntervalMsec, indexFile);
+      index.load();
+    }
     if (dirty || timeToUpdate()) {
-      findItems(structure.base, 0);
+      try {
+        findItems(structure.base, 0);
+      } catch (IOException e) {
+        logger.warn("Failed to list radar collection {}", collectionDir.getPath(), e);
+      }
+      index.save();
       dirty = false;
       lastUpdate = CalendarDate.present();
     }
@@ -443,7 +464,8 @@ public class RadarDataInventory {
             CalendarDateRange dirRange = rangeFromFormat(fmt, range);
 
             for (MFile mFile : results)
-              for (MFile sub : getSubDirs(mFile)) {
+              for (String name : index.getSubDirs(mFile)) {
+                MFile sub = mFile.getChild(name + "/");
                 Date d = matcher.getDate(sub);
                 if (d != null && checkDate(dirRange, CalendarDate.of(d)))
                   newResults.add(sub);
@@ -468,26 +490,14 @@ public class RadarDataInventory {
       }
 
       // Now get the contents of the remaining directories
+      // The files are sorted by time, so find the ones in range by binary search
       Collection<QueryResultItem> filteredFiles = new ArrayList<>();
       for (MFile dir : results) {
-        for (MFile mFile : getFiles(dir)) {
-          java.util.regex.Matcher regexMatcher = fileTimeRegex.matcher(mFile.getName());
-          if (!regexMatcher.find())
-            continue;
-
-          try {
-            SimpleDateFormat fmt = new SimpleDateFormat(fileTimeFmt);
-            fmt.setTimeZone(TimeZone.getTimeZone("UTC"));
-            Date d = fmt.parse(regexMatcher.group());
-            if (d != null) {
-              CalendarDate cd = CalendarDate.of(d);
-              if (checkDate(range, cd))
-                filteredFiles.add(new QueryResultItem(mFile, cd));
-            }
-          } catch (ParseException e) {
-            // Ignore file
-          }
-        }
+        RadarTimeIndex.Listing files = index.getFiles(dir);
+        int first = range == null ? 0 : files.firstAtOrAfter(range.getStart().getMillis());
+        int last = range == null ? files.size() : files.firstAfter(range.getEnd().getMillis());
+        for (int i = first; i < last; i++)
+          filteredFiles.add(new QueryResultItem(dir.getChild(files.names[i]), CalendarDate.of(files.times[i])));
       }
 
       // If only looking for nearest, perform that reduction now
@@ -516,30 +526,4 @@ public class RadarDataInventory {
       return filteredFiles;
     }
   }
-
-  private List<MFile> getSubDirs(MFile directory) {
-    final MController mController = MControllers.create(directory.getPath());
-    final List<MFile> mFiles = new ArrayList<>();
-
-    final CollectionConfig dirs = new CollectionConfig("dirs", directory.getPath(), false, null, null);
-    final DirectoryStream<MFile> dirIterator = mController.getSubdirs(dirs, true);
-    if (dirIterator != null) {
-      dirIterator.forEach(mFiles::add);
-    }
-
-    return mFiles;
-  }
-
-  private List<MFile> getFiles(MFile directory) throws IOException {
-    final MController mController = MControllers.create(directory.getPath());
-    final List<MFile> mFiles = new ArrayList<>();
-
-    final CollectionConfig files = new CollectionConfig("files", directory.getPath(), false, null, null);
-    final DirectoryStream<MFile> fileIterator = mController.getInventoryTop(files, true);
-    if (fileIterator != null) {
-      fileIterator.forEach(mFiles::add);
-    }
-
-    return mFiles;
-  }
 }
@@ -19,12 +19,14 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.UnsupportedOperationException;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.web.servlet.HandlerMapping;
 import thredds.client.catalog.*;
 import thredds.client.catalog.builder.CatalogBuilder;
@@ -43,6 +45,7 @@ import ucar.nc2.units.DateType;
 import ucar.nc2.units.TimeDuration;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.xml.bind.JAXBException;
 
 /**
  * Serve up radar data in a way that makes it easy to query. Relevant query
@@ -63,6 +66,10 @@ public class RadarServerController implements InitializingBean {
   static Map<String, List<RadarServerConfig.RadarConfigEntry.VarInfo>> vars;
   boolean enabled = false;
 
+  // The catalogs only depend on the configuration, so they are made once
+  private volatile byte[] topCatalog;
+  private final Map<String, byte[]> datasetCatalogs = new ConcurrentHashMap<>();
+
   @Autowired
   TdsContext tdsContext;
 
@@ -142,9 +149,12 @@ public class RadarServerController implements InitializingBean {
 
       data = new TreeMap<>();
       vars = new TreeMap<>();
+      topCatalog = null;
+      datasetCatalogs.clear();
 
       setupDebug();
       String contentPath = tdsContext.getThreddsDirectory().getPath();
+      File indexDir = new File(tdsContext.getThreddsDirectory(), "/cache/radarServer/");
       List<RadarServerConfig.RadarConfigEntry> configs =
           RadarServerConfig.readXML(contentPath + "/radar/radarCollections.xml");
       for (RadarServerConfig.RadarConfigEntry conf : configs) {
@@ -165,6 +175,7 @@ public class RadarServerController implements InitializingBean {
           }
         }
 
+        di.setIndexFile(new File(indexDir, conf.urlPath.replaceAll("[^\\w.-]", "_") + ".idx"));
         di.addFileTime(conf.dateParseRegex, conf.dateFmt);
         di.setNearestWindow(CalendarPeriod.of(1, CalendarPeriod.Field.Hour));
 
@@ -187,6 +198,15 @@ public class RadarServerController implements InitializingBean {
     if (!enabled)
       return null;
 
+    byte[] xmlBytes = topCatalog;
+    if (xmlBytes == null) {
+      xmlBytes = makeTopLevelCatalog();
+      topCatalog = xmlBytes;
+    }
+    return xmlEntity(xmlBytes);
+  }
+
+  private byte[] makeTopLevelCatalog() throws IOException {
     String URLbase = tdsContext.getContextPath() + "/" + entryPoint;
 
     CatalogBuilder cb = new CatalogBuilder();
@@ -210,8 +230,10 @@ public class RadarServerController implements InitializingBean {
     CatalogXmlWriter writer = new CatalogXmlWriter();
     ByteArrayOutputStream os = new ByteArrayOutputStream(10000);
     writer.writeXML(cb.makeCatalog(), os);
-    byte[] xmlBytes = os.toByteArray();
+    return os.toByteArray();
+  }
 
+  private HttpEntity<byte[]> xmlEntity(byte[] xmlBytes) {
     HttpHeaders header = new HttpHeaders();
     header.setContentType(new MediaType("application", "xml"));
     header.setContentLength(xmlBytes.length);
@@ -257,8 +279,6 @@ public class RadarServerController implements InitializingBean {
     if (!enabled)
       return null;
 
-    String URLbase = tdsContext.getContextPath() + "/" + entryPoint;
-
     // Check the user-agent to try to guess if this request is coming from
     // the IDV--if so, we'll need to tweak the returned catalog XML.
     String agent = request.getHeader("user-agent");
@@ -269,6 +289,20 @@ public class RadarServerController implements InitializingBean {
     // Parse the request URL to get the name of the dataset that was
     // requested.
     String dataset = parseDatasetFromURL(request, "/dataset.xml");
+
+    // The IDV catalog has the time coverage as fixed times, which change
+    if (makeIDVCatalog)
+      return xmlEntity(makeDatasetCatalog(dataset, true));
+    byte[] xmlBytes = datasetCatalogs.get(dataset);
+    if (xmlBytes == null) {
+      xmlBytes = makeDatasetCatalog(dataset, false);
+      datasetCatalogs.put(dataset, xmlBytes);
+    }
+    return xmlEntity(xmlBytes);
+  }
+
+  private byte[] makeDatasetCatalog(String dataset, boolean makeIDVCatalog) throws IOException {
+    String URLbase = tdsContext.getContextPath() + "/" + entryPoint;
     RadarDataInventory di = getInventory(dataset);
 
     CatalogBuilder cb = new CatalogBuilder();
@@ -325,29 +359,26 @@ public class RadarServerController implements InitializingBean {
     } else {
       xmlBytes = os.toByteArray();
     }
-
-    HttpHeaders header = new HttpHeaders();
-    header.setContentType(new MediaType("application", "xml"));
-    header.setContentLength(xmlBytes.length);
-    return new HttpEntity<>(xmlBytes, header);
+    return xmlBytes;
   }
 
   @RequestMapping(value = "**/{dataset}", params = "station=all")
   @ResponseBody
-  public StationList stations(@PathVariable String dataset, final HttpServletRequest request) {
+  public HttpEntity<byte[]> stations(@PathVariable String dataset, final HttpServletRequest request)
+      throws JAXBException {
     if (!enabled)
       return null;
     dataset = parseDatasetFromURL(request);
-    return listStations(dataset);
+    return xmlEntity(listStations(dataset).toXml());
   }
 
   @RequestMapping(value = "**/stations.xml")
   @ResponseBody
-  public StationList stationsFile(final HttpServletRequest request) {
+  public HttpEntity<byte[]> stationsFile(final HttpServletRequest request) throws JAXBException {
     if (!enabled)
       return null;
     String dataset = parseDatasetFromURL(request, "/stations.xml");
-    return listStations(dataset);
+    return xmlEntity(listStations(dataset).toXml());
   }
 
   StationList listStations(String dataset) {
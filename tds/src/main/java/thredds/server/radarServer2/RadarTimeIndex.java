@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.radarServer2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import thredds.inventory.CollectionConfig;
+import thredds.inventory.MController;
+import thredds.inventory.MControllers;
+import thredds.inventory.MFile;
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An index of the directories of a radar collection: the subdirectories of each directory, and the files
+ * of each station directory sorted by the time parsed from their names, so that a query is a binary search
+ * instead of a listing of the directory.
+ * <p>
+ * A directory is listed when it is first used, and again only if its last modified time has changed, which
+ * is checked at most once per update interval. The index can be saved to a file and loaded when the server
+ * starts, after which each directory is checked once before it is used.
+ *
+ * @since 5.10
+ */
+class RadarTimeIndex {
+  private static final Logger logger = LoggerFactory.getLogger(RadarTimeIndex.class);
+
+  private static final int MAGIC = 0x52544958; // "RTIX"
+  private static final int VERSION = 1;
+
+  /** The listing of a directory. */
+  static class Listing {
+    final long lastModified; // of the directory when it was listed
+    final String[] names; // subdirectories, or files sorted by time
+    final long[] times; // msecs, null for a listing of subdirectories
+    volatile long checked; // when lastModified was last compared with the directory
+
+    private Listing(long lastModified, String[] names, long[] times, long checked) {
+      this.lastModified = lastModified;
+      this.names = names;
+      this.times = times;
+      this.checked = checked;
+    }
+
+    int size() {
+      return names.length;
+    }
+
+    /** The index of the first file with a time at or after the given time. */
+    int firstAtOrAfter(long time) {
+      int lo = 0;
+      int hi = times.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (times[mid] < time)
+          lo = mid + 1;
+        else
+          hi = mid;
+      }
+      return lo;
+    }
+
+    /** The index of the first file with a time after the given time. */
+    int firstAfter(long time) {
+      int lo = 0;
+      int hi = times.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (times[mid] <= time)
+          lo = mid + 1;
+        else
+          hi = mid;
+      }
+      return lo;
+    }
+  }
+
+  private final Pattern fileTimeRegex;
+  private final DateTimeFormatter fileTimeFormat;
+  private final String signature; // saved indexes made with another file time regex or format are not used
+  private final long updateIntervalMsec;
+  private final File indexFile;
+
+  private final Map<String, Listing> subDirs = new ConcurrentHashMap<>();
+  private final Map<String, Listing> files = new ConcurrentHashMap<>();
+  private volatile boolean changed;
+
+  /**
+   * @param fileTimeRegex finds the time in a file name
+   * @param fileTimeFmt SimpleDateFormat style pattern of the time found, in UTC
+   * @param updateIntervalMsec how long a listing is used before checking if the directory changed
+   * @param indexFile where the index is saved, or null to keep it only in memory
+   */
+  RadarTimeIndex(Pattern fileTimeRegex, String fileTimeFmt, long updateIntervalMsec, File indexFile) {
+    this.fileTimeRegex = fileTimeRegex;
+    this.fileTimeFormat = makeFormatter(fileTimeFmt);
+    this.signature = fileTimeRegex.pattern() + "\n" + fileTimeFmt;
+    this.updateIntervalMsec = updateIntervalMsec;
+    this.indexFile = indexFile;
+  }
+
+  // Fields missing from the pattern default to the start of the year, day or hour
+  static DateTimeFormatter makeFormatter(String pattern) {
+    DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder().appendPattern(pattern)
+        .parseDefaulting(ChronoField.MONTH_OF_YEAR, 1).parseDefaulting(ChronoField.DAY_OF_MONTH, 1);
+    if (!pattern.matches(".*[HkKh].*"))
+      builder.parseDefaulting(ChronoField.HOUR_OF_DAY, 0);
+    return builder.toFormatter(Locale.ROOT);
+  }
+
+  /**
+   * The time in a file name.
+   *
+   * @return msecs since the epoch, or null if the name does not have a time
+   */
+  Long parseFileTime(String filename) {
+    Matcher matcher = fileTimeRegex.matcher(filename);
+    if (!matcher.find())
+      return null;
+    try {
+      return LocalDateTime.parse(matcher.group(), fileTimeFormat).toInstant(ZoneOffset.UTC).toEpochMilli();
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  /** The names of the subdirectories of a directory. */
+  List<String> getSubDirs(MFile dir) throws IOException {
+    Listing listing = subDirs.get(dir.getPath());
+    if (!isCurrent(listing, dir)) {
+      listing = listSubDirs(dir);
+      subDirs.put(dir.getPath(), listing);
+      changed = true;
+    }
+    return Arrays.asList(listing.names);
+  }
+
+  /** The files of a directory that have a time in their name, sorted by time. */
+  Listing getFiles(MFile dir) throws IOException {
+    Listing listing = files.get(dir.getPath());
+    if (!isCurrent(listing, dir)) {
+      listing = listFiles(dir);
+      files.put(dir.getPath(), listing);
+      changed = true;
+    }
+    return listing;
+  }
+
+  private boolean isCurrent(Listing listing, MFile dir) {
+    if (listing == null)
+      return false;
+    long now = System.currentTimeMillis();
+    if (now - listing.checked <= updateIntervalMsec)
+      return true;
+    // some directories, eg in object stores, have no last modified time and are always listed again
+    if (listing.lastModified <= 0 || dir.getLastModified() != listing.lastModified)
+      return false;
+    listing.checked = now;
+    return true;
+  }
+
+  private Listing listSubDirs(MFile dir) throws IOException {
+    long lastModified = dir.getLastModified();
+    MController mController = MControllers.create(dir.getPath());
+    CollectionConfig dirs = new CollectionConfig("dirs", dir.getPath(), false, null, null);
+    List<String> names = new ArrayList<>();
+    try (DirectoryStream<MFile> dirIterator = mController.getSubdirs(dirs, true)) {
+      if (dirIterator != null) {
+        for (MFile sub : dirIterator)
+          names.add(sub.getName());
+      }
+    }
+    Collections.sort(names);
+    return new Listing(lastModified, names.toArray(new String[0]), null, System.currentTimeMillis());
+  }
+
+  private Listing listFiles(MFile dir) throws IOException {
+    long lastModified = dir.getLastModified();
+    MController mController = MControllers.create(dir.getPath());
+    CollectionConfig config = new CollectionConfig("files", dir.getPath(), false, null, null);
+    List<String> names = new ArrayList<>();
+    List<Long> times = new ArrayList<>();
+    try (DirectoryStream<MFile> fileIterator = mController.getInventoryTop(config, true)) {
+      if (fileIterator != null) {
+        for (MFile mFile : fileIterator) {
+          Long time = parseFileTime(mFile.getName());
+          if (time != null) {
+            names.add(mFile.getName());
+            times.add(time);
+          }
+        }
+      }
+    }
+
+    Integer[] order = new Integer[names.size()];
+    for (int i = 0; i < order.length; i++)
+      order[i] = i;
+    Arrays.sort(order, Comparator.<Integer>comparingLong(times::get).thenComparing(names::get));
+    String[] sortedNames = new String[order.length];
+    long[] sortedTimes = new long[order.length];
+    for (int i = 0; i < order.length; i++) {
+      sortedNames[i] = names.get(order[i]);
+      sortedTimes[i] = times.get(order[i]);
+    }
+    return new Listing(lastModified, sortedNames, sortedTimes, System.currentTimeMillis());
+  }
+
+  int getNumberOfDirectories() {
+    return subDirs.size() + files.size();
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+  // persistence
+
+  /** Load a saved index. Listings loaded are checked against their directory the first time they are used. */
+  void load() {
+    if (indexFile == null || !indexFile.exists())
+      return;
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(indexFile))))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(signature)) {
+        logger.info("Ignoring radar index {} made for another version or file time format", indexFile);
+        return;
+      }
+      readListings(in, subDirs, false);
+      readListings(in, files, true);
+      logger.debug("Loaded radar index {} with {} directories", indexFile, getNumberOfDirectories());
+    } catch (IOException e) {
+      logger.warn("Failed to read radar index {}", indexFile, e);
+      subDirs.clear();
+      files.clear();
+    }
+  }
+
+  /** Save the index, if it has changed since it was loaded or last saved. */
+  void save() {
+    if (indexFile == null || !changed)
+      return;
+    changed = false;
+    File tmpFile = new File(indexFile.getPath() + ".tmp");
+    try {
+      Files.createDirectories(indexFile.getAbsoluteFile().getParentFile().toPath());
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmpFile))))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(signature);
+        writeListings(out, subDirs);
+        writeListings(out, files);
+      }
+      Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      changed = true;
+      logger.warn("Failed to write radar index {}", indexFile, e);
+    }
+  }
+
+  private static void writeListings(DataOutputStream out, Map<String, Listing> listings) throws IOException {
+    Map<String, Listing> copy = new TreeMap<>(listings);
+    out.writeInt(copy.size());
+    for (Map.Entry<String, Listing> entry : copy.entrySet()) {
+      Listing listing = entry.getValue();
+      out.writeUTF(entry.getKey());
+      out.writeLong(listing.lastModified);
+      out.writeInt(listing.size());
+      for (int i = 0; i < listing.size(); i++) {
+        out.writeUTF(listing.names[i]);
+        if (listing.times != null)
+          out.writeLong(listing.times[i]);
+      }
+    }
+  }
+
+  private static void readListings(DataInputStream in, Map<String, Listing> listings, boolean hasTimes)
+      throws IOException {
+    int ndirs = in.readInt();
+    for (int d = 0; d < ndirs; d++) {
+      String path = in.readUTF();
+      long lastModified = in.readLong();
+      int n = in.readInt();
+      String[] names = new String[n];
+      long[] times = hasTimes ? new long[n] : null;
+      for (int i = 0; i < n; i++) {
+        names[i] = in.readUTF();
+        if (hasTimes)
+          times[i] = in.readLong();
+      }
+      // checked = 0 so that the directory is checked when first used
+      listings.put(path, new Listing(lastModified, names, times, 0));
+    }
+  }
+}
@@ -10,10 +10,14 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 import ucar.unidata.geoloc.*;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.annotation.XmlAttribute;
 import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlID;
 import jakarta.xml.bind.annotation.XmlRootElement;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
@@ -111,8 +115,14 @@ public class StationList {
     }
   }
 
+  private static JAXBContext jaxbContext;
+
   private Map<String, Station> stations;
 
+  // Made when first needed after the list changes
+  private volatile SpatialIndex index;
+  private volatile byte[] xml;
+
   public StationList() {
     stations = new TreeMap<>();
   }
@@ -137,40 +147,62 @@ public class StationList {
     } catch (IOException | JDOMException e) {
       e.printStackTrace();
     }
+    changed(); // the stations were modified after they were added
   }
 
   public Station addStation(String stid, LatLonPoint loc) {
     Station added = new Station(stid, new LatLonPointImmutable(loc));
     stations.put(stid, added);
+    changed();
     return added;
   }
 
-  public Station getNearest(double longitude, double latitude) {
-    LatLonPointImmutable pt = new LatLonPointImmutable(latitude, longitude);
-    Station nearest = null;
-    double minDist = Double.POSITIVE_INFINITY;
-    for (Station s : stations.values()) {
-      Bearing b = Bearing.calculateBearing(pt, s.location);
-      if (b.getDistance() < minDist) {
-        minDist = b.getDistance();
-        nearest = s;
-      }
+  private void changed() {
+    index = null;
+    xml = null;
+  }
+
+  private SpatialIndex getIndex() {
+    SpatialIndex result = index;
+    if (result == null) {
+      result = new SpatialIndex(stations.values());
+      index = result;
     }
-    return nearest;
+    return result;
   }
 
+  public Station getNearest(double longitude, double latitude) {
+    return getIndex().getNearest(new LatLonPointImmutable(latitude, longitude));
+  }
+
+  /** The stations in a lat/lon box, which crosses the dateline if west is greater than east, sorted by id. */
   public List<Station> getStations(double east, double west, double north, double south) {
     LatLonRect rect = new LatLonRect(new LatLonPointImmutable(south, west), new LatLonPointImmutable(north, east));
+    return getIndex().getStations(rect);
+  }
 
-    List<Station> result = new ArrayList<>();
-
-    for (Station s : stations.values())
-      if (rect.contains(s.location))
-        result.add(s);
-
+  /**
+   * This list as a stations.xml document. The document is kept until the list changes.
+   */
+  public byte[] toXml() throws JAXBException {
+    byte[] result = xml;
+    if (result == null) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(100 * stations.size() + 100);
+      Marshaller marshaller = getJaxbContext().createMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+      marshaller.marshal(this, out);
+      result = out.toByteArray();
+      xml = result;
+    }
     return result;
   }
 
+  private static synchronized JAXBContext getJaxbContext() throws JAXBException {
+    if (jaxbContext == null)
+      jaxbContext = JAXBContext.newInstance(StationList.class);
+    return jaxbContext;
+  }
+
   @XmlElement(name = "station")
   public Collection<Station> getAll() {
     return stations.values();
@@ -179,4 +211,150 @@ public class StationList {
   public Station get(String stid) {
     return stations.get(stid);
   }
+
+  /**
+   * Finds stations by location. Bounding boxes use the stations sorted by latitude. The nearest station
+   * uses a k-d tree over the stations as points on the unit sphere, which has no trouble with the dateline
+   * or the poles.
+   */
+  private static class SpatialIndex {
+    // stations closer on the sphere than this factor times the nearest are compared on the ellipsoid
+    private static final double SPHERE_TOLERANCE = 1.02;
+    private static final double LATITUDE_SLOP = 1.0e-6;
+
+    private static class Node {
+      final Station station;
+      final double[] xyz;
+
+      Node(Station station) {
+        this.station = station;
+        this.xyz = toXyz(station.getLatitude(), station.getLongitude());
+      }
+    }
+
+    private final Station[] byLatitude;
+    private final double[] latitudes;
+    private final Node[] tree; // the root of each subtree is at its middle
+
+    SpatialIndex(Collection<Station> stations) {
+      byLatitude = stations.toArray(new Station[0]);
+      Arrays.sort(byLatitude, Comparator.comparingDouble(Station::getLatitude));
+      latitudes = new double[byLatitude.length];
+      for (int i = 0; i < byLatitude.length; i++)
+        latitudes[i] = byLatitude[i].getLatitude();
+
+      tree = new Node[byLatitude.length];
+      int n = 0;
+      for (Station s : stations)
+        tree[n++] = new Node(s);
+      build(0, tree.length, 0);
+    }
+
+    private void build(int lo, int hi, int axis) {
+      if (hi - lo <= 1)
+        return;
+      Arrays.sort(tree, lo, hi, Comparator.comparingDouble(node -> node.xyz[axis]));
+      int mid = (lo + hi) >>> 1;
+      build(lo, mid, (axis + 1) % 3);
+      build(mid + 1, hi, (axis + 1) % 3);
+    }
+
+    private static double[] toXyz(double latitude, double longitude) {
+      double lat = Math.toRadians(latitude);
+      double lon = Math.toRadians(longitude);
+      return new double[] {Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+    }
+
+    private static double distance2(double[] a, double[] b) {
+      double dx = a[0] - b[0];
+      double dy = a[1] - b[1];
+      double dz = a[2] - b[2];
+      return dx * dx + dy * dy + dz * dz;
+    }
+
+    List<Station> getStations(LatLonRect rect) {
+      // rect.contains allows a little slop at the edges
+      int start = lowerBound(rect.getLatMin() - LATITUDE_SLOP);
+      List<Station> result = new ArrayList<>();
+      for (int i = start; i < byLatitude.length && latitudes[i] <= rect.getLatMax() + LATITUDE_SLOP; i++) {
+        if (rect.contains(byLatitude[i].location))
+          result.add(byLatitude[i]);
+      }
+      result.sort(Comparator.comparing(Station::getStid));
+      return result;
+    }
+
+    // index of the first station at or north of the latitude
+    private int lowerBound(double latitude) {
+      int lo = 0;
+      int hi = latitudes.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (latitudes[mid] < latitude)
+          lo = mid + 1;
+        else
+          hi = mid;
+      }
+      return lo;
+    }
+
+    Station getNearest(LatLonPoint pt) {
+      if (tree.length == 0)
+        return null;
+      double[] q = toXyz(pt.getLatitude(), pt.getLongitude());
+      double best = nearest(0, tree.length, 0, q, Double.POSITIVE_INFINITY);
+
+      // Distances on the ellipsoid differ slightly from those on the sphere, so compare the
+      // stations about as close as the nearest one the same way as the stations were compared before.
+      List<Station> candidates = new ArrayList<>();
+      within(0, tree.length, 0, q, best * SPHERE_TOLERANCE * SPHERE_TOLERANCE, candidates);
+      candidates.sort(Comparator.comparing(Station::getStid));
+      Station nearest = null;
+      double minDist = Double.POSITIVE_INFINITY;
+      for (Station s : candidates) {
+        Bearing b = Bearing.calculateBearing(pt, s.location);
+        if (b.getDistance() < minDist) {
+          minDist = b.getDistance();
+          nearest = s;
+        }
+      }
+      return nearest;
+    }
+
+    // the squared distance to the nearest node, if closer than best
+    private double nearest(int lo, int hi, int axis, double[] q, double best) {
+      if (lo >= hi)
+        return best;
+      int mid = (lo + hi) >>> 1;
+      Node node = tree[mid];
+      best = Math.min(best, distance2(node.xyz, q));
+      double diff = q[axis] - node.xyz[axis];
+      int next = (axis + 1) % 3;
+      if (diff < 0) {
+        best = nearest(lo, mid, next, q, best);
+        if (diff * diff < best)
+          best = nearest(mid + 1, hi, next, q, best);
+      } else {
+        best = nearest(mid + 1, hi, next, q, best);
+        if (diff * diff < best)
+          best = nearest(lo, mid, next, q, best);
+      }
+      return best;
+    }
+
+    private void within(int lo, int hi, int axis, double[] q, double max2, List<Station> result) {
+      if (lo >= hi)
+        return;
+      int mid = (lo + hi) >>> 1;
+      Node node = tree[mid];
+      if (distance2(node.xyz, q) <= max2)
+        result.add(node.station);
+      double diff = q[axis] - node.xyz[axis];
+      int next = (axis + 1) % 3;
+      if (diff < 0 || diff * diff <= max2)
+        within(lo, mid, next, q, max2, result);
+      if (diff >= 0 || diff * diff <= max2)
+        within(mid + 1, hi, next, q, max2, result);
+    }
+  }
 }
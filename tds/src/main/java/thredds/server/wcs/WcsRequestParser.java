@@ -4,6 +4,7 @@
  */
 package thredds.server.wcs;
 
+import thredds.core.CoverageCollectionHandle;
 import thredds.core.TdsRequestedDataset;
 import thredds.servlet.ServletUtil;
 import jakarta.servlet.http.HttpServletRequest;
@@ -52,14 +53,14 @@ public class WcsRequestParser {
 
 
     TdsRequestedDataset trd = new TdsRequestedDataset(req, "/wcs");
-    CoverageCollection gridDataset = null;
+    CoverageCollectionHandle handle = null;
     try {
-      gridDataset = trd.openAsCoverageDataset(req, res);
-      if (gridDataset == null)
+      handle = trd.openAsCoverageDataset(req, res);
+      if (handle == null)
         return null;
 
       thredds.server.wcs.v1_0_0_1.WcsDataset wcsDataset =
-          new thredds.server.wcs.v1_0_0_1.WcsDataset(gridDataset, trd.getPath());
+          new thredds.server.wcs.v1_0_0_1.WcsDataset(handle.getCoverageCollection(), trd.getPath(), handle);
 
       // Determine the request operation.
       String requestParam = ServletUtil.getParameterIgnoreCase(req, "Request");
@@ -145,8 +146,8 @@ public class WcsRequestParser {
           "Invalid requested operation [" + requestParam + "].");
 
     } catch (Throwable t) {
-      if (gridDataset != null)
-        gridDataset.close();
+      if (handle != null)
+        handle.close();
       throw t;
     }
   }
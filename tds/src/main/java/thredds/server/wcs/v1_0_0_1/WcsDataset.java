@@ -7,6 +7,7 @@ package thredds.server.wcs.v1_0_0_1;
 import ucar.nc2.ft2.coverage.Coverage;
 import ucar.nc2.ft2.coverage.CoverageCoordSys;
 import ucar.nc2.ft2.coverage.CoverageCollection;
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
@@ -18,9 +19,15 @@ public class WcsDataset {
   private String datasetPath;
   private String datasetName;
   private CoverageCollection dataset;
+  private Closeable closer; // what to close when done with the dataset
   private Map<String, WcsCoverage> availableCoverages;
 
   public WcsDataset(CoverageCollection dataset, String datasetPath) {
+    this(dataset, datasetPath, dataset);
+  }
+
+  public WcsDataset(CoverageCollection dataset, String datasetPath, Closeable closer) {
+    this.closer = closer;
     this.datasetPath = datasetPath;
     int pos = datasetPath.lastIndexOf("/");
     this.datasetName = (pos > 0) ? datasetPath.substring(pos + 1) : datasetPath;
@@ -61,8 +68,8 @@ public class WcsDataset {
   }
 
   public void close() throws IOException {
-    if (this.dataset != null)
-      this.dataset.close();
+    if (this.closer != null)
+      this.closer.close();
   }
 
   public boolean isAvailableCoverageName(String fullName) {
@@ -17,51 +17,58 @@ public class GMLFeatureWriter {
    * @return the xml
    */
   public String writeFeature(SimpleGeometry geom) {
+    if (!(geom instanceof Point || geom instanceof Line || geom instanceof Polygon))
+      return null;
+
+    StringBuilder xml = new StringBuilder();
+    writeFeature(geom, xml);
+    return xml.toString();
+  }
+
+  /**
+   * Checks the type of the Simple Geom and appends its xml to a buffer
+   *
+   * @param geom the Simple Geom
+   * @param xml the buffer to append to
+   */
+  public void writeFeature(SimpleGeometry geom, StringBuilder xml) {
 
     if (geom instanceof Point)
-      return writePoint((Point) geom);
+      writePoint((Point) geom, xml);
     else if (geom instanceof Line)
-      return writeLine((Line) geom);
+      writeLine((Line) geom, xml);
     else if (geom instanceof Polygon)
-      return writePolygon((Polygon) geom);
-    else
-      return null;
-
+      writePolygon((Polygon) geom, xml);
   }
 
   /**
    * Takes in a point and writes its xml
    *
    * @param point the point
-   * @return the xml
+   * @param xml the buffer to append to
    */
-  private String writePoint(Point point) {
-
-    String xml = "";
-    xml += "<gml:Point srsName=\"http://www.opengis.net/gml/srs/epsg.xml@900913\" srsDimension=\"2\">" + "<gml:pos>"
-        + point.getX() + " " + point.getY() + "</gml:pos>" + "</gml:Point>";
+  private void writePoint(Point point, StringBuilder xml) {
 
-    return xml;
+    xml.append("<gml:Point srsName=\"http://www.opengis.net/gml/srs/epsg.xml@900913\" srsDimension=\"2\">")
+        .append("<gml:pos>").append(point.getX()).append(' ').append(point.getY()).append("</gml:pos>")
+        .append("</gml:Point>");
   }
 
   /**
    * Takes in a line and iterates through all its points, writing the posList to xml
    *
    * @param line the line
-   * @return the xml
+   * @param xml the buffer to append to
    */
-  private String writeLine(Line line) {
+  private void writeLine(Line line, StringBuilder xml) {
 
-    String xml = "";
-    xml += "<gml:LineString><gml:posList>";
+    xml.append("<gml:LineString><gml:posList>");
 
     for (Point point : line.getPoints()) {
-      xml += point.getX() + " " + point.getY() + " ";
+      xml.append(point.getX()).append(' ').append(point.getY()).append(' ');
     }
 
-    xml += "</gml:posList></gml:LineString>";
-
-    return xml;
+    xml.append("</gml:posList></gml:LineString>");
   }
 
   /**
@@ -69,42 +76,28 @@ public class GMLFeatureWriter {
    * Iterates through all linked polygons
    *
    * @param polygon the polygon
-   * @return the xml
+   * @param xml the buffer to append to
    */
-  private String writePolygon(Polygon poly) {
+  private void writePolygon(Polygon poly, StringBuilder xml) {
 
-    String xml = "";
-    xml += "<gml:Polygon>";
+    xml.append("<gml:Polygon>");
 
     Polygon polygon = poly;
 
     // while (polygon != null) {
 
-    if (!polygon.getInteriorRing()) {
-      xml += "<gml:exterior><gml:LinearRing><gml:posList>";
-
-      for (Point point : polygon.getPoints()) {
-        xml += point.getX() + " " + point.getY() + " ";
-      }
-
-      xml += "</gml:posList></gml:LinearRing></gml:exterior>";
+    String ring = polygon.getInteriorRing() ? "gml:interior" : "gml:exterior";
+    xml.append('<').append(ring).append("><gml:LinearRing><gml:posList>");
 
+    for (Point point : polygon.getPoints()) {
+      xml.append(point.getX()).append(' ').append(point.getY()).append(' ');
     }
 
-    else {
-      xml += "<gml:interior><gml:LinearRing><gml:posList>";
-
-      for (Point point : polygon.getPoints()) {
-        xml += point.getX() + " " + point.getY() + " ";
-      }
-
-      xml += "</gml:posList></gml:LinearRing></gml:interior>";
-    }
+    xml.append("</gml:posList></gml:LinearRing></").append(ring).append('>');
 
     // polygon = polygon.getNext();
     // }
 
-    xml += "</gml:Polygon>";
-    return xml;
+    xml.append("</gml:Polygon>");
   }
 }
@@ -63,7 +63,9 @@ public class WFSController extends HttpServlet {
    * @param out
    * @return
    */
-  private void getCapabilities(PrintWriter out, HttpServletRequest hsreq, SimpleGeometryCSBuilder sgcs) {
+  private void getCapabilities(HttpServletRequest hsreq, HttpServletResponse hsres, SimpleGeometryCSBuilder sgcs)
+      throws IOException {
+    PrintWriter out = getWriter(hsres, "text/xml");
     WFSGetCapabilitiesWriter gcdw = new WFSGetCapabilitiesWriter(out, WFSController.constructServerPath(hsreq));
     gcdw.startXML();
     gcdw.addOperation(WFSRequestType.GetCapabilities);
@@ -81,7 +83,9 @@ public class WFSController extends HttpServlet {
     gcdw.finishXML();
   }
 
-  private void describeFeatureType(PrintWriter out, HttpServletRequest hsreq, String ftName) {
+  private void describeFeatureType(HttpServletRequest hsreq, HttpServletResponse hsres, String ftName)
+      throws IOException {
+    PrintWriter out = getWriter(hsres, "text/xml");
     WFSDescribeFeatureTypeWriter dftw = new WFSDescribeFeatureTypeWriter(out, WFSController.constructServerPath(hsreq),
         WFSController.getXMLNamespaceXMLNSValue(hsreq));
     dftw.startXML();
@@ -105,10 +109,9 @@ public class WFSController extends HttpServlet {
    * @param out
    * @return
    */
-  private WFSExceptionWriter getFeature(PrintWriter out, HttpServletRequest hsreq, SimpleGeometryCSBuilder sgcs,
-      String ftName, String fullFtName) {
-
-    List<SimpleGeometry> geometryList = new ArrayList<SimpleGeometry>();
+  private WFSExceptionWriter getFeature(HttpServletRequest hsreq, HttpServletResponse hsres,
+      SimpleGeometryCSBuilder sgcs, String ftName, String fullFtName, String outputFormat, String count,
+      String startIndex, String bbox) throws IOException {
 
     GeometryType geoT = sgcs.getGeometryType(ftName);
 
@@ -117,59 +120,119 @@ public class WFSController extends HttpServlet {
           "OperationProcessingFailed");
     }
 
-    try {
-
-      switch (geoT) {
-        case POINT:
-          Point pt = sgcs.getPoint(ftName, 0);
-          int j = 0;
-          while (pt != null) {
-            geometryList.add(pt);
-            j++;
-            pt = sgcs.getPoint(ftName, j);
-          }
-          break;
-
-        case LINE:
-
-          Line line = sgcs.getLine(ftName, 0);
-          int k = 0;
-          while (line != null) {
-            geometryList.add(line);
-            k++;
-            line = sgcs.getLine(ftName, k);
-          }
+    int countValue = -1;
+    if (count != null) {
+      try {
+        countValue = Integer.parseInt(count.trim());
+      } catch (NumberFormatException e) {
+        countValue = -1;
+      }
+      if (countValue < 0)
+        return new WFSExceptionWriter("WFS server error. COUNT parameter must be a non-negative integer.", "count",
+            "InvalidParameterValue");
+    }
 
-          break;
+    int startIndexValue = 0;
+    if (startIndex != null) {
+      try {
+        startIndexValue = Integer.parseInt(startIndex.trim());
+      } catch (NumberFormatException e) {
+        startIndexValue = -1;
+      }
+      if (startIndexValue < 0)
+        return new WFSExceptionWriter("WFS server error. STARTINDEX parameter must be a non-negative integer.",
+            "startIndex", "InvalidParameterValue");
+    }
 
-        case POLYGON:
+    double[] bboxValue = null;
+    if (bbox != null) {
+      try {
+        bboxValue = parseBBox(bbox);
+      } catch (IllegalArgumentException e) {
+        return new WFSExceptionWriter("WFS server error. " + e.getMessage(), "bbox", "InvalidParameterValue");
+      }
+    }
 
-          Polygon poly = sgcs.getPolygon(ftName, 0);
-          int i = 0;
-          while (poly != null) {
-            geometryList.add(poly);
-            i++;
-            poly = sgcs.getPolygon(ftName, i);
-          }
+    // The geometries are read as they are written, only over the requested range
+    WFSFeatureSource geometries = new WFSFeatureSource(sgcs, ftName, geoT, startIndexValue, countValue, bboxValue);
+
+    if (WFSGeoJSONFeatureWriter.isGeoJSON(outputFormat)) {
+      PrintWriter out = getWriter(hsres, WFSGeoJSONFeatureWriter.CONTENT_TYPE);
+      new WFSGeoJSONFeatureWriter(out, geometries).write();
+    } else {
+      PrintWriter out = getWriter(hsres, "text/xml");
+      WFSGetFeatureWriter gfdw = new WFSGetFeatureWriter(out, WFSController.constructServerPath(hsreq),
+          WFSController.getXMLNamespaceXMLNSValue(hsreq), geometries);
+      gfdw.startXML();
+      gfdw.writeMembers();
+      gfdw.finishXML();
+    }
 
-          break;
+    return null;
+  }
 
-      }
-    }
+  /**
+   * Gets the writer of a response, once its content type is known. The XML declares UTF-8 and GeoJSON must be UTF-8,
+   * so the character encoding has to be set before the writer is first asked for.
+   */
+  static PrintWriter getWriter(HttpServletResponse hsres, String contentType) throws IOException {
+    hsres.setContentType(contentType);
+    hsres.setCharacterEncoding("UTF-8");
+    return hsres.getWriter();
+  }
 
-    // Perhaps will change this to be implemented in the CFPolygon class
-    catch (ArrayIndexOutOfBoundsException aout) {
+  /**
+   * Parses a BBOX parameter of the form minx,miny,maxx,maxy[,crs] into the x and y order of the geometries, which are
+   * longitude and latitude. Without a CRS the corners are taken in that order, as are the coordinates of the
+   * responses. EPSG:4326 orders its axes latitude first, so its corners are swapped; CRS84 is longitude first.
+   *
+   * @param bbox the parameter value
+   * @return minx, miny, maxx, maxy
+   * @throws IllegalArgumentException if the value is not valid, or its CRS is not supported
+   */
+  static double[] parseBBox(String bbox) {
+    String[] parts = bbox.split(",", -1);
+    if (parts.length != 4 && parts.length != 5)
+      throw new IllegalArgumentException(
+          "BBOX parameter must be of the form minx,miny,maxx,maxy with an optional CRS.");
 
+    double[] bounds = new double[4];
+    try {
+      for (int i = 0; i < 4; i++)
+        bounds[i] = Double.parseDouble(parts[i].trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("BBOX parameter corners must be numbers.");
     }
 
+    if (parts.length == 5 && isLatLonOrder(parts[4].trim()))
+      bounds = new double[] {bounds[1], bounds[0], bounds[3], bounds[2]};
 
-    WFSGetFeatureWriter gfdw = new WFSGetFeatureWriter(out, WFSController.constructServerPath(hsreq),
-        WFSController.getXMLNamespaceXMLNSValue(hsreq), geometryList, ftName);
-    gfdw.startXML();
-    gfdw.writeMembers();
-    gfdw.finishXML();
+    if (!(bounds[0] <= bounds[2] && bounds[1] <= bounds[3]))
+      throw new IllegalArgumentException("BBOX parameter lower corner must not be above its upper corner.");
+    return bounds;
+  }
 
-    return null;
+  /**
+   * True if a BBOX CRS orders its axes latitude first, false if longitude first.
+   *
+   * @throws IllegalArgumentException if the CRS is not supported
+   */
+  private static boolean isLatLonOrder(String crs) {
+    switch (crs.toLowerCase()) {
+      case "epsg:4326":
+      case "urn:ogc:def:crs:epsg::4326":
+      case "urn:ogc:def:crs:epsg:6.6:4326":
+      case "http://www.opengis.net/def/crs/epsg/0/4326":
+        return true;
+      case "crs:84":
+      case "urn:ogc:def:crs:ogc:1.3:crs84":
+      case "urn:ogc:def:crs:ogc::crs84":
+      case "http://www.opengis.net/def/crs/ogc/1.3/crs84":
+        return false;
+      default:
+        throw new IllegalArgumentException(
+            "BBOX CRS " + crs + " is not supported, only urn:ogc:def:crs:EPSG::4326 and CRS84 are.");
+    }
   }
 
   /**
@@ -299,7 +362,6 @@ public class WFSController extends HttpServlet {
   public void httpHandler(HttpServletRequest hsreq, HttpServletResponse hsres) {
     try {
 
-      PrintWriter wr = hsres.getWriter();
       List<String> paramNames = new LinkedList<String>();
       Enumeration<String> paramNamesE = hsreq.getParameterNames();
       while (paramNamesE.hasMoreElements())
@@ -310,6 +372,10 @@ public class WFSController extends HttpServlet {
       String version = null;
       String service = null;
       String typeNames = null;
+      String outputFormat = null;
+      String count = null;
+      String startIndex = null;
+      String bbox = null;
       String datasetReqPath = null;
       String actualPath = null;
       String actualFTName = null;
@@ -363,6 +429,23 @@ public class WFSController extends HttpServlet {
               actualFTName = typeNames.substring(TDSNAMESPACE.length() + 1, typeNames.length());
             }
         }
+
+        if (paramName.equalsIgnoreCase("OUTPUTFORMAT")) {
+          outputFormat = hsreq.getParameter(paramName);
+        }
+
+        // MAXFEATURES is the WFS 1.x name of COUNT
+        if (paramName.equalsIgnoreCase("COUNT") || paramName.equalsIgnoreCase("MAXFEATURES")) {
+          count = hsreq.getParameter(paramName);
+        }
+
+        if (paramName.equalsIgnoreCase("STARTINDEX")) {
+          startIndex = hsreq.getParameter(paramName);
+        }
+
+        if (paramName.equalsIgnoreCase("BBOX")) {
+          bbox = hsreq.getParameter(paramName);
+        }
       }
 
       WFSExceptionWriter paramError = checkParametersForError(request, version, service, typeNames);
@@ -375,16 +458,17 @@ public class WFSController extends HttpServlet {
 
         switch (reqToProc) {
           case GetCapabilities:
-            getCapabilities(wr, hsreq, cs);
+            getCapabilities(hsreq, hsres, cs);
             break;
 
           case DescribeFeatureType:
-            describeFeatureType(wr, hsreq, actualFTName);
+            describeFeatureType(hsreq, hsres, actualFTName);
 
             break;
 
           case GetFeature:
-            requestProcessingError = getFeature(wr, hsreq, cs, actualFTName, typeNames);
+            requestProcessingError =
+                getFeature(hsreq, hsres, cs, actualFTName, typeNames, outputFormat, count, startIndex, bbox);
             break;
         }
 
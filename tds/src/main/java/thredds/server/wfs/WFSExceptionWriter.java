@@ -22,7 +22,7 @@ public class WFSExceptionWriter {
    * @throws IOException
    */
   public void write(HttpServletResponse hsr) throws IOException {
-    PrintWriter xmlResponse = hsr.getWriter();
+    PrintWriter xmlResponse = WFSController.getWriter(hsr, "text/xml");
 
     xmlResponse.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
     xmlResponse.append("<ows:ExceptionReport xml:lang=\"en-US\" xsi:schemaLocation=\"http://www.opengis.net/ows/1.1"
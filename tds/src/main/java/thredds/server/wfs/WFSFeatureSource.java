@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.wfs;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import ucar.nc2.ft2.simpgeometry.GeometryType;
+import ucar.nc2.ft2.simpgeometry.SimpleGeometry;
+import ucar.nc2.ft2.simpgeometry.adapter.SimpleGeometryCSBuilder;
+
+/**
+ * The geometries of a feature type that answer a GetFeature request, read one at a time from the
+ * SimpleGeometryCSBuilder as they are iterated, so that a response never holds more than one of them.
+ * Each iteration reads the geometries again.
+ * <p>
+ * STARTINDEX and COUNT select the index range to read. With a BBOX, geometries whose bounding box does not
+ * intersect it are skipped, and STARTINDEX counts the ones that do.
+ * <p>
+ * The iterator also gives the index of each geometry in the feature type, which the writers use as the feature id
+ * so that a feature keeps its id whichever page or BBOX it is returned in.
+ */
+class WFSFeatureSource implements Iterable<SimpleGeometry> {
+  private final SimpleGeometryCSBuilder sgcs;
+  private final String ftName;
+  private final GeometryType geometryType;
+  private final int startIndex;
+  private final int count; // -1 for all
+  private final double[] bbox; // minx, miny, maxx, maxy, or null
+
+  /**
+   * @param sgcs the builder to read the geometries from
+   * @param ftName the feature type name
+   * @param geometryType the geometry type of the feature type
+   * @param startIndex the index of the first feature to return
+   * @param count the maximum number of features to return, or -1 for all
+   * @param bbox the x and y bounds the features must intersect, as minx, miny, maxx, maxy, or null for all
+   */
+  WFSFeatureSource(SimpleGeometryCSBuilder sgcs, String ftName, GeometryType geometryType, int startIndex, int count,
+      double[] bbox) {
+    this.sgcs = sgcs;
+    this.ftName = ftName;
+    this.geometryType = geometryType;
+    this.startIndex = startIndex;
+    this.count = count;
+    this.bbox = bbox;
+  }
+
+  String getFeatureTypeName() {
+    return ftName;
+  }
+
+  /** True if only some of the matching features are returned, so that their total number is not known. */
+  boolean isPaged() {
+    return startIndex > 0 || count >= 0;
+  }
+
+  /** The geometry at an index, or null past the last one. */
+  private SimpleGeometry read(int index) {
+    try {
+      switch (geometryType) {
+        case POINT:
+          return sgcs.getPoint(ftName, index);
+        case LINE:
+          return sgcs.getLine(ftName, index);
+        case POLYGON:
+          return sgcs.getPolygon(ftName, index);
+        default:
+          return null;
+      }
+    } catch (ArrayIndexOutOfBoundsException e) {
+      return null; // the builder has no count of the geometries
+    }
+  }
+
+  private boolean intersectsBBox(SimpleGeometry geometry) {
+    if (bbox == null)
+      return true;
+    double[] lower = geometry.getBBLower();
+    double[] upper = geometry.getBBUpper();
+    return lower[0] <= bbox[2] && upper[0] >= bbox[0] && lower[1] <= bbox[3] && upper[1] >= bbox[1];
+  }
+
+  /** Iterates the geometries, and knows the index in the feature type of the last one returned. */
+  interface FeatureIterator extends Iterator<SimpleGeometry> {
+    /** The index in the feature type of the geometry last returned by next(). */
+    int getIndex();
+  }
+
+  @Override
+  public FeatureIterator iterator() {
+    return new FeatureIterator() {
+      // without a BBOX, go straight to the first feature asked for
+      private int index = bbox == null ? startIndex : 0;
+      private int toSkip = bbox == null ? 0 : startIndex;
+      private int returned;
+      private SimpleGeometry next;
+      private int nextIndex;
+      private int lastIndex = -1;
+      private boolean done;
+
+      @Override
+      public boolean hasNext() {
+        if (next != null)
+          return true;
+        if (done || (count >= 0 && returned >= count))
+          return false;
+
+        while (true) {
+          SimpleGeometry geometry = read(index++);
+          if (geometry == null) {
+            done = true;
+            return false;
+          }
+          if (!intersectsBBox(geometry))
+            continue;
+          if (toSkip > 0) {
+            toSkip--;
+            continue;
+          }
+          next = geometry;
+          nextIndex = index - 1;
+          return true;
+        }
+      }
+
+      @Override
+      public SimpleGeometry next() {
+        if (!hasNext())
+          throw new NoSuchElementException();
+        SimpleGeometry result = next;
+        next = null;
+        lastIndex = nextIndex;
+        returned++;
+        return result;
+      }
+
+      @Override
+      public int getIndex() {
+        return lastIndex;
+      }
+    };
+  }
+}
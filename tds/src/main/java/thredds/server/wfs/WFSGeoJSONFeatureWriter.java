@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.wfs;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ucar.nc2.ft2.simpgeometry.Line;
+import ucar.nc2.ft2.simpgeometry.Point;
+import ucar.nc2.ft2.simpgeometry.Polygon;
+import ucar.nc2.ft2.simpgeometry.SimpleGeometry;
+
+/**
+ * Answers GetFeature requests with a GeoJSON (RFC 7946) FeatureCollection.
+ * Unlike the GML response there is nothing to write ahead of the features, so the geometries are read once and each
+ * feature is written to the response through a reusable buffer as it is read.
+ * <p>
+ * JSON has no NaN or Infinity, so positions with a non-finite coordinate are left out of a geometry, and a feature
+ * with too few positions left for its geometry type is left out of the response.
+ */
+class WFSGeoJSONFeatureWriter {
+  private static final Logger logger = LoggerFactory.getLogger(WFSGeoJSONFeatureWriter.class);
+
+  static final String CONTENT_TYPE = "application/geo+json";
+
+  // flush the buffer to the response once it holds this many chars
+  private static final int FLUSH_SIZE = 8192;
+
+  private final PrintWriter response;
+  private final WFSFeatureSource geometries;
+  private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 1024);
+
+  /**
+   * True if the OUTPUTFORMAT parameter asks for GeoJSON.
+   *
+   * @param outputFormat the OUTPUTFORMAT parameter value, may be null
+   */
+  static boolean isGeoJSON(String outputFormat) {
+    if (outputFormat == null)
+      return false;
+    String format = outputFormat.trim();
+    return format.equalsIgnoreCase(CONTENT_TYPE) || format.equalsIgnoreCase("application/json")
+        || format.equalsIgnoreCase("geojson") || format.equalsIgnoreCase("json");
+  }
+
+  WFSGeoJSONFeatureWriter(PrintWriter response, WFSFeatureSource geometries) {
+    this.response = response;
+    this.geometries = geometries;
+  }
+
+  /**
+   * Writes the FeatureCollection with all of its features.
+   */
+  void write() {
+    String ftName = geometries.getFeatureTypeName();
+    buffer.append("{\"type\":\"FeatureCollection\",\"features\":[");
+
+    int numberReturned = 0;
+    for (WFSFeatureSource.FeatureIterator iter = geometries.iterator(); iter.hasNext();) {
+      SimpleGeometry geometry = iter.next();
+      int start = buffer.length();
+      if (numberReturned > 0)
+        buffer.append(',');
+
+      buffer.append("{\"type\":\"Feature\",\"id\":\"").append(ftName).append('.').append(iter.getIndex())
+          .append('"');
+      appendBBox(geometry.getBBLower(), geometry.getBBUpper());
+      buffer.append(",\"geometry\":");
+      if (!writeGeometry(geometry)) {
+        buffer.setLength(start);
+        logger.warn("GeoJSON response leaves out feature {}.{}, it has too few finite positions", ftName,
+            iter.getIndex());
+        continue;
+      }
+      buffer.append(",\"properties\":{}}");
+      numberReturned++;
+
+      if (buffer.length() >= FLUSH_SIZE) {
+        response.append(buffer);
+        buffer.setLength(0);
+      }
+    }
+
+    buffer.append("],\"numberReturned\":").append(numberReturned).append('}');
+    response.append(buffer);
+    buffer.setLength(0);
+  }
+
+  // the bbox member is optional, leave it out rather than write non-finite bounds
+  private void appendBBox(double[] lower, double[] upper) {
+    double[] bbox = {lower[0], lower[1], upper[0], upper[1]};
+    for (double value : bbox) {
+      if (!Double.isFinite(value))
+        return;
+    }
+    buffer.append(",\"bbox\":[").append(bbox[0]).append(',').append(bbox[1]).append(',').append(bbox[2])
+        .append(',').append(bbox[3]).append(']');
+  }
+
+  /** Writes nothing and returns false if the geometry has too few finite positions. */
+  private boolean writeGeometry(SimpleGeometry geometry) {
+    if (geometry instanceof Point) {
+      Point point = (Point) geometry;
+      if (!isFinite(point))
+        return false;
+      buffer.append("{\"type\":\"Point\",\"coordinates\":");
+      appendPosition(point);
+    } else if (geometry instanceof Line) {
+      List<Point> points = finitePoints(((Line) geometry).getPoints());
+      if (points.size() < 2)
+        return false;
+      buffer.append("{\"type\":\"LineString\",\"coordinates\":");
+      appendPositions(points, false);
+    } else if (geometry instanceof Polygon) {
+      List<Point> points = finitePoints(((Polygon) geometry).getPoints());
+      if (points.size() < 3)
+        return false;
+      // a single ring, as in the GML response
+      buffer.append("{\"type\":\"Polygon\",\"coordinates\":[");
+      appendPositions(points, true);
+      buffer.append(']');
+    } else {
+      buffer.append("null");
+      return true;
+    }
+    buffer.append('}');
+    return true;
+  }
+
+  private static boolean isFinite(Point point) {
+    return Double.isFinite(point.getX()) && Double.isFinite(point.getY());
+  }
+
+  private static List<Point> finitePoints(List<Point> points) {
+    List<Point> result = new ArrayList<>(points.size());
+    for (Point point : points) {
+      if (isFinite(point))
+        result.add(point);
+    }
+    return result;
+  }
+
+  private void appendPositions(List<Point> points, boolean closeRing) {
+    buffer.append('[');
+    for (int i = 0; i < points.size(); i++) {
+      if (i > 0)
+        buffer.append(',');
+      appendPosition(points.get(i));
+    }
+    // GeoJSON rings repeat their first position at the end
+    if (closeRing && !points.isEmpty()) {
+      Point first = points.get(0);
+      Point last = points.get(points.size() - 1);
+      if (first.getX() != last.getX() || first.getY() != last.getY()) {
+        buffer.append(',');
+        appendPosition(first);
+      }
+    }
+    buffer.append(']');
+  }
+
+  private void appendPosition(Point point) {
+    buffer.append('[').append(point.getX()).append(',').append(point.getY()).append(']');
+  }
+}
@@ -136,6 +136,10 @@ public class WFSGetCapabilitiesWriter {
     fileOutput += "<ows:Parameter name=\"version\"> " + "<ows:AllowedValues> " + "<ows:Value>2.0.0</ows:Value>"
         + "</ows:AllowedValues>" + "</ows:Parameter>";
 
+    fileOutput += "<ows:Parameter name=\"outputFormat\"> " + "<ows:AllowedValues> "
+        + "<ows:Value>application/gml+xml; version=3.2</ows:Value> " + "<ows:Value>"
+        + WFSGeoJSONFeatureWriter.CONTENT_TYPE + "</ows:Value>" + "</ows:AllowedValues>" + "</ows:Parameter>";
+
     // Write constraints
     writeAConstraint("ImplementsBasicWFS", true);
     writeAConstraint("ImplementsTransactionalWFS", false);
@@ -2,79 +2,69 @@ package thredds.server.wfs;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.List;
 import ucar.nc2.ft2.simpgeometry.SimpleGeometry;
 
 /**
  * A writer for a WFS compliant Feature Collection GML file.
  * Answers to GetFeature requests.
+ *
+ * The members are written to the response one at a time through a reusable buffer, so the geometries are never all
+ * held in memory. Since the header holds the number of features and their bounding box, the geometries are read
+ * twice: once for the header, and once for the members.
  * 
  * @author wchen@usgs.gov
  *
  */
 public class WFSGetFeatureWriter {
 
+  // flush the buffer to the response once it holds this many chars
+  private static final int FLUSH_SIZE = 8192;
+
   private PrintWriter response;
-  private String fileOutput;
+  private StringBuilder buffer;
   private final String namespace;
   private final String server;
   private final String ftName;
-  private List<SimpleGeometry> geometries;
+  private final WFSFeatureSource geometries;
 
   /**
    * Writes headers and bounding box
    */
   private void writeHeadersAndBB() {
-    fileOutput += "<wfs:FeatureCollection xsi:schemaLocation="
-        + WFSXMLHelper.encQuotes(
-            "http://www.opengis.net/wfs/2.0 http://schemas.opengis.net/wfs/2.0/wfs.xsd " + namespace + " " + server
-                + "?request=DescribeFeatureType" + WFSXMLHelper.AMPERSAND + "service=wfs" + WFSXMLHelper.AMPERSAND
-                + "version=2.0.0" + WFSXMLHelper.AMPERSAND + "typename=" + WFSController.TDSNAMESPACE + "%3A" + ftName)
-        + " xmlns:xsi=" + WFSXMLHelper.encQuotes("http://www.w3.org/2001/XMLSchema-instance") + " xmlns:xlink="
-        + WFSXMLHelper.encQuotes("http://www.w3.org/1999/xlink") + " xmlns:gml="
-        + WFSXMLHelper.encQuotes("http://opengis.net/gml/3.2") + " xmlns:fes="
-        + WFSXMLHelper.encQuotes("http://www.opengis.net/fes/2.0") + " xmlns:ogc="
-        + WFSXMLHelper.encQuotes("http://www.opengis.net/ogc") + " xmlns:wfs="
-        + WFSXMLHelper.encQuotes("http://opengis.net/wfs/2.0") + " xmlns:" + WFSController.TDSNAMESPACE + "="
-        + WFSXMLHelper.encQuotes(namespace) + " xmlns=" + WFSXMLHelper.encQuotes("http://www.opengis.net/wfs/2.0")
-        + " version=\"2.0.0\" numberMatched=" + WFSXMLHelper.encQuotes(String.valueOf(geometries.size()))
-        + " numberReturned=" + WFSXMLHelper.encQuotes(String.valueOf(geometries.size())) + ">";
-
-    double[] boundLower;
-    double[] boundUpper;
-    if (geometries.isEmpty()) {
-      boundLower = new double[2];
-      boundUpper = new double[2];
-      boundLower[0] = -180;
-      boundLower[1] = -90;
-      boundUpper[0] = 180;
-      boundUpper[1] = 90;
-    }
-
-    else {
-      boundLower = geometries.get(0).getBBLower();
-      boundUpper = geometries.get(0).getBBUpper();
-    }
+    int numberReturned = 0;
+    double[] boundLower = null;
+    double[] boundUpper = null;
 
     // WFS Bounding Box
     for (SimpleGeometry item : geometries) {
+      numberReturned++;
 
       // Find the overall BB
+      double[] low = item.getBBLower();
+      double[] upper = item.getBBUpper();
+      if (boundLower == null) {
+        boundLower = low.clone();
+        boundUpper = upper.clone();
+        continue;
+      }
 
       // Test Lower
-      double[] low = item.getBBLower();
       if (boundLower[0] > low[0])
         boundLower[0] = low[0];
       if (boundLower[1] > low[1])
         boundLower[1] = low[1];
 
       // Test Upper
-      double[] upper = item.getBBUpper();
       if (boundUpper[0] < upper[0])
         boundUpper[0] = upper[0];
       if (boundUpper[1] < upper[1])
         boundUpper[1] = upper[1];
+    }
 
+    if (boundLower == null) {
+      boundLower = new double[] {-180, -90};
+      boundUpper = new double[] {180, 90};
+    } else {
       // Add some padding
       boundLower[0] -= 10;
       boundLower[1] -= 10;
@@ -82,9 +72,37 @@ public class WFSGetFeatureWriter {
       boundUpper[1] += 10;
     }
 
-    fileOutput += "<wfs:boundedBy>" + "<wfs:Envelope srsName=" + "\"urn:ogc:def:crs:EPSG::4326\"" + ">"
-        + "<wfs:lowerCorner>" + boundLower[0] + " " + boundLower[1] + "</wfs:lowerCorner>" + "<wfs:upperCorner>"
-        + boundUpper[0] + " " + boundUpper[1] + "</wfs:upperCorner>" + "</wfs:Envelope>" + "</wfs:boundedBy>";
+    // the total number is only known when every match is returned
+    String numberMatched = geometries.isPaged() ? "unknown" : String.valueOf(numberReturned);
+
+    buffer.append("<wfs:FeatureCollection xsi:schemaLocation=")
+        .append(WFSXMLHelper.encQuotes(
+            "http://www.opengis.net/wfs/2.0 http://schemas.opengis.net/wfs/2.0/wfs.xsd " + namespace + " " + server
+                + "?request=DescribeFeatureType" + WFSXMLHelper.AMPERSAND + "service=wfs" + WFSXMLHelper.AMPERSAND
+                + "version=2.0.0" + WFSXMLHelper.AMPERSAND + "typename=" + WFSController.TDSNAMESPACE + "%3A" + ftName))
+        .append(" xmlns:xsi=").append(WFSXMLHelper.encQuotes("http://www.w3.org/2001/XMLSchema-instance"))
+        .append(" xmlns:xlink=").append(WFSXMLHelper.encQuotes("http://www.w3.org/1999/xlink")).append(" xmlns:gml=")
+        .append(WFSXMLHelper.encQuotes("http://opengis.net/gml/3.2")).append(" xmlns:fes=")
+        .append(WFSXMLHelper.encQuotes("http://www.opengis.net/fes/2.0")).append(" xmlns:ogc=")
+        .append(WFSXMLHelper.encQuotes("http://www.opengis.net/ogc")).append(" xmlns:wfs=")
+        .append(WFSXMLHelper.encQuotes("http://opengis.net/wfs/2.0")).append(" xmlns:")
+        .append(WFSController.TDSNAMESPACE).append("=").append(WFSXMLHelper.encQuotes(namespace)).append(" xmlns=")
+        .append(WFSXMLHelper.encQuotes("http://www.opengis.net/wfs/2.0"))
+        .append(" version=\"2.0.0\" numberMatched=").append(WFSXMLHelper.encQuotes(numberMatched))
+        .append(" numberReturned=").append(WFSXMLHelper.encQuotes(String.valueOf(numberReturned))).append(">");
+
+    buffer.append("<wfs:boundedBy>" + "<wfs:Envelope srsName=" + "\"urn:ogc:def:crs:EPSG::4326\"" + ">")
+        .append("<wfs:lowerCorner>").append(boundLower[0]).append(' ').append(boundLower[1])
+        .append("</wfs:lowerCorner>").append("<wfs:upperCorner>").append(boundUpper[0]).append(' ')
+        .append(boundUpper[1]).append("</wfs:upperCorner>").append("</wfs:Envelope>").append("</wfs:boundedBy>");
+  }
+
+  /** Writes out the buffer once it is full */
+  private void flushIfFull() {
+    if (buffer.length() >= FLUSH_SIZE) {
+      response.append(buffer);
+      buffer.setLength(0);
+    }
   }
 
   /**
@@ -92,55 +110,57 @@ public class WFSGetFeatureWriter {
    * namespace information.
    */
   public void startXML() {
-    fileOutput += "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
     writeHeadersAndBB();
   }
 
   /**
    * In the WFS specification for GetFeature each feature type is its own
-   * member and so writeMembers add each member to the fileOutput
+   * member and so writeMembers writes each member to the response
    */
   public void writeMembers() {
-    int index = 1;
     GMLFeatureWriter writer = new GMLFeatureWriter();
-    for (SimpleGeometry geometryItem : geometries) {
+    for (WFSFeatureSource.FeatureIterator iter = geometries.iterator(); iter.hasNext();) {
+      SimpleGeometry geometryItem = iter.next();
 
       // Find bounding box information
       double[] lowerCorner = geometryItem.getBBLower();
       double[] upperCorner = geometryItem.getBBUpper();
 
-      fileOutput += "<wfs:member>"
+      buffer.append("<wfs:member>")
 
           // Write Geometry Information
-          + "<" + WFSController.TDSNAMESPACE + ":" + ftName + " gml:id=\"" + ftName + "." + index + "\">"
+          .append('<').append(WFSController.TDSNAMESPACE).append(':').append(ftName).append(" gml:id=\"")
+          .append(ftName).append('.').append(iter.getIndex()).append("\">")
 
           // GML Bounding Box
-          + "<gml:boundedBy>" + "<gml:Envelope srsName=" + "\"urn:ogc:def:crs:EPSG::4326\"" + ">" + "<gml:lowerCorner>"
-          + lowerCorner[0] + " " + lowerCorner[1] + "</gml:lowerCorner>" + "<gml:upperCorner>" + upperCorner[0] + " "
-          + upperCorner[1] + "</gml:upperCorner>" + "</gml:Envelope>" + "</gml:boundedBy>"
+          .append("<gml:boundedBy>" + "<gml:Envelope srsName=" + "\"urn:ogc:def:crs:EPSG::4326\"" + ">")
+          .append("<gml:lowerCorner>").append(lowerCorner[0]).append(' ').append(lowerCorner[1])
+          .append("</gml:lowerCorner>").append("<gml:upperCorner>").append(upperCorner[0]).append(' ')
+          .append(upperCorner[1]).append("</gml:upperCorner>").append("</gml:Envelope>").append("</gml:boundedBy>")
 
-          + "<" + WFSController.TDSNAMESPACE + ":geometryInformation>";
+          .append('<').append(WFSController.TDSNAMESPACE).append(":geometryInformation>");
 
       // write GML features
-      fileOutput += writer.writeFeature(geometryItem);
+      writer.writeFeature(geometryItem, buffer);
 
       // Cap off headers
-      fileOutput += "</" + WFSController.TDSNAMESPACE + ":geometryInformation>" + "</" + WFSController.TDSNAMESPACE
-          + ":" + ftName + ">" + "</wfs:member>";
+      buffer.append("</").append(WFSController.TDSNAMESPACE).append(":geometryInformation>").append("</")
+          .append(WFSController.TDSNAMESPACE).append(':').append(ftName).append('>').append("</wfs:member>");
 
-      index++;
+      flushIfFull();
     }
   }
 
   /**
-   * Finish writing the XML file, write the end tag for FeatureCollection and append it all to the PrintWriter.
+   * Finish writing the XML file, write the end tag for FeatureCollection and append what is left to the PrintWriter.
    *
    * Once a XML is finished, the WFSDataWriter is no longer usable.
    */
   public void finishXML() {
-    fileOutput += "</wfs:FeatureCollection>";
-    response.append(fileOutput);
-    fileOutput = null;
+    buffer.append("</wfs:FeatureCollection>");
+    response.append(buffer);
+    buffer = null;
     response = null;
   }
 
@@ -150,15 +170,15 @@ public class WFSGetFeatureWriter {
    * @param response to write to
    * @param server WFS Server URI
    * @param namespace WFS TDS Namespace URI
+   * @param geometries the features to write
    * @throws IOException
    */
-  public WFSGetFeatureWriter(PrintWriter response, String server, String namespace, List<SimpleGeometry> geometries,
-      String ftName) {
-    this.fileOutput = "";
+  WFSGetFeatureWriter(PrintWriter response, String server, String namespace, WFSFeatureSource geometries) {
+    this.buffer = new StringBuilder(FLUSH_SIZE + 1024);
     this.response = response;
     this.server = server;
     this.namespace = namespace;
     this.geometries = geometries;
-    this.ftName = ftName;
+    this.ftName = geometries.getFeatureTypeName();
   }
 }
@@ -33,6 +33,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import jakarta.servlet.ServletException;
+import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Formatter;
@@ -50,6 +51,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import thredds.server.config.TdsContext;
 import thredds.server.config.ThreddsConfig;
+import thredds.servlet.ServletUtil;
 import ucar.nc2.dataset.NetcdfDatasets;
 import uk.ac.rdg.resc.edal.exceptions.EdalException;
 import uk.ac.rdg.resc.edal.graphics.exceptions.EdalLayerNotFoundException;
@@ -85,6 +87,9 @@ public class ThreddsWmsServlet extends WmsServlet implements InitializingBean {
 
   private static boolean allow;
 
+  // rendered GetMap images; null if turned off
+  private static volatile WmsTileCache tileCache;
+
   @Autowired
   private TdsContext tdsContext;
 
@@ -97,6 +102,20 @@ public class ThreddsWmsServlet extends WmsServlet implements InitializingBean {
       startupLog.info("WMS:allow= " + allow);
       if (!allow) {
         startupLog.info("WMS service not enabled in threddsConfig.xml: ");
+        return;
+      }
+
+      long maxMemory = ThreddsConfig.getBytes("WMS.tileCache.maxMemory", 50L * 1000 * 1000);
+      long maxSize = ThreddsConfig.getBytes("WMS.tileCache.maxSize", 500L * 1000 * 1000);
+      String defaultPath = new File(tdsContext.getThreddsDirectory(), "/cache/wmsTiles/").getPath();
+      String path = ThreddsConfig.get("WMS.tileCache.dir", defaultPath);
+      if (maxMemory > 0 || maxSize > 0) {
+        try {
+          tileCache = new WmsTileCache(maxMemory, new File(path), maxSize);
+          startupLog.info("WMS:tileCache maxMemory= " + maxMemory + " dir= " + path + " maxSize= " + maxSize);
+        } catch (IllegalArgumentException e) {
+          ServletUtil.logServerStartup.error("WMS tile cache not enabled: " + e.getMessage());
+        }
       }
     }
   }
@@ -157,21 +176,47 @@ public class ThreddsWmsServlet extends WmsServlet implements InitializingBean {
     // Look - is setting this to null the right thing to do??
     String removePrefix = null;
     TdsRequestedDataset tdsDataset = new TdsRequestedDataset(httpServletRequest, removePrefix);
-    ThreddsWmsCatalogue catalogue = acquireCatalogue(httpServletRequest, httpServletResponse, tdsDataset.getPath());
+    CachedWmsCatalogue catalogue = acquireCatalogue(httpServletRequest, httpServletResponse, tdsDataset.getPath());
 
     // set default style if needed
     if (request.equals("GetMap") && params.getString("styles", "").isEmpty()) {
       params = params.mergeParameters(defaultStyles);
     }
 
-    /*
-     * Now that we've got a WmsCatalogue, we can pass this request to the
-     * super implementation which will handle things from here.
-     */
-    super.dispatchWmsRequest(request, params, httpServletRequest, httpServletResponse, catalogue);
+    WmsTileCache tiles = tileCache;
+    if (!request.equals("GetMap") || tiles == null) {
+      /*
+       * Now that we've got a WmsCatalogue, we can pass this request to the
+       * super implementation which will handle things from here.
+       */
+      super.dispatchWmsRequest(request, params, httpServletRequest, httpServletResponse, catalogue.wmsCatalogue);
+      return;
+    }
+
+    // web map clients ask for the same tiles over and over, so keep the rendered images
+    String key = WmsTileCache.makeKey(tdsDataset.getPath(), catalogue.lastModified,
+        httpServletRequest.getParameterMap());
+    WmsTileCache.Tile tile = tiles.get(key);
+    if (tile != null) {
+      httpServletResponse.setContentType(tile.getContentType());
+      httpServletResponse.setContentLength(tile.getBytes().length);
+      httpServletResponse.getOutputStream().write(tile.getBytes());
+      return;
+    }
+
+    TileCapturingResponse capturingResponse =
+        new TileCapturingResponse(httpServletResponse, WmsTileCache.MAX_TILE_BYTES);
+    super.dispatchWmsRequest(request, params, httpServletRequest, capturingResponse, catalogue.wmsCatalogue);
+
+    byte[] bytes = capturingResponse.getCapturedBytes();
+    String contentType = capturingResponse.getContentType();
+    if (bytes != null && bytes.length > 0 && capturingResponse.getStatus() == HttpServletResponse.SC_OK
+        && contentType != null && contentType.startsWith("image/")) {
+      tiles.put(key, new WmsTileCache.Tile(tdsDataset.getPath(), contentType, bytes));
+    }
   }
 
-  private ThreddsWmsCatalogue acquireCatalogue(HttpServletRequest httpServletRequest,
+  private CachedWmsCatalogue acquireCatalogue(HttpServletRequest httpServletRequest,
       HttpServletResponse httpServletResponse, String tdsDatasetPath) throws IOException {
 
     invalidateIfOutdated(tdsDatasetPath);
@@ -193,7 +238,7 @@ public class ThreddsWmsServlet extends WmsServlet implements InitializingBean {
         }
       });
 
-      return catalogue.wmsCatalogue;
+      return catalogue;
     } catch (ExecutionException e) {
       throw new IOException(e);
     } catch (UncheckedExecutionException e) {
@@ -211,6 +256,10 @@ public class ThreddsWmsServlet extends WmsServlet implements InitializingBean {
     if (cachedWmsCatalogue != null
         && cachedWmsCatalogue.lastModified != cachedWmsCatalogue.wmsCatalogue.getLastModified()) {
       catalogueCache.invalidate(tdsDatasetPath);
+      WmsTileCache tiles = tileCache;
+      if (tiles != null) {
+        tiles.invalidate(tdsDatasetPath);
+      }
     }
   }
 
@@ -233,10 +282,19 @@ public class ThreddsWmsServlet extends WmsServlet implements InitializingBean {
     for (Map.Entry<String, CachedWmsCatalogue> entry : catalogueCache.asMap().entrySet()) {
       formatter.format("  %s%n", entry.getKey());
     }
+    WmsTileCache tiles = tileCache;
+    if (tiles != null) {
+      formatter.format("%n");
+      tiles.showCache(formatter);
+    }
   }
 
   public static void resetCache() {
     catalogueCache.invalidateAll();
+    WmsTileCache tiles = tileCache;
+    if (tiles != null) {
+      tiles.clear();
+    }
   }
 
   // package private for testing
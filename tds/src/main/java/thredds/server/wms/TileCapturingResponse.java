@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.wms;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Passes a response through to the client, keeping a copy of the bytes written to the output stream so that the
+ * image can be added to the WmsTileCache. Responses written with a Writer, or larger than maxBytes, are not kept.
+ */
+class TileCapturingResponse extends HttpServletResponseWrapper {
+  private final int maxBytes;
+  private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+  private ServletOutputStream out;
+
+  TileCapturingResponse(HttpServletResponse response, int maxBytes) {
+    super(response);
+    this.maxBytes = maxBytes;
+  }
+
+  /** The bytes written, or null if the response can't be cached. */
+  byte[] getCapturedBytes() {
+    return copy == null ? null : copy.toByteArray();
+  }
+
+  private void capture(byte[] b, int off, int len) {
+    if (copy == null)
+      return;
+    if (copy.size() + len > maxBytes) {
+      copy = null;
+      return;
+    }
+    copy.write(b, off, len);
+  }
+
+  @Override
+  public PrintWriter getWriter() throws IOException {
+    copy = null;
+    return super.getWriter();
+  }
+
+  @Override
+  public void resetBuffer() {
+    super.resetBuffer();
+    if (copy != null)
+      copy.reset();
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    if (copy != null)
+      copy.reset();
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (out == null) {
+      ServletOutputStream wrapped = super.getOutputStream();
+      out = new ServletOutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+          wrapped.write(b);
+          capture(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+          wrapped.write(b, off, len);
+          capture(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+          wrapped.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+          wrapped.close();
+        }
+
+        @Override
+        public boolean isReady() {
+          return wrapped.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+          wrapped.setWriteListener(writeListener);
+        }
+      };
+    }
+    return out;
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.wms;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Formatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A two level cache of rendered GetMap images: the most recently used in memory, and more of them on disk.
+ * Tiles are keyed by a hash of the dataset path, the dataset's last modified time and all the request parameters,
+ * so a modified dataset gets new tiles. Both levels are bounded in bytes, the least recently used are removed first.
+ * <p>
+ * The disk index is only held in memory, so the cache directory is emptied when the cache is created.
+ */
+@ThreadSafe
+public class WmsTileCache {
+  private static final Logger logger = LoggerFactory.getLogger(WmsTileCache.class);
+
+  /** Larger images are not cached. */
+  public static final int MAX_TILE_BYTES = 8 * 1000 * 1000;
+
+  private final Cache<String, Tile> memory; // null if turned off
+  private final File dir; // null if turned off
+  private final long maxDiskBytes;
+
+  @GuardedBy("this")
+  private final LinkedHashMap<String, DiskEntry> diskEntries = new LinkedHashMap<>(100, 0.75f, true);
+  @GuardedBy("this")
+  private long diskBytes;
+
+  private final AtomicLong memoryHits = new AtomicLong();
+  private final AtomicLong diskHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong diskEvictions = new AtomicLong();
+
+  /**
+   * @param maxMemoryBytes size of the memory cache, 0 to turn it off
+   * @param dir directory of the disk cache, or null to turn it off
+   * @param maxDiskBytes size of the disk cache, 0 to turn it off
+   */
+  public WmsTileCache(long maxMemoryBytes, File dir, long maxDiskBytes) {
+    this.memory = maxMemoryBytes <= 0 ? null
+        : CacheBuilder.newBuilder().maximumWeight(maxMemoryBytes)
+            .weigher((String key, Tile tile) -> tile.getBytes().length).build();
+
+    if (dir == null || maxDiskBytes <= 0) {
+      this.dir = null;
+      this.maxDiskBytes = 0;
+      return;
+    }
+    this.dir = dir;
+    this.maxDiskBytes = maxDiskBytes;
+
+    if (!dir.exists() && !dir.mkdirs())
+      throw new IllegalArgumentException("Cant make cache directory " + dir);
+    File[] leftovers = dir.listFiles();
+    if (leftovers != null) {
+      for (File f : leftovers) {
+        if (f.isFile() && !f.delete())
+          logger.warn("Cant delete old tile cache file {}", f);
+      }
+    }
+  }
+
+  /**
+   * Make the cache key for a GetMap request.
+   *
+   * @param datasetPath the dataset request path
+   * @param lastModified the last modified time of the dataset
+   * @param params the request parameters. Names are case insensitive, as in WMS.
+   */
+  public static String makeKey(String datasetPath, long lastModified, Map<String, String[]> params) {
+    Map<String, String> sorted = new TreeMap<>();
+    for (Map.Entry<String, String[]> param : params.entrySet())
+      sorted.put(param.getKey().toLowerCase(Locale.ROOT), String.join(",", param.getValue()));
+
+    StringBuilder sb = new StringBuilder();
+    sb.append(datasetPath).append('\n').append(lastModified);
+    for (Map.Entry<String, String> param : sorted.entrySet())
+      sb.append('\n').append(param.getKey()).append('=').append(param.getValue());
+
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      byte[] digest = md.digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(2 * digest.length);
+      for (byte b : digest)
+        hex.append(String.format("%02x", b));
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // every JVM has SHA-256
+    }
+  }
+
+  /** Get the tile for this key, or null if it is not cached. */
+  public Tile get(String key) {
+    if (memory != null) {
+      Tile tile = memory.getIfPresent(key);
+      if (tile != null) {
+        memoryHits.incrementAndGet();
+        return tile;
+      }
+    }
+
+    Tile tile = readFromDisk(key);
+    if (tile != null) {
+      diskHits.incrementAndGet();
+      if (memory != null)
+        memory.put(key, tile);
+      return tile;
+    }
+
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /** Add a tile. Tiles larger than MAX_TILE_BYTES are ignored. */
+  public void put(String key, Tile tile) {
+    if (tile.getBytes().length > MAX_TILE_BYTES)
+      return;
+    if (memory != null)
+      memory.put(key, tile);
+    if (dir != null) {
+      try {
+        writeToDisk(key, tile);
+      } catch (IOException e) {
+        logger.warn("Cant write tile cache file for {}", tile.getDatasetPath(), e);
+      }
+    }
+  }
+
+  /** Remove all the tiles of a dataset, eg when it has changed. */
+  public void invalidate(String datasetPath) {
+    if (memory != null) {
+      memory.asMap().values().removeIf(tile -> tile.getDatasetPath().equals(datasetPath));
+    }
+    synchronized (this) {
+      Iterator<DiskEntry> iter = diskEntries.values().iterator();
+      while (iter.hasNext()) {
+        DiskEntry entry = iter.next();
+        if (entry.datasetPath.equals(datasetPath)) {
+          iter.remove();
+          diskBytes -= entry.size;
+          deleteFile(entry.file);
+        }
+      }
+    }
+  }
+
+  public void clear() {
+    if (memory != null)
+      memory.invalidateAll();
+    synchronized (this) {
+      for (DiskEntry entry : diskEntries.values())
+        deleteFile(entry.file);
+      diskEntries.clear();
+      diskBytes = 0;
+    }
+  }
+
+  // read under the lock, so an eviction cant delete the file first
+  private synchronized Tile readFromDisk(String key) {
+    DiskEntry entry = diskEntries.get(key);
+    if (entry == null)
+      return null;
+
+    try (DataInputStream in = new DataInputStream(new FileInputStream(entry.file))) {
+      String contentType = in.readUTF();
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return new Tile(entry.datasetPath, contentType, bytes);
+    } catch (IOException e) {
+      logger.warn("Cant read tile cache file {}", entry.file, e);
+      diskEntries.remove(key);
+      diskBytes -= entry.size;
+      deleteFile(entry.file);
+      return null;
+    }
+  }
+
+  private void writeToDisk(String key, Tile tile) throws IOException {
+    File tmp = File.createTempFile("tile-", ".tmp", dir);
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+      out.writeUTF(tile.getContentType());
+      out.writeInt(tile.getBytes().length);
+      out.write(tile.getBytes());
+    } catch (IOException e) {
+      deleteFile(tmp);
+      throw e;
+    }
+
+    synchronized (this) {
+      long size = tmp.length();
+      DiskEntry old = diskEntries.remove(key);
+      if (old != null) {
+        diskBytes -= old.size;
+        deleteFile(old.file);
+      }
+      File file = new File(dir, key + ".tile");
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      diskEntries.put(key, new DiskEntry(tile.getDatasetPath(), file, size));
+      diskBytes += size;
+
+      Iterator<Map.Entry<String, DiskEntry>> iter = diskEntries.entrySet().iterator();
+      while (diskBytes > maxDiskBytes && iter.hasNext()) {
+        Map.Entry<String, DiskEntry> eldest = iter.next();
+        if (eldest.getKey().equals(key))
+          continue;
+        iter.remove();
+        diskBytes -= eldest.getValue().size;
+        deleteFile(eldest.getValue().file);
+        diskEvictions.incrementAndGet();
+      }
+    }
+  }
+
+  private static void deleteFile(File file) {
+    if (file.exists() && !file.delete())
+      logger.warn("Cant delete tile cache file {}", file);
+  }
+
+  public synchronized void showCache(Formatter f) {
+    f.format("WmsTileCache%n");
+    f.format("  memory: entries = %d%n", memory == null ? 0 : memory.size());
+    f.format("  disk %s: entries = %d, size = %d bytes, maxSize = %d bytes%n", dir, diskEntries.size(), diskBytes,
+        maxDiskBytes);
+    f.format("  memoryHits = %d, diskHits = %d, misses = %d, diskEvictions = %d%n", memoryHits.get(), diskHits.get(),
+        misses.get(), diskEvictions.get());
+  }
+
+  public long getMemoryHits() {
+    return memoryHits.get();
+  }
+
+  public long getDiskHits() {
+    return diskHits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getDiskEvictions() {
+    return diskEvictions.get();
+  }
+
+  /** A rendered image. */
+  public static class Tile {
+    private final String datasetPath;
+    private final String contentType;
+    private final byte[] bytes;
+
+    public Tile(String datasetPath, String contentType, byte[] bytes) {
+      this.datasetPath = datasetPath;
+      this.contentType = contentType;
+      this.bytes = bytes;
+    }
+
+    public String getDatasetPath() {
+      return datasetPath;
+    }
+
+    public String getContentType() {
+      return contentType;
+    }
+
+    public byte[] getBytes() {
+      return bytes;
+    }
+  }
+
+  private static class DiskEntry {
+    final String datasetPath;
+    final File file;
+    final long size;
+
+    DiskEntry(String datasetPath, File file, long size) {
+      this.datasetPath = datasetPath;
+      this.file = file;
+      this.size = size;
+    }
+  }
+}
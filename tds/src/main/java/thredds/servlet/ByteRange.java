@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.servlet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A range of bytes of a file, from an HTTP Range request header (RFC 9110 section 14).
+ */
+final class ByteRange {
+  // ranges closer than this are sent as one, as the part headers of a multipart response would be about as long
+  static final long COALESCE_GAP = 80;
+
+  final long start; // inclusive
+  final long end; // exclusive
+
+  ByteRange(long start, long end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  long getLength() {
+    return end - start;
+  }
+
+  /** The value of the Content-Range header for this range of a file. */
+  String getContentRange(long fileLength) {
+    return "bytes " + start + "-" + (end - 1) + "/" + fileLength;
+  }
+
+  /**
+   * Parse a Range header, eg "bytes=0-499", "bytes=500-", "bytes=-500" or "bytes=0-99,200-299".
+   * Ranges are limited to the file, sorted, and overlapping or nearby ranges are merged. If there are still
+   * more than maxRanges, a single range covering all of them is returned.
+   *
+   * @param header value of the Range header, may be null
+   * @param fileLength length of the file
+   * @param maxRanges maximum number of ranges to return
+   * @return the ranges; null if there are none or the header is not valid, in which case the whole file should be
+   *         sent; empty if none of the ranges is in the file
+   */
+  static List<ByteRange> parse(String header, long fileLength, int maxRanges) {
+    if (header == null)
+      return null;
+    header = header.trim();
+    int eq = header.indexOf('=');
+    if (eq < 0 || !header.substring(0, eq).trim().equalsIgnoreCase("bytes"))
+      return null;
+
+    List<ByteRange> ranges = new ArrayList<>();
+    for (String spec : header.substring(eq + 1).split(",")) {
+      spec = spec.trim();
+      if (spec.isEmpty())
+        continue;
+      int dash = spec.indexOf('-');
+      if (dash < 0)
+        return null;
+      String first = spec.substring(0, dash).trim();
+      String last = spec.substring(dash + 1).trim();
+      try {
+        if (first.isEmpty()) { // suffix range: the last n bytes
+          long n = Long.parseLong(last);
+          if (n < 0)
+            return null;
+          if (n > 0 && fileLength > 0)
+            ranges.add(new ByteRange(Math.max(0, fileLength - n), fileLength));
+        } else {
+          long start = Long.parseLong(first);
+          long end = last.isEmpty() ? fileLength : Long.parseLong(last) + 1;
+          if (start < 0 || end <= start)
+            return null;
+          if (start < fileLength)
+            ranges.add(new ByteRange(start, Math.min(end, fileLength)));
+        }
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return coalesce(ranges, maxRanges);
+  }
+
+  private static List<ByteRange> coalesce(List<ByteRange> ranges, int maxRanges) {
+    if (ranges.size() <= 1)
+      return ranges;
+    ranges.sort(Comparator.comparingLong(r -> r.start));
+    List<ByteRange> result = new ArrayList<>();
+    ByteRange current = ranges.get(0);
+    for (ByteRange next : ranges.subList(1, ranges.size())) {
+      if (next.start <= current.end + COALESCE_GAP) {
+        current = new ByteRange(current.start, Math.max(current.end, next.end));
+      } else {
+        result.add(current);
+        current = next;
+      }
+    }
+    result.add(current);
+
+    if (result.size() > maxRanges) {
+      ByteRange all = new ByteRange(result.get(0).start, result.get(result.size() - 1).end);
+      result.clear();
+      result.add(all);
+    }
+    return result;
+  }
+}
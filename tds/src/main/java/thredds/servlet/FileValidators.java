@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.servlet;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import thredds.inventory.MFile;
+
+/**
+ * HTTP validators for files sent whole or by range: a strong ETag made from the identity, length and last modified
+ * time of the file, and the evaluation of the If-None-Match, If-Modified-Since and If-Range request headers.
+ */
+final class FileValidators {
+
+  private FileValidators() {}
+
+  /**
+   * The file on the local file system behind an MFile.
+   *
+   * @return the path, or null if the MFile is not a regular local file, eg it is in an object store
+   */
+  static Path getLocalPath(MFile file) {
+    if (file.isZipFile())
+      return null;
+    try {
+      Path path = Paths.get(file.getPath());
+      return Files.isRegularFile(path) ? path : null;
+    } catch (InvalidPathException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Make a strong entity tag, which changes when the file is modified, resized or replaced by another file.
+   *
+   * @param file the file
+   * @param localPath the file on the local file system, or null
+   */
+  static String makeETag(MFile file, Path localPath) {
+    StringBuilder etag = new StringBuilder("\"");
+    if (localPath != null) {
+      try {
+        Object fileKey = Files.readAttributes(localPath, BasicFileAttributes.class).fileKey(); // device and inode
+        if (fileKey != null)
+          etag.append(Integer.toHexString(fileKey.hashCode())).append('-');
+      } catch (IOException e) {
+        // just use the length and last modified time
+      }
+    }
+    etag.append(Long.toHexString(file.getLength())).append('-').append(Long.toHexString(file.getLastModified()));
+    return etag.append('"').toString();
+  }
+
+  /**
+   * Whether the client already has the current file, so that 304 Not Modified can be returned.
+   * If-None-Match takes precedence over If-Modified-Since. Only GET and HEAD requests are considered.
+   */
+  static boolean isNotModified(HttpServletRequest req, String etag, long lastModified) {
+    String method = req.getMethod();
+    if (!"GET".equals(method) && !"HEAD".equals(method))
+      return false;
+
+    String ifNoneMatch = req.getHeader("If-None-Match");
+    if (ifNoneMatch != null)
+      return matches(ifNoneMatch, etag, false);
+
+    long ifModifiedSince = getDateHeader(req, "If-Modified-Since");
+    // HTTP dates have a resolution of a second
+    return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+  }
+
+  /**
+   * Whether the Range header of a request should be used: true unless there is an If-Range header
+   * that does not match the current file, in which case the whole file is sent.
+   */
+  static boolean isRangeCurrent(HttpServletRequest req, String etag, long lastModified) {
+    String ifRange = req.getHeader("If-Range");
+    if (ifRange == null)
+      return true;
+
+    ifRange = ifRange.trim();
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+      return matches(ifRange, etag, true);
+
+    long date = getDateHeader(req, "If-Range");
+    return date >= 0 && lastModified / 1000 == date / 1000;
+  }
+
+  /**
+   * Compare a list of entity tags from a request header with the current one.
+   *
+   * @param strong use strong comparison, which never matches a weak tag
+   */
+  static boolean matches(String header, String etag, boolean strong) {
+    for (String tag : header.split(",")) {
+      tag = tag.trim();
+      if (!strong && tag.equals("*"))
+        return true;
+      if (tag.startsWith("W/")) {
+        if (strong)
+          continue;
+        tag = tag.substring(2);
+      }
+      if (tag.equals(etag))
+        return true;
+    }
+    return false;
+  }
+
+  // -1 if missing or not a date
+  private static long getDateHeader(HttpServletRequest req, String name) {
+    try {
+      return req.getDateHeader(name);
+    } catch (IllegalArgumentException e) {
+      return -1;
+    }
+  }
+}
@@ -28,12 +28,27 @@ import jakarta.servlet.http.HttpSession;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class ServletUtil {
   public static final org.slf4j.Logger logServerStartup = org.slf4j.LoggerFactory.getLogger("serverStartup");
   private static org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ServletUtil.class);
 
+  // request attributes for Tomcat to send a file with sendfile() after the servlet returns
+  static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+  static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+  static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+  static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+  // Maximum number of separate ranges sent in a multipart/byteranges response, more are sent as one range
+  static final int MAX_BYTE_RANGES = 200;
+
   /**
    * Return the file path dealing with leading and trailing path
    * separators (which must be a slash ("/")) for the given directory
@@ -151,7 +166,7 @@ public class ServletUtil {
   }
 
   /**
-   * Write a file to the response stream. Handles Range requests.
+   * Write a file to the response stream. Handles Range and conditional requests.
    *
    * @param req request
    * @param res response
@@ -161,48 +176,19 @@ public class ServletUtil {
    */
   public static void returnFile(HttpServletRequest req, HttpServletResponse res, MFile file, String contentType)
       throws IOException {
-    res.setContentType(contentType);
-    res.addDateHeader("Last-Modified", file.getLastModified());
     // res.setHeader("Content-Disposition", "attachment; filename=\"" + file.getName() + "\"");
-
-    final boolean isRangeRequest = isRangeRequest(req.getHeader("Range"));
-
-    final long startPos = getContentStartPosition(req.getHeader("Range"));
-    final long endPos = getContentEndPosition(req.getHeader("Range"), file.getLength());
-    final long contentLength = endPos - startPos;
-
-    addContentLengthHeader(res, contentLength);
-
     String filename = file.getPath();
-    // indicate we allow Range Requests
-    res.addHeader("Accept-Ranges", "bytes");
-
-    if (req.getMethod().equals("HEAD")) {
-      return;
-    }
 
     try {
-
-      if (isRangeRequest) {
-        // set before content is sent
-        res.addHeader("Content-Range", "bytes " + startPos + "-" + (endPos - 1) + "/" + file.getLength());
-        res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-
-        try (RandomAccessFile craf = RandomAccessFile.acquire(filename)) {
-          IO.copyRafB(craf, startPos, contentLength, res.getOutputStream(), new byte[60000]);
+      sendFile(req, res, file, contentType, (out, start, length) -> {
+        if (start == 0 && length == file.getLength()) {
+          MFileUtils.copyMFileB(file, out, 60 * 1000);
           return;
         }
-      }
-
-      // Return the file
-      ServletOutputStream out = res.getOutputStream();
-      MFileUtils.copyMFileB(file, out, 60 * 1000);
-      /*
-       * try (WritableByteChannel cOut = Channels.newChannel(out)) {
-       * IO.copyFileWithChannels(file, cOut);
-       * res.flushBuffer();
-       * }
-       */
+        try (RandomAccessFile craf = RandomAccessFile.acquire(filename)) {
+          IO.copyRafB(craf, start, length, out, new byte[60000]);
+        }
+      });
     }
 
     // @todo Split up this exception handling: those from file access vs those from dealing with response
@@ -232,44 +218,159 @@ public class ServletUtil {
     }
   }
 
-  private static void addContentLengthHeader(HttpServletResponse res, long contentLength) {
-    // when compression is turned on, ContentLength has to be overridden
-    // this is also true for HEAD, since this must be the same as GET without the body
-    if (contentLength > Integer.MAX_VALUE)
-      res.addHeader("Content-Length", Long.toString(contentLength)); // allow content length > MAX_INT
-    else
-      res.setContentLength((int) contentLength);
+  /**
+   * Set the Last-Modified and ETag headers, and answer a conditional request for a file the client already has.
+   *
+   * @return true if the response is 304 Not Modified, and is complete
+   */
+  private static boolean setValidators(HttpServletRequest req, HttpServletResponse res, MFile file, String etag) {
+    res.addDateHeader("Last-Modified", file.getLastModified());
+    res.setHeader("ETag", etag);
+    if (FileValidators.isNotModified(req, etag, file.getLastModified())) {
+      res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return true;
+    }
+    return false;
   }
 
-  private static boolean isRangeRequest(String rangeRequest) {
-    if (rangeRequest != null) { // bytes=12-34 or bytes=12-
-      return rangeRequest.indexOf("=") > 0 && rangeRequest.indexOf("-") > 0;
+  /**
+   * Send a file, or the byte ranges of it asked for by a Range request. Handles conditional requests.
+   *
+   * @param copier copies parts of the file when it is not on the local file system
+   */
+  private static void sendFile(HttpServletRequest req, HttpServletResponse res, MFile file, String contentType,
+      PartCopier copier) throws IOException {
+    final Path localPath = FileValidators.getLocalPath(file);
+    final String etag = FileValidators.makeETag(file, localPath);
+    if (setValidators(req, res, file, etag))
+      return; // not modified
+
+    final long fileLength = file.getLength();
+    res.setContentType(contentType);
+    // indicate we allow Range Requests
+    res.addHeader("Accept-Ranges", "bytes");
+
+    // If-Range says whether the client still wants the ranges, or else the whole file
+    List<ByteRange> ranges = null;
+    if (FileValidators.isRangeCurrent(req, etag, file.getLastModified()))
+      ranges = ByteRange.parse(req.getHeader("Range"), fileLength, MAX_BYTE_RANGES);
+
+    if (ranges != null && ranges.isEmpty()) {
+      res.setHeader("Content-Range", "bytes */" + fileLength);
+      res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+      return;
     }
 
-    return false;
+    if (ranges != null && ranges.size() > 1) {
+      sendByteRanges(req, res, fileLength, contentType, ranges, localPath, copier);
+      return;
+    }
+
+    ByteRange range = ranges == null ? new ByteRange(0, fileLength) : ranges.get(0);
+    if (ranges != null) {
+      // set before content is sent
+      res.addHeader("Content-Range", range.getContentRange(fileLength));
+      res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    }
+    addContentLengthHeader(res, range.getLength());
+
+    if (req.getMethod().equals("HEAD")) {
+      return;
+    }
+
+    if (localPath != null)
+      sendLocalFile(req, res, localPath, range.start, range.getLength());
+    else
+      copier.copy(res.getOutputStream(), range.start, range.getLength());
   }
 
-  private static long getContentStartPosition(String rangeRequest) {
-    final boolean isRangeRequest = isRangeRequest(rangeRequest);
+  /**
+   * Send several ranges of a file as a multipart/byteranges response.
+   */
+  private static void sendByteRanges(HttpServletRequest req, HttpServletResponse res, long fileLength,
+      String contentType, List<ByteRange> ranges, Path localPath, PartCopier copier) throws IOException {
+    String boundary = "THREDDS_" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+    List<byte[]> partHeaders = new ArrayList<>();
+    long contentLength = 0;
+    for (ByteRange range : ranges) {
+      String partHeader = "\r\n--" + boundary + "\r\nContent-Type: " + contentType + "\r\nContent-Range: "
+          + range.getContentRange(fileLength) + "\r\n\r\n";
+      byte[] bytes = partHeader.getBytes(StandardCharsets.US_ASCII);
+      partHeaders.add(bytes);
+      contentLength += bytes.length + range.getLength();
+    }
+    byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    contentLength += trailer.length;
 
-    if (!isRangeRequest)
-      return 0;
+    res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    res.setContentType("multipart/byteranges; boundary=" + boundary);
+    addContentLengthHeader(res, contentLength);
 
-    // bytes=12-34 or bytes=12-
-    final String startString = rangeRequest.substring(rangeRequest.indexOf("=") + 1, rangeRequest.indexOf("-"));
-    return Long.parseLong(startString);
+    if (req.getMethod().equals("HEAD")) {
+      return;
+    }
+
+    ServletOutputStream out = res.getOutputStream();
+    try (FileChannel channel = localPath == null ? null : FileChannel.open(localPath, StandardOpenOption.READ)) {
+      WritableByteChannel outChannel = Channels.newChannel(out);
+      for (int i = 0; i < ranges.size(); i++) {
+        ByteRange range = ranges.get(i);
+        out.write(partHeaders.get(i));
+        if (channel != null)
+          transferFile(channel, range.start, range.getLength(), outChannel);
+        else
+          copier.copy(out, range.start, range.getLength());
+      }
+    }
+    out.write(trailer);
+  }
+
+  /** Copies part of a file that is not on the local file system. */
+  private interface PartCopier {
+    void copy(OutputStream out, long start, long length) throws IOException;
   }
 
-  private static long getContentEndPosition(String rangeRequest, Long fileLength) {
-    final boolean isRangeRequest = isRangeRequest(rangeRequest);
+  /**
+   * Send part of a local file. When the container supports it (Tomcat with useSendfile), the file is sent by the
+   * container with sendfile() after the servlet returns, without passing through the JVM. Otherwise, it is
+   * transferred from a FileChannel, without copying it through a byte array per request.
+   */
+  private static void sendLocalFile(HttpServletRequest req, HttpServletResponse res, Path path, long start,
+      long length) throws IOException {
+    if (length <= 0)
+      return;
 
-    if (!isRangeRequest)
-      return fileLength;
+    if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+      req.setAttribute(SENDFILE_FILENAME_ATTR, path.toAbsolutePath().toString());
+      req.setAttribute(SENDFILE_START_ATTR, start);
+      req.setAttribute(SENDFILE_END_ATTR, start + length);
+      return;
+    }
 
-    // bytes=12-34 or bytes=12-
-    final String endString = rangeRequest.substring(rangeRequest.indexOf("-") + 1);
-    final long endPosition = endString.length() > 0 ? Long.parseLong(endString) + 1 : fileLength;
-    return Math.min(endPosition, fileLength);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      transferFile(channel, start, length, Channels.newChannel(res.getOutputStream()));
+    }
+  }
+
+  private static void transferFile(FileChannel channel, long start, long length, WritableByteChannel out)
+      throws IOException {
+    long pos = start;
+    long end = start + length;
+    while (pos < end) {
+      long n = channel.transferTo(pos, end - pos, out);
+      if (n <= 0)
+        throw new IOException("File transfer not complete: at " + pos + " of " + end);
+      pos += n;
+    }
+  }
+
+  private static void addContentLengthHeader(HttpServletResponse res, long contentLength) {
+    // when compression is turned on, ContentLength has to be overridden
+    // this is also true for HEAD, since this must be the same as GET without the body
+    if (contentLength > Integer.MAX_VALUE)
+      res.addHeader("Content-Length", Long.toString(contentLength)); // allow content length > MAX_INT
+    else
+      res.setContentLength((int) contentLength);
   }
 
   /**
@@ -308,30 +409,13 @@ public class ServletUtil {
       }
     }
 
-    response.setContentType(getContentType(requestPath, request.getServletContext()));
-    response.addDateHeader("Last-Modified", file.getLastModified());
-    response.addHeader("Accept-Ranges", "bytes");
-
-    final long startPosition = getContentStartPosition(request.getHeader("Range"));
-    final long endPosition = getContentEndPosition(request.getHeader("Range"), file.getLength());
-    final long contentLength = endPosition - startPosition;
-    addContentLengthHeader(response, contentLength);
-
-    if (request.getMethod().equals("HEAD")) {
-      return;
-    }
-
-    ServletOutputStream outputStream = response.getOutputStream();
-
-    if (!isRangeRequest(request.getHeader("Range"))) {
-      file.writeToStream(outputStream);
-      return;
-    }
-
-    response.addHeader("Content-Range", "bytes " + startPosition + "-" + (endPosition - 1) + "/" + file.getLength());
-    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-
-    file.writeToStream(outputStream, startPosition, contentLength);
+    sendFile(request, response, file, getContentType(requestPath, request.getServletContext()),
+        (out, start, length) -> {
+          if (start == 0 && length == file.getLength())
+            file.writeToStream(out);
+          else
+            file.writeToStream(out, start, length);
+        });
   }
 
   /**
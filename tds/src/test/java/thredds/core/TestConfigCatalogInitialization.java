@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import thredds.server.catalog.tracker.CatalogExt;
+import thredds.server.catalog.tracker.CatalogTracker;
+import thredds.server.catalog.tracker.DatasetTrackerNoop;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestConfigCatalogInitialization {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File contentDir;
+  private String trackerDir;
+
+  @Before
+  public void setup() throws IOException {
+    contentDir = tempFolder.newFolder("content");
+    trackerDir = tempFolder.newFolder("tracker").getPath();
+
+    // a refers to b, which the root refers to as well, and c refers back to the root
+    writeCatalog("catalog.xml", "a.xml", "b.xml");
+    writeCatalog("a.xml", "c.xml", "b.xml");
+    writeCatalog("b.xml");
+    writeCatalog("c.xml", "catalog.xml");
+  }
+
+  private void writeCatalog(String name, String... refs) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    sb.append("<catalog name=\"").append(name).append("\"")
+        .append(" xmlns=\"http://www.unidata.ucar.edu/namespaces/thredds/InvCatalog/v1.0\"")
+        .append(" xmlns:xlink=\"http://www.w3.org/1999/xlink\">\n");
+    for (String ref : refs)
+      sb.append("  <catalogRef xlink:href=\"").append(ref).append("\" xlink:title=\"").append(ref)
+          .append("\" name=\"\"/>\n");
+    sb.append("</catalog>\n");
+    Files.write(new File(contentDir, name).toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Map<String, Long> readCatIds() {
+    Map<String, Long> result = new HashMap<>();
+    for (CatalogExt ext : new CatalogTracker(trackerDir, false, 10, 0).getCatalogs())
+      result.put(ext.getCatRelLocation(), ext.getCatId());
+    return result;
+  }
+
+  private void checkCatalogs(ConfigCatalogInitialization.StatCallback callback) {
+    assertThat(callback.stat2.catrefs).isEqualTo(4);
+    // in the order of a sequential depth first read, whatever order the catalogs were parsed in
+    Map<String, Long> catIds = readCatIds();
+    assertThat(catIds).hasSize(4);
+    assertThat(catIds.get("a.xml")).isEqualTo(catIds.get("catalog.xml") + 1);
+    assertThat(catIds.get("c.xml")).isEqualTo(catIds.get("catalog.xml") + 2);
+    assertThat(catIds.get("b.xml")).isEqualTo(catIds.get("catalog.xml") + 3);
+  }
+
+  @Test
+  public void shouldReadCatalogTreeInOrder() throws IOException {
+    ConfigCatalogInitialization.StatCallback callback =
+        new ConfigCatalogInitialization.StatCallback(ConfigCatalogInitialization.ReadMode.always);
+    ConfigCatalogInitialization reader = new ConfigCatalogInitialization(ConfigCatalogInitialization.ReadMode.always,
+        contentDir, trackerDir, new DatasetTrackerNoop(), new AllowedServices(), callback, -1);
+    checkCatalogs(callback);
+
+    // reread with a single read thread, then with several
+    for (int readThreads : new int[] {1, 4}) {
+      reader.setReadThreads(readThreads);
+      callback.stat2 = new ConfigCatalogInitialization.Stats();
+      reader.reread(ConfigCatalogInitialization.ReadMode.always, false);
+      checkCatalogs(callback);
+    }
+  }
+
+  @Test
+  public void shouldReadMoreCatalogsThanReadAhead() throws IOException {
+    // with one read thread, the catalogs of the root are more than can be read ahead of the walk
+    String[] refs = new String[50];
+    for (int i = 0; i < refs.length; i++) {
+      refs[i] = "wide" + i + ".xml";
+      writeCatalog(refs[i], "leaf" + i + ".xml");
+      writeCatalog("leaf" + i + ".xml");
+    }
+    writeCatalog("catalog.xml", refs);
+
+    ConfigCatalogInitialization.StatCallback callback =
+        new ConfigCatalogInitialization.StatCallback(ConfigCatalogInitialization.ReadMode.always);
+    ConfigCatalogInitialization reader = new ConfigCatalogInitialization(ConfigCatalogInitialization.ReadMode.always,
+        contentDir, trackerDir, new DatasetTrackerNoop(), new AllowedServices(), callback, -1);
+    reader.setReadThreads(1);
+    callback.stat2 = new ConfigCatalogInitialization.Stats();
+    reader.reread(ConfigCatalogInitialization.ReadMode.always, false);
+
+    assertThat(callback.stat2.catrefs).isEqualTo(1 + 2 * refs.length);
+    Map<String, Long> catIds = readCatIds();
+    assertThat(catIds).hasSize(1 + 2 * refs.length);
+    for (int i = 0; i < refs.length; i++) {
+      assertThat(catIds.get("wide" + i + ".xml")).isEqualTo(catIds.get("catalog.xml") + 1 + 2 * i);
+      assertThat(catIds.get("leaf" + i + ".xml")).isEqualTo(catIds.get("catalog.xml") + 2 + 2 * i);
+    }
+  }
+}
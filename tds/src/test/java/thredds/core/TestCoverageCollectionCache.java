@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.nc2.ft2.coverage.CoverageCollection;
+import ucar.nc2.ft2.coverage.CoverageDatasetFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestCoverageCollectionCache {
+  private static final String TEST_FILE = "src/test/content/thredds/public/testdata/testGridAsPoint.nc";
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final AtomicInteger opens = new AtomicInteger();
+  private final CoverageCollectionCache.Opener opener = location -> {
+    opens.incrementAndGet();
+    return CoverageDatasetFactory.open(location).getCoverageCollections().get(0);
+  };
+
+  private String location;
+
+  @Before
+  public void copyTestFile() throws IOException {
+    File copy = tempFolder.newFile("grid.nc");
+    Files.copy(Paths.get(TEST_FILE), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    location = copy.getPath();
+  }
+
+  @Test
+  public void shouldReuseReleasedCollection() throws IOException {
+    CoverageCollectionCache cache = new CoverageCollectionCache();
+    cache.init(10);
+
+    CoverageCollection first;
+    try (CoverageCollectionHandle handle = cache.acquire(location, opener)) {
+      first = handle.getCoverageCollection();
+      assertThat(first.getCoverages()).isNotEmpty();
+    }
+    try (CoverageCollectionHandle handle = cache.acquire(location, opener)) {
+      assertThat(handle.getCoverageCollection()).isSameInstanceAs(first);
+      assertThat(handle.getCoverageCollection().getCoverages()).isNotEmpty();
+    }
+
+    assertThat(opens.get()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+    cache.shutdown();
+  }
+
+  @Test
+  public void shouldLendCollectionToOneRequestAtATime() throws IOException {
+    CoverageCollectionCache cache = new CoverageCollectionCache();
+    cache.init(10);
+
+    try (CoverageCollectionHandle handle1 = cache.acquire(location, opener);
+        CoverageCollectionHandle handle2 = cache.acquire(location, opener)) {
+      assertThat(handle2.getCoverageCollection()).isNotSameInstanceAs(handle1.getCoverageCollection());
+    }
+
+    assertThat(opens.get()).isEqualTo(2);
+    assertThat(cache.getIdleCount()).isEqualTo(2);
+    cache.shutdown();
+  }
+
+  @Test
+  public void shouldOnlyReleaseOnceWhenClosedTwice() throws IOException {
+    CoverageCollectionCache cache = new CoverageCollectionCache();
+    cache.init(10);
+
+    CoverageCollectionHandle handle = cache.acquire(location, opener);
+    handle.close();
+    handle.close();
+
+    assertThat(cache.getIdleCount()).isEqualTo(1);
+    cache.shutdown();
+  }
+
+  @Test
+  public void shouldReopenModifiedFile() throws IOException {
+    CoverageCollectionCache cache = new CoverageCollectionCache();
+    cache.init(10);
+
+    cache.acquire(location, opener).close();
+    File file = new File(location);
+    assertThat(file.setLastModified(file.lastModified() - 60 * 1000)).isTrue();
+    cache.acquire(location, opener).close();
+
+    assertThat(opens.get()).isEqualTo(2);
+    assertThat(cache.getInvalidations()).isEqualTo(1);
+    assertThat(cache.getIdleCount()).isEqualTo(1);
+    cache.shutdown();
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsed() throws IOException {
+    CoverageCollectionCache cache = new CoverageCollectionCache();
+    cache.init(1);
+
+    String other = tempFolder.newFile("other.nc").getPath();
+    Files.copy(Paths.get(TEST_FILE), Paths.get(other), StandardCopyOption.REPLACE_EXISTING);
+
+    cache.acquire(location, opener).close();
+    cache.acquire(other, opener).close(); // evicts location
+    cache.acquire(location, opener).close();
+
+    assertThat(opens.get()).isEqualTo(3);
+    assertThat(cache.getEvictions()).isEqualTo(2);
+    assertThat(cache.getIdleCount()).isEqualTo(1);
+    cache.shutdown();
+  }
+
+  @Test
+  public void shouldKeepCollectionsForDifferentKeysApart() throws IOException {
+    CoverageCollectionCache cache = new CoverageCollectionCache();
+    cache.init(10);
+
+    cache.acquire("ncml1", location, opener).close();
+    cache.acquire("ncml2", location, opener).close();
+    cache.acquire("ncml1", location, opener).close();
+
+    assertThat(opens.get()).isEqualTo(2);
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getIdleCount()).isEqualTo(2);
+    cache.shutdown();
+  }
+
+  @Test
+  public void shouldNotCacheWhenTurnedOff() throws IOException {
+    CoverageCollectionCache cache = new CoverageCollectionCache(); // maxFiles is 0 until init
+
+    cache.acquire(location, opener).close();
+    cache.acquire(location, opener).close();
+
+    assertThat(opens.get()).isEqualTo(2);
+    assertThat(cache.getIdleCount()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import thredds.client.catalog.Catalog;
+import thredds.server.catalog.ConfigCatalog;
+import thredds.server.catalog.DatasetScan;
+import thredds.server.catalog.builder.ConfigCatalogBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestDatasetScanCatalogCache {
+  private static final String PATH = "scan";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File dataDir;
+  private File catalogFile;
+  private final AtomicInteger builds = new AtomicInteger();
+
+  @Before
+  public void setup() throws IOException {
+    dataDir = tempFolder.newFolder("data");
+    new File(dataDir, "a.nc").createNewFile();
+    new File(dataDir, "b.nc").createNewFile();
+
+    catalogFile = tempFolder.newFile("catalog.xml");
+    String catalog = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<catalog name=\"test\" xmlns=\"http://www.unidata.ucar.edu/namespaces/thredds/InvCatalog/v1.0\">\n"
+        + "  <service name=\"odap\" serviceType=\"OPENDAP\" base=\"/thredds/dodsC/\"/>\n"
+        + "  <datasetScan name=\"scan\" ID=\"scan\" path=\"" + PATH + "\" location=\"" + dataDir.getAbsolutePath()
+        + "\">\n" + "    <metadata inherited=\"true\"><serviceName>odap</serviceName></metadata>\n"
+        + "  </datasetScan>\n" + "</catalog>\n";
+    Files.write(catalogFile.toPath(), catalog.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private DatasetScan readDatasetScan() throws IOException {
+    ConfigCatalogBuilder builder = new ConfigCatalogBuilder("thredds");
+    ConfigCatalog catalog = (ConfigCatalog) builder.buildFromLocation("file:" + catalogFile.getAbsolutePath(), null);
+    assertThat(catalog).isNotNull();
+    return (DatasetScan) catalog.findDatasetByID("scan");
+  }
+
+  private Catalog get(DatasetScanCatalogCache cache, DatasetScan dscan) throws IOException {
+    return cache.get(dscan, PATH, catalogFile.toURI(), () -> {
+      builds.incrementAndGet();
+      return dscan.makeCatalogForDirectory(PATH, catalogFile.toURI()).makeCatalog();
+    });
+  }
+
+  private static int countFiles(Catalog catalog) {
+    return catalog.getDatasetsLocal().get(0).getDatasetsLocal().size();
+  }
+
+  @Test
+  public void shouldReuseCatalogOfUnchangedDirectory() throws IOException {
+    DatasetScanCatalogCache cache = new DatasetScanCatalogCache();
+    cache.init(1000, 60);
+    DatasetScan dscan = readDatasetScan();
+
+    Catalog first = get(cache, dscan);
+    Catalog second = get(cache, dscan);
+    assertThat(second).isSameInstanceAs(first);
+    assertThat(countFiles(first)).isEqualTo(2);
+    assertThat(builds.get()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRebuildWhenDirectoryChanges() throws IOException {
+    DatasetScanCatalogCache cache = new DatasetScanCatalogCache();
+    cache.init(1000, 60);
+    DatasetScan dscan = readDatasetScan();
+
+    Catalog first = get(cache, dscan);
+    new File(dataDir, "c.nc").createNewFile();
+    // do not depend on the resolution of the file system times
+    assertThat(dataDir.setLastModified(dataDir.lastModified() + 10 * 1000)).isTrue();
+
+    Catalog second = get(cache, dscan);
+    assertThat(second).isNotSameInstanceAs(first);
+    assertThat(countFiles(second)).isEqualTo(3);
+    assertThat(builds.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldRebuildForNewDatasetScan() throws IOException {
+    DatasetScanCatalogCache cache = new DatasetScanCatalogCache();
+    cache.init(1000, 60);
+
+    Catalog first = get(cache, readDatasetScan());
+    Catalog second = get(cache, readDatasetScan()); // as after the config catalogs are read again
+    assertThat(second).isNotSameInstanceAs(first);
+    assertThat(builds.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldAlwaysBuildWhenTurnedOff() throws IOException {
+    DatasetScanCatalogCache cache = new DatasetScanCatalogCache();
+    cache.init(0, 60);
+    DatasetScan dscan = readDatasetScan();
+
+    get(cache, dscan);
+    get(cache, dscan);
+    assertThat(builds.get()).isEqualTo(2);
+    assertThat(cache.getHits()).isEqualTo(0);
+  }
+}
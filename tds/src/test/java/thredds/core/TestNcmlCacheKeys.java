@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.jdom2.Element;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.io.IOException;
+
+public class TestNcmlCacheKeys {
+  private static final String NCML =
+      "<netcdf xmlns='http://www.unidata.ucar.edu/namespaces/netcdf/ncml-2.2' location='%s'>"
+          + "<attribute name='title' value='%s'/></netcdf>";
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldChangeKeyWhenNcmlChanges() throws IOException {
+    String location = tempFolder.newFile("data.nc").getPath();
+    String key1 = NcmlCacheKeys.makeKey("path", NcmlCacheKeys.hash(String.format(NCML, location, "one")), location);
+    String key2 = NcmlCacheKeys.makeKey("path", NcmlCacheKeys.hash(String.format(NCML, location, "one")), location);
+    String key3 = NcmlCacheKeys.makeKey("path", NcmlCacheKeys.hash(String.format(NCML, location, "two")), location);
+
+    assertThat(key2).isEqualTo(key1);
+    assertThat(key3).isNotEqualTo(key1);
+  }
+
+  @Test
+  public void shouldChangeKeyWhenFileIsModified() throws IOException {
+    File file = tempFolder.newFile("data.nc");
+    String hash = NcmlCacheKeys.hash(String.format(NCML, file.getPath(), "one"));
+    String key1 = NcmlCacheKeys.makeKey("path", hash, file.getPath());
+
+    assertThat(file.setLastModified(file.lastModified() - 60 * 1000)).isTrue();
+    String key2 = NcmlCacheKeys.makeKey("path", hash, file.getPath());
+    String key3 = NcmlCacheKeys.makeKey("path", hash, "file:" + file.getPath());
+
+    assertThat(key2).isNotEqualTo(key1);
+    assertThat(key3).isEqualTo(key2);
+  }
+
+  @Test
+  public void shouldNotHaveModifiedTimeForNonFiles() throws IOException {
+    assertThat(NcmlCacheKeys.lastModified(null)).isEqualTo(-1);
+    assertThat(NcmlCacheKeys.lastModified(tempFolder.getRoot().getPath())).isEqualTo(-1);
+    assertThat(NcmlCacheKeys.lastModified("https://example.com/data.nc")).isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldHashEqualElementsTheSame() {
+    Element elem1 = new Element("netcdf").setAttribute("addRecords", "true");
+    Element elem2 = new Element("netcdf").setAttribute("addRecords", "true");
+    Element elem3 = new Element("netcdf").setAttribute("addRecords", "false");
+
+    assertThat(NcmlCacheKeys.hashElement(elem1)).isEqualTo(NcmlCacheKeys.hashElement(elem2));
+    assertThat(NcmlCacheKeys.hashElement(elem1)).isNotEqualTo(NcmlCacheKeys.hashElement(elem3));
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.exp.enhancement.vectorize;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
+import ucar.nc2.Variable;
+import ucar.nc2.dataset.NetcdfDataset;
+import ucar.nc2.dataset.NetcdfDatasets;
+
+public class TestVectorizeBulk {
+  private static final String NCML = "src/test/content/thredds/public/testdata/vectorize/test_dataset.ncml";
+
+  @Test
+  public void shouldComputeEveryElementFromUAndV() throws IOException {
+    try (NetcdfDataset ds = NetcdfDatasets.openDataset(NCML)) {
+      double[] u = (double[]) ds.findVariable("uo").read().get1DJavaArray(DataType.DOUBLE);
+      double[] v = (double[]) ds.findVariable("vo").read().get1DJavaArray(DataType.DOUBLE);
+      Array speed = ds.findVariable("cspd").read();
+      Array dir = ds.findVariable("cdir").read();
+
+      assertThat(speed.getSize()).isEqualTo(u.length);
+      for (int i = 0; i < u.length; i++) {
+        double expected = Math.sqrt(u[i] * u[i] + v[i] * v[i]);
+        assertThat(speed.getDouble(i)).isWithin(1e-5).of(expected);
+        if (expected > 0) {
+          double expectedDir = (Math.toDegrees(Math.atan2(u[i], v[i])) + 360) % 360;
+          assertThat(dir.getDouble(i)).isWithin(1e-3).of(expectedDir);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shouldConvertSection() throws IOException, InvalidRangeException {
+    try (NetcdfDataset ds = NetcdfDatasets.openDataset(NCML)) {
+      Variable cspd = ds.findVariable("cspd");
+      VectorMagnitude magnitude = new VectorMagnitude(cspd);
+      Section section = cspd.getShapeAsSection();
+
+      Array bulk = magnitude.convertSection(section);
+      Array speed = cspd.read();
+
+      assertThat(bulk.getShape()).isEqualTo(cspd.getShape());
+      for (int i = 0; i < speed.getSize(); i++) {
+        assertThat(bulk.getDouble(i)).isWithin(1e-5).of(speed.getDouble(i));
+      }
+    }
+  }
+
+  @Test
+  public void shouldConvertSingleIndices() throws IOException {
+    try (NetcdfDataset ds = NetcdfDatasets.openDataset(NCML)) {
+      Variable cspd = ds.findVariable("cspd");
+      VectorMagnitude magnitude = new VectorMagnitude(cspd);
+      Array speed = cspd.read();
+
+      for (int i = (int) speed.getSize() - 1; i >= 0; i -= 7) {
+        assertThat(magnitude.convert(i)).isWithin(1e-5).of(speed.getDouble(i));
+      }
+    }
+  }
+}
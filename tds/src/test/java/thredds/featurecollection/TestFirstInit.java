@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.featurecollection;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import thredds.client.catalog.builder.CatalogBuilder;
+import thredds.client.catalog.builder.DatasetBuilder;
+import thredds.core.AllowedServices;
+import thredds.inventory.CollectionUpdateType;
+import thredds.server.catalog.FeatureCollectionRef;
+import thredds.server.exception.ServiceUnavailableException;
+
+/** The first initialization of a feature collection in the warm-up pool, as seen by request threads. */
+public class TestFirstInit {
+  private static final int RETRY_AFTER = 7;
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private ExecutorService pool;
+
+  /** A collection whose first initialization can be held back or made to fail. */
+  private class TestCollection extends InvDatasetFeatureCollection {
+    final AtomicInteger inits = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    volatile boolean held;
+    volatile int failures;
+
+    TestCollection() {
+      super(mock(FeatureCollectionRef.class), new FeatureCollectionConfig("test", "test/path",
+          FeatureCollectionType.Point, tempFolder.getRoot().getPath() + "/.*nc$", null, null, null, null, null));
+      state = new State(null);
+    }
+
+    @Override
+    protected void updateCollection(State localState, CollectionUpdateType force) {
+      inits.incrementAndGet();
+      if (held) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      if (failures > 0) {
+        failures--;
+        throw new IllegalStateException("first initialization failed");
+      }
+    }
+
+    @Override
+    public CatalogBuilder makeCatalog(String match, String orgPath, URI catURI) {
+      return null;
+    }
+
+    @Override
+    protected DatasetBuilder makeDatasetTop(URI catURI, State localState) {
+      return null;
+    }
+  }
+
+  @Before
+  public void setup() {
+    InvDatasetFeatureCollection.setAllowedServices(mock(AllowedServices.class));
+    pool = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    InvDatasetFeatureCollection.setFirstInitExecutor(null, 0, 0);
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void shouldInitializeInRequestThreadWithoutPool() throws IOException {
+    TestCollection collection = new TestCollection();
+    assertThat(collection.checkState()).isNotNull();
+    assertThat(collection.checkState()).isNotNull();
+    assertThat(collection.inits.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldBeUnavailableUntilInitialized() throws Exception {
+    InvDatasetFeatureCollection.setFirstInitExecutor(pool, 50, RETRY_AFTER);
+    TestCollection collection = new TestCollection();
+    collection.held = true;
+
+    ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class, collection::checkState);
+    assertThat(e.getRetryAfterSecs()).isEqualTo(RETRY_AFTER);
+    // a second request waits on the same initialization
+    assertThrows(ServiceUnavailableException.class, collection::checkState);
+
+    CompletableFuture<Void> future = collection.startFirstInit();
+    collection.release.countDown();
+    future.get(10, TimeUnit.SECONDS);
+    assertThat(collection.checkState()).isNotNull();
+    assertThat(collection.inits.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRetryFailedInitialization() throws IOException {
+    InvDatasetFeatureCollection.setFirstInitExecutor(Runnable::run, 1000, RETRY_AFTER);
+    TestCollection collection = new TestCollection();
+    collection.failures = 1;
+
+    IOException e = assertThrows(IOException.class, collection::checkState);
+    assertThat(e).hasCauseThat().isInstanceOf(IllegalStateException.class);
+
+    assertThat(collection.checkState()).isNotNull();
+    assertThat(collection.inits.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldBeUnavailableWhenPoolRejects() throws IOException {
+    InvDatasetFeatureCollection.setFirstInitExecutor(command -> {
+      throw new RejectedExecutionException("full");
+    }, 1000, RETRY_AFTER);
+    TestCollection collection = new TestCollection();
+
+    ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class, collection::checkState);
+    assertThat(e.getRetryAfterSecs()).isEqualTo(RETRY_AFTER);
+    assertThat(collection.inits.get()).isEqualTo(0);
+
+    // once the pool takes it, the initialization runs
+    InvDatasetFeatureCollection.setFirstInitExecutor(pool, 10 * 1000, RETRY_AFTER);
+    assertThat(collection.checkState()).isNotNull();
+    assertThat(collection.inits.get()).isEqualTo(1);
+  }
+}
@@ -9,6 +9,10 @@ import static com.google.common.truth.Truth.assertThat;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
 import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
@@ -57,4 +61,73 @@ public class TestGridInventoryDiskPersistedCache {
     assertThat(retrievedGridDatasetInv.getVertCoords().size()).isEqualTo(gridDatasetInv.getVertCoords().size());
     assertThat(retrievedGridDatasetInv.findGrid("Z_sfc")).isNotNull();
   }
+
+  @Test
+  public void shouldMigrateXmlEntry() throws IOException {
+    GridInventoryDiskPersistedCache.init(tempFolder.getRoot().toPath());
+    final GridInventoryDiskPersistedCache cache = new GridInventoryDiskPersistedCache();
+    final MFile mFile = new MFileOS(GRID_FILE);
+    final GridDatasetInv gridDatasetInv = new GridDatasetInv(GridDataset.openIfce(mFile.getPath()), CalendarDate.of(0));
+    final String xml = gridDatasetInv.writeCompactXML(new Date(mFile.getLastModified()));
+    GridInventoryDiskPersistedCache.putEntry(mFile.getPath(), xml.getBytes(StandardCharsets.UTF_8));
+
+    final GridDatasetInv retrievedGridDatasetInv = cache.get(mFile);
+    assertThat(retrievedGridDatasetInv).isNotNull();
+    assertThat(retrievedGridDatasetInv.findGrid("Z_sfc")).isNotNull();
+
+    final GridInventoryEntry entry =
+        GridInventoryEntry.decode(GridInventoryDiskPersistedCache.getEntry(mFile.getPath()));
+    assertThat(entry).isNotNull();
+    assertThat(entry.isLegacy()).isFalse();
+    assertThat(entry.getLastModified()).isEqualTo(mFile.getLastModified());
+    assertThat(new String(entry.getXml(), StandardCharsets.UTF_8)).isEqualTo(xml);
+  }
+
+  @Test
+  public void shouldRemoveOutOfDateEntry() throws IOException {
+    GridInventoryDiskPersistedCache.init(tempFolder.getRoot().toPath());
+    final GridInventoryDiskPersistedCache cache = new GridInventoryDiskPersistedCache();
+    final File copy = tempFolder.newFile("testData.nc");
+    Files.copy(new File(GRID_FILE).toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    final MFile mFile = new MFileOS(copy.getPath());
+    cache.put(mFile, new GridDatasetInv(GridDataset.openIfce(mFile.getPath()), CalendarDate.of(0)));
+
+    assertThat(copy.setLastModified(copy.lastModified() + 10 * 1000)).isTrue();
+    assertThat(cache.get(new MFileOS(copy.getPath()))).isNull();
+    assertThat(GridInventoryDiskPersistedCache.getEntry(mFile.getPath())).isNull();
+  }
+
+  @Test
+  public void shouldNotParseUnchangedEntryAgain() throws IOException {
+    GridInventoryDiskPersistedCache.init(tempFolder.getRoot().toPath());
+    final GridInventoryDiskPersistedCache cache = new GridInventoryDiskPersistedCache();
+    final File copy = tempFolder.newFile("testData.nc");
+    Files.copy(new File(GRID_FILE).toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    final MFile mFile = new MFileOS(copy.getPath());
+    cache.put(mFile, new GridDatasetInv(GridDataset.openIfce(mFile.getPath()), CalendarDate.of(0)));
+
+    final GridDatasetInv first = cache.get(mFile);
+    assertThat(first).isNotNull();
+    assertThat(cache.get(new MFileOS(copy.getPath()))).isSameInstanceAs(first);
+
+    // a changed file is not answered from memory
+    assertThat(copy.setLastModified(copy.lastModified() + 10 * 1000)).isTrue();
+    assertThat(cache.get(new MFileOS(copy.getPath()))).isNull();
+    assertThat(GridInventoryDiskPersistedCache.getEntry(mFile.getPath())).isNull();
+  }
+
+  @Test
+  public void shouldRoundTripEntry() throws IOException {
+    final byte[] xml = "<gridInventory/>".getBytes(StandardCharsets.UTF_8);
+    final GridInventoryEntry entry = GridInventoryEntry.decode(GridInventoryEntry.encode(1234567L, xml));
+    assertThat(entry).isNotNull();
+    assertThat(entry.isLegacy()).isFalse();
+    assertThat(entry.getLastModified()).isEqualTo(1234567L);
+    assertThat(entry.getXml()).isEqualTo(xml);
+
+    final GridInventoryEntry legacy = GridInventoryEntry.decode(xml);
+    assertThat(legacy).isNotNull();
+    assertThat(legacy.isLegacy()).isTrue();
+    assertThat(legacy.getXml()).isEqualTo(xml);
+  }
 }
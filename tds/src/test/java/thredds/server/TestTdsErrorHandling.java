@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import thredds.server.exception.ServiceUnavailableException;
+
+public class TestTdsErrorHandling {
+
+  @Test
+  public void shouldReturnServiceUnavailableWithRetryAfter() {
+    ResponseEntity<String> response =
+        new TdsErrorHandling().handle(new ServiceUnavailableException("FeatureCollection fc is not ready", 30));
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+    assertThat(response.getBody()).contains("FeatureCollection fc is not ready");
+  }
+}
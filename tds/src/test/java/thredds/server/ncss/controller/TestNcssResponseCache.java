@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.ncss.controller;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestNcssResponseCache {
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static NcssResponseCache.ResponseWriter writerOf(String content, AtomicInteger count) {
+    return target -> {
+      count.incrementAndGet();
+      Files.write(target.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    };
+  }
+
+  private static String read(NcssResponseCache.Response response) throws IOException {
+    try (InputStream in = response.getInputStream()) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  public void shouldKeyOnDatasetVersionAndRequest() {
+    String key = NcssResponseCache.makeKey("path/file.nc", 100, "var=a;");
+    assertThat(key).isEqualTo(NcssResponseCache.makeKey("path/file.nc", 100, "var=a;"));
+    assertThat(key).isNotEqualTo(NcssResponseCache.makeKey("path/file.nc", 101, "var=a;"));
+    assertThat(key).isNotEqualTo(NcssResponseCache.makeKey("path/file.nc", 100, "var=b;"));
+    assertThat(key).isNotEqualTo(NcssResponseCache.makeKey("path/other.nc", 100, "var=a;"));
+  }
+
+  @Test
+  public void shouldServeHitsWithoutRewriting() throws Exception {
+    NcssResponseCache cache = new NcssResponseCache(tempFolder.newFolder(), 1000);
+    AtomicInteger count = new AtomicInteger();
+
+    try (NcssResponseCache.Response response = cache.get("k1", writerOf("hello", count))) {
+      assertThat(read(response)).isEqualTo("hello");
+      assertThat(response.getSize()).isEqualTo(5);
+      assertThat(response.getETag()).isEqualTo("\"k1\"");
+    }
+    try (NcssResponseCache.Response response = cache.get("k1", writerOf("other", count))) {
+      assertThat(read(response)).isEqualTo("hello");
+    }
+
+    assertThat(count.get()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsed() throws Exception {
+    NcssResponseCache cache = new NcssResponseCache(tempFolder.newFolder(), 10);
+    AtomicInteger count = new AtomicInteger();
+
+    cache.get("a", writerOf("aaaa", count)).close();
+    cache.get("b", writerOf("bbbb", count)).close();
+    cache.get("a", writerOf("aaaa", count)).close(); // a is now most recently used
+    cache.get("c", writerOf("cccc", count)).close(); // evicts b
+    assertThat(count.get()).isEqualTo(3);
+    assertThat(cache.getEvictions()).isEqualTo(1);
+
+    cache.get("a", writerOf("aaaa", count)).close();
+    assertThat(count.get()).isEqualTo(3);
+    cache.get("b", writerOf("bbbb", count)).close();
+    assertThat(count.get()).isEqualTo(4);
+  }
+
+  @Test
+  public void shouldNotCacheResponsesLargerThanCache() throws Exception {
+    File dir = tempFolder.newFolder();
+    NcssResponseCache cache = new NcssResponseCache(dir, 3);
+    AtomicInteger count = new AtomicInteger();
+
+    try (NcssResponseCache.Response response = cache.get("big", writerOf("too big", count))) {
+      assertThat(read(response)).isEqualTo("too big");
+    }
+    cache.get("big", writerOf("too big", count)).close();
+
+    assertThat(count.get()).isEqualTo(2);
+    assertThat(dir.listFiles()).isEmpty();
+  }
+
+  @Test
+  public void shouldCoalesceConcurrentRequests() throws Exception {
+    NcssResponseCache cache = new NcssResponseCache(tempFolder.newFolder(), 1000);
+    AtomicInteger count = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    NcssResponseCache.ResponseWriter slowWriter = target -> {
+      count.incrementAndGet();
+      release.await(10, TimeUnit.SECONDS);
+      Files.write(target.toPath(), "slow".getBytes(StandardCharsets.UTF_8));
+    };
+
+    int nthreads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(nthreads);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < nthreads; i++) {
+        results.add(executor.submit(() -> {
+          try (NcssResponseCache.Response response = cache.get("same", slowWriter)) {
+            return read(response);
+          }
+        }));
+      }
+      Thread.sleep(200);
+      release.countDown();
+
+      for (Future<String> result : results)
+        assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("slow");
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(count.get()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+    assertThat(cache.getHits() + cache.getCoalesced()).isEqualTo(nthreads - 1);
+  }
+
+  @Test
+  public void shouldCacheStreamedResponseAsItIsSent() throws Exception {
+    NcssResponseCache cache = new NcssResponseCache(tempFolder.newFolder(), 1000);
+    byte[] content = "streamed".getBytes(StandardCharsets.UTF_8);
+
+    ByteArrayOutputStream client = new ByteArrayOutputStream();
+    try (NcssResponseCache.Pending pending = cache.startPut("s", content.length)) {
+      OutputStream out = pending.tee(client);
+      out.write(content, 0, 3);
+      out.write(content[3]);
+      out.write(content, 4, content.length - 4);
+      pending.commit();
+    }
+    assertThat(client.toByteArray()).isEqualTo(content);
+
+    try (NcssResponseCache.Response response = cache.getIfPresent("s")) {
+      assertThat(read(response)).isEqualTo("streamed");
+    }
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotCacheIncompleteOrOversizedStream() throws Exception {
+    File dir = tempFolder.newFolder();
+    NcssResponseCache cache = new NcssResponseCache(dir, 10);
+    assertThat(cache.startPut("big", 11)).isNull();
+
+    try (NcssResponseCache.Pending pending = cache.startPut("broken", 5)) {
+      pending.tee(new ByteArrayOutputStream()).write(new byte[] {1, 2}, 0, 2);
+      // the client went away before the response was complete, so it is not committed
+    }
+    assertThat(cache.getIfPresent("broken")).isNull();
+    assertThat(dir.listFiles()).isEmpty();
+  }
+
+  @Test
+  public void shouldOnlyDeleteItsOwnFiles() throws Exception {
+    File dir = tempFolder.newFolder();
+    File other = new File(dir, "other.nc");
+    Files.write(other.toPath(), "keep".getBytes(StandardCharsets.UTF_8));
+    NcssResponseCache cache = new NcssResponseCache(dir, 1000);
+    cache.get("k", writerOf("cached", new AtomicInteger())).close();
+
+    new NcssResponseCache(dir, 1000);
+    assertThat(dir.list()).asList().containsExactly("other.nc");
+  }
+
+  @Test
+  public void shouldPropagateWriterFailure() throws Exception {
+    NcssResponseCache cache = new NcssResponseCache(tempFolder.newFolder(), 1000);
+    try {
+      cache.get("bad", target -> {
+        throw new IOException("cant write");
+      });
+      fail("expected IOException");
+    } catch (IOException e) {
+      assertThat(e.getMessage()).isEqualTo("cant write");
+    }
+
+    AtomicInteger count = new AtomicInteger();
+    try (NcssResponseCache.Response response = cache.get("bad", writerOf("ok", count))) {
+      assertThat(read(response)).isEqualTo("ok");
+    }
+    assertThat(count.get()).isEqualTo(1);
+  }
+}
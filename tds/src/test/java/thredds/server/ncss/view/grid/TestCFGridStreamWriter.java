@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.ncss.view.grid;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ucar.nc2.Attribute;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.Variable;
+import ucar.nc2.constants.CDM;
+import ucar.nc2.ft2.coverage.Coverage;
+import ucar.nc2.ft2.coverage.CoverageCollection;
+import ucar.nc2.ft2.coverage.CoverageDatasetFactory;
+import ucar.nc2.ft2.coverage.FeatureDatasetCoverage;
+import ucar.nc2.ft2.coverage.SubsetParams;
+import ucar.nc2.ft2.coverage.writer.CFGridCoverageWriter;
+import ucar.nc2.write.NetcdfFileFormat;
+import ucar.nc2.write.NetcdfFormatWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class TestCFGridStreamWriter {
+  private static final String TEST_FILE = "src/test/content/thredds/public/testdata/2004050300_eta_211.nc";
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldWriteSameFileAsCFGridCoverageWriter() throws Exception {
+    try (FeatureDatasetCoverage fdc = CoverageDatasetFactory.open(TEST_FILE)) {
+      CoverageCollection gcd = fdc.getCoverageCollections().get(0);
+      List<String> gridNames = new ArrayList<>();
+      for (Coverage grid : gcd.getCoverages())
+        gridNames.add(grid.getName());
+      SubsetParams subset = new SubsetParams();
+
+      File expected = tempFolder.newFile("expected.nc");
+      NetcdfFormatWriter.Builder writerb =
+          NetcdfFormatWriter.builder().setLocation(expected.getPath()).setFormat(NetcdfFileFormat.NETCDF3);
+      assertThat(CFGridCoverageWriter.write(gcd, gridNames, subset, false, writerb, -1).wasWritten()).isTrue();
+
+      Optional<Netcdf3StreamWriter> streamer = CFGridStreamWriter.create(gcd, gridNames, subset, false);
+      assertThat(streamer.isPresent()).isTrue();
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      streamer.get().write(bos);
+
+      try (NetcdfFile want = NetcdfFiles.open(expected.getPath());
+          NetcdfFile got = NetcdfFiles.openInMemory("streamed.nc", bos.toByteArray())) {
+        assertSameAttributes("global", want.getGlobalAttributes(), got.getGlobalAttributes());
+
+        for (Dimension dim : want.getDimensions()) {
+          Dimension gotDim = got.findDimension(dim.getShortName());
+          assertWithMessage("dimension %s", dim.getShortName()).that(gotDim).isNotNull();
+          assertWithMessage("dimension %s", dim.getShortName()).that(gotDim.getLength()).isEqualTo(dim.getLength());
+        }
+        assertThat(got.getDimensions()).hasSize(want.getDimensions().size());
+
+        for (Variable v : want.getVariables()) {
+          Variable gotVar = got.findVariable(v.getFullName());
+          assertWithMessage("variable %s", v.getFullName()).that(gotVar).isNotNull();
+          assertWithMessage("type of %s", v.getFullName()).that(gotVar.getDataType()).isEqualTo(v.getDataType());
+          assertWithMessage("dimensions of %s", v.getFullName()).that(gotVar.getDimensionsString())
+              .isEqualTo(v.getDimensionsString());
+          assertSameAttributes(v.getFullName(), v.attributes(), gotVar.attributes());
+          assertWithMessage("data of %s", v.getFullName()).that(gotVar.read().copyTo1DJavaArray())
+              .isEqualTo(v.read().copyTo1DJavaArray());
+        }
+        assertThat(got.getVariables()).hasSize(want.getVariables().size());
+      }
+    }
+  }
+
+  // the history records who translated the file and when, everything else should be the same
+  private static void assertSameAttributes(String where, Iterable<Attribute> want, Iterable<Attribute> got) {
+    List<Attribute> wantList = new ArrayList<>();
+    for (Attribute att : want) {
+      if (!att.getShortName().equalsIgnoreCase(CDM.HISTORY))
+        wantList.add(att);
+    }
+    List<Attribute> gotList = new ArrayList<>();
+    for (Attribute att : got) {
+      if (!att.getShortName().equalsIgnoreCase(CDM.HISTORY))
+        gotList.add(att);
+    }
+    assertWithMessage("attributes of %s", where).that(gotList).containsExactlyElementsIn(wantList);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.ncss.view.grid;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.nc2.Attribute;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.Variable;
+import ucar.nc2.constants.CDM;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TestNetcdf3StreamWriter {
+
+  private static Netcdf3StreamWriter makeWriter(boolean force64bitOffset) {
+    Netcdf3StreamWriter writer = new Netcdf3StreamWriter(force64bitOffset);
+    writer.addGlobalAttribute(new Attribute("title", "streamed"));
+    writer.addDimension("y", 3);
+    writer.addDimension("x", 5);
+    writer.addVariable("x", DataType.DOUBLE, Collections.singletonList("x"),
+        Collections.singletonList(new Attribute("units", "km")),
+        () -> Array.makeArray(DataType.DOUBLE, 5, 0.0, 1.5));
+    writer.addVariable("y", DataType.SHORT, Collections.singletonList("y"), null,
+        () -> Array.makeArray(DataType.SHORT, 3, 10, 1));
+    writer.addVariable("projection", DataType.INT, Collections.emptyList(),
+        Collections.singletonList(new Attribute("scale", Arrays.asList(1.0f, 2.0f))),
+        () -> Array.factory(DataType.INT, new int[0]));
+    writer.addVariable("data", DataType.FLOAT, Arrays.asList("y", "x"), null,
+        () -> Array.makeArray(DataType.FLOAT, 15, 0.0, 0.25).reshape(new int[] {3, 5}));
+    writer.addVariable("flag", DataType.BYTE, Collections.singletonList("y"), null,
+        () -> Array.makeArray(DataType.BYTE, 3, 1, 1));
+    return writer;
+  }
+
+  @Test
+  public void shouldWriteReadableClassicFile() throws Exception {
+    Netcdf3StreamWriter writer = makeWriter(false);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    writer.write(bos);
+
+    assertThat(writer.getVersion()).isEqualTo(1);
+    assertThat((long) bos.size()).isEqualTo(writer.getSize());
+
+    try (NetcdfFile ncfile = NetcdfFiles.openInMemory("stream.nc", bos.toByteArray())) {
+      assertThat(ncfile.getFileTypeId()).isEqualTo("NetCDF");
+      assertThat(ncfile.findGlobalAttribute("title").getStringValue()).isEqualTo("streamed");
+
+      Variable x = ncfile.findVariable("x");
+      assertThat(x.findAttribute("units").getStringValue()).isEqualTo("km");
+      assertThat(x.read().getDouble(4)).isEqualTo(6.0);
+
+      assertThat(ncfile.findVariable("y").read().getShort(2)).isEqualTo((short) 12);
+      assertThat(ncfile.findVariable("projection").findAttribute("scale").getNumericValue(1).floatValue())
+          .isEqualTo(2.0f);
+
+      Variable data = ncfile.findVariable("data");
+      assertThat(data.getShape()).isEqualTo(new int[] {3, 5});
+      assertThat(data.read().getFloat(14)).isEqualTo(3.5f);
+
+      // odd sized variable is padded correctly
+      assertThat(ncfile.findVariable("flag").read().getByte(2)).isEqualTo((byte) 3);
+    }
+  }
+
+  @Test
+  public void shouldWrite64bitOffsetWhenRequested() throws Exception {
+    Netcdf3StreamWriter writer = makeWriter(true);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    writer.write(bos);
+
+    assertThat(writer.getVersion()).isEqualTo(2);
+    assertThat((long) bos.size()).isEqualTo(writer.getSize());
+    assertThat(bos.toByteArray()[3]).isEqualTo((byte) 2);
+
+    try (NetcdfFile ncfile = NetcdfFiles.openInMemory("stream64.nc", bos.toByteArray())) {
+      List<Variable> vars = ncfile.getVariables();
+      assertThat(vars).hasSize(5);
+      assertThat(ncfile.findVariable("data").read().getFloat(7)).isEqualTo(1.75f);
+    }
+  }
+
+  @Test
+  public void shouldMarkUnsignedVariables() throws Exception {
+    Netcdf3StreamWriter writer = new Netcdf3StreamWriter(false);
+    writer.addDimension("x", 2);
+    writer.addVariable("count", DataType.USHORT, Collections.singletonList("x"), null,
+        () -> Array.factory(DataType.USHORT, new int[] {2}, new short[] {1, (short) 65535}));
+    writer.addVariable("mask", DataType.UBYTE, Collections.singletonList("x"),
+        Collections.singletonList(new Attribute(CDM.UNSIGNED, "true")),
+        () -> Array.factory(DataType.UBYTE, new int[] {2}, new byte[] {0, (byte) 255}));
+    writer.addVariable("signed", DataType.SHORT, Collections.singletonList("x"), null,
+        () -> Array.factory(DataType.SHORT, new int[] {2}, new short[] {1, -1}));
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    writer.write(bos);
+
+    try (NetcdfFile ncfile = NetcdfFiles.openInMemory("unsigned.nc", bos.toByteArray())) {
+      Variable count = ncfile.findVariable("count");
+      assertThat(count.findAttribute(CDM.UNSIGNED).getStringValue()).isEqualTo("true");
+      assertThat(count.read().getShort(1)).isEqualTo((short) 65535);
+
+      // not added again when the source already has it
+      int nunsigned = 0;
+      for (Attribute att : ncfile.findVariable("mask").attributes()) {
+        if (att.getShortName().equals(CDM.UNSIGNED))
+          nunsigned++;
+      }
+      assertThat(nunsigned).isEqualTo(1);
+
+      assertThat(ncfile.findVariable("signed").findAttribute(CDM.UNSIGNED)).isNull();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectUnknownDimension() {
+    new Netcdf3StreamWriter(false).addVariable("v", DataType.INT, Collections.singletonList("nope"), null,
+        () -> Array.factory(DataType.INT, new int[] {1}));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectTypesNotInNetcdf3() {
+    new Netcdf3StreamWriter(false).addVariable("s", DataType.STRING, Collections.emptyList(), null,
+        () -> Array.factory(DataType.STRING, new int[0]));
+  }
+}
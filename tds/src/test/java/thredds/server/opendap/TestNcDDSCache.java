@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.opendap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import opendap.dap.BaseType;
+import opendap.servers.ServerDDS;
+import org.junit.Test;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+import ucar.nc2.Variable;
+import ucar.nc2.dataset.NetcdfDatasets;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+public class TestNcDDSCache {
+  private static final String TEST_FILE = "src/test/content/thredds/public/testdata/testGridAsPoint.nc";
+  private static final String PATH = "localContent/testGridAsPoint.nc";
+
+  @Test
+  public void shouldReuseTemplatesForSameFile() throws IOException {
+    NcDDSCache cache = new NcDDSCache();
+    cache.init(10);
+
+    try (NetcdfFile ncfile = NetcdfFiles.open(TEST_FILE)) {
+      GuardedDatasetCacheAndClone ds1 = new GuardedDatasetCacheAndClone(PATH, ncfile, false, cache);
+      GuardedDatasetCacheAndClone ds2 = new GuardedDatasetCacheAndClone(PATH, ncfile, false, cache);
+
+      ServerDDS dds1 = ds1.getDDS();
+      ServerDDS dds2 = ds2.getDDS();
+      assertThat(dds2).isNotSameInstanceAs(dds1);
+      assertThat(dds2.getEncodedName()).isEqualTo(dds1.getEncodedName());
+      assertThat(dds2.numVariables()).isEqualTo(dds1.numVariables());
+    }
+
+    assertThat(cache.getMisses()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldReuseTemplatesForAnotherFileObject() throws IOException {
+    NcDDSCache cache = new NcDDSCache();
+    cache.init(10);
+
+    try (NetcdfFile ncfile = NetcdfFiles.open(TEST_FILE)) {
+      new GuardedDatasetCacheAndClone(PATH, ncfile, false, cache);
+    }
+    try (NetcdfFile ncfile = NetcdfFiles.open(TEST_FILE)) {
+      NcDDSCache.Templates templates = cache.get(PATH, ncfile);
+      List<BaseType> nodes = NcDDSCache.nodes(templates.dds);
+      int bound = 0;
+      for (BaseType bt : nodes) {
+        if (bt instanceof HasNetcdfVariable) {
+          Variable v = ((HasNetcdfVariable) bt).getVariable();
+          if (v != null) {
+            assertThat(ncfile.findVariable(v.getFullNameEscaped())).isSameInstanceAs(v);
+            bound++;
+          }
+        }
+      }
+      assertThat(bound).isGreaterThan(0);
+    }
+
+    assertThat(cache.getMisses()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotKeepVariablesInCache() throws IOException {
+    NcDDSCache cache = new NcDDSCache();
+    cache.init(10);
+
+    try (NetcdfFile ncfile = NetcdfFiles.open(TEST_FILE)) {
+      NcDDSCache.Templates templates = cache.get(PATH, ncfile);
+      // the request still has its Variables
+      boolean hasVariable = false;
+      for (BaseType bt : NcDDSCache.nodes(templates.dds)) {
+        if (bt instanceof HasNetcdfVariable && ((HasNetcdfVariable) bt).getVariable() != null)
+          hasVariable = true;
+      }
+      assertThat(hasVariable).isTrue();
+    }
+
+    NcDDSCache.Entry entry = cache.getEntry(PATH);
+    assertThat(entry).isNotNull();
+    for (BaseType bt : NcDDSCache.nodes(entry.dds)) {
+      if (bt instanceof HasNetcdfVariable)
+        assertThat(((HasNetcdfVariable) bt).getVariable()).isNull();
+    }
+  }
+
+  private static NetcdfFile openWithTitle(String title) throws IOException {
+    String ncml = "<netcdf xmlns=\"http://www.unidata.ucar.edu/namespaces/netcdf/ncml-2.2\" location=\""
+        + new File(TEST_FILE).getAbsolutePath() + "\"><attribute name=\"title\" value=\"" + title + "\"/></netcdf>";
+    return NetcdfDatasets.openNcmlDataset(new StringReader(ncml), null, null);
+  }
+
+  @Test
+  public void shouldRebuildWhenNcmlChangesAttributes() throws IOException {
+    NcDDSCache cache = new NcDDSCache();
+    cache.init(10);
+
+    // the wrapped file, and so the last modified time, stays the same
+    try (NetcdfFile ncfile = openWithTitle("first")) {
+      cache.get(PATH, ncfile);
+    }
+    try (NetcdfFile ncfile = openWithTitle("second")) {
+      cache.get(PATH, ncfile);
+    }
+    assertThat(cache.getMisses()).isEqualTo(2);
+    assertThat(cache.getHits()).isEqualTo(0);
+
+    try (NetcdfFile ncfile = openWithTitle("second")) {
+      cache.get(PATH, ncfile);
+    }
+    assertThat(cache.getHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotCacheWhenTurnedOff() throws IOException {
+    NcDDSCache cache = new NcDDSCache(); // turned off until init
+
+    try (NetcdfFile ncfile = NetcdfFiles.open(TEST_FILE)) {
+      new GuardedDatasetCacheAndClone(PATH, ncfile, false, cache);
+      new GuardedDatasetCacheAndClone(PATH, ncfile, false, cache);
+    }
+
+    assertThat(cache.getMisses()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.opendap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import opendap.dap.BaseType;
+import opendap.dap.DConstructor;
+import org.junit.Test;
+import thredds.server.ncss.view.grid.Netcdf3StreamWriter;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFiles;
+
+public class TestXdrArrayWriter {
+  // more than one buffer full
+  private static final int N = 100 * 1000 + 3;
+  private final Random random = new Random(17);
+
+  @Test
+  public void shouldWriteFloatsLikeDataOutputStream() throws IOException {
+    float[] vals = new float[N];
+    for (int i = 0; i < N; i++)
+      vals[i] = random.nextFloat() - 0.5f;
+    vals[3] = Float.NaN;
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(expected);
+    for (float val : vals)
+      out.writeFloat(val);
+
+    assertThat(write(vals, false)).isEqualTo(expected.toByteArray());
+  }
+
+  @Test
+  public void shouldWriteDoublesLikeDataOutputStream() throws IOException {
+    double[] vals = new double[N];
+    for (int i = 0; i < N; i++)
+      vals[i] = random.nextGaussian();
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(expected);
+    for (double val : vals)
+      out.writeDouble(val);
+
+    assertThat(write(vals, false)).isEqualTo(expected.toByteArray());
+  }
+
+  @Test
+  public void shouldWriteIntsLikeDataOutputStream() throws IOException {
+    int[] vals = new int[N];
+    for (int i = 0; i < N; i++)
+      vals[i] = random.nextInt();
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(expected);
+    for (int val : vals)
+      out.writeInt(val);
+
+    assertThat(write(vals, false)).isEqualTo(expected.toByteArray());
+  }
+
+  @Test
+  public void shouldWriteShortsAsInts() throws IOException {
+    short[] vals = {0, 1, -1, Short.MAX_VALUE, Short.MIN_VALUE};
+
+    ByteArrayOutputStream signed = new ByteArrayOutputStream();
+    ByteArrayOutputStream unsigned = new ByteArrayOutputStream();
+    for (short val : vals) {
+      new DataOutputStream(signed).writeInt(val);
+      new DataOutputStream(unsigned).writeInt(val & 0xffff);
+    }
+
+    assertThat(write(vals, false)).isEqualTo(signed.toByteArray());
+    assertThat(write(vals, true)).isEqualTo(unsigned.toByteArray());
+  }
+
+  @Test
+  public void shouldPadBytesToMultipleOfFour() throws IOException {
+    assertThat(write(new byte[] {1, 2, 3, 4, 5}, false)).isEqualTo(new byte[] {1, 2, 3, 4, 5, 0, 0, 0});
+    assertThat(write(new byte[] {1, 2, 3, 4}, false)).isEqualTo(new byte[] {1, 2, 3, 4});
+    assertThat(write(new byte[0], false)).isEmpty();
+  }
+
+  @Test
+  public void shouldWriteArraysLikePrimitiveVector() throws Exception {
+    DataType[] types = {DataType.BYTE, DataType.UBYTE, DataType.SHORT, DataType.USHORT, DataType.INT, DataType.UINT,
+        DataType.FLOAT, DataType.DOUBLE};
+
+    // an odd length, so that bytes are padded, and more than one buffer full
+    Netcdf3StreamWriter writer = new Netcdf3StreamWriter(false);
+    writer.addDimension("n", N);
+    for (DataType type : types) {
+      Array data = Array.factory(type, new int[] {N});
+      for (int i = 0; i < N; i++) {
+        if (type.isFloatingPoint())
+          data.setDouble(i, random.nextGaussian());
+        else
+          data.setInt(i, random.nextInt()); // keeps the low bits, so unsigned values have the high bit set too
+      }
+      writer.addVariable(type.toString(), type, Collections.singletonList("n"), null, () -> data);
+    }
+    ByteArrayOutputStream file = new ByteArrayOutputStream();
+    writer.write(file);
+
+    try (NetcdfFile ncfile = NetcdfFiles.openInMemory("types.nc", file.toByteArray())) {
+      NcDDS dds = new NcDDS("types.nc", ncfile);
+      List<NcSDArray> arrays = new ArrayList<>();
+      findArrays(dds.getVariables(), arrays);
+      assertThat(arrays).hasSize(types.length);
+
+      for (NcSDArray array : arrays) {
+        String name = array.getVariable().getShortName();
+        assertWithMessage("type of %s", name).that(array.getVariable().getDataType().toString()).isEqualTo(name);
+        array.read("types.nc", null);
+        assertWithMessage("storage of %s", name)
+            .that(XdrArrayWriter.canWrite(array.getPrimitiveVector().getInternalStorage())).isTrue();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(expected);
+        array.externalizeByValue(out);
+        out.flush();
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        DataOutputStream sink = new DataOutputStream(actual);
+        array.externalize(sink);
+        sink.flush();
+
+        assertWithMessage("externalized %s", name).that(actual.toByteArray()).isEqualTo(expected.toByteArray());
+      }
+    }
+  }
+
+  private static void findArrays(Enumeration<BaseType> vars, List<NcSDArray> arrays) {
+    while (vars.hasMoreElements()) {
+      BaseType bt = vars.nextElement();
+      if (bt instanceof NcSDArray)
+        arrays.add((NcSDArray) bt);
+      else if (bt instanceof DConstructor)
+        findArrays(((DConstructor) bt).getVariables(), arrays);
+    }
+  }
+
+  private static byte[] write(Object storage, boolean unsigned) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream sink = new DataOutputStream(bytes);
+    XdrArrayWriter.write(storage, unsigned, sink);
+    sink.flush();
+    return bytes.toByteArray();
+  }
+}
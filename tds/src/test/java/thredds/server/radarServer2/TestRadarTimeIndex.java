@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.radarServer2;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import thredds.inventory.MFile;
+import thredds.inventory.MFiles;
+import ucar.nc2.time.CalendarDate;
+import ucar.nc2.time.CalendarDateRange;
+
+public class TestRadarTimeIndex {
+  private static final String REGEX = "(\\d{8}_\\d{4})\\.ar2v$";
+  private static final String FORMAT = "yyyyMMdd_HHmm";
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File root;
+
+  @Before
+  public void makeCollection() throws IOException {
+    root = tempFolder.newFolder("level2");
+    // written out of order, to check they are sorted by time
+    for (String station : new String[] {"KFTG", "KTLX"}) {
+      addFile(station, "20240102", "Level2_" + station + "_20240102_1200.ar2v");
+      addFile(station, "20240102", "Level2_" + station + "_20240102_0000.ar2v");
+      addFile(station, "20240102", "Level2_" + station + "_20240102_0600.ar2v");
+      addFile(station, "20240101", "Level2_" + station + "_20240101_2355.ar2v");
+    }
+    addFile("KFTG", "20240102", "README.txt");
+  }
+
+  private void addFile(String station, String day, String name) throws IOException {
+    File dir = new File(new File(root, station), day);
+    assertThat(dir.isDirectory() || dir.mkdirs()).isTrue();
+    assertThat(new File(dir, name).createNewFile()).isTrue();
+  }
+
+  @Test
+  public void shouldSortFilesByTime() throws IOException {
+    RadarTimeIndex index = new RadarTimeIndex(Pattern.compile(REGEX), FORMAT, 600000, null);
+    RadarTimeIndex.Listing files = index.getFiles(MFiles.create(root.getPath() + "/KFTG/20240102"));
+
+    assertThat(files.names).asList().containsExactly("Level2_KFTG_20240102_0000.ar2v",
+        "Level2_KFTG_20240102_0600.ar2v", "Level2_KFTG_20240102_1200.ar2v").inOrder();
+    assertThat(files.times[1]).isEqualTo(CalendarDate.parseISOformat(null, "2024-01-02T06:00:00Z").getMillis());
+
+    long six = files.times[1];
+    assertThat(files.firstAtOrAfter(six)).isEqualTo(1);
+    assertThat(files.firstAfter(six)).isEqualTo(2);
+    assertThat(files.firstAtOrAfter(six + 1)).isEqualTo(2);
+    assertThat(files.firstAfter(Long.MAX_VALUE)).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldParseWithDefaults() {
+    RadarTimeIndex index = new RadarTimeIndex(Pattern.compile("\\d{8}"), "yyyyMMdd", 600000, null);
+    assertThat(index.parseFileTime("x_20240102.nids"))
+        .isEqualTo(CalendarDate.parseISOformat(null, "2024-01-02T00:00:00Z").getMillis());
+    assertThat(index.parseFileTime("x_20241399.nids")).isNull();
+    assertThat(index.parseFileTime("x.nids")).isNull();
+  }
+
+  @Test
+  public void shouldListAgainWhenDirectoryChanges() throws IOException {
+    // a negative update interval checks the directory each time
+    RadarTimeIndex index = new RadarTimeIndex(Pattern.compile(REGEX), FORMAT, -1, null);
+    MFile dir = MFiles.create(root.getPath() + "/KTLX/20240102");
+    RadarTimeIndex.Listing files = index.getFiles(dir);
+    assertThat(index.getFiles(MFiles.create(dir.getPath()))).isSameInstanceAs(files);
+
+    addFile("KTLX", "20240102", "Level2_KTLX_20240102_1800.ar2v");
+    File dirFile = new File(dir.getPath());
+    assertThat(dirFile.setLastModified(dirFile.lastModified() + 10000)).isTrue();
+
+    RadarTimeIndex.Listing updated = index.getFiles(MFiles.create(dir.getPath()));
+    assertThat(updated.size()).isEqualTo(4);
+  }
+
+  @Test
+  public void shouldSaveAndLoad() throws IOException {
+    File indexFile = new File(tempFolder.getRoot(), "index/level2.idx");
+    RadarTimeIndex index = new RadarTimeIndex(Pattern.compile(REGEX), FORMAT, 600000, indexFile);
+    index.getSubDirs(MFiles.create(root.getPath()));
+    index.getFiles(MFiles.create(root.getPath() + "/KFTG/20240102"));
+    index.save();
+    assertThat(indexFile.exists()).isTrue();
+
+    RadarTimeIndex loaded = new RadarTimeIndex(Pattern.compile(REGEX), FORMAT, 600000, indexFile);
+    loaded.load();
+    assertThat(loaded.getNumberOfDirectories()).isEqualTo(2);
+    assertThat(loaded.getSubDirs(MFiles.create(root.getPath()))).containsExactly("KFTG", "KTLX").inOrder();
+
+    // an index made with another file time format is not used
+    RadarTimeIndex other = new RadarTimeIndex(Pattern.compile(REGEX), "yyyyMMdd_HHmmss", 600000, indexFile);
+    other.load();
+    assertThat(other.getNumberOfDirectories()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldQueryInventory() throws IOException {
+    RadarDataInventory inventory = new RadarDataInventory(MFiles.create(root.getPath()), 10);
+    inventory.addStationDir();
+    inventory.addDateDir("yyyyMMdd");
+    inventory.addFileTime(REGEX, FORMAT);
+    assertThat(inventory.listItems(RadarDataInventory.DirType.Station)).containsExactly("KFTG", "KTLX");
+
+    RadarDataInventory.Query query = inventory.newQuery();
+    query.addStation("KTLX");
+    query.addDateRange(CalendarDateRange.of(CalendarDate.parseISOformat(null, "2024-01-01T23:00:00Z"),
+        CalendarDate.parseISOformat(null, "2024-01-02T06:00:00Z")));
+    assertThat(names(query.results())).containsExactly("Level2_KTLX_20240101_2355.ar2v",
+        "Level2_KTLX_20240102_0000.ar2v", "Level2_KTLX_20240102_0600.ar2v");
+
+    // nearest time
+    query = inventory.newQuery();
+    query.addStation("KFTG");
+    CalendarDate time = CalendarDate.parseISOformat(null, "2024-01-02T00:20:00Z");
+    query.addDateRange(CalendarDateRange.of(time, time));
+    assertThat(names(query.results())).containsExactly("Level2_KFTG_20240102_0000.ar2v");
+  }
+
+  private static List<String> names(Collection<RadarDataInventory.Query.QueryResultItem> items) {
+    List<String> names = new ArrayList<>();
+    for (RadarDataInventory.Query.QueryResultItem item : items)
+      names.add(item.file.getName());
+    return names;
+  }
+}
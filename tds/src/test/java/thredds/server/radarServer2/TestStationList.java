@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.radarServer2;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import jakarta.xml.bind.JAXBException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import ucar.unidata.geoloc.Bearing;
+import ucar.unidata.geoloc.LatLonPoint;
+import ucar.unidata.geoloc.LatLonPointImmutable;
+import ucar.unidata.geoloc.LatLonRect;
+
+public class TestStationList {
+
+  private static StationList makeStations(Random random, int n) {
+    StationList stations = new StationList();
+    for (int i = 0; i < n; i++) {
+      double lat = random.nextDouble() * 180 - 90;
+      double lon = random.nextDouble() * 360 - 180;
+      stations.addStation(String.format("S%04d", i), LatLonPoint.create(lat, lon));
+    }
+    return stations;
+  }
+
+  @Test
+  public void shouldFindSameNearestAsLinearScan() {
+    Random random = new Random(17);
+    StationList stations = makeStations(random, 500);
+    for (int i = 0; i < 1000; i++) {
+      double lat = random.nextDouble() * 180 - 90;
+      double lon = random.nextDouble() * 360 - 180;
+      assertThat(stations.getNearest(lon, lat)).isSameInstanceAs(nearest(stations, lon, lat));
+    }
+  }
+
+  @Test
+  public void shouldFindNearestAcrossDateline() {
+    StationList stations = new StationList();
+    stations.addStation("WEST", LatLonPoint.create(10, -179.5));
+    stations.addStation("EAST", LatLonPoint.create(10, 175));
+    assertThat(stations.getNearest(179.8, 10).getStid()).isEqualTo("WEST");
+    assertThat(new StationList().getNearest(0, 0)).isNull();
+  }
+
+  @Test
+  public void shouldFindSameStationsInBoxAsLinearScan() {
+    Random random = new Random(42);
+    StationList stations = makeStations(random, 500);
+    for (int i = 0; i < 200; i++) {
+      double south = random.nextDouble() * 180 - 90;
+      double north = Math.min(90, south + random.nextDouble() * 60);
+      double west = random.nextDouble() * 360 - 180;
+      double east = west + random.nextDouble() * 90;
+      if (east > 180)
+        east -= 360; // crosses the dateline
+      assertThat(stations.getStations(east, west, north, south))
+          .containsExactlyElementsIn(inBox(stations, east, west, north, south)).inOrder();
+    }
+  }
+
+  @Test
+  public void shouldKeepXmlUntilStationsChange() throws JAXBException {
+    StationList stations = new StationList();
+    stations.addStation("KFTG", LatLonPoint.create(39.78, -104.55));
+    byte[] xml = stations.toXml();
+    assertThat(new String(xml, StandardCharsets.UTF_8)).contains("<stationsList>");
+    assertThat(stations.toXml()).isSameInstanceAs(xml);
+
+    stations.addStation("KTLX", LatLonPoint.create(35.33, -97.28));
+    assertThat(new String(stations.toXml(), StandardCharsets.UTF_8)).contains("KTLX");
+  }
+
+  private static StationList.Station nearest(StationList stations, double lon, double lat) {
+    LatLonPointImmutable pt = new LatLonPointImmutable(lat, lon);
+    StationList.Station nearest = null;
+    double minDist = Double.POSITIVE_INFINITY;
+    for (StationList.Station s : stations.getAll()) {
+      double dist = Bearing.calculateBearing(pt, s.getLocation()).getDistance();
+      if (dist < minDist) {
+        minDist = dist;
+        nearest = s;
+      }
+    }
+    return nearest;
+  }
+
+  private static List<StationList.Station> inBox(StationList stations, double east, double west, double north,
+      double south) {
+    LatLonRect rect = new LatLonRect(new LatLonPointImmutable(south, west), new LatLonPointImmutable(north, east));
+    List<StationList.Station> result = new ArrayList<>();
+    for (StationList.Station s : stations.getAll())
+      if (rect.contains(s.getLocation()))
+        result.add(s);
+    return result;
+  }
+}
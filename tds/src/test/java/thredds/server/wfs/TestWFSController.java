@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.wfs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+public class TestWFSController {
+  private static final double[] BOUNDS = {-105.5, 39, -104, 40.25};
+
+  @Test
+  public void shouldParseBBox() {
+    assertThat(WFSController.parseBBox("-105.5, 39, -104, 40.25")).isEqualTo(BOUNDS);
+  }
+
+  @Test
+  public void shouldRejectMalformedBBox() {
+    for (String bbox : new String[] {"", "1,2,3", "1,2,3,4,EPSG:4326,6", "1,2,x,4", "3,2,1,4", "1,4,3,2"}) {
+      assertThrows(bbox, IllegalArgumentException.class, () -> WFSController.parseBBox(bbox));
+    }
+  }
+
+  @Test
+  public void shouldSwapLatLonBBox() {
+    for (String crs : new String[] {"EPSG:4326", "urn:ogc:def:crs:EPSG::4326",
+        "http://www.opengis.net/def/crs/EPSG/0/4326"}) {
+      assertThat(WFSController.parseBBox("39,-105.5,40.25,-104," + crs)).isEqualTo(BOUNDS);
+    }
+  }
+
+  @Test
+  public void shouldNotSwapLonLatBBox() {
+    for (String crs : new String[] {"urn:ogc:def:crs:OGC:1.3:CRS84", "CRS:84"}) {
+      assertThat(WFSController.parseBBox("-105.5,39,-104,40.25," + crs)).isEqualTo(BOUNDS);
+    }
+  }
+
+  @Test
+  public void shouldRejectUnsupportedCRS() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> WFSController.parseBBox("0,0,100,100,urn:ogc:def:crs:EPSG::3857"));
+    assertThat(e).hasMessageThat().contains("EPSG::3857");
+    assertThrows(IllegalArgumentException.class, () -> WFSController.parseBBox("0,0,100,100,"));
+  }
+}
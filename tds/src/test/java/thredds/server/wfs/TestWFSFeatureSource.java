@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.wfs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import ucar.nc2.ft2.simpgeometry.GeometryType;
+import ucar.nc2.ft2.simpgeometry.Point;
+import ucar.nc2.ft2.simpgeometry.SimpleGeometry;
+import ucar.nc2.ft2.simpgeometry.adapter.SimpleGeometryCSBuilder;
+
+public class TestWFSFeatureSource {
+  static final String FT_NAME = "points";
+
+  private SimpleGeometryCSBuilder sgcs;
+  private Point[] points;
+
+  /** A point at x = y = i for each index, where the builder fails past the last one, as it does for a dataset. */
+  static Point[] makePoints(SimpleGeometryCSBuilder sgcs, int n) {
+    Point[] points = new Point[n];
+    for (int i = 0; i < n; i++) {
+      Point point = mock(Point.class);
+      when(point.getX()).thenReturn((double) i);
+      when(point.getY()).thenReturn((double) i);
+      when(point.getBBLower()).thenReturn(new double[] {i, i});
+      when(point.getBBUpper()).thenReturn(new double[] {i, i});
+      points[i] = point;
+    }
+    when(sgcs.getPoint(eq(FT_NAME), anyInt())).thenAnswer(invocation -> {
+      int index = invocation.getArgument(1);
+      if (index >= n)
+        throw new ArrayIndexOutOfBoundsException(index);
+      return points[index];
+    });
+    return points;
+  }
+
+  @Before
+  public void setup() {
+    sgcs = mock(SimpleGeometryCSBuilder.class);
+    points = makePoints(sgcs, 10);
+  }
+
+  private List<SimpleGeometry> read(int startIndex, int count, double[] bbox) {
+    List<SimpleGeometry> result = new ArrayList<>();
+    new WFSFeatureSource(sgcs, FT_NAME, GeometryType.POINT, startIndex, count, bbox).forEach(result::add);
+    return result;
+  }
+
+  @Test
+  public void shouldReadAll() {
+    assertThat(read(0, -1, null)).containsExactlyElementsIn(points).inOrder();
+    assertThat(new WFSFeatureSource(sgcs, FT_NAME, GeometryType.POINT, 0, -1, null).isPaged()).isFalse();
+  }
+
+  @Test
+  public void shouldReadWindow() {
+    assertThat(read(3, 4, null)).containsExactly(points[3], points[4], points[5], points[6]).inOrder();
+    assertThat(read(0, 2, null)).containsExactly(points[0], points[1]).inOrder();
+    assertThat(read(0, 0, null)).isEmpty();
+    assertThat(new WFSFeatureSource(sgcs, FT_NAME, GeometryType.POINT, 3, 4, null).isPaged()).isTrue();
+  }
+
+  @Test
+  public void shouldStopAtLastFeature() {
+    assertThat(read(8, 5, null)).containsExactly(points[8], points[9]).inOrder();
+    assertThat(read(9, -1, null)).containsExactly(points[9]);
+  }
+
+  @Test
+  public void shouldReadNothingPastTheEnd() {
+    assertThat(read(10, -1, null)).isEmpty();
+    assertThat(read(100, 5, null)).isEmpty();
+    assertThat(read(100, -1, new double[] {0, 0, 9, 9})).isEmpty();
+  }
+
+  @Test
+  public void shouldWindowFeaturesInBBox() {
+    double[] bbox = {2.5, 2.5, 7.5, 7.5}; // points 3 to 7
+    assertThat(read(0, -1, bbox)).containsExactly(points[3], points[4], points[5], points[6], points[7]).inOrder();
+    // the start index counts the features in the bbox
+    assertThat(read(1, 2, bbox)).containsExactly(points[4], points[5]).inOrder();
+    assertThat(read(4, 10, bbox)).containsExactly(points[7]);
+    assertThat(read(5, -1, bbox)).isEmpty();
+  }
+
+  @Test
+  public void shouldGiveIndexInFeatureType() {
+    double[] bbox = {2.5, 2.5, 7.5, 7.5};
+    WFSFeatureSource.FeatureIterator iter =
+        new WFSFeatureSource(sgcs, FT_NAME, GeometryType.POINT, 1, 2, bbox).iterator();
+    List<Integer> indexes = new ArrayList<>();
+    while (iter.hasNext()) {
+      iter.next();
+      indexes.add(iter.getIndex());
+    }
+    assertThat(indexes).containsExactly(4, 5).inOrder();
+  }
+
+  @Test
+  public void shouldReadAgainOnEachIteration() {
+    WFSFeatureSource source = new WFSFeatureSource(sgcs, FT_NAME, GeometryType.POINT, 1, 2, null);
+    for (int i = 0; i < 2; i++) {
+      List<SimpleGeometry> result = new ArrayList<>();
+      source.forEach(result::add);
+      assertThat(result).containsExactly(points[1], points[2]).inOrder();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.wfs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import org.junit.Test;
+import ucar.nc2.ft2.simpgeometry.GeometryType;
+import ucar.nc2.ft2.simpgeometry.Point;
+import ucar.nc2.ft2.simpgeometry.Polygon;
+import ucar.nc2.ft2.simpgeometry.adapter.SimpleGeometryCSBuilder;
+
+public class TestWFSGeoJSONFeatureWriter {
+
+  private static String write(WFSFeatureSource source) {
+    StringWriter result = new StringWriter();
+    PrintWriter out = new PrintWriter(result);
+    new WFSGeoJSONFeatureWriter(out, source).write();
+    out.flush();
+    return result.toString();
+  }
+
+  private static Point point(double x, double y) {
+    Point point = mock(Point.class);
+    when(point.getX()).thenReturn(x);
+    when(point.getY()).thenReturn(y);
+    return point;
+  }
+
+  @Test
+  public void shouldIdFeaturesByTheirIndexInTheFeatureType() {
+    SimpleGeometryCSBuilder sgcs = mock(SimpleGeometryCSBuilder.class);
+    TestWFSFeatureSource.makePoints(sgcs, 3);
+    String ftName = TestWFSFeatureSource.FT_NAME;
+
+    String json = write(new WFSFeatureSource(sgcs, ftName, GeometryType.POINT, 1, -1, null));
+    assertThat(json).isEqualTo("{\"type\":\"FeatureCollection\",\"features\":["
+        + "{\"type\":\"Feature\",\"id\":\"points.1\",\"bbox\":[1.0,1.0,1.0,1.0],"
+        + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[1.0,1.0]},\"properties\":{}},"
+        + "{\"type\":\"Feature\",\"id\":\"points.2\",\"bbox\":[2.0,2.0,2.0,2.0],"
+        + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[2.0,2.0]},\"properties\":{}}"
+        + "],\"numberReturned\":2}");
+  }
+
+  @Test
+  public void shouldWriteEmptyCollection() {
+    SimpleGeometryCSBuilder sgcs = mock(SimpleGeometryCSBuilder.class);
+    TestWFSFeatureSource.makePoints(sgcs, 3);
+
+    String json = write(new WFSFeatureSource(sgcs, TestWFSFeatureSource.FT_NAME, GeometryType.POINT, 5, 2, null));
+    assertThat(json).isEqualTo("{\"type\":\"FeatureCollection\",\"features\":[],\"numberReturned\":0}");
+  }
+
+  @Test
+  public void shouldWriteClosedPolygonRingWithoutNonFinitePositions() {
+    Polygon polygon = mock(Polygon.class);
+    when(polygon.getPoints())
+        .thenReturn(Arrays.asList(point(0, 0), point(1, 0), point(1, Double.NaN), point(1, 1)));
+    when(polygon.getBBLower()).thenReturn(new double[] {0, 0});
+    when(polygon.getBBUpper()).thenReturn(new double[] {1, 1});
+    SimpleGeometryCSBuilder sgcs = mock(SimpleGeometryCSBuilder.class);
+    when(sgcs.getPolygon(eq("areas"), anyInt())).thenAnswer(invocation -> {
+      if ((int) invocation.getArgument(1) > 0)
+        throw new ArrayIndexOutOfBoundsException();
+      return polygon;
+    });
+
+    String json = write(new WFSFeatureSource(sgcs, "areas", GeometryType.POLYGON, 0, -1, null));
+    assertThat(json).isEqualTo("{\"type\":\"FeatureCollection\",\"features\":["
+        + "{\"type\":\"Feature\",\"id\":\"areas.0\",\"bbox\":[0.0,0.0,1.0,1.0],"
+        + "\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[[0.0,0.0],[1.0,0.0],[1.0,1.0],[0.0,0.0]]]},"
+        + "\"properties\":{}}],\"numberReturned\":1}");
+  }
+
+  @Test
+  public void shouldLeaveOutFeaturesWithoutFinitePositions() {
+    Point missing = point(Double.NaN, 1);
+    when(missing.getBBLower()).thenReturn(new double[] {Double.NaN, 1});
+    when(missing.getBBUpper()).thenReturn(new double[] {Double.NaN, 1});
+    Point present = point(2, 3);
+    when(present.getBBLower()).thenReturn(new double[] {2, 3});
+    when(present.getBBUpper()).thenReturn(new double[] {2, 3});
+    SimpleGeometryCSBuilder sgcs = mock(SimpleGeometryCSBuilder.class);
+    when(sgcs.getPoint(eq("stations"), anyInt())).thenAnswer(invocation -> {
+      int index = invocation.getArgument(1);
+      if (index > 1)
+        throw new ArrayIndexOutOfBoundsException();
+      return index == 0 ? missing : present;
+    });
+
+    String json = write(new WFSFeatureSource(sgcs, "stations", GeometryType.POINT, 0, -1, null));
+    assertThat(json).isEqualTo("{\"type\":\"FeatureCollection\",\"features\":["
+        + "{\"type\":\"Feature\",\"id\":\"stations.1\",\"bbox\":[2.0,3.0,2.0,3.0],"
+        + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[2.0,3.0]},\"properties\":{}}"
+        + "],\"numberReturned\":1}");
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.server.wms;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestWmsTileCache {
+  private static final String PATH = "localContent/testGridAsPoint.nc";
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldIgnoreParameterOrderAndCase() {
+    Map<String, String[]> params1 = new LinkedHashMap<>();
+    params1.put("REQUEST", new String[] {"GetMap"});
+    params1.put("bbox", new String[] {"-180,-90,0,0"});
+    Map<String, String[]> params2 = new LinkedHashMap<>();
+    params2.put("BBOX", new String[] {"-180,-90,0,0"});
+    params2.put("request", new String[] {"GetMap"});
+
+    assertThat(WmsTileCache.makeKey(PATH, 1, params1)).isEqualTo(WmsTileCache.makeKey(PATH, 1, params2));
+  }
+
+  @Test
+  public void shouldChangeKeyWithDatasetAndParameters() {
+    Map<String, String[]> params = new HashMap<>();
+    params.put("bbox", new String[] {"-180,-90,0,0"});
+    String key = WmsTileCache.makeKey(PATH, 1, params);
+
+    assertThat(WmsTileCache.makeKey(PATH, 2, params)).isNotEqualTo(key);
+    assertThat(WmsTileCache.makeKey("other.nc", 1, params)).isNotEqualTo(key);
+    params.put("bbox", new String[] {"0,0,180,90"});
+    assertThat(WmsTileCache.makeKey(PATH, 1, params)).isNotEqualTo(key);
+  }
+
+  @Test
+  public void shouldGetTileFromMemory() {
+    WmsTileCache cache = new WmsTileCache(1000, null, 0);
+    assertThat(cache.get("key")).isNull();
+
+    cache.put("key", tile(PATH, 10));
+    assertThat(cache.get("key").getBytes()).hasLength(10);
+    assertThat(cache.getMemoryHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldGetTileFromDisk() throws Exception {
+    File dir = tempFolder.newFolder();
+    WmsTileCache cache = new WmsTileCache(0, dir, 1000);
+
+    cache.put("key", tile(PATH, 10));
+    WmsTileCache.Tile tile = cache.get("key");
+    assertThat(tile.getContentType()).isEqualTo("image/png");
+    assertThat(tile.getDatasetPath()).isEqualTo(PATH);
+    assertThat(tile.getBytes()).isEqualTo(tile(PATH, 10).getBytes());
+    assertThat(cache.getDiskHits()).isEqualTo(1);
+    assertThat(dir.listFiles()).hasLength(1);
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedFromDisk() throws Exception {
+    File dir = tempFolder.newFolder();
+    WmsTileCache cache = new WmsTileCache(0, dir, 250);
+
+    cache.put("key1", tile(PATH, 100));
+    cache.put("key2", tile(PATH, 100));
+    assertThat(cache.get("key1")).isNotNull();
+    cache.put("key3", tile(PATH, 100)); // evicts key2
+
+    assertThat(cache.get("key2")).isNull();
+    assertThat(cache.get("key1")).isNotNull();
+    assertThat(cache.get("key3")).isNotNull();
+    assertThat(cache.getDiskEvictions()).isEqualTo(1);
+    assertThat(dir.listFiles()).hasLength(2);
+  }
+
+  @Test
+  public void shouldInvalidateTilesOfDataset() throws Exception {
+    File dir = tempFolder.newFolder();
+    WmsTileCache cache = new WmsTileCache(1000, dir, 1000);
+
+    cache.put("key1", tile(PATH, 10));
+    cache.put("key2", tile("other.nc", 10));
+    cache.invalidate(PATH);
+
+    assertThat(cache.get("key1")).isNull();
+    assertThat(cache.get("key2")).isNotNull();
+    assertThat(dir.listFiles()).hasLength(1);
+  }
+
+  @Test
+  public void shouldNotCacheLargeTiles() {
+    WmsTileCache cache = new WmsTileCache(100L * 1000 * 1000, null, 0);
+    cache.put("key", tile(PATH, WmsTileCache.MAX_TILE_BYTES + 1));
+    assertThat(cache.get("key")).isNull();
+  }
+
+  @Test
+  public void shouldEmptyDirectoryOnStartup() throws Exception {
+    File dir = tempFolder.newFolder();
+    new WmsTileCache(0, dir, 1000).put("key", tile(PATH, 10));
+
+    WmsTileCache cache = new WmsTileCache(0, dir, 1000);
+    assertThat(cache.get("key")).isNull();
+    assertThat(dir.listFiles()).isEmpty();
+  }
+
+  private static WmsTileCache.Tile tile(String path, int size) {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++)
+      bytes[i] = (byte) i;
+    return new WmsTileCache.Tile(path, "image/png", bytes);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.servlet;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import thredds.inventory.MFiles;
+
+public class TestByteRange {
+  private static final long LENGTH = 10000;
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private byte[] contents;
+  private File file;
+
+  @Before
+  public void writeFile() throws IOException {
+    file = tempFolder.newFile("data.bin");
+    contents = new byte[(int) LENGTH];
+    for (int i = 0; i < contents.length; i++)
+      contents[i] = (byte) (i * 7);
+    Files.write(file.toPath(), contents);
+  }
+
+  @Test
+  public void shouldParseSingleRanges() {
+    assertThat(toString(ByteRange.parse("bytes=0-499", LENGTH, 10))).isEqualTo("[0-500]");
+    assertThat(toString(ByteRange.parse("bytes=9500-", LENGTH, 10))).isEqualTo("[9500-10000]");
+    assertThat(toString(ByteRange.parse("bytes=-500", LENGTH, 10))).isEqualTo("[9500-10000]");
+    assertThat(toString(ByteRange.parse("bytes=-20000", LENGTH, 10))).isEqualTo("[0-10000]");
+    assertThat(toString(ByteRange.parse("bytes=9000-20000", LENGTH, 10))).isEqualTo("[9000-10000]");
+    assertThat(toString(ByteRange.parse(" Bytes = 1 - 2 ", LENGTH, 10))).isEqualTo("[1-3]");
+  }
+
+  @Test
+  public void shouldIgnoreInvalidHeaders() {
+    assertThat(ByteRange.parse(null, LENGTH, 10)).isNull();
+    assertThat(ByteRange.parse("items=0-1", LENGTH, 10)).isNull();
+    assertThat(ByteRange.parse("bytes=abc", LENGTH, 10)).isNull();
+    assertThat(ByteRange.parse("bytes=5-1", LENGTH, 10)).isNull();
+    assertThat(ByteRange.parse("bytes=0-1,x-2", LENGTH, 10)).isNull();
+  }
+
+  @Test
+  public void shouldReturnEmptyWhenNotSatisfiable() {
+    assertThat(ByteRange.parse("bytes=10000-", LENGTH, 10)).isEmpty();
+    assertThat(ByteRange.parse("bytes=-0", LENGTH, 10)).isEmpty();
+    assertThat(ByteRange.parse("bytes=20000-20001,30000-", LENGTH, 10)).isEmpty();
+  }
+
+  @Test
+  public void shouldSortAndCoalesceRanges() {
+    assertThat(toString(ByteRange.parse("bytes=5000-5999,0-99,-100", LENGTH, 10)))
+        .isEqualTo("[0-100, 5000-6000, 9900-10000]");
+    // overlapping
+    assertThat(toString(ByteRange.parse("bytes=0-99,50-199", LENGTH, 10))).isEqualTo("[0-200]");
+    // close together
+    assertThat(toString(ByteRange.parse("bytes=0-99,150-199", LENGTH, 10))).isEqualTo("[0-200]");
+    assertThat(toString(ByteRange.parse("bytes=0-99,1000-1099", LENGTH, 10))).isEqualTo("[0-100, 1000-1100]");
+  }
+
+  @Test
+  public void shouldSendOneRangeWhenTooMany() {
+    assertThat(toString(ByteRange.parse("bytes=0-9,1000-1009,2000-2009", LENGTH, 2))).isEqualTo("[0-2010]");
+  }
+
+  @Test
+  public void shouldSendMultipartByteRanges() throws IOException {
+    MockHttpServletRequest req = new MockHttpServletRequest("GET", "/data.bin");
+    req.addHeader("Range", "bytes=5000-5009,-10,0-9");
+    MockHttpServletResponse res = returnFile(req);
+
+    assertThat(res.getStatus()).isEqualTo(HttpServletResponse.SC_PARTIAL_CONTENT);
+    String contentType = res.getContentType();
+    assertThat(contentType).startsWith("multipart/byteranges; boundary=");
+    String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    for (int start : new int[] {0, 5000, 9990}) {
+      String header = "\r\n--" + boundary + "\r\nContent-Type: application/octet-stream\r\nContent-Range: bytes "
+          + start + "-" + (start + 9) + "/" + LENGTH + "\r\n\r\n";
+      expected.write(header.getBytes(StandardCharsets.US_ASCII));
+      expected.write(contents, start, 10);
+    }
+    expected.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+    assertThat(res.getContentAsByteArray()).isEqualTo(expected.toByteArray());
+    assertThat(res.getContentLengthLong()).isEqualTo(expected.size());
+  }
+
+  @Test
+  public void shouldSendSuffixRange() throws IOException {
+    MockHttpServletRequest req = new MockHttpServletRequest("GET", "/data.bin");
+    req.addHeader("Range", "bytes=-100");
+    MockHttpServletResponse res = returnFile(req);
+
+    assertThat(res.getStatus()).isEqualTo(HttpServletResponse.SC_PARTIAL_CONTENT);
+    assertThat(res.getHeader("Content-Range")).isEqualTo("bytes 9900-9999/" + LENGTH);
+    assertThat(res.getContentAsByteArray().length).isEqualTo(100);
+  }
+
+  @Test
+  public void shouldReturnNotSatisfiable() throws IOException {
+    MockHttpServletRequest req = new MockHttpServletRequest("GET", "/data.bin");
+    req.addHeader("Range", "bytes=20000-");
+    MockHttpServletResponse res = returnFile(req);
+
+    assertThat(res.getStatus()).isEqualTo(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    assertThat(res.getHeader("Content-Range")).isEqualTo("bytes */" + LENGTH);
+    assertThat(res.getContentAsByteArray()).isEmpty();
+  }
+
+  private MockHttpServletResponse returnFile(MockHttpServletRequest req) throws IOException {
+    MockHttpServletResponse res = new MockHttpServletResponse();
+    ServletUtil.returnFile(req, res, MFiles.create(file.getAbsolutePath()), "application/octet-stream");
+    return res;
+  }
+
+  private static String toString(List<ByteRange> ranges) {
+    List<String> result = new ArrayList<>();
+    for (ByteRange range : ranges)
+      result.add(range.start + "-" + range.end);
+    return result.toString();
+  }
+}
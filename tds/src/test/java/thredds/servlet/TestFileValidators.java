@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 1998-2026 University Corporation for Atmospheric Research/Unidata
+ * See LICENSE for license information.
+ */
+
+package thredds.servlet;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import thredds.inventory.MFile;
+import thredds.inventory.MFiles;
+
+public class TestFileValidators {
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File file;
+  private byte[] contents;
+
+  @Before
+  public void writeFile() throws IOException {
+    file = tempFolder.newFile("data.bin");
+    contents = new byte[100 * 1000];
+    for (int i = 0; i < contents.length; i++)
+      contents[i] = (byte) i;
+    Files.write(file.toPath(), contents);
+  }
+
+  @Test
+  public void shouldSendWholeFileWithValidators() throws IOException {
+    MockHttpServletResponse res = returnFile(new MockHttpServletRequest("GET", "/data.bin"));
+
+    assertThat(res.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+    assertThat(res.getHeader("ETag")).startsWith("\"");
+    assertThat(res.getDateHeader("Last-Modified")).isEqualTo(file.lastModified() / 1000 * 1000);
+    assertThat(res.getContentAsByteArray()).isEqualTo(contents);
+  }
+
+  @Test
+  public void shouldReturnNotModifiedForSameETag() throws IOException {
+    String etag = returnFile(new MockHttpServletRequest("GET", "/data.bin")).getHeader("ETag");
+
+    MockHttpServletRequest req = new MockHttpServletRequest("GET", "/data.bin");
+    req.addHeader("If-None-Match", "\"other\", " + etag);
+    MockHttpServletResponse res = returnFile(req);
+
+    assertThat(res.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+    assertThat(res.getContentAsByteArray()).isEmpty();
+  }
+
+  @Test
+  public void shouldReturnNotModifiedSinceLastModified() throws IOException {
+    MockHttpServletRequest req = new MockHttpServletRequest("GET", "/data.bin");
+    req.addHeader("If-Modified-Since", file.lastModified());
+    assertThat(returnFile(req).getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+
+    req = new MockHttpServletRequest("GET", "/data.bin");
+    req.addHeader("If-Modified-Since", file.lastModified() - 10000);
+    assertThat(returnFile(req).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+  }
+
+  @Test
+  public void shouldChangeETagWhenFileChanges() throws IOException {
+    String etag = returnFile(new MockHttpServletRequest("GET", "/data.bin")).getHeader("ETag");
+    assertThat(file.setLastModified(file.lastModified() - 10000)).isTrue();
+
+    MockHttpServletRequest req = new MockHttpServletRequest("GET", "/data.bin");
+    req.addHeader("If-None-Match", etag);
+    MockHttpServletResponse res = returnFile(req);
+
+    assertThat(res.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+    assertThat(res.getHeader("ETag")).isNotEqualTo(etag);
+  }
+
+  @Test
+  public void shouldSendRangeOnlyIfRangeMatches() throws IOException {
+    String etag = returnFile(new MockHttpServletRequest("GET", "/data.bin")).getHeader("ETag");
+
+    MockHttpServletRequest req = new MockHttpServletRequest("GET", "/data.bin");
+    req.addHeader("Range", "bytes=10-19");
+    req.addHeader("If-Range", etag);
+    MockHttpServletResponse res = returnFile(req);
+    assertThat(res.getStatus()).isEqualTo(HttpServletResponse.SC_PARTIAL_CONTENT);
+    assertThat(res.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(contents, 10, 20));
+
+    req = new MockHttpServletRequest("GET", "/data.bin");
+    req.addHeader("Range", "bytes=10-19");
+    req.addHeader("If-Range", "\"other\"");
+    res = returnFile(req);
+    assertThat(res.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+    assertThat(res.getContentAsByteArray()).isEqualTo(contents);
+  }
+
+  @Test
+  public void shouldLeaveFileToContainerWithSendfile() throws IOException {
+    MockHttpServletRequest req = new MockHttpServletRequest("GET", "/data.bin");
+    req.setAttribute(ServletUtil.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+    req.addHeader("Range", "bytes=10-");
+    MockHttpServletResponse res = returnFile(req);
+
+    assertThat(res.getContentAsByteArray()).isEmpty();
+    assertThat(req.getAttribute(ServletUtil.SENDFILE_FILENAME_ATTR)).isEqualTo(file.getAbsolutePath());
+    assertThat(req.getAttribute(ServletUtil.SENDFILE_START_ATTR)).isEqualTo(10L);
+    assertThat(req.getAttribute(ServletUtil.SENDFILE_END_ATTR)).isEqualTo((long) contents.length);
+  }
+
+  @Test
+  public void shouldCompareETagsStronglyForIfRange() {
+    assertThat(FileValidators.matches("W/\"abc\"", "\"abc\"", false)).isTrue();
+    assertThat(FileValidators.matches("W/\"abc\"", "\"abc\"", true)).isFalse();
+    assertThat(FileValidators.matches("*", "\"abc\"", false)).isTrue();
+    assertThat(FileValidators.matches("\"abd\"", "\"abc\"", false)).isFalse();
+  }
+
+  private MockHttpServletResponse returnFile(MockHttpServletRequest req) throws IOException {
+    MockHttpServletResponse res = new MockHttpServletResponse();
+    MFile mfile = MFiles.create(file.getAbsolutePath());
+    ServletUtil.returnFile(req, res, mfile, "application/octet-stream");
+    return res;
+  }
+}